@@ -1,8 +1,11 @@
 package eu.europeana.indexing;
 
+import eu.europeana.indexing.metrics.IndexingMetrics;
+import eu.europeana.indexing.solr.SolrDocumentPopulator;
 import eu.europeana.metis.mongo.RecordRedirectDao;
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 import org.apache.solr.client.solrj.SolrClient;
 import org.apache.solr.client.solrj.SolrServerException;
 import eu.europeana.corelib.mongo.server.EdmMongoServer;
@@ -31,23 +34,66 @@ public interface AbstractConnectionProvider extends Closeable {
    */
   default FullBeanPublisher getFullBeanPublisher(boolean preserveUpdateAndCreateTimesFromRdf) {
     return new FullBeanPublisher(getEdmMongoClient(), getRecordRedirectDao(), getSolrClient(),
-        preserveUpdateAndCreateTimesFromRdf);
+        preserveUpdateAndCreateTimesFromRdf, isSolrPartialUpdatesEnabled(),
+        getIndexingMetrics());
   }
 
   /**
+   * Provides a Publisher object for publishing Full Beans so that they may be found by users. The
+   * publisher uses the given buffer and populator for the Solr documents. The populator can be
+   * reused for multiple publishers, but the buffer should not be shared between publishers that
+   * are used concurrently, as a flush sends (and reports on) all documents in the buffer.
+   *
+   * @param preserveUpdateAndCreateTimesFromRdf This determines whether this publisher should use
+   * the updated and created times from the incoming RDFs, or whether it computes its own.
+   * @param solrDocumentBuffer The buffer for the Solr documents. It should send the documents to
+   * the Solr client of this provider.
+   * @param solrDocumentPopulator The populator for the Solr documents.
+   * @return A publisher.
+   */
+  default FullBeanPublisher getFullBeanPublisher(boolean preserveUpdateAndCreateTimesFromRdf,
+      SolrDocumentBuffer solrDocumentBuffer, SolrDocumentPopulator solrDocumentPopulator) {
+    return new FullBeanPublisher(getEdmMongoClient(), getRecordRedirectDao(), getSolrClient(),
+        preserveUpdateAndCreateTimesFromRdf, isSolrPartialUpdatesEnabled(), getIndexingMetrics(),
+        solrDocumentBuffer, solrDocumentPopulator);
+  }
+
+  /**
+   * <p>
    * This method will trigger a flush operation on pending changes/updates to the persistent data,
    * causing it to become permanent as well as available to other processes. Calling this method is
    * not obligatory, and indexing will work without it. This just allows the caller to determine the
    * moment when changes are written to disk rather than wait for this to be triggered by the
    * infrastructure/library itself at its own discretion.
    *
+   * </p>
+   * <p>
+   * Concurrent flush requests are coalesced into one single commit by the {@link
+   * SolrCommitCoordinator} of this provider, which may be shared with other providers.
+   * </p>
+   *
    * @param blockUntilComplete If true, the call blocks until the flush is complete.
    * @throws IOException If there is a low-level I/O error.
    * @throws SolrServerException If there is an error on the server.
    */
   default void triggerFlushOfPendingChanges(boolean blockUntilComplete)
       throws SolrServerException, IOException {
-    getSolrClient().commit(blockUntilComplete, blockUntilComplete);
+    if (blockUntilComplete) {
+      getSolrCommitCoordinator().commitAndWait(getSolrClient());
+    } else {
+      getSolrCommitCoordinator().requestCommit(getSolrClient());
+    }
+  }
+
+  /**
+   * This method will trigger a flush operation on pending changes/updates to the persistent data
+   * (see {@link #triggerFlushOfPendingChanges(boolean)}) without blocking.
+   *
+   * @return A future that completes when the flush is complete. If the flush fails, the future
+   * completes exceptionally (with a {@link SolrServerException} or an {@link IOException}).
+   */
+  default CompletableFuture<Void> triggerFlushOfPendingChangesAsync() {
+    return getSolrCommitCoordinator().requestCommit(getSolrClient());
   }
 
   /**
@@ -59,6 +105,15 @@ public interface AbstractConnectionProvider extends Closeable {
     return new IndexedRecordAccess(getEdmMongoClient(), getSolrClient());
   }
 
+  /**
+   * Provides a tier recalculator for recalculating the tiers of indexed records.
+   *
+   * @return A tier recalculator.
+   */
+  default TierRecalculator getTierRecalculator() {
+    return new TierRecalculator(getEdmMongoClient(), getSolrClient());
+  }
+
   /**
    * Provides a Solr client object for connecting with the Solr database.
    *
@@ -66,6 +121,32 @@ public interface AbstractConnectionProvider extends Closeable {
    */
   SolrClient getSolrClient();
 
+  /**
+   * Provides the commit coordinator for the Solr client. This object may be shared with other
+   * providers that connect to the same Solr cluster (see {@link IndexerFactory}), so it should not
+   * be closed: instead, a provider should wait for any pending commit before closing its client.
+   *
+   * @return A Solr commit coordinator.
+   */
+  SolrCommitCoordinator getSolrCommitCoordinator();
+
+  /**
+   * Provides the metrics to which the indexing stages report.
+   *
+   * @return The metrics. Is not null (but may be disabled, see {@link IndexingMetrics#disabled()}).
+   */
+  IndexingMetrics getIndexingMetrics();
+
+  /**
+   * Determines whether records that are reindexed are sent to Solr as partial updates (see {@link
+   * IndexingSettings#setSolrPartialUpdatesEnabled(boolean)}). By default, this is not the case.
+   *
+   * @return Whether partial updates are enabled.
+   */
+  default boolean isSolrPartialUpdatesEnabled() {
+    return false;
+  }
+
   /**
    * Provides a Mongo client object for connecting with the Mongo database.
    *
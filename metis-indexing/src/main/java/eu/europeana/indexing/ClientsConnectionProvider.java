@@ -1,7 +1,9 @@
 package eu.europeana.indexing;
 
 import eu.europeana.corelib.mongo.server.EdmMongoServer;
+import eu.europeana.indexing.SolrCommitCoordinator.CommitPolicy;
 import eu.europeana.indexing.exception.SetupRelatedIndexingException;
+import eu.europeana.indexing.metrics.IndexingMetrics;
 import eu.europeana.metis.mongo.RecordRedirectDao;
 import org.apache.solr.client.solrj.SolrClient;
 
@@ -17,6 +19,8 @@ final class ClientsConnectionProvider implements AbstractConnectionProvider {
   private final EdmMongoServer edmMongoClient;
   private final RecordRedirectDao recordRedirectDao;
   private final SolrClient solrClient;
+  private final SolrCommitCoordinator solrCommitCoordinator;
+  private final IndexingMetrics indexingMetrics;
 
   /**
    * Constructor.
@@ -29,15 +33,58 @@ final class ClientsConnectionProvider implements AbstractConnectionProvider {
   ClientsConnectionProvider(EdmMongoServer edmMongoClient, RecordRedirectDao recordRedirectDao,
       SolrClient solrClient)
       throws SetupRelatedIndexingException {
+    this(edmMongoClient, recordRedirectDao, solrClient, IndexingMetrics.disabled());
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param edmMongoClient The Mongo client to be used. Cannot be null.
+   * @param recordRedirectDao The record redirect dao.
+   * @param solrClient The Solr client to be used. Cannot be null.
+   * @param indexingMetrics The metrics to report to. Cannot be null.
+   * @throws SetupRelatedIndexingException In case either of the two clients or the metrics are
+   * null.
+   */
+  ClientsConnectionProvider(EdmMongoServer edmMongoClient, RecordRedirectDao recordRedirectDao,
+      SolrClient solrClient, IndexingMetrics indexingMetrics)
+      throws SetupRelatedIndexingException {
+    this(edmMongoClient, recordRedirectDao, solrClient, indexingMetrics,
+        new SolrCommitCoordinator(SolrCommitCoordinator.DEFAULT_WINDOW, CommitPolicy.HARD));
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param edmMongoClient The Mongo client to be used. Cannot be null.
+   * @param recordRedirectDao The record redirect dao.
+   * @param solrClient The Solr client to be used. Cannot be null.
+   * @param indexingMetrics The metrics to report to. Cannot be null.
+   * @param solrCommitCoordinator The commit coordinator to use. May be shared with other
+   * providers. Cannot be null.
+   * @throws SetupRelatedIndexingException In case either of the two clients, the metrics or the
+   * commit coordinator are null.
+   */
+  ClientsConnectionProvider(EdmMongoServer edmMongoClient, RecordRedirectDao recordRedirectDao,
+      SolrClient solrClient, IndexingMetrics indexingMetrics,
+      SolrCommitCoordinator solrCommitCoordinator) throws SetupRelatedIndexingException {
     if (edmMongoClient == null) {
       throw new SetupRelatedIndexingException("The provided Mongo client is null.");
     }
     if (solrClient == null) {
       throw new SetupRelatedIndexingException("The provided Solr client is null.");
     }
+    if (indexingMetrics == null) {
+      throw new SetupRelatedIndexingException("The provided metrics object is null.");
+    }
+    if (solrCommitCoordinator == null) {
+      throw new SetupRelatedIndexingException("The provided commit coordinator is null.");
+    }
     this.edmMongoClient = edmMongoClient;
     this.recordRedirectDao = recordRedirectDao;
     this.solrClient = solrClient;
+    this.solrCommitCoordinator = solrCommitCoordinator;
+    this.indexingMetrics = indexingMetrics;
   }
 
   @Override
@@ -45,6 +92,16 @@ final class ClientsConnectionProvider implements AbstractConnectionProvider {
     return solrClient;
   }
 
+  @Override
+  public SolrCommitCoordinator getSolrCommitCoordinator() {
+    return solrCommitCoordinator;
+  }
+
+  @Override
+  public IndexingMetrics getIndexingMetrics() {
+    return indexingMetrics;
+  }
+
   @Override
   public EdmMongoServer getEdmMongoClient() {
     return edmMongoClient;
@@ -57,6 +114,7 @@ final class ClientsConnectionProvider implements AbstractConnectionProvider {
 
   @Override
   public void close() {
-    // Nothing to do: the two clients are to be closed by the caller.
+    // The two clients are to be closed by the caller. We only complete any scheduled commits.
+    solrCommitCoordinator.awaitPendingCommit();
   }
 }
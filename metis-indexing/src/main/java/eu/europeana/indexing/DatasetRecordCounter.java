@@ -0,0 +1,134 @@
+package eu.europeana.indexing;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBCollection;
+import com.mongodb.DBObject;
+import dev.morphia.Datastore;
+import eu.europeana.corelib.solr.bean.impl.FullBeanImpl;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * <p>
+ * This class maintains the number of records per dataset in a separate collection, so that the
+ * number of records in a dataset can be obtained without scanning the records. The counter of a
+ * dataset is created by an exact count (see {@link #recount(String)}) the first time the number of
+ * records is requested. After that, it is kept up to date when records are added or removed.
+ * </p>
+ * <p>
+ * The counters are eventually consistent: the updates are not performed in the same transaction as
+ * the changes to the records (and they are not performed at all by other applications that change
+ * the records). The counters can be corrected by recounting the records, for instance
+ * periodically for all datasets (see {@link #reconcileAll()}).
+ * </p>
+ */
+class DatasetRecordCounter {
+
+  static final String COUNTER_COLLECTION_NAME = "DatasetRecordCount";
+
+  private static final String ID_FIELD = "_id";
+  private static final String COUNT_FIELD = "count";
+  private static final String RECOUNTED_FIELD = "recounted";
+  private static final String ABOUT_FIELD = "about";
+
+  private static final Pattern RECORD_ID_PATTERN = Pattern.compile("^/([^/]+)/");
+
+  private final Datastore datastore;
+
+  /**
+   * Constructor.
+   *
+   * @param datastore The Mongo datastore containing the records and the counters.
+   */
+  DatasetRecordCounter(Datastore datastore) {
+    this.datastore = datastore;
+  }
+
+  /**
+   * Obtains the dataset ID from the rdf:about value of a record. This is the inverse of the record
+   * ID prefix as used in {@link IndexedRecordAccess}.
+   *
+   * @param rdfAbout The rdf:about value of the record.
+   * @return The dataset ID, or an empty optional if the rdf:about value is not of the expected
+   * form.
+   */
+  static Optional<String> getDatasetId(String rdfAbout) {
+    final Matcher matcher = RECORD_ID_PATTERN.matcher(rdfAbout == null ? "" : rdfAbout);
+    return matcher.find() ? Optional.of(matcher.group(1)) : Optional.empty();
+  }
+
+  /**
+   * Returns the number of records in the given dataset. If there is no counter for this dataset,
+   * the records are counted and the counter is created.
+   *
+   * @param datasetId The ID of the dataset. Is not null.
+   * @return The number of records in the dataset.
+   */
+  long count(String datasetId) {
+    final DBObject counter = getCounterCollection()
+        .findOne(new BasicDBObject(ID_FIELD, datasetId));
+    return counter == null ? recount(datasetId) : ((Number) counter.get(COUNT_FIELD)).longValue();
+  }
+
+  /**
+   * Counts the records in the given dataset (using the rdf:about value prefix) and sets the counter
+   * to the result. This can be used to correct the counter in case it is not accurate.
+   *
+   * @param datasetId The ID of the dataset. Is not null.
+   * @return The number of records in the dataset.
+   */
+  long recount(String datasetId) {
+    final long count = datastore.createQuery(FullBeanImpl.class).field(ABOUT_FIELD)
+        .startsWith(DatasetRemover.getRecordIdPrefix(datasetId)).count();
+    getCounterCollection().update(new BasicDBObject(ID_FIELD, datasetId), new BasicDBObject(
+        "$set", new BasicDBObject(COUNT_FIELD, count).append(RECOUNTED_FIELD, new Date())), true,
+        false);
+    return count;
+  }
+
+  /**
+   * Recounts the records of all datasets that have a counter (see {@link #recount(String)}).
+   *
+   * @return The number of datasets that were recounted.
+   */
+  int reconcileAll() {
+    final List<String> datasetIds = getCounterCollection()
+        .find(new BasicDBObject(), new BasicDBObject(ID_FIELD, 1)).toArray().stream()
+        .map(counter -> (String) counter.get(ID_FIELD)).collect(Collectors.toList());
+    datasetIds.forEach(this::recount);
+    return datasetIds.size();
+  }
+
+  /**
+   * Changes the counter of the given dataset. If there is no counter for this dataset, nothing
+   * happens (the counter will be created by an exact count when it is first needed).
+   *
+   * @param datasetId The ID of the dataset. Is not null.
+   * @param difference The number of records that were added (or, if negative, removed).
+   */
+  void increment(String datasetId, long difference) {
+    if (difference != 0) {
+      getCounterCollection().update(new BasicDBObject(ID_FIELD, datasetId),
+          new BasicDBObject("$inc", new BasicDBObject(COUNT_FIELD, difference)));
+    }
+  }
+
+  /**
+   * Sets the counter of the given dataset to zero (e.g. after all records are removed). If there
+   * is no counter for this dataset, nothing happens.
+   *
+   * @param datasetId The ID of the dataset. Is not null.
+   */
+  void reset(String datasetId) {
+    getCounterCollection().update(new BasicDBObject(ID_FIELD, datasetId),
+        new BasicDBObject("$set", new BasicDBObject(COUNT_FIELD, 0L)));
+  }
+
+  private DBCollection getCounterCollection() {
+    return datastore.getDB().getCollection(COUNTER_COLLECTION_NAME);
+  }
+}
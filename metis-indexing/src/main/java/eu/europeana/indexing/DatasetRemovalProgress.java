@@ -0,0 +1,72 @@
+package eu.europeana.indexing;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class keeps track of the progress of the removal of a dataset (see {@link
+ * Indexer#removeAll(String, java.util.Date, DatasetRemovalProgress)}). The counters are updated
+ * while the removal is in progress and can be read from any thread.
+ */
+public class DatasetRemovalProgress {
+
+  private final AtomicLong recordsRemovedFromMongo = new AtomicLong();
+  private final AtomicLong dependentEntitiesRemovedFromMongo = new AtomicLong();
+  private final AtomicLong recordsRemovedFromSolr = new AtomicLong();
+  private final AtomicLong chunksCompleted = new AtomicLong();
+  private volatile String lastRemovedRecordId;
+
+  void addRecordsRemovedFromMongo(long count) {
+    recordsRemovedFromMongo.addAndGet(count);
+  }
+
+  void addDependentEntitiesRemovedFromMongo(long count) {
+    dependentEntitiesRemovedFromMongo.addAndGet(count);
+  }
+
+  void addRecordsRemovedFromSolr(long count) {
+    recordsRemovedFromSolr.addAndGet(count);
+  }
+
+  void chunkCompleted(String lastRecordIdInChunk) {
+    this.lastRemovedRecordId = lastRecordIdInChunk;
+    chunksCompleted.incrementAndGet();
+  }
+
+  /**
+   * @return The number of records that were removed from Mongo so far.
+   */
+  public long getRecordsRemovedFromMongo() {
+    return recordsRemovedFromMongo.get();
+  }
+
+  /**
+   * @return The number of dependent entities (aggregations, proxies etc.) that were removed from
+   * Mongo so far.
+   */
+  public long getDependentEntitiesRemovedFromMongo() {
+    return dependentEntitiesRemovedFromMongo.get();
+  }
+
+  /**
+   * @return The number of records for which a removal from Solr was performed so far (not
+   * including the final clean-up of records that exist only in Solr).
+   */
+  public long getRecordsRemovedFromSolr() {
+    return recordsRemovedFromSolr.get();
+  }
+
+  /**
+   * @return The number of chunks of records that were completely removed so far.
+   */
+  public long getChunksCompleted() {
+    return chunksCompleted.get();
+  }
+
+  /**
+   * @return The rdf:about value of the last record of the last chunk that was completely removed,
+   * or null if no chunk was completed yet.
+   */
+  public String getLastRemovedRecordId() {
+    return lastRemovedRecordId;
+  }
+}
@@ -0,0 +1,288 @@
+package eu.europeana.indexing;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBCollection;
+import com.mongodb.DBObject;
+import com.mongodb.DBRef;
+import dev.morphia.Datastore;
+import eu.europeana.corelib.solr.bean.impl.FullBeanImpl;
+import eu.europeana.corelib.solr.entity.AggregationImpl;
+import eu.europeana.corelib.solr.entity.EuropeanaAggregationImpl;
+import eu.europeana.corelib.solr.entity.ProvidedCHOImpl;
+import eu.europeana.corelib.solr.entity.ProxyImpl;
+import eu.europeana.indexing.exception.IndexerRelatedIndexingException;
+import eu.europeana.indexing.solr.EdmLabel;
+import eu.europeana.metis.CommonStringValues;
+import java.io.IOException;
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TimeZone;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.util.ClientUtils;
+
+/**
+ * <p>
+ * This class removes records (and their dependent entities) from the Mongo and Solr data stores.
+ * Datasets are removed in chunks of records with consecutive rdf:about values: for each chunk, the
+ * removal from Solr is performed in a background thread while the record and its dependent
+ * entities (see {@link IndexedRecordAccess#removeRecord(String)}) are removed from Mongo using one
+ * delete per entity type. This bounds the size of each individual operation and allows the caller
+ * to monitor the progress (see {@link DatasetRemovalProgress}).
+ * </p>
+ * <p>
+ * Within a chunk, the dependent entities are removed before the records themselves. So if the
+ * removal is interrupted or fails, it can be resumed by running it again: records that still exist
+ * will still refer to their dependent entities.
+ * </p>
+ */
+final class DatasetRemover {
+
+  /**
+   * The default number of records in a chunk. Note that this should be well below the maximum
+   * number of boolean clauses that Solr accepts in one query (1024 by default).
+   */
+  static final int DEFAULT_CHUNK_SIZE = 500;
+
+  private static final String ID_FIELD = "_id";
+  private static final String ABOUT_FIELD = "about";
+  private static final String TIMESTAMP_UPDATED_FIELD = "timestampUpdated";
+
+  private static final Map<String, Class<?>> DEPENDENT_ENTITY_FIELDS;
+
+  static {
+    final Map<String, Class<?>> dependentEntityFields = new LinkedHashMap<>();
+    dependentEntityFields.put("aggregations", AggregationImpl.class);
+    dependentEntityFields.put("europeanaAggregation", EuropeanaAggregationImpl.class);
+    dependentEntityFields.put("providedCHOs", ProvidedCHOImpl.class);
+    dependentEntityFields.put("proxies", ProxyImpl.class);
+    DEPENDENT_ENTITY_FIELDS = Collections.unmodifiableMap(dependentEntityFields);
+  }
+
+  private final Datastore datastore;
+  private final SolrClient solrClient;
+  private final int chunkSize;
+
+  /**
+   * Constructor.
+   *
+   * @param datastore The Mongo datastore.
+   * @param solrClient The Solr client.
+   */
+  DatasetRemover(Datastore datastore, SolrClient solrClient) {
+    this(datastore, solrClient, DEFAULT_CHUNK_SIZE);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param datastore The Mongo datastore.
+   * @param solrClient The Solr client.
+   * @param chunkSize The (maximum) number of records to remove in one chunk. Must be positive.
+   */
+  DatasetRemover(Datastore datastore, SolrClient solrClient, int chunkSize) {
+    if (chunkSize < 1) {
+      throw new IllegalArgumentException("Chunk size must be positive.");
+    }
+    this.datastore = datastore;
+    this.solrClient = solrClient;
+    this.chunkSize = chunkSize;
+  }
+
+  /**
+   * Removes the record with the given rdf:about value, along with its dependent entities.
+   *
+   * @param rdfAbout The about value of the record to remove. Is not null.
+   * @return Whether or not the record was removed from Mongo.
+   * @throws IndexerRelatedIndexingException In case something went wrong.
+   */
+  boolean removeRecord(String rdfAbout) throws IndexerRelatedIndexingException {
+    try {
+      solrClient.deleteByQuery(createSolrQuery(Collections.singletonList(rdfAbout)));
+      final DBObject record = datastore.getCollection(FullBeanImpl.class)
+          .findOne(new BasicDBObject(ABOUT_FIELD, rdfAbout), createProjection());
+      return record != null
+          && removeFromMongo(Collections.singletonList(record), new DatasetRemovalProgress()) > 0;
+    } catch (SolrServerException | IOException | RuntimeException e) {
+      throw new IndexerRelatedIndexingException("Could not remove record '" + rdfAbout + "'.", e);
+    }
+  }
+
+  /**
+   * Removes all records that belong to a given dataset, along with their dependent entities. See
+   * {@link IndexedRecordAccess#removeDataset(String, Date, DatasetRemovalProgress)}.
+   *
+   * @param datasetId The ID of the dataset to clear. Is not null.
+   * @param maxRecordDate The date that all records that have lower timestampUpdated than that date
+   * would be removed. If null is provided then all records from that dataset will be removed.
+   * @param progress The progress object to update. If it reports a last removed record, the removal
+   * resumes after that record. Is not null.
+   * @return The number of records that were removed from Mongo.
+   * @throws IndexerRelatedIndexingException In case something went wrong, or the thread was
+   * interrupted.
+   */
+  int removeDataset(String datasetId, Date maxRecordDate, DatasetRemovalProgress progress)
+      throws IndexerRelatedIndexingException {
+    final ExecutorService solrExecutor = Executors.newSingleThreadExecutor(runnable -> {
+      final Thread thread = new Thread(runnable, "dataset-removal-solr");
+      thread.setDaemon(true);
+      return thread;
+    });
+    try {
+      int removedCount = 0;
+      String lastAbout = progress.getLastRemovedRecordId();
+      List<DBObject> chunk = getNextChunk(datasetId, maxRecordDate, lastAbout);
+      while (!chunk.isEmpty()) {
+
+        // Remove the chunk from Solr (in the background) and Mongo.
+        final List<String> abouts = chunk.stream().map(record -> (String) record.get(ABOUT_FIELD))
+            .collect(Collectors.toList());
+        final Future<Void> solrRemoval = solrExecutor.submit(() -> {
+          solrClient.deleteByQuery(createSolrQuery(abouts));
+          return null;
+        });
+        removedCount += removeFromMongo(chunk, progress);
+        waitForSolrRemoval(solrRemoval);
+        progress.addRecordsRemovedFromSolr(abouts.size());
+
+        // Register the progress and check whether we should continue.
+        lastAbout = abouts.get(abouts.size() - 1);
+        progress.chunkCompleted(lastAbout);
+        if (Thread.currentThread().isInterrupted()) {
+          throw new IndexerRelatedIndexingException(
+              "Removal of dataset with ID '" + datasetId + "' was interrupted after record '"
+                  + lastAbout + "'.");
+        }
+        chunk = getNextChunk(datasetId, maxRecordDate, lastAbout);
+      }
+
+      // Remove any records that exist in Solr but not (or no longer) in Mongo.
+      solrClient.deleteByQuery(createSolrDatasetQuery(datasetId, maxRecordDate));
+
+      // Done
+      return removedCount;
+
+    } catch (SolrServerException | IOException | RuntimeException e) {
+      throw new IndexerRelatedIndexingException(
+          "Could not remove dataset with ID '" + datasetId + "'.", e);
+    } finally {
+      solrExecutor.shutdownNow();
+    }
+  }
+
+  private List<DBObject> getNextChunk(String datasetId, Date maxRecordDate, String lastAbout) {
+    final BasicDBObject aboutCondition = new BasicDBObject("$regex",
+        Pattern.compile("^" + Pattern.quote(getRecordIdPrefix(datasetId))));
+    if (lastAbout != null) {
+      aboutCondition.append("$gt", lastAbout);
+    }
+    final BasicDBObject query = new BasicDBObject(ABOUT_FIELD, aboutCondition);
+    if (maxRecordDate != null) {
+      query.append(TIMESTAMP_UPDATED_FIELD, new BasicDBObject("$lt", maxRecordDate));
+    }
+    return datastore.getCollection(FullBeanImpl.class).find(query, createProjection())
+        .sort(new BasicDBObject(ABOUT_FIELD, 1)).limit(chunkSize).toArray();
+  }
+
+  private static DBObject createProjection() {
+    final BasicDBObject projection = new BasicDBObject(ABOUT_FIELD, 1);
+    DEPENDENT_ENTITY_FIELDS.keySet().forEach(field -> projection.append(field, 1));
+    return projection;
+  }
+
+  private int removeFromMongo(List<DBObject> records, DatasetRemovalProgress progress) {
+
+    // Remove the dependent entities first: one delete per entity type.
+    for (Entry<String, Class<?>> dependentEntityField : DEPENDENT_ENTITY_FIELDS.entrySet()) {
+      final List<Object> ids = new ArrayList<>();
+      records.forEach(record -> collectReferencedIds(record.get(dependentEntityField.getKey()),
+          ids));
+      if (!ids.isEmpty()) {
+        progress.addDependentEntitiesRemovedFromMongo(
+            removeByIds(datastore.getCollection(dependentEntityField.getValue()), ids));
+      }
+    }
+
+    // Then remove the records themselves.
+    final List<Object> recordIds = records.stream().map(record -> record.get(ID_FIELD))
+        .collect(Collectors.toList());
+    final int removedCount = removeByIds(datastore.getCollection(FullBeanImpl.class), recordIds);
+    progress.addRecordsRemovedFromMongo(removedCount);
+    return removedCount;
+  }
+
+  private static int removeByIds(DBCollection collection, List<Object> ids) {
+    return collection.remove(new BasicDBObject(ID_FIELD, new BasicDBObject("$in", ids))).getN();
+  }
+
+  private static void collectReferencedIds(Object value, List<Object> ids) {
+    if (value instanceof Collection) {
+      ((Collection<?>) value).forEach(item -> collectReferencedIds(item, ids));
+    } else if (value instanceof DBRef) {
+      ids.add(((DBRef) value).getId());
+    } else if (value != null) {
+      ids.add(value);
+    }
+  }
+
+  private static void waitForSolrRemoval(Future<Void> solrRemoval)
+      throws SolrServerException, IOException, IndexerRelatedIndexingException {
+    try {
+      solrRemoval.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IndexerRelatedIndexingException("Interrupted while removing records from Solr.",
+          e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof SolrServerException) {
+        throw (SolrServerException) e.getCause();
+      } else if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      } else if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IndexerRelatedIndexingException("Could not remove records from Solr.", e);
+    }
+  }
+
+  private static String createSolrQuery(List<String> abouts) {
+    return abouts.stream().map(ClientUtils::escapeQueryChars)
+        .collect(Collectors.joining(" OR ", EdmLabel.EUROPEANA_ID.toString() + ":(", ")"));
+  }
+
+  private static String createSolrDatasetQuery(String datasetId, Date maxRecordDate) {
+    final StringBuilder solrQuery = new StringBuilder();
+
+    final String datasetIdRegexEscaped =
+        ClientUtils.escapeQueryChars(getRecordIdPrefix(datasetId)) + "*";
+    solrQuery.append(EdmLabel.EUROPEANA_ID).append(':').append(datasetIdRegexEscaped);
+
+    if (maxRecordDate != null) {
+      //Set date format properly for Solr, the timezone has to be added
+      DateFormat dateFormat = new SimpleDateFormat(CommonStringValues.DATE_FORMAT_SOLR, Locale.US);
+      dateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+      solrQuery.append(" AND ").append(EdmLabel.TIMESTAMP_UPDATED).append(":[* TO ")
+          .append(dateFormat.format(maxRecordDate)).append('}');
+    }
+    return solrQuery.toString();
+  }
+
+  static String getRecordIdPrefix(String datasetId) {
+    return "/" + datasetId + "/";
+  }
+}
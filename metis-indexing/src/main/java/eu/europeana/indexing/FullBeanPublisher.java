@@ -1,5 +1,8 @@
 package eu.europeana.indexing;
 
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBCollection;
+import com.mongodb.DBObject;
 import com.mongodb.MongoClientException;
 import com.mongodb.MongoConfigurationException;
 import com.mongodb.MongoIncompatibleDriverException;
@@ -11,59 +14,105 @@ import eu.europeana.corelib.definitions.edm.beans.FullBean;
 import eu.europeana.corelib.definitions.edm.beans.IdBean;
 import eu.europeana.corelib.mongo.server.EdmMongoServer;
 import eu.europeana.corelib.solr.bean.impl.FullBeanImpl;
+import eu.europeana.indexing.SolrDocumentBuffer.MissingDocumentHandler;
 import eu.europeana.indexing.exception.IndexerRelatedIndexingException;
 import eu.europeana.indexing.exception.IndexingException;
 import eu.europeana.indexing.exception.RecordRelatedIndexingException;
 import eu.europeana.indexing.exception.SetupRelatedIndexingException;
 import eu.europeana.indexing.fullbean.RdfToFullBeanConverter;
+import eu.europeana.indexing.metrics.IndexingMetrics;
+import eu.europeana.indexing.metrics.IndexingStage;
 import eu.europeana.indexing.mongo.FullBeanUpdater;
+import eu.europeana.indexing.mongo.property.MongoBulkOperations;
+import eu.europeana.indexing.solr.EdmLabel;
 import eu.europeana.indexing.solr.SolrDocumentPopulator;
+import eu.europeana.indexing.solr.SolrFieldFingerprints;
 import eu.europeana.indexing.utils.RdfWrapper;
+import eu.europeana.indexing.utils.RecordFingerprint;
 import eu.europeana.indexing.utils.TriConsumer;
 import eu.europeana.metis.mongo.RecordRedirectDao;
-import eu.europeana.metis.utils.ExternalRequestUtil;
 import java.io.IOException;
-import java.net.UnknownHostException;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Supplier;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrRequest.METHOD;
 import org.apache.solr.client.solrj.SolrServerException;
 import org.apache.solr.client.solrj.response.QueryResponse;
 import org.apache.solr.common.SolrDocumentList;
 import org.apache.solr.common.SolrInputDocument;
 import org.apache.solr.common.params.MapSolrParams;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
+ * <p>
  * Publisher for Full Beans (instances of {@link FullBeanImpl}) that makes them accessible and
  * searchable for external agents.
+ * </p>
+ * <p>
+ * Records are saved to Mongo immediately, but their Solr documents are buffered and sent to Solr
+ * in batches. The caller must call {@link #flushSolrDocuments()} after the last record has been
+ * published.
+ * </p>
+ * <p>
+ * A fingerprint of the record content (see {@link RecordFingerprint}) is saved with every full
+ * bean. If a record is published that has the same fingerprint as the saved version, the record is
+ * not saved again: only its updated timestamp is changed, both in Mongo and (using an atomic
+ * update) in Solr. This makes reindexing of unchanged records cheap. The fingerprint is saved only
+ * after the Solr document has been sent successfully, so that a record of which the Solr document
+ * failed is published in full again. The atomic update is applied only if Solr has the document
+ * (see {@link SolrDocumentBuffer#addAtomicUpdate(String, SolrInputDocument, Runnable,
+ * MissingDocumentHandler)}): if it doesn't, the fingerprint is cleared and the record is
+ * published in full after all. To this end, the record is kept in memory until its update is sent.
+ * </p>
+ * <p>
+ * If partial Solr updates are enabled, the fingerprints of the fields of the Solr document (see
+ * {@link SolrFieldFingerprints}) are saved with every full bean as well. If a changed record is
+ * published, only the Solr fields that changed are then sent to Solr (using an atomic update).
+ * The document is sent in full if the previous field fingerprints are not available or if too
+ * many fields changed. Like the record fingerprint, the field fingerprints are saved only after the
+ * document (or the partial update) has been sent successfully. If Solr does not have the document,
+ * the partial update is rejected and the document is sent in full instead.
+ * </p>
  *
  * @author jochen
  */
 class FullBeanPublisher {
 
+  private static final Logger LOGGER = LoggerFactory.getLogger(FullBeanPublisher.class);
+
   private static final String REDIRECT_PUBLISH_ERROR = "Could not publish the redirection changes.";
 
   private static final String MONGO_SERVER_PUBLISH_ERROR = "Could not publish to Mongo server.";
 
-  private static final String SOLR_SERVER_PUBLISH_ERROR = "Could not publish to Solr server.";
   private static final String SOLR_SERVER_SEARCH_ERROR = "Could not search Solr server.";
 
+  private static final String ABOUT_FIELD = "about";
+  static final String FINGERPRINT_FIELD = "fingerprint";
+  static final String SOLR_FIELD_FINGERPRINTS_FIELD = "solrFieldFingerprints";
+  private static final String TIMESTAMP_UPDATED_FIELD = "timestampUpdated";
+
   private static final TriConsumer<FullBeanImpl, FullBeanImpl, Pair<Date, Date>> EMPTY_PREPROCESSOR = (created, updated, recordDateAndCreationDate) -> {
   };
-  private static final int PUBLISH_MAX_RETRIES = 30;
-  private static final int PERIOD_BETWEEN_RETRIES_IN_MILLIS = 1000;
 
   private final Supplier<RdfToFullBeanConverter> fullBeanConverterSupplier;
 
   private final EdmMongoServer edmMongoClient;
   private final SolrClient solrServer;
   private final boolean preserveUpdateAndCreateTimesFromRdf;
+  private final boolean solrPartialUpdatesEnabled;
   private final RecordRedirectDao recordRedirectDao;
+  private final SolrDocumentBuffer solrDocumentBuffer;
+  private final SolrDocumentPopulator solrDocumentPopulator;
+  private final Map<String, Boolean> datasetsWithRecordsCache = new ConcurrentHashMap<>();
+  private final IndexingMetrics indexingMetrics;
 
   /**
    * Constructor.
@@ -73,11 +122,39 @@ class FullBeanPublisher {
    * @param solrServer The searchable persistence.
    * @param preserveUpdateAndCreateTimesFromRdf This determines whether this publisher will use the
    * updated and created times from the incoming RDFs, or whether it computes its own.
+   * @param solrPartialUpdatesEnabled Whether changed records are sent to Solr as partial updates.
+   * @param indexingMetrics The metrics to which the publication stages report.
    */
   FullBeanPublisher(EdmMongoServer edmMongoClient, RecordRedirectDao recordRedirectDao,
-      SolrClient solrServer, boolean preserveUpdateAndCreateTimesFromRdf) {
+      SolrClient solrServer, boolean preserveUpdateAndCreateTimesFromRdf,
+      boolean solrPartialUpdatesEnabled, IndexingMetrics indexingMetrics) {
     this(edmMongoClient, recordRedirectDao, solrServer, preserveUpdateAndCreateTimesFromRdf,
-        RdfToFullBeanConverter::new);
+        solrPartialUpdatesEnabled, indexingMetrics,
+        new SolrDocumentBuffer(solrServer, indexingMetrics), new SolrDocumentPopulator());
+  }
+
+  /**
+   * Constructor for a publisher that uses an existing buffer and populator. This allows the
+   * buffer (with its adapted batch size) and the populator to be reused for many publishers.
+   *
+   * @param edmMongoClient The Mongo persistence.
+   * @param recordRedirectDao The record redirect dao
+   * @param solrServer The searchable persistence.
+   * @param preserveUpdateAndCreateTimesFromRdf This determines whether this publisher will use the
+   * updated and created times from the incoming RDFs, or whether it computes its own.
+   * @param solrPartialUpdatesEnabled Whether changed records are sent to Solr as partial updates.
+   * @param indexingMetrics The metrics to which the publication stages report.
+   * @param solrDocumentBuffer The buffer for the Solr documents. It should send the documents to
+   * the given Solr server.
+   * @param solrDocumentPopulator The populator for the Solr documents.
+   */
+  FullBeanPublisher(EdmMongoServer edmMongoClient, RecordRedirectDao recordRedirectDao,
+      SolrClient solrServer, boolean preserveUpdateAndCreateTimesFromRdf,
+      boolean solrPartialUpdatesEnabled, IndexingMetrics indexingMetrics,
+      SolrDocumentBuffer solrDocumentBuffer, SolrDocumentPopulator solrDocumentPopulator) {
+    this(edmMongoClient, recordRedirectDao, solrServer, preserveUpdateAndCreateTimesFromRdf,
+        RdfToFullBeanConverter::new, solrPartialUpdatesEnabled, indexingMetrics,
+        solrDocumentBuffer, solrDocumentPopulator);
   }
 
   /**
@@ -90,16 +167,26 @@ class FullBeanPublisher {
    * updated and created times from the incoming RDFs, or whether it computes its own.
    * @param fullBeanConverterSupplier Supplies an instance of {@link RdfToFullBeanConverter} used to
    * parse strings to instances of {@link FullBeanImpl}. Will be called once during every publish.
+   * @param solrPartialUpdatesEnabled Whether changed records are sent to Solr as partial updates.
+   * @param indexingMetrics The metrics to which the publication stages report.
+   * @param solrDocumentBuffer The buffer for the Solr documents.
+   * @param solrDocumentPopulator The populator for the Solr documents.
    */
   FullBeanPublisher(EdmMongoServer edmMongoClient,
       RecordRedirectDao recordRedirectDao, SolrClient solrServer,
       boolean preserveUpdateAndCreateTimesFromRdf,
-      Supplier<RdfToFullBeanConverter> fullBeanConverterSupplier) {
+      Supplier<RdfToFullBeanConverter> fullBeanConverterSupplier,
+      boolean solrPartialUpdatesEnabled, IndexingMetrics indexingMetrics,
+      SolrDocumentBuffer solrDocumentBuffer, SolrDocumentPopulator solrDocumentPopulator) {
     this.edmMongoClient = edmMongoClient;
     this.solrServer = solrServer;
     this.fullBeanConverterSupplier = fullBeanConverterSupplier;
     this.preserveUpdateAndCreateTimesFromRdf = preserveUpdateAndCreateTimesFromRdf;
+    this.solrPartialUpdatesEnabled = solrPartialUpdatesEnabled;
     this.recordRedirectDao = recordRedirectDao;
+    this.indexingMetrics = indexingMetrics;
+    this.solrDocumentBuffer = solrDocumentBuffer;
+    this.solrDocumentPopulator = solrDocumentPopulator;
   }
 
   private static void setUpdateAndCreateTime(IdBean current, FullBean updated,
@@ -172,17 +259,13 @@ class FullBeanPublisher {
    */
   private void publish(RdfWrapper rdf, Date recordDate, List<String> datasetIdsToRedirectFrom,
       boolean performRedirects) throws IndexingException {
+    final long publishStart = indexingMetrics.startTimer();
 
     // Convert RDF to Full Bean.
-    final RdfToFullBeanConverter fullBeanConverter = fullBeanConverterSupplier.get();
-    final FullBeanImpl fullBean = fullBeanConverter.convertRdfToFullBean(rdf);
-
-    // Provide the preprocessor: this will set the created and updated timestamps as needed.
-    final TriConsumer<FullBeanImpl, FullBeanImpl, Pair<Date, Date>> fullBeanPreprocessor =
-        preserveUpdateAndCreateTimesFromRdf ? EMPTY_PREPROCESSOR
-            : (FullBeanPublisher::setUpdateAndCreateTime);
+    final FullBeanImpl fullBean = convertRdfToFullBean(rdf);
 
     // Perform redirection
+    final long redirectsStart = indexingMetrics.startTimer();
     final List<Pair<String, Date>> recordsForRedirection;
     try {
       recordsForRedirection = RecordRedirectsUtil.checkAndApplyRedirects(recordRedirectDao, rdf,
@@ -190,13 +273,155 @@ class FullBeanPublisher {
     } catch (RuntimeException e) {
       throw new RecordRelatedIndexingException(REDIRECT_PUBLISH_ERROR, e);
     }
+    indexingMetrics.stopTimer(IndexingStage.REDIRECTS, redirectsStart);
+
+    // Publish
+    publish(rdf, fullBean, recordDate, recordsForRedirection);
+    indexingMetrics.stopTimer(IndexingStage.PUBLISH, publishStart);
+  }
 
-    // Publish to Mongo
-    final FullBeanImpl savedFullBean;
+  /**
+   * Finds the records that are to redirect to the given RDF records. This can be used to resolve
+   * the redirects of a batch of records using as few Solr queries as possible, after which the
+   * records can be published using {@link #publishWithResolvedRedirects(RdfWrapper, Date, List)}.
+   *
+   * @param rdfs The RDF records that are to be published.
+   * @param datasetIdsToRedirectFrom The dataset ids that their records need to be redirected
+   * @return A map from the about values of the given records to the records that should redirect to
+   * them (with their creation dates). All given records are represented in the map.
+   * @throws IndexingException In case an error occurred while searching the records.
+   */
+  Map<String, List<Pair<String, Date>>> findRecordsForRedirection(List<RdfWrapper> rdfs,
+      List<String> datasetIdsToRedirectFrom) throws IndexingException {
     try {
-      savedFullBean = new FullBeanUpdater(fullBeanPreprocessor).update(fullBean, recordDate,
-          recordsForRedirection.stream().map(Pair::getValue).min(Comparator.naturalOrder())
-              .orElse(null), edmMongoClient);
+      return RecordRedirectsUtil.searchMatchingRecordsForRedirection(rdfs,
+          datasetIdsToRedirectFrom, this::getSolrDocuments, datasetsWithRecordsCache);
+    } catch (RuntimeException e) {
+      throw new RecordRelatedIndexingException(REDIRECT_PUBLISH_ERROR, e);
+    }
+  }
+
+  /**
+   * Publishes an RDF, introducing the given redirects.
+   *
+   * @param rdf RDF to publish.
+   * @param recordDate The date that would represent the created/updated date of a record
+   * @param recordsForRedirection The records that are to redirect to this record, as obtained
+   * through {@link #findRecordsForRedirection(List, List)}.
+   * @throws IndexingException which can be one of:
+   * <ul>
+   * <li>{@link IndexerRelatedIndexingException} In case an error occurred during publication.</li>
+   * <li>{@link SetupRelatedIndexingException} in case an error occurred during indexing setup</li>
+   * <li>{@link RecordRelatedIndexingException} in case an error occurred related to record
+   * contents</li>
+   * </ul>
+   */
+  void publishWithResolvedRedirects(RdfWrapper rdf, Date recordDate,
+      List<Pair<String, Date>> recordsForRedirection) throws IndexingException {
+    final long publishStart = indexingMetrics.startTimer();
+
+    // Convert RDF to Full Bean.
+    final FullBeanImpl fullBean = convertRdfToFullBean(rdf);
+
+    // Perform redirection
+    final long redirectsStart = indexingMetrics.startTimer();
+    try {
+      RecordRedirectsUtil.applyRedirects(recordRedirectDao, rdf, recordDate, recordsForRedirection);
+    } catch (RuntimeException e) {
+      throw new RecordRelatedIndexingException(REDIRECT_PUBLISH_ERROR, e);
+    }
+    indexingMetrics.stopTimer(IndexingStage.REDIRECTS, redirectsStart);
+
+    // Publish
+    publish(rdf, fullBean, recordDate, recordsForRedirection);
+    indexingMetrics.stopTimer(IndexingStage.PUBLISH, publishStart);
+  }
+
+  private FullBeanImpl convertRdfToFullBean(RdfWrapper rdf) {
+    final long start = indexingMetrics.startTimer();
+    final RdfToFullBeanConverter fullBeanConverter = fullBeanConverterSupplier.get();
+    final FullBeanImpl result = fullBeanConverter.convertRdfToFullBean(rdf);
+    indexingMetrics.stopTimer(IndexingStage.CONVERSION, start);
+    return result;
+  }
+
+  private void publish(RdfWrapper rdf, FullBeanImpl fullBean, Date recordDate,
+      List<Pair<String, Date>> recordsForRedirection) throws IndexingException {
+
+    // Compute the fingerprint of the record.
+    final long fingerprintStart = indexingMetrics.startTimer();
+    final String fingerprint;
+    try {
+      fingerprint = RecordFingerprint.compute(rdf);
+    } catch (RuntimeException e) {
+      throw new RecordRelatedIndexingException("Could not compute fingerprint of record.", e);
+    }
+    indexingMetrics.stopTimer(IndexingStage.FINGERPRINT, fingerprintStart);
+
+    // Publish to Mongo: if the record is unchanged (and no redirects are introduced that could
+    // change its creation date) we only need to update the timestamp.
+    final Date updatedDate = recordDate == null ? new Date() : recordDate;
+    final long mongoWriteStart = indexingMetrics.startTimer();
+    final boolean unchanged = recordsForRedirection.isEmpty() && performMongoOperation(
+        () -> updateUnchangedRecord(fullBean.getAbout(), fingerprint, updatedDate));
+    if (!unchanged) {
+      publishInFull(rdf, fullBean, recordDate, recordsForRedirection, fingerprint,
+          mongoWriteStart);
+      return;
+    }
+    indexingMetrics.stopTimer(IndexingStage.MONGO_WRITE, mongoWriteStart);
+    indexingMetrics.incrementCounter(IndexingMetrics.RECORDS_UNCHANGED, 1);
+
+    // Publish the timestamp to Solr. If Solr does not have the document (e.g. because it was
+    // removed from Solr only), the record is published in full after all.
+    final Date timestampUpdated =
+        preserveUpdateAndCreateTimesFromRdf ? fullBean.getTimestampUpdated() : updatedDate;
+    publishTimestampToSolr(fullBean.getAbout(), timestampUpdated,
+        () -> publishInFull(rdf, fullBean, recordDate, Collections.emptyList(), fingerprint,
+            indexingMetrics.startTimer()));
+  }
+
+  private void publishInFull(RdfWrapper rdf, FullBeanImpl fullBean, Date recordDate,
+      List<Pair<String, Date>> recordsForRedirection, String fingerprint, long mongoWriteStart)
+      throws IndexingException {
+
+    // Provide the preprocessor: this will set the created and updated timestamps as needed.
+    final TriConsumer<FullBeanImpl, FullBeanImpl, Pair<Date, Date>> timestampPreprocessor =
+        preserveUpdateAndCreateTimesFromRdf ? EMPTY_PREPROCESSOR
+            : (FullBeanPublisher::setUpdateAndCreateTime);
+
+    // Also remember whether the record is new, so that the dataset counter can be updated.
+    final AtomicBoolean isNewRecord = new AtomicBoolean(false);
+    final TriConsumer<FullBeanImpl, FullBeanImpl, Pair<Date, Date>> fullBeanPreprocessor =
+        (current, updated, recordDateAndCreationDate) -> {
+          isNewRecord.set(current == null);
+          timestampPreprocessor.accept(current, updated, recordDateAndCreationDate);
+        };
+
+    // Publish to Mongo.
+    final SolrFieldFingerprints previousSolrFieldFingerprints = performMongoOperation(
+        () -> clearFingerprints(fullBean.getAbout()));
+    final FullBeanImpl savedFullBean = performMongoOperation(() -> {
+      final FullBeanImpl result = new FullBeanUpdater(fullBeanPreprocessor).updateInBulk(fullBean,
+          recordDate, recordsForRedirection.stream().map(Pair::getValue)
+              .min(Comparator.naturalOrder()).orElse(null), edmMongoClient,
+          new MongoBulkOperations(edmMongoClient, indexingMetrics));
+      if (isNewRecord.get()) {
+        DatasetRecordCounter.getDatasetId(result.getAbout()).ifPresent(datasetId ->
+            new DatasetRecordCounter(edmMongoClient.getDatastore()).increment(datasetId, 1));
+      }
+      return result;
+    });
+    indexingMetrics.stopTimer(IndexingStage.MONGO_WRITE, mongoWriteStart);
+    indexingMetrics.incrementCounter(IndexingMetrics.RECORDS_PUBLISHED, 1);
+
+    // Publish to Solr
+    publishToSolr(rdf, savedFullBean, fingerprint, previousSolrFieldFingerprints);
+  }
+
+  private static <T> T performMongoOperation(Supplier<T> operation) throws IndexingException {
+    try {
+      return operation.get();
     } catch (MongoIncompatibleDriverException | MongoConfigurationException | MongoSecurityException e) {
       throw new SetupRelatedIndexingException(MONGO_SERVER_PUBLISH_ERROR, e);
     } catch (MongoSocketException | MongoClientException | MongoInternalException | MongoInterruptedException e) {
@@ -204,45 +429,141 @@ class FullBeanPublisher {
     } catch (RuntimeException e) {
       throw new RecordRelatedIndexingException(MONGO_SERVER_PUBLISH_ERROR, e);
     }
+  }
 
-    // Publish to Solr
+  /**
+   * Checks whether the stored version of the record has the given fingerprint (i.e. whether the
+   * record is unchanged). If so, the updated timestamp of the stored record is set (unless the
+   * timestamps are preserved from the RDF, in which case they are part of the fingerprint).
+   *
+   * @return Whether the record was unchanged. If false, nothing was updated.
+   */
+  private boolean updateUnchangedRecord(String about, String fingerprint, Date updatedDate) {
+    final DBObject query = new BasicDBObject(ABOUT_FIELD, about)
+        .append(FINGERPRINT_FIELD, fingerprint);
+    final DBCollection collection = edmMongoClient.getDatastore()
+        .getCollection(FullBeanImpl.class);
+    if (preserveUpdateAndCreateTimesFromRdf) {
+      return collection.count(query) > 0;
+    }
+    return collection.update(query, new BasicDBObject("$set",
+        new BasicDBObject(TIMESTAMP_UPDATED_FIELD, updatedDate))).getN() > 0;
+  }
+
+  /**
+   * Removes the fingerprints from the stored version of the record (if it exists), so that the
+   * record is not considered unchanged (or partially updated) if publication fails.
+   *
+   * @return The Solr field fingerprints of the stored version of the record. Is null if partial
+   * Solr updates are not enabled or no (valid) fingerprints were stored.
+   */
+  private SolrFieldFingerprints clearFingerprints(String about) {
+    final DBObject query = new BasicDBObject(ABOUT_FIELD, about);
+    final DBObject operation = new BasicDBObject("$unset",
+        new BasicDBObject(FINGERPRINT_FIELD, "").append(SOLR_FIELD_FINGERPRINTS_FIELD, ""));
+    final DBCollection collection = edmMongoClient.getDatastore()
+        .getCollection(FullBeanImpl.class);
+    if (!solrPartialUpdatesEnabled) {
+      collection.update(query, operation);
+      return null;
+    }
+    final DBObject previous = collection.findAndModify(query,
+        new BasicDBObject(SOLR_FIELD_FINGERPRINTS_FIELD, 1), null, false, operation, false, false);
+    return previous == null ? null
+        : SolrFieldFingerprints.fromStoredValue(previous.get(SOLR_FIELD_FINGERPRINTS_FIELD));
+  }
+
+  /**
+   * Saves the fingerprint of the record and the Solr field fingerprints (if not null). This is
+   * called once the record is published in full (i.e. also in Solr). If this fails, the record is
+   * not recognized as unchanged (and its Solr document is sent in full) when it is published again,
+   * which is harmless. Therefore, this method does not throw any exceptions.
+   */
+  private void setFingerprints(String about, String fingerprint,
+      SolrFieldFingerprints solrFieldFingerprints) {
+    final BasicDBObject values = new BasicDBObject(FINGERPRINT_FIELD, fingerprint);
+    if (solrFieldFingerprints != null) {
+      values.append(SOLR_FIELD_FINGERPRINTS_FIELD, solrFieldFingerprints.toStoredValue());
+    }
     try {
-      ExternalRequestUtil.retryableExternalRequest(() -> {
-            publishToSolr(rdf, savedFullBean);
-            return null;
-          }, Collections.singletonMap(UnknownHostException.class, ""), PUBLISH_MAX_RETRIES,
-          PERIOD_BETWEEN_RETRIES_IN_MILLIS);
-    } catch (IndexingException e) {
-      throw e;
-    } catch (Exception e) {
-      throw new RecordRelatedIndexingException(SOLR_SERVER_PUBLISH_ERROR, e);
+      edmMongoClient.getDatastore().getCollection(FullBeanImpl.class)
+          .update(new BasicDBObject(ABOUT_FIELD, about), new BasicDBObject("$set", values));
+    } catch (RuntimeException e) {
+      LOGGER.warn("Could not save the fingerprints of record {}.", about, e);
     }
   }
 
-  private void publishToSolr(RdfWrapper rdf, FullBeanImpl fullBean) throws IndexingException {
+  /**
+   * Sends any Solr documents that are still buffered to Solr (see {@link SolrDocumentBuffer}) and
+   * reports any records of which the Solr document failed to be published. This method should be
+   * called after the last record is published.
+   *
+   * @throws IndexingException In case one or more records could not be published to Solr. This
+   * is the exception of the first record, with the exceptions of any other records attached as
+   * suppressed exceptions.
+   */
+  void flushSolrDocuments() throws IndexingException {
+    solrDocumentBuffer.flush();
+  }
+
+  private void publishToSolr(RdfWrapper rdf, FullBeanImpl fullBean, String fingerprint,
+      SolrFieldFingerprints previousSolrFieldFingerprints) throws IndexingException {
 
-    // Create Solr document.
-    final SolrDocumentPopulator documentPopulator = new SolrDocumentPopulator();
+    // Create Solr document. Note that the document is buffered, so it can not be reused.
+    final long start = indexingMetrics.startTimer();
     final SolrInputDocument document = new SolrInputDocument();
-    documentPopulator.populateWithProperties(document, fullBean);
-    documentPopulator.populateWithFacets(document, rdf);
+    solrDocumentPopulator.populate(document, fullBean, rdf);
 
-    // Save Solr document.
-    try {
-      solrServer.add(document);
-    } catch (IOException e) {
-      throw new IndexerRelatedIndexingException(SOLR_SERVER_PUBLISH_ERROR, e);
-    } catch (SolrServerException | RuntimeException e) {
-      throw new RecordRelatedIndexingException(SOLR_SERVER_PUBLISH_ERROR, e);
+    // Compare with the previous version if possible, to create a partial update.
+    final SolrFieldFingerprints solrFieldFingerprints =
+        solrPartialUpdatesEnabled ? SolrFieldFingerprints.compute(document) : null;
+    final SolrInputDocument partialUpdate;
+    if (solrFieldFingerprints == null || previousSolrFieldFingerprints == null) {
+      partialUpdate = null;
+    } else {
+      partialUpdate = solrFieldFingerprints
+          .createAtomicUpdate(document, previousSolrFieldFingerprints);
+    }
+    indexingMetrics.stopTimer(IndexingStage.SOLR_DOCUMENT, start);
+
+    // Add Solr document or the partial update (if there are changes) to the buffer. The
+    // fingerprints are saved once Solr is up to date: until then they remain cleared, so that if
+    // the document fails, the next publication does not rely on a state that Solr never received.
+    final String about = fullBean.getAbout();
+    final Runnable onSuccess = () -> setFingerprints(about, fingerprint, solrFieldFingerprints);
+    if (partialUpdate == null) {
+      solrDocumentBuffer.add(about, document, onSuccess);
+    } else {
+      indexingMetrics.incrementCounter(IndexingMetrics.SOLR_PARTIAL_UPDATES, 1);
+      if (partialUpdate.size() > 1) {
+        // If Solr does not have the document, the partial update is replaced by the full document.
+        solrDocumentBuffer.addAtomicUpdate(about, partialUpdate, onSuccess,
+            () -> solrDocumentBuffer.add(about, document, onSuccess));
+      } else {
+        onSuccess.run();
+      }
     }
   }
 
+  private void publishTimestampToSolr(String about, Date updatedDate,
+      MissingDocumentHandler onMissingDocument) throws IndexingException {
+
+    // Create an atomic update of the timestamp only.
+    final SolrInputDocument document = new SolrInputDocument();
+    document.addField(EdmLabel.EUROPEANA_ID.toString(), about);
+    document.addField(EdmLabel.TIMESTAMP_UPDATED.toString(),
+        Collections.singletonMap("set", updatedDate));
+
+    // Add the update to the buffer: it is applied only if Solr has the document.
+    solrDocumentBuffer.addAtomicUpdate(about, document, null, onMissingDocument);
+  }
+
   private SolrDocumentList getSolrDocuments(Map<String, String> queryParamMap)
       throws IndexerRelatedIndexingException, RecordRelatedIndexingException {
     MapSolrParams queryParams = new MapSolrParams(queryParamMap);
     QueryResponse response;
     try {
-      response = solrServer.query(queryParams);
+      response = solrServer.query(queryParams, METHOD.POST);
     } catch (SolrServerException e) {
       throw new IndexerRelatedIndexingException(SOLR_SERVER_SEARCH_ERROR, e);
     } catch (IOException e) {
@@ -1,21 +1,10 @@
 package eu.europeana.indexing;
 
 import dev.morphia.Datastore;
-import dev.morphia.query.Query;
 import eu.europeana.corelib.mongo.server.EdmMongoServer;
-import eu.europeana.corelib.solr.bean.impl.FullBeanImpl;
 import eu.europeana.indexing.exception.IndexerRelatedIndexingException;
-import eu.europeana.indexing.solr.EdmLabel;
-import eu.europeana.metis.CommonStringValues;
-import java.io.IOException;
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
 import java.util.Date;
-import java.util.Locale;
-import java.util.TimeZone;
 import org.apache.solr.client.solrj.SolrClient;
-import org.apache.solr.client.solrj.SolrServerException;
-import org.apache.solr.client.solrj.util.ClientUtils;
 
 /**
  * This class provides functionality for accessing records that are already indexed from the Mongo
@@ -24,8 +13,6 @@ import org.apache.solr.client.solrj.util.ClientUtils;
  */
 public class IndexedRecordAccess {
 
-  private static final String ABOUT_FIELD = "about";
-
   private final EdmMongoServer mongoServer;
   private final SolrClient solrServer;
 
@@ -43,15 +30,37 @@ public class IndexedRecordAccess {
   /**
    * Counts the records in a given dataset. The criteria of whether a record belongs to a certain
    * dataset is the same as that used in the method {@link #removeDataset(String, Date)}, i.e. it is
-   * based on the <code>rdf:about</code> values.
+   * based on the <code>rdf:about</code> values. The number is obtained from a counter that is
+   * maintained for each dataset (see {@link #recountRecords(String)}), so it may not be accurate if
+   * records were changed without using this library.
    *
    * @param datasetId The ID of the dataset of which to count the records. Is not null.
    * @return The number of records encountered for the given dataset.
    */
   public long countRecords(String datasetId) {
-    final Query<?> query = mongoServer.getDatastore().createQuery(FullBeanImpl.class);
-    query.field(ABOUT_FIELD).startsWith(getRecordIdPrefix(datasetId));
-    return query.count();
+    return new DatasetRecordCounter(mongoServer.getDatastore()).count(datasetId);
+  }
+
+  /**
+   * Counts the records in a given dataset by inspecting the records (like {@link
+   * #countRecords(String)}, but not using the maintained counter). The counter is then corrected
+   * with the result.
+   *
+   * @param datasetId The ID of the dataset of which to count the records. Is not null.
+   * @return The number of records encountered for the given dataset.
+   */
+  public long recountRecords(String datasetId) {
+    return new DatasetRecordCounter(mongoServer.getDatastore()).recount(datasetId);
+  }
+
+  /**
+   * Corrects the maintained record counters of all datasets (see {@link #recountRecords(String)}).
+   * This method is meant to be called periodically, as it counts the records of all datasets.
+   *
+   * @return The number of datasets for which the counter was corrected.
+   */
+  public int reconcileRecordCounts() {
+    return new DatasetRecordCounter(mongoServer.getDatastore()).reconcileAll();
   }
 
   /**
@@ -72,32 +81,13 @@ public class IndexedRecordAccess {
    * @throws IndexerRelatedIndexingException In case something went wrong.
    */
   public boolean removeRecord(String rdfAbout) throws IndexerRelatedIndexingException {
-    try {
-
-      // Remove Solr record
-      final String queryValue = ClientUtils.escapeQueryChars(rdfAbout);
-      solrServer.deleteByQuery(EdmLabel.EUROPEANA_ID.toString() + ":" + queryValue);
-
-      // Obtain the Mongo record
-      final Datastore datastore = mongoServer.getDatastore();
-      final FullBeanImpl recordToDelete = datastore.find(FullBeanImpl.class).field(ABOUT_FIELD)
-          .equal(rdfAbout).first();
-
-      // Remove mongo record and dependencies
-      if (recordToDelete != null) {
-        datastore.delete(recordToDelete);
-        recordToDelete.getAggregations().forEach(datastore::delete);
-        datastore.delete(recordToDelete.getEuropeanaAggregation());
-        recordToDelete.getProvidedCHOs().forEach(datastore::delete);
-        recordToDelete.getProxies().forEach(datastore::delete);
-      }
-
-      // Done
-      return recordToDelete != null;
-
-    } catch (SolrServerException | IOException | RuntimeException e) {
-      throw new IndexerRelatedIndexingException("Could not remove record '" + rdfAbout + "'.", e);
+    final Datastore datastore = mongoServer.getDatastore();
+    final boolean removed = new DatasetRemover(datastore, solrServer).removeRecord(rdfAbout);
+    if (removed) {
+      DatasetRecordCounter.getDatasetId(rdfAbout).ifPresent(
+          datasetId -> new DatasetRecordCounter(datastore).increment(datasetId, -1));
     }
+    return removed;
   }
 
   /**
@@ -117,45 +107,41 @@ public class IndexedRecordAccess {
    */
   public int removeDataset(String datasetId, Date maxRecordDate)
           throws IndexerRelatedIndexingException {
-    final int mongoCount;
-    try {
-      mongoCount = removeDatasetFromMongo(datasetId, maxRecordDate);
-      removeDatasetFromSolr(datasetId, maxRecordDate);
-    } catch (SolrServerException | IOException | RuntimeException e) {
-      throw new IndexerRelatedIndexingException(
-          "Could not remove dataset with ID '" + datasetId + "'.", e);
-    }
-    return mongoCount;
-  }
-
-  private void removeDatasetFromSolr(String datasetId, Date maxRecordDate)
-      throws SolrServerException, IOException {
-    final StringBuilder solrQuery = new StringBuilder();
-
-    final String datasetIdRegexEscaped =
-            ClientUtils.escapeQueryChars(getRecordIdPrefix(datasetId)) + "*";
-    solrQuery.append(EdmLabel.EUROPEANA_ID).append(':').append(datasetIdRegexEscaped);
-
-    if (maxRecordDate != null) {
-      //Set date format properly for Solr, the timezone has to be added
-      DateFormat dateFormat = new SimpleDateFormat(CommonStringValues.DATE_FORMAT_SOLR, Locale.US);
-      dateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
-      solrQuery.append(" AND ").append(EdmLabel.TIMESTAMP_UPDATED).append(":[* TO ")
-          .append(dateFormat.format(maxRecordDate)).append('}');
-    }
-    solrServer.deleteByQuery(solrQuery.toString());
+    return removeDataset(datasetId, maxRecordDate, new DatasetRemovalProgress());
   }
 
-  private int removeDatasetFromMongo(String datasetId, Date maxRecordDate) {
-    final Query<?> query = mongoServer.getDatastore().createQuery(FullBeanImpl.class);
-    query.field(ABOUT_FIELD).startsWith(getRecordIdPrefix(datasetId));
-    if (maxRecordDate != null) {
-      query.field("timestampUpdated").lessThan(maxRecordDate);
+  /**
+   * <p>Removes all records that belong to a given dataset. This method is equivalent to {@link
+   * #removeDataset(String, Date)}, but reports its progress to the given progress object.</p>
+   * <p>The records are removed in chunks (ordered by rdf:about value), for which the removal from
+   * Mongo and Solr is performed concurrently. If this method is interrupted or fails, it can be
+   * called again with the same progress object: it will then resume after the last chunk that was
+   * completely removed.</p>
+   *
+   * @param datasetId The ID of the dataset to clear. Is not null.
+   * @param maxRecordDate The date that all records that have lower timestampUpdated than that date
+   * would be removed. If null is provided then all records from that dataset will be removed.
+   * @param progress The object to which the progress is reported. Is not null.
+   * @return The number of records that were removed.
+   * @throws IndexerRelatedIndexingException In case something went wrong.
+   */
+  public int removeDataset(String datasetId, Date maxRecordDate, DatasetRemovalProgress progress)
+      throws IndexerRelatedIndexingException {
+    final Datastore datastore = mongoServer.getDatastore();
+    final long removedBefore = progress.getRecordsRemovedFromMongo();
+    boolean completed = false;
+    try {
+      final int result = new DatasetRemover(datastore, solrServer)
+          .removeDataset(datasetId, maxRecordDate, progress);
+      completed = true;
+      return result;
+    } finally {
+      final DatasetRecordCounter counter = new DatasetRecordCounter(datastore);
+      if (completed && maxRecordDate == null) {
+        counter.reset(datasetId);
+      } else {
+        counter.increment(datasetId, removedBefore - progress.getRecordsRemovedFromMongo());
+      }
     }
-    return mongoServer.getDatastore().delete(query).getN();
-  }
-
-  private static String getRecordIdPrefix(String datasetId) {
-    return "/" + datasetId + "/";
   }
 }
@@ -4,6 +4,7 @@ import java.io.Closeable;
 import java.io.InputStream;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import eu.europeana.corelib.definitions.jibx.RDF;
 import eu.europeana.indexing.exception.IndexingException;
 
@@ -47,6 +48,11 @@ public interface Indexer extends Closeable {
    * This method indexes a list of records, publishing it to the provided data stores.
    * </p>
    * <p>
+   * The records may be processed in parallel. If a record fails for a record-related reason, the
+   * other records are still processed. After all records are processed, the first exception that
+   * occurred is thrown (with any other exceptions attached as suppressed exceptions).
+   * </p>
+   * <p>
    * <b>NOTE:</b> this operation should not coincide with a remove operation as this operation is
    * not done within a transaction.
    * </p>
@@ -88,6 +94,11 @@ public interface Indexer extends Closeable {
    * This method indexes a list of records, publishing it to the provided data stores.
    * </p>
    * <p>
+   * The records may be processed in parallel. If a record fails for a record-related reason, the
+   * other records are still processed. After all records are processed, the first exception that
+   * occurred is thrown (with any other exceptions attached as suppressed exceptions).
+   * </p>
+   * <p>
    * <b>NOTE:</b> this operation should not coincide with a remove operation as this operation is
    * not done within a transaction.
    * </p>
@@ -124,6 +135,35 @@ public interface Indexer extends Closeable {
           List<String> datasetIdsForRedirection, boolean performRedirects)
           throws IndexingException;
 
+  /**
+   * <p>
+   * This method indexes a stream containing multiple records. The stream may contain concatenated
+   * RDF documents, one document with records (<code>rdf:RDF</code> elements) in a wrapper element,
+   * or a zip file (as produced by harvesting) of which the entries contain records in one of these
+   * forms. The stream is expected to be encoded in UTF-8.
+   * </p>
+   * <p>
+   * The records are read incrementally and indexed in batches of the given size, so that memory
+   * usage is bounded regardless of the size of the stream. Batches with record-related problems do
+   * not prevent subsequent batches from being indexed: the exception is thrown after the stream is
+   * processed. Other problems stop the processing immediately.
+   * </p>
+   *
+   * @param records The records to index. This stream is not closed.
+   * @param batchSize The maximum number of records that are indexed together. Must be positive.
+   * @param recordDate The date that would represent the created/updated date of the records.
+   * @param preserveUpdateAndCreateTimesFromRdf This determines whether the updated and created
+   * times from the incoming RDFs are to be preserved.
+   * @param datasetIdsForRedirection The dataset ids that their records need to be redirected.
+   * @param performRedirects flag that indicates if redirect should be performed
+   * @return The number of records that were found in the stream (including records that could not
+   * be indexed).
+   * @throws IndexingException In case a problem occurred during reading or indexing.
+   */
+  int indexStream(InputStream records, int batchSize, Date recordDate,
+      boolean preserveUpdateAndCreateTimesFromRdf, List<String> datasetIdsForRedirection,
+      boolean performRedirects) throws IndexingException;
+
   /**
    * This method will trigger a flush operation on pending changes/updates to the persistent data,
    * causing it to become permanent as well as available to other processes. Calling this method is
@@ -136,6 +176,16 @@ public interface Indexer extends Closeable {
    */
   void triggerFlushOfPendingChanges(boolean blockUntilComplete) throws IndexingException;
 
+  /**
+   * This method will trigger a flush operation on pending changes/updates to the persistent data
+   * (see {@link #triggerFlushOfPendingChanges(boolean)}) without blocking. Concurrent requests may
+   * be served by one single flush operation.
+   *
+   * @return A future that completes when the flush operation serving this request is complete. If
+   * the flush fails, the future completes exceptionally with an {@link IndexingException}.
+   */
+  CompletableFuture<Void> triggerFlushOfPendingChangesAsync();
+
   /**
    * <p>
    * Removes the record with the given rdf:about value. This method also removes the associated
@@ -199,14 +249,82 @@ public interface Indexer extends Closeable {
    */
   int removeAll(String datasetId, Date maxRecordDate) throws IndexingException;
 
+  /**
+   * <p>
+   * Removes all records that belong to a given dataset. This method is equivalent to {@link
+   * #removeAll(String, Date)}, but reports its progress to the given progress object, which may be
+   * inspected from another thread while the removal is in progress.
+   * </p>
+   * <p>
+   * The records are removed in chunks. If this method is interrupted or fails, it can be called
+   * again with the same progress object to resume after the last chunk that was completely removed.
+   * </p>
+   *
+   * @param datasetId The ID of the dataset to clear. Is not null.
+   * @param maxRecordDate The date that all records that have lower timestampUpdated than that date
+   * would be removed. If null is provided then all records from that dataset will be removed.
+   * @param progress The object to which the progress is reported. Is not null.
+   * @return The number of records that were removed.
+   * @throws IndexingException In case something went wrong.
+   */
+  int removeAll(String datasetId, Date maxRecordDate, DatasetRemovalProgress progress)
+      throws IndexingException;
+
   /**
    * Counts the records in a given dataset. The criteria of whether a record belongs to a certain
    * dataset is the same as that used in the method {@link #removeAll(String, Date)}, i.e. it is
-   * based on the <code>rdf:about</code> values.
+   * based on the <code>rdf:about</code> values. This method uses a counter that is maintained for
+   * each dataset, so it does not need to inspect the records. The counter is created when the
+   * number of records is first requested.
    *
    * @param datasetId The ID of the dataset of which to count the records. Is not null.
    * @return The number of records encountered for the given dataset.
    * @throws IndexingException In case something went wrong.
    */
   long countRecords(String datasetId) throws IndexingException;
+
+  /**
+   * Counts the records in a given dataset. Where {@link #countRecords(String)} uses a counter that
+   * is maintained for each dataset during indexing and removal, this method counts the actual
+   * records (which is a lot more expensive) and then corrects the maintained counter.
+   *
+   * @param datasetId The ID of the dataset of which to count the records. Is not null.
+   * @return The number of records encountered for the given dataset.
+   * @throws IndexingException In case something went wrong.
+   */
+  long recountRecords(String datasetId) throws IndexingException;
+
+  /**
+   * Corrects the maintained record counters of all datasets by counting the actual records (see
+   * {@link #recountRecords(String)}). This is an expensive operation that is meant to be performed
+   * periodically (e.g. nightly), to correct any deviations caused by records being changed outside
+   * of this library or by failures.
+   *
+   * @return The number of datasets for which the counter was corrected.
+   * @throws IndexingException In case something went wrong.
+   */
+  int reconcileRecordCounts() throws IndexingException;
+
+  /**
+   * <p>
+   * Recalculates the media and metadata tiers of all indexed records in the given dataset, using
+   * the current tier classification rules, without reindexing the records. The stored records are
+   * read from the persistence, and only the tiers that changed are updated (using partial updates
+   * in Solr). This is meant to be used after the tier rules were changed.
+   * </p>
+   * <p>
+   * Records that can not be processed are logged and counted as failed (see {@link
+   * TierRecalculationStatistics#getRecordsFailed()}). Note that the changes are not committed to
+   * Solr by this method (see {@link #triggerFlushOfPendingChanges(boolean)}).
+   * </p>
+   *
+   * @param datasetId The ID of the dataset of which to recalculate the tiers. Is not null.
+   * @param dryRun Whether this is a dry run: if true, no changes are made, but the returned
+   * statistics reflect the changes that would have been made.
+   * @return The statistics of the recalculation.
+   * @throws IndexingException In case something went wrong that is not related to an individual
+   * record.
+   */
+  TierRecalculationStatistics recalculateTiers(String datasetId, boolean dryRun)
+      throws IndexingException;
 }
@@ -1,13 +1,17 @@
 package eu.europeana.indexing;
 
+import eu.europeana.indexing.SolrCommitCoordinator.CommitPolicy;
 import eu.europeana.indexing.exception.IndexerRelatedIndexingException;
+import eu.europeana.indexing.metrics.IndexingMetrics;
 import eu.europeana.metis.mongo.RecordRedirectDao;
 import org.apache.solr.client.solrj.SolrClient;
 import eu.europeana.corelib.mongo.server.EdmMongoServer;
 import eu.europeana.indexing.exception.SetupRelatedIndexingException;
 
 /**
- * This class creates instances of {@link Indexer}.
+ * This class creates instances of {@link Indexer}. If the factory is constructed using settings
+ * or clients, all indexers created by it share one {@link SolrCommitCoordinator}, so that commits
+ * requested by different indexers (e.g. those in an {@link IndexerPool}) are coalesced.
  */
 public class IndexerFactory {
 
@@ -19,7 +23,11 @@ public class IndexerFactory {
    * @param settings The settings to be applied to the indexer.
    */
   public IndexerFactory(IndexingSettings settings) {
-    this(() -> new SettingsConnectionProvider(settings));
+    this(settings, SettingsConnectionProvider.createSolrCommitCoordinator(settings));
+  }
+
+  private IndexerFactory(IndexingSettings settings, SolrCommitCoordinator solrCommitCoordinator) {
+    this(() -> new SettingsConnectionProvider(settings, solrCommitCoordinator));
   }
 
   /**
@@ -33,7 +41,31 @@ public class IndexerFactory {
    */
   public IndexerFactory(EdmMongoServer mongoClient, RecordRedirectDao recordRedirectDao,
       SolrClient solrClient) {
-    this(() -> new ClientsConnectionProvider(mongoClient, recordRedirectDao, solrClient));
+    this(mongoClient, recordRedirectDao, solrClient, IndexingMetrics.disabled());
+  }
+
+  /**
+   * Constructor for setting up a factory using already existing Mongo and Solr clients, reporting
+   * to the given metrics. Note: the caller is responsible for closing the clients. Any indexers
+   * created through the {@link #getIndexer()} method will then no longer work and no new ones can
+   * be created.
+   *
+   * @param mongoClient The Mongo client to use.
+   * @param recordRedirectDao The record redirect dao
+   * @param solrClient The Solr client to use.
+   * @param indexingMetrics The metrics to which the indexers report.
+   */
+  public IndexerFactory(EdmMongoServer mongoClient, RecordRedirectDao recordRedirectDao,
+      SolrClient solrClient, IndexingMetrics indexingMetrics) {
+    this(mongoClient, recordRedirectDao, solrClient, indexingMetrics,
+        new SolrCommitCoordinator(SolrCommitCoordinator.DEFAULT_WINDOW, CommitPolicy.HARD));
+  }
+
+  private IndexerFactory(EdmMongoServer mongoClient, RecordRedirectDao recordRedirectDao,
+      SolrClient solrClient, IndexingMetrics indexingMetrics,
+      SolrCommitCoordinator solrCommitCoordinator) {
+    this(() -> new ClientsConnectionProvider(mongoClient, recordRedirectDao, solrClient,
+        indexingMetrics, solrCommitCoordinator));
   }
 
   /**
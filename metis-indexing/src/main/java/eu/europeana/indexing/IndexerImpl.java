@@ -3,18 +3,30 @@ package eu.europeana.indexing;
 import eu.europeana.corelib.definitions.jibx.RDF;
 import eu.europeana.indexing.exception.IndexerRelatedIndexingException;
 import eu.europeana.indexing.exception.IndexingException;
+import eu.europeana.indexing.exception.RecordRelatedIndexingException;
 import eu.europeana.indexing.exception.SetupRelatedIndexingException;
 import eu.europeana.indexing.fullbean.StringToFullBeanConverter;
-import eu.europeana.indexing.tiers.ClassifierFactory;
+import eu.europeana.indexing.metrics.IndexingMetrics;
+import eu.europeana.indexing.metrics.IndexingStage;
+import eu.europeana.indexing.solr.SolrDocumentPopulator;
+import eu.europeana.indexing.tiers.TierClassificationEngine;
+import eu.europeana.indexing.tiers.TierClassificationEngine.Classification;
 import eu.europeana.indexing.utils.RdfTierUtils;
 import eu.europeana.indexing.utils.RdfWrapper;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.apache.commons.lang3.tuple.Pair;
 import org.apache.solr.client.solrj.SolrServerException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -28,17 +40,29 @@ class IndexerImpl implements Indexer {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(IndexerImpl.class);
 
+  private static final int DEFAULT_PARALLELISM = Runtime.getRuntime().availableProcessors();
+
   private final AbstractConnectionProvider connectionProvider;
 
   private final IndexingSupplier<StringToFullBeanConverter> stringToRdfConverterSupplier;
 
+  private final IndexingPipeline pipeline;
+
+  private final TierClassificationEngine tierClassificationEngine = new TierClassificationEngine();
+
+  // The populator is kept for the lifetime of the indexer. Every index call gets its own Solr
+  // document buffer, so that concurrent calls don't send or report each other's documents. Each
+  // buffer starts with the batch size that the previous buffer adapted to.
+  private final SolrDocumentPopulator solrDocumentPopulator = new SolrDocumentPopulator();
+  private volatile int solrBatchSize = SolrDocumentBuffer.DEFAULT_INITIAL_BATCH_SIZE;
+
   /**
    * Constructor.
    *
    * @param connectionProvider The connection provider for this indexer.
    */
   IndexerImpl(AbstractConnectionProvider connectionProvider) {
-    this(connectionProvider, StringToFullBeanConverter::new);
+    this(connectionProvider, StringToFullBeanConverter::new, DEFAULT_PARALLELISM);
   }
 
   /**
@@ -47,14 +71,17 @@ class IndexerImpl implements Indexer {
    * @param connectionProvider The connection provider for this indexer.
    * @param stringToRdfConverterSupplier Supplies an instance of {@link StringToFullBeanConverter}
    * used to parse strings to instances of {@link RDF}. Will be called once during every index.
+   * @param parallelism The maximum number of records in a batch that are processed at the same
+   * time.
    */
   IndexerImpl(AbstractConnectionProvider connectionProvider,
-      IndexingSupplier<StringToFullBeanConverter> stringToRdfConverterSupplier) {
+      IndexingSupplier<StringToFullBeanConverter> stringToRdfConverterSupplier, int parallelism) {
     this.connectionProvider = connectionProvider;
     this.stringToRdfConverterSupplier = stringToRdfConverterSupplier;
+    this.pipeline = new IndexingPipeline(parallelism);
   }
 
-  private void indexRecords(List<RDF> records, Date recordDate,
+  private <I> void indexRecords(List<I> records, RecordParser<I> parser, Date recordDate,
       boolean preserveUpdateAndCreateTimesFromRdf, List<String> datasetIdsForRedirection,
       boolean performRedirects) throws IndexingException {
     if (performRedirects && connectionProvider.getRecordRedirectDao() == null) {
@@ -62,37 +89,130 @@ class IndexerImpl implements Indexer {
           "Record redirect dao has not been initialized and performing redirects is requested");
     }
     LOGGER.info("Processing {} records...", records.size());
-    final FullBeanPublisher publisher =
-        connectionProvider.getFullBeanPublisher(preserveUpdateAndCreateTimesFromRdf);
-
-    for (RDF record : records) {
-      preprocessRecord(record);
-      if (performRedirects) {
-        publisher
-            .publishWithRedirects(new RdfWrapper(record), recordDate, datasetIdsForRedirection);
-      } else {
-        publisher.publish(new RdfWrapper(record), recordDate, datasetIdsForRedirection);
+    final IndexingMetrics metrics = connectionProvider.getIndexingMetrics();
+    final long batchStart = metrics.startTimer();
+    final SolrDocumentBuffer solrDocumentBuffer = new SolrDocumentBuffer(
+        connectionProvider.getSolrClient(), solrBatchSize,
+        SolrDocumentBuffer.DEFAULT_MAX_BATCH_SIZE,
+        SolrDocumentBuffer.DEFAULT_MAX_BATCH_VOLUME_IN_BYTES, SolrDocumentBuffer.DEFAULT_MAX_DELAY,
+        SolrDocumentBuffer.DEFAULT_TARGET_LATENCY, metrics);
+    final FullBeanPublisher publisher = connectionProvider.getFullBeanPublisher(
+        preserveUpdateAndCreateTimesFromRdf, solrDocumentBuffer, solrDocumentPopulator);
+
+    // Parse and classify the records: each record is processed independently.
+    final List<Integer> indices = IntStream.range(0, records.size()).boxed()
+        .collect(Collectors.toList());
+    final RdfWrapper[] rdfs = new RdfWrapper[records.size()];
+    IndexingException exception = null;
+    try {
+      pipeline.process(indices,
+          index -> rdfs[index] = preprocessRecord(parseRecord(parser, records.get(index), metrics),
+              metrics));
+    } catch (IndexingException e) {
+      exception = e;
+    }
+
+    // Publish the records that could be processed (unless there is a more general problem).
+    if (exception == null || isRecordRelatedOnly(exception)) {
+      try {
+        publishRecords(publisher, Arrays.stream(rdfs).filter(Objects::nonNull)
+            .collect(Collectors.toList()), recordDate, datasetIdsForRedirection, performRedirects);
+      } catch (IndexingException e) {
+        exception = addException(exception, e);
       }
     }
 
+    // Send the remaining Solr documents (also for the records that did succeed).
+    try {
+      publisher.flushSolrDocuments();
+    } catch (IndexingException e) {
+      exception = addException(exception, e);
+    }
+    solrBatchSize = solrDocumentBuffer.getBatchSize();
+    metrics.stopTimer(IndexingStage.BATCH, batchStart);
+    if (exception != null) {
+      throw exception;
+    }
+
     LOGGER.info("Successfully processed {} records.", records.size());
   }
 
-  private static void preprocessRecord(RDF rdf) throws IndexingException {
+  private void publishRecords(FullBeanPublisher publisher, List<RdfWrapper> rdfs,
+      Date recordDate, List<String> datasetIdsForRedirection, boolean performRedirects)
+      throws IndexingException {
 
-    // Perform the tier classification
-    final RdfWrapper rdfWrapper = new RdfWrapper(rdf);
-    RdfTierUtils.setTier(rdf, ClassifierFactory.getMediaClassifier().classify(rdfWrapper));
-    RdfTierUtils.setTier(rdf, ClassifierFactory.getMetadataClassifier().classify(rdfWrapper));
+    // Find the redirects for all records at once. If this fails, we find them for each record.
+    Map<String, List<Pair<String, Date>>> recordsForRedirection = null;
+    if (performRedirects && rdfs.size() > 1) {
+      final IndexingMetrics metrics = connectionProvider.getIndexingMetrics();
+      final long start = metrics.startTimer();
+      try {
+        recordsForRedirection = publisher.findRecordsForRedirection(rdfs,
+            datasetIdsForRedirection);
+      } catch (RecordRelatedIndexingException e) {
+        LOGGER.warn("Could not find the redirects for the batch: trying for each record.", e);
+      }
+      metrics.stopTimer(IndexingStage.REDIRECTS, start);
+    }
 
+    // Publish the records.
+    final Map<String, List<Pair<String, Date>>> resolvedRedirects = recordsForRedirection;
+    pipeline.process(rdfs, rdf -> {
+      if (resolvedRedirects != null) {
+        publisher.publishWithResolvedRedirects(rdf, recordDate,
+            resolvedRedirects.get(rdf.getAbout()));
+      } else if (performRedirects) {
+        publisher.publishWithRedirects(rdf, recordDate, datasetIdsForRedirection);
+      } else {
+        publisher.publish(rdf, recordDate, datasetIdsForRedirection);
+      }
+    });
+  }
+
+  private static boolean isRecordRelatedOnly(IndexingException exception) {
+    return exception instanceof RecordRelatedIndexingException && Arrays
+        .stream(exception.getSuppressed())
+        .allMatch(RecordRelatedIndexingException.class::isInstance);
+  }
+
+  private static IndexingException addException(IndexingException existingException,
+      IndexingException newException) {
+    if (existingException == null) {
+      return newException;
+    }
+    existingException.addSuppressed(newException);
+    return existingException;
+  }
+
+  private static <I> RDF parseRecord(RecordParser<I> parser, I record, IndexingMetrics metrics)
+      throws IndexingException {
+    final long start = metrics.startTimer();
+    final RDF result = parser.parse(record);
+    metrics.stopTimer(IndexingStage.PARSE, start);
+    return result;
+  }
+
+  private RdfWrapper preprocessRecord(RDF rdf, IndexingMetrics metrics) throws IndexingException {
+
+    // Perform the tier classification. Both classifications are made before setting the tiers.
+    final long start = metrics.startTimer();
+    final Classification classification = tierClassificationEngine
+        .classify(RdfWrapper.createSnapshot(rdf));
+    RdfTierUtils.setTier(rdf, classification.getMediaTier());
+    RdfTierUtils.setTier(rdf, classification.getMetadataTier());
+
+    // Done: setting the tiers modified the record, so we need a new snapshot.
+    final RdfWrapper result = RdfWrapper.createSnapshot(rdf);
+    metrics.stopTimer(IndexingStage.TIER_CLASSIFICATION, start);
+    return result;
   }
 
   @Override
   public void indexRdfs(List<RDF> records, Date recordDate,
       boolean preserveUpdateAndCreateTimesFromRdf, List<String> datasetIdsForRedirection,
       boolean performRedirects) throws IndexingException {
-    indexRecords(records, recordDate, preserveUpdateAndCreateTimesFromRdf, datasetIdsForRedirection,
-        performRedirects);
+    indexRecords(records, record -> record, recordDate, preserveUpdateAndCreateTimesFromRdf,
+        datasetIdsForRedirection, performRedirects);
   }
 
   @Override
@@ -106,14 +226,9 @@ class IndexerImpl implements Indexer {
   public void index(List<String> records, Date recordDate,
       boolean preserveUpdateAndCreateTimesFromRdf, List<String> datasetIdsForRedirection,
       boolean performRedirects) throws IndexingException {
-    LOGGER.info("Parsing {} records...", records.size());
     final StringToFullBeanConverter stringToRdfConverter = stringToRdfConverterSupplier.get();
-    final List<RDF> wrappedRecords = new ArrayList<>(records.size());
-    for (String record : records) {
-      wrappedRecords.add(stringToRdfConverter.convertStringToRdf(record));
-    }
-    indexRecords(wrappedRecords, recordDate, preserveUpdateAndCreateTimesFromRdf,
-        datasetIdsForRedirection, performRedirects);
+    indexRecords(records, stringToRdfConverter::convertStringToRdf, recordDate,
+        preserveUpdateAndCreateTimesFromRdf, datasetIdsForRedirection, performRedirects);
   }
 
   @Override
@@ -132,8 +247,58 @@ class IndexerImpl implements Indexer {
             preserveUpdateAndCreateTimesFromRdf, datasetIdsForRedirection, performRedirects);
   }
 
+  @Override
+  public int indexStream(InputStream records, int batchSize, Date recordDate,
+      boolean preserveUpdateAndCreateTimesFromRdf, List<String> datasetIdsForRedirection,
+      boolean performRedirects) throws IndexingException {
+    if (batchSize < 1) {
+      throw new SetupRelatedIndexingException("The batch size must be positive.");
+    }
+    IndexingException exception = null;
+    int recordCount = 0;
+    try (final RecordStreamReader reader = new RecordStreamReader(records)) {
+      final List<String> batch = new ArrayList<>(batchSize);
+      boolean endOfStream = false;
+      while (!endOfStream && (exception == null || isRecordRelatedOnly(exception))) {
+
+        // Read the next batch. If the stream can no longer be read, we stop after this batch. If
+        // the stream is malformed, the reader continues with the next zip entry (if any).
+        try {
+          String record = null;
+          while (batch.size() < batchSize && (record = reader.nextRecord()) != null) {
+            batch.add(record);
+          }
+          endOfStream = record == null;
+        } catch (IndexingException e) {
+          exception = addException(exception, e);
+          endOfStream = !(e instanceof RecordRelatedIndexingException);
+        }
+
+        // Index the batch.
+        if (!batch.isEmpty()) {
+          try {
+            index(batch, recordDate, preserveUpdateAndCreateTimesFromRdf,
+                datasetIdsForRedirection, performRedirects);
+          } catch (IndexingException e) {
+            exception = addException(exception, e);
+          }
+          recordCount += batch.size();
+          batch.clear();
+        }
+      }
+    } catch (IOException e) {
+      exception = addException(exception,
+          new IndexerRelatedIndexingException("Could not close the stream of records.", e));
+    }
+    if (exception != null) {
+      throw exception;
+    }
+    return recordCount;
+  }
+
   @Override
   public void close() throws IOException {
+    this.pipeline.close();
     this.connectionProvider.close();
   }
 
@@ -147,6 +312,22 @@ class IndexerImpl implements Indexer {
     }
   }
 
+  @Override
+  public CompletableFuture<Void> triggerFlushOfPendingChangesAsync() {
+    final CompletableFuture<Void> result = new CompletableFuture<>();
+    this.connectionProvider.triggerFlushOfPendingChangesAsync().whenComplete((done, exception) -> {
+      if (exception == null) {
+        result.complete(null);
+      } else {
+        result.completeExceptionally(
+            new IndexerRelatedIndexingException("Error while flushing changes.",
+                exception instanceof Exception ? (Exception) exception
+                    : new IllegalStateException(exception)));
+      }
+    });
+    return result;
+  }
+
   @Override
   public boolean remove(String rdfAbout) throws IndexerRelatedIndexingException {
     return this.connectionProvider.getIndexedRecordAccess().removeRecord(rdfAbout);
@@ -158,11 +339,52 @@ class IndexerImpl implements Indexer {
     return this.connectionProvider.getIndexedRecordAccess().removeDataset(datasetId, maxRecordDate);
   }
 
+  @Override
+  public int removeAll(String datasetId, Date maxRecordDate, DatasetRemovalProgress progress)
+      throws IndexerRelatedIndexingException {
+    return this.connectionProvider.getIndexedRecordAccess()
+        .removeDataset(datasetId, maxRecordDate, progress);
+  }
+
   @Override
   public long countRecords(String datasetId) {
     return this.connectionProvider.getIndexedRecordAccess().countRecords(datasetId);
   }
 
+  @Override
+  public long recountRecords(String datasetId) {
+    return this.connectionProvider.getIndexedRecordAccess().recountRecords(datasetId);
+  }
+
+  @Override
+  public int reconcileRecordCounts() {
+    return this.connectionProvider.getIndexedRecordAccess().reconcileRecordCounts();
+  }
+
+  @Override
+  public TierRecalculationStatistics recalculateTiers(String datasetId, boolean dryRun)
+      throws IndexingException {
+    return this.connectionProvider.getTierRecalculator().recalculate(datasetId, dryRun);
+  }
+
+  /**
+   * Parser for records of a given type.
+   *
+   * @param <I> The type of the record (before parsing).
+   */
+  @FunctionalInterface
+  private interface RecordParser<I> {
+
+    /**
+     * Parses a record.
+     *
+     * @param record The record to parse.
+     * @return The parsed record.
+     * @throws IndexingException In case the record could not be parsed.
+     */
+    RDF parse(I record) throws IndexingException;
+  }
+
   /**
    * Similar to the Java interface {@link Supplier}, but one that may throw an {@link
    * IndexerRelatedIndexingException}.
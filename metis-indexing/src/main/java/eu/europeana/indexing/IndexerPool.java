@@ -8,10 +8,13 @@ import java.io.Closeable;
 import java.time.Duration;
 import java.util.Date;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
 import org.apache.commons.pool2.BasePooledObjectFactory;
 import org.apache.commons.pool2.PooledObject;
 import org.apache.commons.pool2.impl.DefaultPooledObject;
 import org.apache.commons.pool2.impl.GenericObjectPool;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -22,9 +25,17 @@ import org.slf4j.LoggerFactory;
  * on repeatedly creating and destroying indexers.
  * </p>
  * <p>
- * This pool can have an unlimited number of indexers, that will be created automatically whenever
- * they are needed (i.e. when all other indexers are in use already). This thread pool implements
- * the automatic destruction of idle indexers, given a certain permissible idle time.
+ * By default, this pool can have an unlimited number of indexers, that will be created
+ * automatically whenever they are needed (i.e. when all other indexers are in use already).
+ * Alternatively, the pool can be given a maximum number of indexers (see {@link
+ * #IndexerPool(IndexerFactory, long, long, int, Duration)}), in which case callers will wait
+ * (in order of arrival) for an indexer to become available. This protects the Mongo and Solr
+ * servers against bursts of connections. This thread pool implements the automatic destruction of
+ * idle indexers, given a certain permissible idle time.
+ * </p>
+ * <p>
+ * The current state of the pool and statistics on its use are available through {@link
+ * #getStatistics()}.
  * </p>
  * <p>
  * This class is thread-safe.
@@ -37,7 +48,7 @@ public class IndexerPool implements Closeable {
   private final GenericObjectPool<Indexer> pool;
 
   /**
-   * Constructor.
+   * Constructor for a pool without a maximum number of indexers.
    *
    * @param indexingSettings The  settings with which to create the indexer instances in the pool.
    * @param maxIdleTimeForIndexerInSecs The idle time after which an indexer is eligible for
@@ -52,7 +63,7 @@ public class IndexerPool implements Closeable {
   }
 
   /**
-   * Constructor.
+   * Constructor for a pool without a maximum number of indexers.
    *
    * @param indexerFactory The factory from which to create the indexer instances in the pool.
    * @param maxIdleTimeForIndexerInSecs The idle time after which an indexer is eligible for
@@ -62,19 +73,74 @@ public class IndexerPool implements Closeable {
    */
   public IndexerPool(IndexerFactory indexerFactory, long maxIdleTimeForIndexerInSecs,
       long idleTimeCheckIntervalInSecs) {
+    this(new PooledIndexerFactory(indexerFactory), maxIdleTimeForIndexerInSecs,
+        idleTimeCheckIntervalInSecs, -1, null);
+  }
+
+  /**
+   * Constructor for a pool with a maximum number of indexers. If all indexers are in use, callers
+   * wait for an indexer to be returned to the pool. Waiting callers are served in the order in
+   * which they arrived.
+   *
+   * @param indexerFactory The factory from which to create the indexer instances in the pool.
+   * @param maxIdleTimeForIndexerInSecs The idle time after which an indexer is eligible for
+   * destruction, in seconds.
+   * @param idleTimeCheckIntervalInSecs The interval with which we check the idle time of indexers
+   * to decide whether to destroy them, in seconds.
+   * @param maxIndexers The maximum number of indexers in the pool. Must be positive.
+   * @param maxWaitForIndexer The maximum time a caller waits for an indexer to become available.
+   * If an indexer does not become available in time, an {@link IndexerRelatedIndexingException} is
+   * thrown. Is not null.
+   */
+  public IndexerPool(IndexerFactory indexerFactory, long maxIdleTimeForIndexerInSecs,
+      long idleTimeCheckIntervalInSecs, int maxIndexers, Duration maxWaitForIndexer) {
+    this(new PooledIndexerFactory(indexerFactory), maxIdleTimeForIndexerInSecs,
+        idleTimeCheckIntervalInSecs, requirePositive(maxIndexers),
+        Objects.requireNonNull(maxWaitForIndexer));
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param pooledIndexerFactory The factory from which to create the pooled indexers.
+   * @param maxIdleTimeForIndexerInSecs The idle time after which an indexer is eligible for
+   * destruction, in seconds.
+   * @param idleTimeCheckIntervalInSecs The interval with which we check the idle time of indexers
+   * to decide whether to destroy them, in seconds.
+   * @param maxIndexers The maximum number of indexers in the pool, or a negative number if there
+   * is no maximum.
+   * @param maxWaitForIndexer The maximum time a caller waits for an indexer to become available.
+   * Can be null if there is no maximum number of indexers.
+   */
+  IndexerPool(BasePooledObjectFactory<Indexer> pooledIndexerFactory,
+      long maxIdleTimeForIndexerInSecs, long idleTimeCheckIntervalInSecs, int maxIndexers,
+      Duration maxWaitForIndexer) {
 
-    // Create indexer pool with default options.
-    pool = new GenericObjectPool<>(new PooledIndexerFactory(indexerFactory));
+    // Set custom options for the size of the pool: no min number of indexer objects.
+    final GenericObjectPoolConfig<Indexer> config = new GenericObjectPoolConfig<>();
+    config.setMaxIdle(-1);
+    config.setMinIdle(-1);
+    config.setMaxTotal(maxIndexers);
 
-    // Set custom options for the size of the pool: no max or min number of indexer objects.
-    pool.setMaxIdle(-1);
-    pool.setMinIdle(-1);
-    pool.setMaxTotal(-1);
+    // If there is a maximum, wait (fairly) for an indexer to become available.
+    config.setBlockWhenExhausted(true);
+    config.setFairness(maxIndexers > 0);
+    config.setMaxWaitMillis(maxWaitForIndexer == null ? -1 : maxWaitForIndexer.toMillis());
 
     // Set custom options for indexer pool regarding eviction (when indexer has been idle for some time).
-    pool.setSoftMinEvictableIdleTimeMillis(-1);
-    pool.setMinEvictableIdleTimeMillis(convertSecsToMillis(maxIdleTimeForIndexerInSecs));
-    pool.setTimeBetweenEvictionRunsMillis(convertSecsToMillis(idleTimeCheckIntervalInSecs));
+    config.setSoftMinEvictableIdleTimeMillis(-1);
+    config.setMinEvictableIdleTimeMillis(convertSecsToMillis(maxIdleTimeForIndexerInSecs));
+    config.setTimeBetweenEvictionRunsMillis(convertSecsToMillis(idleTimeCheckIntervalInSecs));
+
+    // Create indexer pool.
+    pool = new GenericObjectPool<>(pooledIndexerFactory, config);
+  }
+
+  private static int requirePositive(int maxIndexers) {
+    if (maxIndexers < 1) {
+      throw new IllegalArgumentException("The maximum number of indexers must be positive.");
+    }
+    return maxIndexers;
   }
 
   private static long convertSecsToMillis(long seconds) {
@@ -129,20 +195,28 @@ public class IndexerPool implements Closeable {
       indexer = pool.borrowObject();
     } catch (IndexingException e) {
       throw e;
+    } catch (NoSuchElementException e) {
+      throw new IndexerRelatedIndexingException(
+          "Timed out while waiting for an indexer to become available.", e);
     } catch (Exception e) {
       throw new IndexerRelatedIndexingException("Error while obtaining indexer from the pool.", e);
     }
 
     // Perform indexing and release indexer.
+    boolean invalidated = false;
     try {
       indexTask.performTask(indexer);
     } catch (IndexerRelatedIndexingException e) {
       invalidateAndSwallowException(indexer);
+      invalidated = true;
       throw e;
-    }
+    } finally {
 
-    // Return indexer to the pool if it has not been invalidated.
-    pool.returnObject(indexer);
+      // Return indexer to the pool if it has not been invalidated.
+      if (!invalidated) {
+        pool.returnObject(indexer);
+      }
+    }
   }
 
   private void invalidateAndSwallowException(Indexer indexer) {
@@ -153,6 +227,18 @@ public class IndexerPool implements Closeable {
     }
   }
 
+  /**
+   * Obtains the current state of the pool and the statistics on its use since its creation.
+   *
+   * @return The statistics. Is not null.
+   */
+  public IndexerPoolStatistics getStatistics() {
+    return new IndexerPoolStatistics(pool.getNumActive(), pool.getNumIdle(),
+        pool.getNumWaiters(), pool.getCreatedCount(), pool.getDestroyedCount(),
+        pool.getBorrowedCount(), Duration.ofMillis(pool.getMeanBorrowWaitTimeMillis()),
+        Duration.ofMillis(pool.getMaxBorrowWaitTimeMillis()));
+  }
+
   @Override
   public void close() {
     this.pool.close();
@@ -169,7 +255,7 @@ public class IndexerPool implements Closeable {
 
     private final IndexerFactory indexerFactory;
 
-    public PooledIndexerFactory(IndexerFactory indexerFactory) {
+    PooledIndexerFactory(IndexerFactory indexerFactory) {
       this.indexerFactory = indexerFactory;
     }
 
@@ -0,0 +1,97 @@
+package eu.europeana.indexing;
+
+import java.time.Duration;
+
+/**
+ * This class contains the state of an {@link IndexerPool} at a given moment, as well as statistics
+ * on its use since its creation. Instances of this class are immutable.
+ */
+public final class IndexerPoolStatistics {
+
+  private final int activeIndexers;
+  private final int idleIndexers;
+  private final int waitingCallers;
+  private final long createdIndexers;
+  private final long destroyedIndexers;
+  private final long borrowedIndexers;
+  private final Duration meanBorrowWaitTime;
+  private final Duration maxBorrowWaitTime;
+
+  IndexerPoolStatistics(int activeIndexers, int idleIndexers, int waitingCallers,
+      long createdIndexers, long destroyedIndexers, long borrowedIndexers,
+      Duration meanBorrowWaitTime, Duration maxBorrowWaitTime) {
+    this.activeIndexers = activeIndexers;
+    this.idleIndexers = idleIndexers;
+    this.waitingCallers = waitingCallers;
+    this.createdIndexers = createdIndexers;
+    this.destroyedIndexers = destroyedIndexers;
+    this.borrowedIndexers = borrowedIndexers;
+    this.meanBorrowWaitTime = meanBorrowWaitTime;
+    this.maxBorrowWaitTime = maxBorrowWaitTime;
+  }
+
+  /**
+   * @return The number of indexers that are currently in use.
+   */
+  public int getActiveIndexers() {
+    return activeIndexers;
+  }
+
+  /**
+   * @return The number of indexers that are currently available in the pool.
+   */
+  public int getIdleIndexers() {
+    return idleIndexers;
+  }
+
+  /**
+   * @return The (estimated) number of callers that are currently waiting for an indexer.
+   */
+  public int getWaitingCallers() {
+    return waitingCallers;
+  }
+
+  /**
+   * @return The total number of indexers that were created by the pool.
+   */
+  public long getCreatedIndexers() {
+    return createdIndexers;
+  }
+
+  /**
+   * @return The total number of indexers that were destroyed by the pool (either because they were
+   * idle for too long or because they were invalidated after an error).
+   */
+  public long getDestroyedIndexers() {
+    return destroyedIndexers;
+  }
+
+  /**
+   * @return The total number of times an indexer was obtained from the pool.
+   */
+  public long getBorrowedIndexers() {
+    return borrowedIndexers;
+  }
+
+  /**
+   * @return The mean time that callers waited for an indexer (over the recent borrows).
+   */
+  public Duration getMeanBorrowWaitTime() {
+    return meanBorrowWaitTime;
+  }
+
+  /**
+   * @return The maximum time that a caller waited for an indexer.
+   */
+  public Duration getMaxBorrowWaitTime() {
+    return maxBorrowWaitTime;
+  }
+
+  @Override
+  public String toString() {
+    return "IndexerPoolStatistics{active=" + activeIndexers + ", idle=" + idleIndexers
+        + ", waiting=" + waitingCallers + ", created=" + createdIndexers + ", destroyed="
+        + destroyedIndexers + ", borrowed=" + borrowedIndexers + ", meanBorrowWaitTime="
+        + meanBorrowWaitTime + ", maxBorrowWaitTime=" + maxBorrowWaitTime + '}';
+  }
+}
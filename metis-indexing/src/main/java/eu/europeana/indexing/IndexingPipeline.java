@@ -0,0 +1,200 @@
+package eu.europeana.indexing;
+
+import eu.europeana.indexing.exception.IndexerRelatedIndexingException;
+import eu.europeana.indexing.exception.IndexingException;
+import eu.europeana.indexing.exception.RecordRelatedIndexingException;
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>
+ * This class processes batches of records in parallel using a bounded pool of worker threads. Each
+ * record is processed in one task (e.g. parsing, tier classification, conversion and publishing),
+ * so that the CPU-bound work for one record can overlap with the network calls of the other
+ * records.
+ * </p>
+ * <p>
+ * Errors are isolated per record: if a record fails with a {@link RecordRelatedIndexingException}
+ * the other records in the batch are still processed. Any other exception (which signifies a
+ * problem with the setup or the indexer) causes the records that have not started yet to be
+ * skipped. In both cases, after the batch is done, the first exception (in the order of the
+ * records) is thrown with the other exceptions attached as suppressed exceptions.
+ * </p>
+ * <p>
+ * The worker threads are created on demand and are discarded when idle, so an idle instance of
+ * this class does not hold on to any threads.
+ * </p>
+ */
+class IndexingPipeline implements Closeable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(IndexingPipeline.class);
+
+  private static final long IDLE_THREAD_TIMEOUT_IN_SECS = 60;
+  private static final AtomicInteger POOL_COUNTER = new AtomicInteger();
+
+  private final int parallelism;
+  private final ThreadPoolExecutor executor;
+
+  /**
+   * Constructor.
+   *
+   * @param parallelism The maximum number of records that are processed at the same time. Must be
+   * positive.
+   */
+  IndexingPipeline(int parallelism) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("Parallelism must be positive.");
+    }
+    this.parallelism = parallelism;
+    this.executor = new ThreadPoolExecutor(parallelism, parallelism, IDLE_THREAD_TIMEOUT_IN_SECS,
+        TimeUnit.SECONDS, new LinkedBlockingQueue<>(), createThreadFactory());
+    this.executor.allowCoreThreadTimeOut(true);
+  }
+
+  private static ThreadFactory createThreadFactory() {
+    final int poolNumber = POOL_COUNTER.incrementAndGet();
+    final AtomicInteger threadCounter = new AtomicInteger();
+    return runnable -> {
+      final Thread thread = new Thread(runnable,
+          "indexing-pipeline-" + poolNumber + "-worker-" + threadCounter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+
+  /**
+   * Processes the given records. This method blocks until all records are processed (or
+   * skipped). If there is only one record, or if the parallelism is 1, the records are processed
+   * in the calling thread.
+   *
+   * @param records The records to process.
+   * @param processor The processor for a single record.
+   * @param <I> The type of the records.
+   * @throws IndexingException In case one or more records could not be processed. This is the
+   * first exception that occurred (in the order of the records).
+   */
+  <I> void process(List<I> records, RecordProcessor<I> processor) throws IndexingException {
+    if (records.size() <= 1 || parallelism == 1) {
+      processSequentially(records, processor);
+    } else {
+      processInParallel(records, processor);
+    }
+  }
+
+  private static <I> void processSequentially(List<I> records, RecordProcessor<I> processor)
+      throws IndexingException {
+    IndexingException firstException = null;
+    for (I record : records) {
+      try {
+        processor.process(record);
+      } catch (RecordRelatedIndexingException e) {
+        firstException = registerException(firstException, e);
+      } catch (IndexingException | RuntimeException e) {
+        if (firstException != null) {
+          e.addSuppressed(firstException);
+        }
+        throw e;
+      }
+    }
+    if (firstException != null) {
+      throw firstException;
+    }
+  }
+
+  private <I> void processInParallel(List<I> records, RecordProcessor<I> processor)
+      throws IndexingException {
+
+    // Submit all records. If a problem occurs that is not related to a record, we stop.
+    final AtomicBoolean aborted = new AtomicBoolean(false);
+    final List<Future<Void>> futures = new ArrayList<>(records.size());
+    for (I record : records) {
+      futures.add(executor.submit(() -> {
+        if (!aborted.get()) {
+          try {
+            processor.process(record);
+          } catch (RecordRelatedIndexingException e) {
+            throw e;
+          } catch (IndexingException | RuntimeException e) {
+            aborted.set(true);
+            throw e;
+          }
+        }
+        return null;
+      }));
+    }
+
+    // Wait for all records to be processed and collect the exceptions.
+    IndexingException firstException = null;
+    for (Future<Void> future : futures) {
+      try {
+        future.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        aborted.set(true);
+        futures.forEach(remaining -> remaining.cancel(true));
+        final IndexingException exception =
+            new IndexerRelatedIndexingException("Interrupted while indexing records.", e);
+        if (firstException != null) {
+          exception.addSuppressed(firstException);
+        }
+        throw exception;
+      } catch (ExecutionException e) {
+        firstException = registerException(firstException, e.getCause());
+      }
+    }
+    if (firstException != null) {
+      LOGGER.warn("Processing of batch of {} records failed.", records.size());
+      throw firstException;
+    }
+  }
+
+  private static IndexingException registerException(IndexingException firstException,
+      Throwable exception) {
+    if (exception instanceof Error) {
+      throw (Error) exception;
+    }
+    final IndexingException result;
+    if (firstException == null) {
+      result = exception instanceof IndexingException ? (IndexingException) exception
+          : new IndexerRelatedIndexingException("Unexpected error while indexing record.",
+              (Exception) exception);
+    } else {
+      firstException.addSuppressed(exception);
+      result = firstException;
+    }
+    return result;
+  }
+
+  @Override
+  public void close() {
+    executor.shutdown();
+  }
+
+  /**
+   * Processor for a single record.
+   *
+   * @param <I> The type of the record.
+   */
+  @FunctionalInterface
+  interface RecordProcessor<I> {
+
+    /**
+     * Process a record.
+     *
+     * @param record The record.
+     * @throws IndexingException In case something went wrong while processing the record.
+     */
+    void process(I record) throws IndexingException;
+  }
+}
@@ -1,12 +1,15 @@
 package eu.europeana.indexing;
 
 import com.mongodb.ServerAddress;
+import eu.europeana.indexing.SolrCommitCoordinator.CommitPolicy;
 import eu.europeana.indexing.exception.SetupRelatedIndexingException;
+import eu.europeana.indexing.metrics.IndexingMetrics;
 import eu.europeana.metis.mongo.MongoProperties;
 import eu.europeana.metis.mongo.MongoProperties.ReadPreferenceValue;
 import eu.europeana.metis.solr.SolrProperties;
 import java.net.InetSocketAddress;
 import java.net.URI;
+import java.time.Duration;
 import java.util.List;
 import org.apache.commons.lang.StringUtils;
 
@@ -27,6 +30,12 @@ public final class IndexingSettings {
   private final SolrProperties<SetupRelatedIndexingException> solrProperties = new SolrProperties<>(
       SetupRelatedIndexingException::new);
 
+  // Commit settings
+  private Duration solrCommitWindow = SolrCommitCoordinator.DEFAULT_WINDOW;
+  private CommitPolicy solrCommitPolicy = CommitPolicy.HARD;
+  private IndexingMetrics indexingMetrics = IndexingMetrics.disabled();
+  private boolean solrPartialUpdatesEnabled = false;
+
   /**
    * Add a Mongo host. This method must be called at least once.
    *
@@ -147,6 +156,58 @@ public final class IndexingSettings {
     this.solrProperties.addSolrHost(host);
   }
 
+  /**
+   * Set the window in which flush requests are coalesced into one single Solr commit. This method is
+   * optional: by default, there is no window, meaning that only requests that are made while a
+   * commit is waiting to be started are coalesced.
+   *
+   * @param solrCommitWindow The window. Cannot be null or negative.
+   * @throws SetupRelatedIndexingException In case the provided value is null or negative.
+   */
+  public void setSolrCommitWindow(Duration solrCommitWindow) throws SetupRelatedIndexingException {
+    if (nonNull(solrCommitWindow, "solrCommitWindow").isNegative()) {
+      throw new SetupRelatedIndexingException("Value 'solrCommitWindow' cannot be negative.");
+    }
+    this.solrCommitWindow = solrCommitWindow;
+  }
+
+  /**
+   * Set the type of commit that is performed when flushing pending changes to Solr. This method is
+   * optional: by default, hard commits are performed.
+   *
+   * @param solrCommitPolicy The commit policy. Cannot be null.
+   * @throws SetupRelatedIndexingException In case the provided value is null.
+   */
+  public void setSolrCommitPolicy(CommitPolicy solrCommitPolicy)
+      throws SetupRelatedIndexingException {
+    this.solrCommitPolicy = nonNull(solrCommitPolicy, "solrCommitPolicy");
+  }
+
+  /**
+   * Set the metrics to which the indexer reports the latency of the indexing stages. This method is
+   * optional: by default, no metrics are recorded.
+   *
+   * @param indexingMetrics The metrics. Cannot be null.
+   * @throws SetupRelatedIndexingException In case the provided value is null.
+   */
+  public void setIndexingMetrics(IndexingMetrics indexingMetrics)
+      throws SetupRelatedIndexingException {
+    this.indexingMetrics = nonNull(indexingMetrics, "indexingMetrics");
+  }
+
+  /**
+   * Set whether records that are reindexed are sent to Solr as atomic updates that contain only the
+   * fields that changed (see {@link eu.europeana.indexing.solr.SolrFieldFingerprints}). This
+   * method is optional: by default, all records are sent to Solr in full. This should only be
+   * enabled if the Solr schema supports atomic updates (i.e. all fields that are not targets of
+   * copy fields are stored or have doc values).
+   *
+   * @param solrPartialUpdatesEnabled Whether partial updates are enabled.
+   */
+  public void setSolrPartialUpdatesEnabled(boolean solrPartialUpdatesEnabled) {
+    this.solrPartialUpdatesEnabled = solrPartialUpdatesEnabled;
+  }
+
   /**
    * This method returns the list of Mongo hosts.
    *
@@ -200,6 +261,42 @@ public final class IndexingSettings {
     return this.solrProperties;
   }
 
+  /**
+   * This method returns the window in which flush requests are coalesced into one Solr commit.
+   *
+   * @return The commit window. Is not null.
+   */
+  public Duration getSolrCommitWindow() {
+    return solrCommitWindow;
+  }
+
+  /**
+   * This method returns the type of commit that is performed when flushing pending changes.
+   *
+   * @return The commit policy. Is not null.
+   */
+  public CommitPolicy getSolrCommitPolicy() {
+    return solrCommitPolicy;
+  }
+
+  /**
+   * This method returns the metrics to which the indexer reports.
+   *
+   * @return The metrics. Is not null.
+   */
+  public IndexingMetrics getIndexingMetrics() {
+    return indexingMetrics;
+  }
+
+  /**
+   * This method returns whether records that are reindexed are sent to Solr as partial updates.
+   *
+   * @return Whether partial updates are enabled.
+   */
+  public boolean isSolrPartialUpdatesEnabled() {
+    return solrPartialUpdatesEnabled;
+  }
+
   private static <T> T nonNull(T value, String fieldName) throws SetupRelatedIndexingException {
     if (value == null) {
       throw new SetupRelatedIndexingException(
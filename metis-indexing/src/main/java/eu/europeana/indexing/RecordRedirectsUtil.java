@@ -45,6 +45,10 @@ public final class RecordRedirectsUtil {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(RecordRedirectsUtil.class);
 
+  private static final int MAX_RECORDS_PER_QUERY = 20;
+  private static final int MAX_QUERY_LENGTH = 50_000;
+  private static final int ROWS_PER_RECORD = 10;
+
   private RecordRedirectsUtil() {
   }
 
@@ -60,23 +64,176 @@ public final class RecordRedirectsUtil {
     }
 
     // Search Solr to find matching record for redirection
-    final List<Pair<String, Date>> recordsForRedirection = searchMatchingRecordForRedirection(rdf,
-        datasetIdsToRedirectFrom, solrDocumentRetriever);
+    final List<Pair<String, Date>> recordsForRedirection = searchMatchingRecordsForRedirection(
+        Collections.singletonList(rdf), datasetIdsToRedirectFrom, solrDocumentRetriever,
+        new HashMap<>()).get(rdf.getAbout());
 
     // Create redirection
+    applyRedirects(recordRedirectDao, rdf, recordDate, recordsForRedirection);
+
+    // Done.
+    return recordsForRedirection;
+  }
+
+  /**
+   * Introduces the redirects from the given records to the given RDF record (see {@link
+   * #introduceRedirection(RecordRedirectDao, String, String, Date)}).
+   *
+   * @param recordRedirectDao The DAO object to manage redirects.
+   * @param rdf The record that is being indexed.
+   * @param recordDate The date (timestamp) for any new redirects.
+   * @param recordsForRedirection The records that are to redirect to the given RDF record, as
+   * found by {@link #searchMatchingRecordsForRedirection(List, List, ThrowingFunction, Map)}.
+   */
+  static void applyRedirects(RecordRedirectDao recordRedirectDao, RdfWrapper rdf, Date recordDate,
+      List<Pair<String, Date>> recordsForRedirection) {
     for (Pair<String, Date> recordForRedirection : recordsForRedirection) {
       introduceRedirection(recordRedirectDao, rdf.getAbout(), recordForRedirection.getLeft(),
           recordDate);
     }
+  }
+
+  /**
+   * <p>
+   * Searches Solr for the records that are to redirect to the given RDF records. The searches for
+   * the individual records are combined in as few Solr queries as possible (each containing the
+   * queries for at most {@value #MAX_RECORDS_PER_QUERY} records), after which the results are
+   * mapped back to the records locally using the same rules as the queries. If a combined query
+   * has more results than were returned (so that the results of one record may have pushed out
+   * those of another), the queries are executed again separately.
+   * </p>
+   * <p>
+   * If there is more than one record to search for, this method first checks whether there are any
+   * records at all in the datasets that are to be searched. The outcome of this check is stored in
+   * the given cache so that the check is performed only once for every combination of datasets.
+   * For a single record this check is not performed, as it would not save any queries.
+   * </p>
+   *
+   * @param rdfs The records that are being indexed.
+   * @param datasetIdsToRedirectFrom The dataset ids from which records need to be redirected.
+   * @param solrDocumentRetriever The function that performs a Solr query.
+   * @param datasetsWithRecordsCache The cache of dataset queries for which it is known whether
+   * there are records. It is updated by this method.
+   * @return A map from the about values of the given records to the records that should redirect to
+   * them (with their creation dates). All given records are represented in the map.
+   * @throws IndexingException In case the search failed.
+   */
+  static Map<String, List<Pair<String, Date>>> searchMatchingRecordsForRedirection(
+      List<RdfWrapper> rdfs, List<String> datasetIdsToRedirectFrom,
+      ThrowingFunction<Map<String, String>, SolrDocumentList, IndexingException> solrDocumentRetriever,
+      Map<String, Boolean> datasetsWithRecordsCache) throws IndexingException {
+
+    // Create the queries for those records that have anything to search for.
+    final Map<String, List<Pair<String, Date>>> result = new HashMap<>();
+    final List<RedirectionQuery> candidateQueries = new ArrayList<>();
+    for (RdfWrapper rdf : rdfs) {
+      result.put(rdf.getAbout(), new ArrayList<>());
+      final RedirectionQuery query = createRedirectionQuery(rdf, datasetIdsToRedirectFrom);
+      if (query != null) {
+        candidateQueries.add(query);
+      }
+    }
+
+    // If there are multiple queries, skip those for datasets without records.
+    final List<RedirectionQuery> queries;
+    if (candidateQueries.size() > 1) {
+      queries = new ArrayList<>(candidateQueries.size());
+      for (RedirectionQuery query : candidateQueries) {
+        if (hasRecords(query.datasetIdSubsets, solrDocumentRetriever, datasetsWithRecordsCache)) {
+          queries.add(query);
+        }
+      }
+    } else {
+      queries = candidateQueries;
+    }
+
+    // Execute the queries in chunks.
+    int chunkStart = 0;
+    while (chunkStart < queries.size()) {
+      int chunkEnd = chunkStart + 1;
+      int queryLength = queries.get(chunkStart).query.length();
+      while (chunkEnd < queries.size() && chunkEnd - chunkStart < MAX_RECORDS_PER_QUERY
+          && queryLength + queries.get(chunkEnd).query.length() <= MAX_QUERY_LENGTH) {
+        queryLength += queries.get(chunkEnd).query.length();
+        chunkEnd++;
+      }
+      executeQueries(queries.subList(chunkStart, chunkEnd), solrDocumentRetriever, result);
+      chunkStart = chunkEnd;
+    }
 
     // Done.
-    return recordsForRedirection;
+    return result;
   }
 
-  private static List<Pair<String, Date>> searchMatchingRecordForRedirection(RdfWrapper rdfWrapper,
-      List<String> datasetIdsToRedirectFrom,
-      ThrowingFunction<Map<String, String>, SolrDocumentList, IndexingException> solrDocumentRetriever)
-      throws IndexingException {
+  private static boolean hasRecords(String datasetIdSubsets,
+      ThrowingFunction<Map<String, String>, SolrDocumentList, IndexingException> solrDocumentRetriever,
+      Map<String, Boolean> datasetsWithRecordsCache) throws IndexingException {
+    final Boolean cachedResult = datasetsWithRecordsCache.get(datasetIdSubsets);
+    if (cachedResult != null) {
+      return cachedResult;
+    }
+    final Map<String, String> queryParamMap = new HashMap<>();
+    queryParamMap.put("q", datasetIdSubsets);
+    queryParamMap.put("rows", "0");
+    final boolean hasRecords = solrDocumentRetriever.apply(queryParamMap).getNumFound() > 0;
+    if (!hasRecords) {
+      LOGGER.info("No records found for query {}: skipping the search for redirections.",
+          datasetIdSubsets);
+    }
+    datasetsWithRecordsCache.put(datasetIdSubsets, hasRecords);
+    return hasRecords;
+  }
+
+  private static void executeQueries(List<RedirectionQuery> queries,
+      ThrowingFunction<Map<String, String>, SolrDocumentList, IndexingException> solrDocumentRetriever,
+      Map<String, List<Pair<String, Date>>> result) throws IndexingException {
+
+    // Combine the queries and execute.
+    final String combinedQuery = queries.size() == 1 ? queries.get(0).query
+        : queries.stream().map(query -> query.query)
+            .collect(Collectors.joining(") OR (", "(", ")"));
+    final Map<String, String> queryParamMap = new HashMap<>();
+    queryParamMap.put("q", combinedQuery);
+    queryParamMap.put("fl",
+        String.format("%s,%s,%s,%s,%s,%s,%s", EdmLabel.EUROPEANA_ID, EdmLabel.TIMESTAMP_CREATED,
+            EdmLabel.PROXY_DC_IDENTIFIER, EdmLabel.PROXY_DC_TITLE, EdmLabel.PROXY_DC_DESCRIPTION,
+            EdmLabel.PROVIDER_AGGREGATION_EDM_IS_SHOWN_BY, EdmLabel.EDM_DATASETNAME));
+    queryParamMap.put("rows", Integer.toString(ROWS_PER_RECORD * queries.size()));
+    final SolrDocumentList solrDocuments = solrDocumentRetriever.apply(queryParamMap);
+
+    // If not all results were returned, the results for one record may have taken the place of
+    // those for other records. In that case we execute the queries separately.
+    if (queries.size() > 1 && solrDocuments.getNumFound() > solrDocuments.size()) {
+      LOGGER.info("Combined redirection query has {} results: executing the queries separately.",
+          solrDocuments.getNumFound());
+      for (RedirectionQuery query : queries) {
+        executeQueries(Collections.singletonList(query), solrDocumentRetriever, result);
+      }
+      return;
+    }
+
+    // Map the results back to the records.
+    for (RedirectionQuery query : queries) {
+
+      // Find the documents that match the dataset and self-redirection restrictions of the query.
+      final SolrDocumentList candidates = solrDocuments.stream()
+          .filter(query::matchesDatasetsAndIsNotSelf)
+          .collect(Collectors.toCollection(SolrDocumentList::new));
+
+      //Check exact ids match first
+      modifyDocumentListIfMatchesFound(candidates, query.concatenatedIds, query.firstMapOfLists,
+          query.secondMapOfLists, query.thirdMapOfLists);
+
+      //Return all identifiers found and their creationDates
+      result.get(query.about).addAll(candidates.stream().map(document -> ImmutablePair
+          .of((String) document.getFieldValue(EdmLabel.EUROPEANA_ID.toString()),
+              (Date) document.getFieldValue(EdmLabel.TIMESTAMP_CREATED.toString())))
+          .collect(Collectors.toList()));
+    }
+  }
+
+  private static RedirectionQuery createRedirectionQuery(RdfWrapper rdfWrapper,
+      List<String> datasetIdsToRedirectFrom) {
     //The incoming structure of the identifier is /datasetId/recordId
     final String[] splitRecordIdentifier = rdfWrapper.getAbout().split("/");
     String datasetId = splitRecordIdentifier[1];
@@ -96,50 +253,32 @@ public final class RecordRedirectsUtil {
         UnaryOperator.identity(), Collectors.joining(" OR ", "(", ")"));
 
     //If combined query or is empty then we do not have a reason to search for a redirection match
-    if (StringUtils.isNotBlank(combinedQueryOr)) {
-      //Create query to restrict search on specific datasetId subsets
-      final List<String> datasetIds = new ArrayList<>();
-      datasetIds.add(datasetId);
-      if (!CollectionUtils.isEmpty(datasetIdsToRedirectFrom)) {
-        datasetIdsToRedirectFrom.stream().filter(StringUtils::isNotBlank).forEach(datasetIds::add);
-      }
-      final String datasetIdSubsets = generateQueryInDatasetSubsets(datasetIds);
-
-      // Query avoiding self-redirection. If the dataset already exists in the Solr it is likely that
-      // our query so far would return the very record we're indexing, which should be prevented.
-      final String queryPreventingFindingSameRecord = String
-          .format("-%s:%s", EdmLabel.EUROPEANA_ID.toString(),
-              ClientUtils.escapeQueryChars(rdfWrapper.getAbout()));
-
-      // Assemble final query.
-      final List<String> finalQueryParts = Arrays
-          .asList(datasetIdSubsets, combinedQueryOr, queryPreventingFindingSameRecord);
-      final String finalQuery = computeJoiningQuery(getFilteredItems(finalQueryParts),
-          UnaryOperator.identity(), Collectors.joining(" AND "));
-
-      //Apply solr query and execute
-      final Map<String, String> queryParamMap = new HashMap<>();
-      queryParamMap.put("q", finalQuery);
-      queryParamMap.put("fl",
-          String.format("%s,%s,%s,%s,%s,%s", EdmLabel.EUROPEANA_ID, EdmLabel.TIMESTAMP_CREATED,
-              EdmLabel.PROXY_DC_IDENTIFIER, EdmLabel.PROXY_DC_TITLE, EdmLabel.PROXY_DC_DESCRIPTION,
-              EdmLabel.PROVIDER_AGGREGATION_EDM_IS_SHOWN_BY));
-
-      //Preprocess sub-query and replace documents based on the result
-      SolrDocumentList solrDocuments = solrDocumentRetriever.apply(queryParamMap);
-
-      //Check exact ids match first
-      modifyDocumentListIfMatchesFound(solrDocuments,
-          queryForDatasetIdsAndConcatenatedIds.getRight(), firstMapOfLists, secondMapOfLists,
-          thirdMapOfLists);
+    if (StringUtils.isBlank(combinedQueryOr)) {
+      return null;
+    }
 
-      //Return all identifiers found and their creationDates
-      return solrDocuments.stream().map(document -> ImmutablePair
-          .of((String) document.getFieldValue(EdmLabel.EUROPEANA_ID.toString()),
-              (Date) document.getFieldValue(EdmLabel.TIMESTAMP_CREATED.toString())))
-          .collect(Collectors.toList());
+    //Create query to restrict search on specific datasetId subsets
+    final List<String> datasetIds = new ArrayList<>();
+    datasetIds.add(datasetId);
+    if (!CollectionUtils.isEmpty(datasetIdsToRedirectFrom)) {
+      datasetIdsToRedirectFrom.stream().filter(StringUtils::isNotBlank).forEach(datasetIds::add);
     }
-    return new ArrayList<>();
+    final String datasetIdSubsets = generateQueryInDatasetSubsets(datasetIds);
+
+    // Query avoiding self-redirection. If the dataset already exists in the Solr it is likely that
+    // our query so far would return the very record we're indexing, which should be prevented.
+    final String queryPreventingFindingSameRecord = String
+        .format("-%s:%s", EdmLabel.EUROPEANA_ID.toString(),
+            ClientUtils.escapeQueryChars(rdfWrapper.getAbout()));
+
+    // Assemble final query.
+    final List<String> finalQueryParts = Arrays
+        .asList(datasetIdSubsets, combinedQueryOr, queryPreventingFindingSameRecord);
+    final String finalQuery = computeJoiningQuery(getFilteredItems(finalQueryParts),
+        UnaryOperator.identity(), Collectors.joining(" AND "));
+    return new RedirectionQuery(rdfWrapper.getAbout(), getFilteredItems(datasetIds),
+        datasetIdSubsets, finalQuery, queryForDatasetIdsAndConcatenatedIds.getRight(),
+        firstMapOfLists, secondMapOfLists, thirdMapOfLists);
   }
 
   private static void modifyDocumentListIfMatchesFound(SolrDocumentList solrDocuments,
@@ -387,6 +526,50 @@ public final class RecordRedirectsUtil {
     });
   }
 
+  /**
+   * The query for finding the records that are to redirect to a given record, along with the
+   * information needed to map the results of the query back to this record.
+   */
+  private static class RedirectionQuery {
+
+    private final String about;
+    private final List<String> datasetIds;
+    private final String datasetIdSubsets;
+    private final String query;
+    private final List<String> concatenatedIds;
+    private final Map<String, List<String>> firstMapOfLists;
+    private final Map<String, List<String>> secondMapOfLists;
+    private final Map<String, List<String>> thirdMapOfLists;
+
+    RedirectionQuery(String about, List<String> datasetIds, String datasetIdSubsets, String query,
+        List<String> concatenatedIds, Map<String, List<String>> firstMapOfLists,
+        Map<String, List<String>> secondMapOfLists, Map<String, List<String>> thirdMapOfLists) {
+      this.about = about;
+      this.datasetIds = datasetIds;
+      this.datasetIdSubsets = datasetIdSubsets;
+      this.query = query;
+      this.concatenatedIds = concatenatedIds;
+      this.firstMapOfLists = firstMapOfLists;
+      this.secondMapOfLists = secondMapOfLists;
+      this.thirdMapOfLists = thirdMapOfLists;
+    }
+
+    /**
+     * Checks the restrictions of this query that are not checked by the local matching rules: the
+     * document should be in one of the datasets and should not be the record itself.
+     *
+     * @param document The document to check.
+     * @return Whether the document satisfies the restrictions.
+     */
+    boolean matchesDatasetsAndIsNotSelf(SolrDocument document) {
+      final Object datasetName = document.getFieldValue(EdmLabel.EDM_DATASETNAME.toString());
+      final boolean matchesDatasets = datasetName != null && datasetIds.stream()
+          .anyMatch(datasetId -> datasetName.toString().startsWith(datasetId + "_"));
+      return matchesDatasets && !about
+          .equals(document.getFieldValue(EdmLabel.EUROPEANA_ID.toString()));
+    }
+  }
+
   /**
    * Represents a function that accepts one argument and produces a result with the possibility of
    * an {@link IndexingException} thrown.
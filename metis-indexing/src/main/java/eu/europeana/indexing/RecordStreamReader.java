@@ -0,0 +1,591 @@
+package eu.europeana.indexing;
+
+import eu.europeana.indexing.exception.IndexerRelatedIndexingException;
+import eu.europeana.indexing.exception.IndexingException;
+import eu.europeana.indexing.exception.RecordRelatedIndexingException;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * <p>
+ * This class reads RDF records one by one from a stream containing multiple records. The stream
+ * may contain:
+ * <ul>
+ * <li>A sequence of concatenated XML documents, each containing one or more records,</li>
+ * <li>One XML document in which the records are contained in a wrapper element (such as an
+ * OAI-PMH response),</li>
+ * <li>A zip file (as produced by harvesting), of which each entry contains one or more records in
+ * one of the above forms.</li>
+ * </ul>
+ * A record is an element <code>rdf:RDF</code>. Records are detected using StAX, so that only the
+ * record that is currently being read is held in memory, regardless of the size of the input.
+ * The input is expected to be encoded in UTF-8.
+ * </p>
+ * <p>
+ * If the XML is malformed, a {@link RecordRelatedIndexingException} is thrown. For a zip file,
+ * reading continues with the next entry; otherwise there are no more records after that. If the
+ * stream itself can not be read, an {@link IndexerRelatedIndexingException} is thrown.
+ * </p>
+ * <p>
+ * This class is not thread-safe. Closing it does not close the underlying stream.
+ * </p>
+ */
+final class RecordStreamReader implements Closeable {
+
+  private static final String RDF_NAMESPACE = "http://www.w3.org/1999/02/22-rdf-syntax-ns#";
+  private static final String RDF_ELEMENT_NAME = "RDF";
+
+  private static final byte[] ZIP_SIGNATURE = {'P', 'K', 3, 4};
+  private static final String WRAPPER_START = "<records>";
+  private static final String WRAPPER_END = "</records>";
+
+  private static final XMLInputFactory INPUT_FACTORY = createInputFactory();
+  private static final XMLOutputFactory OUTPUT_FACTORY = XMLOutputFactory.newFactory();
+
+  private final InputStream source;
+  private final ZipInputStream zipSource;
+
+  private XMLStreamReader reader;
+  private boolean endOfStream = false;
+  private final Deque<Map<String, String>> namespaceScopes = new ArrayDeque<>();
+  private int recordCount = 0;
+
+  /**
+   * Constructor.
+   *
+   * @param source The source stream. This stream is not closed.
+   * @throws IndexingException In case the stream could not be opened: an {@link
+   * IndexerRelatedIndexingException} if it could not be read, or a {@link
+   * RecordRelatedIndexingException} if it is malformed.
+   */
+  RecordStreamReader(InputStream source) throws IndexingException {
+    this.source = new BufferedInputStream(new NonClosingInputStream(source));
+    try {
+      if (isZip(this.source)) {
+        this.zipSource = new ZipInputStream(this.source, StandardCharsets.UTF_8);
+        this.reader = null;
+      } else {
+        this.zipSource = null;
+        this.reader = createReader(this.source);
+      }
+    } catch (IOException e) {
+      throw new IndexerRelatedIndexingException("Could not open the stream of records.", e);
+    } catch (XMLStreamException e) {
+      throw createReadException("Could not open the stream of records.", e);
+    }
+  }
+
+  private static XMLInputFactory createInputFactory() {
+    final XMLInputFactory factory = XMLInputFactory.newFactory();
+    factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+    return factory;
+  }
+
+  private static boolean isZip(InputStream stream) throws IOException {
+    stream.mark(ZIP_SIGNATURE.length);
+    try {
+      for (byte signatureByte : ZIP_SIGNATURE) {
+        if (stream.read() != signatureByte) {
+          return false;
+        }
+      }
+      return true;
+    } finally {
+      stream.reset();
+    }
+  }
+
+  private XMLStreamReader createReader(InputStream stream) throws XMLStreamException {
+
+    // Wrap the (concatenated) documents in a root element, so that they form one XML document.
+    final InputStream wrappedStream = new SequenceInputStream(new SequenceInputStream(
+        new ByteArrayInputStream(WRAPPER_START.getBytes(StandardCharsets.UTF_8)),
+        new XmlDeclarationFilter(new NonClosingInputStream(stream))),
+        new ByteArrayInputStream(WRAPPER_END.getBytes(StandardCharsets.UTF_8)));
+    namespaceScopes.clear();
+    return INPUT_FACTORY.createXMLStreamReader(wrappedStream, StandardCharsets.UTF_8.name());
+  }
+
+  /**
+   * Reads the next record from the stream.
+   *
+   * @return The next record as an XML document, or null if there are no more records.
+   * @throws IndexingException In case the stream could not be read: an {@link
+   * IndexerRelatedIndexingException} if the stream itself could not be read, or a {@link
+   * RecordRelatedIndexingException} if the XML is malformed (after which the caller may continue
+   * to read any subsequent zip entries).
+   */
+  String nextRecord() throws IndexingException {
+    try {
+      while (!endOfStream) {
+        if (reader == null && !openNextZipEntry()) {
+          endOfStream = true;
+          return null;
+        }
+        final String record = readUntilNextRecord();
+        if (record != null) {
+          recordCount++;
+          return record;
+        }
+        closeReader();
+      }
+      return null;
+    } catch (IOException e) {
+      throw new IndexerRelatedIndexingException(getReadErrorMessage(), e);
+    } catch (XMLStreamException e) {
+
+      // The XML reader can not recover: continue with the next zip entry, if there is one.
+      closeReader();
+      throw createReadException(getReadErrorMessage(), e);
+    }
+  }
+
+  private String getReadErrorMessage() {
+    return "Could not read record from stream after " + recordCount + " records.";
+  }
+
+  private static IndexingException createReadException(String message, XMLStreamException e) {
+    // The XML reader reports problems reading the underlying stream as XML problems.
+    if (e.getNestedException() instanceof IOException) {
+      return new IndexerRelatedIndexingException(message, e);
+    }
+    return new RecordRelatedIndexingException(message, e);
+  }
+
+  private void closeReader() {
+    try {
+      if (reader != null) {
+        reader.close();
+      }
+    } catch (XMLStreamException e) {
+      // Nothing to do: the reader does not own any resources.
+    } finally {
+      reader = null;
+      endOfStream = zipSource == null;
+    }
+  }
+
+  private boolean openNextZipEntry() throws IOException, XMLStreamException {
+    if (zipSource == null) {
+      return false;
+    }
+    ZipEntry entry;
+    do {
+      entry = zipSource.getNextEntry();
+    } while (entry != null && entry.isDirectory());
+    if (entry == null) {
+      return false;
+    }
+    reader = createReader(zipSource);
+    return true;
+  }
+
+  private String readUntilNextRecord() throws XMLStreamException {
+    while (reader.hasNext()) {
+      final int event = reader.next();
+      if (event == XMLStreamConstants.START_ELEMENT) {
+        if (RDF_NAMESPACE.equals(reader.getNamespaceURI()) && RDF_ELEMENT_NAME
+            .equals(reader.getLocalName())) {
+          return copyRecord();
+        }
+        namespaceScopes.push(getDeclaredNamespaces(reader));
+      } else if (event == XMLStreamConstants.END_ELEMENT && !namespaceScopes.isEmpty()) {
+        namespaceScopes.pop();
+      }
+    }
+    return null;
+  }
+
+  private static Map<String, String> getDeclaredNamespaces(XMLStreamReader reader) {
+    final Map<String, String> result = new HashMap<>();
+    for (int i = 0; i < reader.getNamespaceCount(); i++) {
+      result.put(nullToEmpty(reader.getNamespacePrefix(i)), reader.getNamespaceURI(i));
+    }
+    return result;
+  }
+
+  private String copyRecord() throws XMLStreamException {
+
+    // Collect the namespaces declared on the record or on any of its ancestors.
+    final Map<String, String> namespaces = new HashMap<>();
+    namespaceScopes.descendingIterator().forEachRemaining(namespaces::putAll);
+    namespaces.putAll(getDeclaredNamespaces(reader));
+
+    // Copy the record element and its content.
+    final StringWriter result = new StringWriter();
+    final XMLStreamWriter writer = OUTPUT_FACTORY.createXMLStreamWriter(result);
+    writer.writeStartDocument(StandardCharsets.UTF_8.name(), "1.0");
+    writeStartElement(writer, namespaces);
+    int depth = 1;
+    while (depth > 0) {
+      switch (reader.next()) {
+        case XMLStreamConstants.START_ELEMENT:
+          writeStartElement(writer, getDeclaredNamespaces(reader));
+          depth++;
+          break;
+        case XMLStreamConstants.END_ELEMENT:
+          writer.writeEndElement();
+          depth--;
+          break;
+        case XMLStreamConstants.CHARACTERS:
+        case XMLStreamConstants.SPACE:
+        case XMLStreamConstants.ENTITY_REFERENCE:
+          writer.writeCharacters(reader.getText());
+          break;
+        case XMLStreamConstants.CDATA:
+          writer.writeCData(reader.getText());
+          break;
+        case XMLStreamConstants.COMMENT:
+          writer.writeComment(reader.getText());
+          break;
+        case XMLStreamConstants.PROCESSING_INSTRUCTION:
+          writer.writeProcessingInstruction(reader.getPITarget(), reader.getPIData());
+          break;
+        default:
+          // Nothing else can occur inside an element.
+          break;
+      }
+    }
+    writer.writeEndDocument();
+    writer.close();
+    return result.toString();
+  }
+
+  private void writeStartElement(XMLStreamWriter writer, Map<String, String> namespaces)
+      throws XMLStreamException {
+    writer.writeStartElement(nullToEmpty(reader.getPrefix()), reader.getLocalName(),
+        nullToEmpty(reader.getNamespaceURI()));
+    for (Map.Entry<String, String> namespace : namespaces.entrySet()) {
+      if (namespace.getKey().isEmpty()) {
+        writer.writeDefaultNamespace(namespace.getValue());
+      } else {
+        writer.writeNamespace(namespace.getKey(), namespace.getValue());
+      }
+    }
+    for (int i = 0; i < reader.getAttributeCount(); i++) {
+      final String prefix = nullToEmpty(reader.getAttributePrefix(i));
+      if (prefix.isEmpty()) {
+        writer.writeAttribute(reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+      } else {
+        writer.writeAttribute(prefix, reader.getAttributeNamespace(i),
+            reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+      }
+    }
+  }
+
+  private static String nullToEmpty(String value) {
+    return value == null ? "" : value;
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      if (reader != null) {
+        reader.close();
+      }
+    } catch (XMLStreamException e) {
+      throw new IOException("Could not close the stream of records.", e);
+    } finally {
+      if (zipSource != null) {
+        zipSource.close();
+      } else {
+        source.close();
+      }
+    }
+  }
+
+  /**
+   * <p>
+   * Input stream that removes XML declarations (<code>&lt;?xml ... ?&gt;</code>) and UTF-8 byte
+   * order marks at document boundaries, so that concatenated documents can be wrapped in one root
+   * element. A document boundary is any position outside of the top-level elements (i.e. at the
+   * start of the stream or after a top-level element has closed), and outside of comments,
+   * processing instructions and the like. To find these positions, the stream is scanned for the
+   * start and end of elements and other markup: declarations or byte order marks within elements
+   * (e.g. in CDATA sections) are therefore left alone.
+   * </p>
+   * <p>
+   * The stream is read in blocks. It is not checked whether the XML is well-formed: that is left to
+   * the XML parser.
+   * </p>
+   */
+  private static final class XmlDeclarationFilter extends FilterInputStream {
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final byte[] DECLARATION_START = "<?xml".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] BYTE_ORDER_MARK = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+
+    private enum State {
+      TEXT, MARKUP_START, START_TAG, QUOTED_ATTRIBUTE_VALUE, END_TAG, MARKUP_DECLARATION_START,
+      COMMENT_START, COMMENT, CDATA_SECTION, DOCUMENT_TYPE, PROCESSING_INSTRUCTION, XML_DECLARATION
+    }
+
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private final byte[] singleByte = new byte[1];
+    private int position = 0;
+    private int limit = 0;
+
+    private State state = State.TEXT;
+    private int depth = 0;
+    private byte previous = 0;
+    private byte quote = 0;
+    private int count = 0;
+
+    XmlDeclarationFilter(InputStream in) {
+      super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+      return read(singleByte, 0, 1) < 0 ? -1 : (singleByte[0] & 0xFF);
+    }
+
+    @Override
+    public int read(byte[] target, int offset, int length) throws IOException {
+      Objects.checkFromIndexSize(offset, length, target.length);
+      if (length == 0) {
+        return 0;
+      }
+      int result = 0;
+      while (result == 0) {
+        if (position == limit && !fillBuffer()) {
+          return -1;
+        }
+        while (position < limit && result < length) {
+          final byte value = buffer[position];
+          if (depth == 0 && state == State.TEXT && (value == BYTE_ORDER_MARK[0] || value == '<')
+              && skipAtDocumentBoundary()) {
+            continue;
+          }
+          position++;
+          if (processByte(value)) {
+            target[offset + result] = value;
+            result++;
+          }
+        }
+      }
+      return result;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      final byte[] skipped = new byte[(int) Math.min(Math.max(n, 0), BUFFER_SIZE)];
+      long result = 0;
+      while (result < n) {
+        final int read = read(skipped, 0, (int) Math.min(n - result, skipped.length));
+        if (read < 0) {
+          break;
+        }
+        result += read;
+      }
+      return result;
+    }
+
+    @Override
+    public int available() {
+      // We can't tell how many of the buffered bytes will be removed.
+      return 0;
+    }
+
+    @Override
+    public boolean markSupported() {
+      return false;
+    }
+
+    private boolean fillBuffer() throws IOException {
+      int read = 0;
+      while (read == 0) {
+        read = in.read(buffer, 0, buffer.length);
+      }
+      if (read < 0) {
+        return false;
+      }
+      position = 0;
+      limit = read;
+      return true;
+    }
+
+    /**
+     * Makes sure that the buffer contains at least the given number of bytes from the current
+     * position, unless the end of the stream is reached. This only moves the few bytes that remain
+     * in the buffer.
+     */
+    private void ensureAvailable(int required) throws IOException {
+      if (limit - position >= required) {
+        return;
+      }
+      System.arraycopy(buffer, position, buffer, 0, limit - position);
+      limit -= position;
+      position = 0;
+      while (limit < required) {
+        final int read = in.read(buffer, limit, buffer.length - limit);
+        if (read < 0) {
+          return;
+        }
+        limit += read;
+      }
+    }
+
+    private boolean startsWith(byte[] prefix) {
+      return limit - position >= prefix.length && Arrays
+          .equals(buffer, position, position + prefix.length, prefix, 0, prefix.length);
+    }
+
+    /**
+     * Skips a byte order mark or the start of an XML declaration at the current position (which is
+     * at a document boundary).
+     *
+     * @return Whether anything was skipped.
+     */
+    private boolean skipAtDocumentBoundary() throws IOException {
+      ensureAvailable(DECLARATION_START.length + 1);
+      if (startsWith(BYTE_ORDER_MARK)) {
+        position += BYTE_ORDER_MARK.length;
+        return true;
+      }
+      // Don't match processing instructions such as <?xml-stylesheet ... ?>.
+      if (startsWith(DECLARATION_START) && limit - position > DECLARATION_START.length
+          && Character.isWhitespace(buffer[position + DECLARATION_START.length])) {
+        position += DECLARATION_START.length;
+        state = State.XML_DECLARATION;
+        previous = 0;
+        return true;
+      }
+      return false;
+    }
+
+    /**
+     * Updates the state of the scanner with the next byte.
+     *
+     * @return Whether the byte is to be passed on (i.e. it is not part of an XML declaration).
+     */
+    private boolean processByte(byte value) {
+      switch (state) {
+        case TEXT:
+          if (value == '<') {
+            state = State.MARKUP_START;
+          }
+          break;
+        case MARKUP_START:
+          processMarkupStart(value);
+          break;
+        case START_TAG:
+          if (value == '"' || value == '\'') {
+            quote = value;
+            state = State.QUOTED_ATTRIBUTE_VALUE;
+          } else if (value == '>') {
+            depth += previous == '/' ? 0 : 1;
+            state = State.TEXT;
+          }
+          break;
+        case QUOTED_ATTRIBUTE_VALUE:
+          if (value == quote) {
+            state = State.START_TAG;
+          }
+          break;
+        case END_TAG:
+          if (value == '>') {
+            depth = Math.max(0, depth - 1);
+            state = State.TEXT;
+          }
+          break;
+        case MARKUP_DECLARATION_START:
+          count = 0;
+          if (value == '-') {
+            state = State.COMMENT_START;
+          } else if (value == '[') {
+            state = State.CDATA_SECTION;
+          } else {
+            state = value == '>' ? State.TEXT : State.DOCUMENT_TYPE;
+          }
+          break;
+        case COMMENT_START:
+          state = State.COMMENT;
+          break;
+        case COMMENT:
+        case CDATA_SECTION:
+          // Comments end with '-->', CDATA sections with ']]>'.
+          final byte endCharacter = state == State.COMMENT ? (byte) '-' : (byte) ']';
+          if (value == '>' && count >= 2) {
+            state = State.TEXT;
+          }
+          count = value == endCharacter ? (count + 1) : 0;
+          break;
+        case DOCUMENT_TYPE:
+          // Skip any internal subset (between square brackets).
+          if (value == '[') {
+            count++;
+          } else if (value == ']') {
+            count--;
+          } else if (value == '>' && count <= 0) {
+            state = State.TEXT;
+          }
+          break;
+        case PROCESSING_INSTRUCTION:
+        case XML_DECLARATION:
+          final boolean isXmlDeclaration = state == State.XML_DECLARATION;
+          if (value == '>' && previous == '?') {
+            state = State.TEXT;
+          }
+          previous = value;
+          return !isXmlDeclaration;
+        default:
+          throw new IllegalStateException("Unknown state: " + state);
+      }
+      previous = value;
+      return true;
+    }
+
+    private void processMarkupStart(byte value) {
+      if (value == '/') {
+        state = State.END_TAG;
+      } else if (value == '!') {
+        state = State.MARKUP_DECLARATION_START;
+      } else if (value == '?') {
+        state = State.PROCESSING_INSTRUCTION;
+      } else {
+        state = State.START_TAG;
+      }
+      // The question mark that opens a processing instruction should not also close it.
+      previous = value == '?' ? 0 : value;
+    }
+  }
+
+  /**
+   * Input stream that does not close the underlying stream (e.g. the current zip entry).
+   */
+  private static final class NonClosingInputStream extends FilterInputStream {
+
+    NonClosingInputStream(InputStream in) {
+      super(in);
+    }
+
+    @Override
+    public void close() {
+      // Nothing to do: the underlying stream is closed by the owner.
+    }
+  }
+}
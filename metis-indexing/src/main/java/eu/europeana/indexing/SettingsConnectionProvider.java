@@ -9,6 +9,7 @@ import eu.europeana.corelib.mongo.server.EdmMongoServer;
 import eu.europeana.corelib.mongo.server.impl.EdmMongoServerImpl;
 import eu.europeana.indexing.exception.IndexerRelatedIndexingException;
 import eu.europeana.indexing.exception.SetupRelatedIndexingException;
+import eu.europeana.indexing.metrics.IndexingMetrics;
 import eu.europeana.metis.mongo.MongoClientProvider;
 import eu.europeana.metis.mongo.RecordRedirectDao;
 import eu.europeana.metis.solr.CompoundSolrClient;
@@ -34,9 +35,12 @@ public final class SettingsConnectionProvider implements AbstractConnectionProvi
   private static final Logger LOGGER = LoggerFactory.getLogger(SettingsConnectionProvider.class);
 
   private final CompoundSolrClient solrClient;
+  private final SolrCommitCoordinator solrCommitCoordinator;
   private final MongoClient mongoClient;
   private final EdmMongoServer edmMongoClient;
   private final RecordRedirectDao recordRedirectDao;
+  private final IndexingMetrics indexingMetrics;
+  private final boolean solrPartialUpdatesEnabled;
 
   /**
    * Constructor. Sets up the required connections using the supplied settings.
@@ -47,14 +51,35 @@ public final class SettingsConnectionProvider implements AbstractConnectionProvi
    */
   public SettingsConnectionProvider(IndexingSettings settings)
       throws SetupRelatedIndexingException, IndexerRelatedIndexingException {
+    this(settings, createSolrCommitCoordinator(settings));
+  }
+
+  /**
+   * Constructor. Sets up the required connections using the supplied settings, using the given
+   * commit coordinator (which may be shared with other providers).
+   *
+   * @param settings The indexing settings (connection settings).
+   * @param solrCommitCoordinator The commit coordinator to use.
+   * @throws SetupRelatedIndexingException In case the connections could not be set up.
+   * @throws IndexerRelatedIndexingException In case the connection could not be established.
+   */
+  SettingsConnectionProvider(IndexingSettings settings,
+      SolrCommitCoordinator solrCommitCoordinator)
+      throws SetupRelatedIndexingException, IndexerRelatedIndexingException {
 
     // Sanity check
     if (settings == null) {
       throw new SetupRelatedIndexingException("The provided settings object is null.");
     }
+    if (solrCommitCoordinator == null) {
+      throw new SetupRelatedIndexingException("The provided commit coordinator is null.");
+    }
 
     // Create Solr and Zookeeper connections.
     this.solrClient = new SolrClientProvider<>(settings.getSolrProperties()).createSolrClient();
+    this.solrCommitCoordinator = solrCommitCoordinator;
+    this.indexingMetrics = settings.getIndexingMetrics();
+    this.solrPartialUpdatesEnabled = settings.isSolrPartialUpdatesEnabled();
 
     // Create mongo connection.
     try {
@@ -68,6 +93,17 @@ public final class SettingsConnectionProvider implements AbstractConnectionProvi
     }
   }
 
+  /**
+   * Creates a commit coordinator using the commit settings in the given settings object.
+   *
+   * @param settings The indexing settings. Can be null, in which case null is returned.
+   * @return The commit coordinator.
+   */
+  static SolrCommitCoordinator createSolrCommitCoordinator(IndexingSettings settings) {
+    return settings == null ? null : new SolrCommitCoordinator(settings.getSolrCommitWindow(),
+        settings.getSolrCommitPolicy());
+  }
+
   private static MongoClient createMongoClient(IndexingSettings settings)
       throws SetupRelatedIndexingException {
 
@@ -115,6 +151,21 @@ public final class SettingsConnectionProvider implements AbstractConnectionProvi
     return this.solrClient.getSolrClient();
   }
 
+  @Override
+  public SolrCommitCoordinator getSolrCommitCoordinator() {
+    return solrCommitCoordinator;
+  }
+
+  @Override
+  public IndexingMetrics getIndexingMetrics() {
+    return indexingMetrics;
+  }
+
+  @Override
+  public boolean isSolrPartialUpdatesEnabled() {
+    return solrPartialUpdatesEnabled;
+  }
+
   @Override
   public EdmMongoServer getEdmMongoClient() {
     return edmMongoClient;
@@ -127,6 +178,7 @@ public final class SettingsConnectionProvider implements AbstractConnectionProvi
 
   @Override
   public void close() throws IOException {
+    solrCommitCoordinator.awaitPendingCommit();
     edmMongoClient.close();
     mongoClient.close();
     this.solrClient.close();
@@ -0,0 +1,187 @@
+package eu.europeana.indexing;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>
+ * This class coalesces commit requests for a Solr cluster: all requests that are made within a
+ * given window (starting with the first request) are served by one single commit. The commit is
+ * performed in a background thread and the requests are given a future that completes when the
+ * commit is complete.
+ * </p>
+ * <p>
+ * One coordinator is meant to be shared by all indexers that write to the same Solr cluster (see
+ * {@link IndexerFactory}), even if they use different Solr clients: a commit is performed using
+ * the client of the first request that it serves. Therefore, before a client is closed, the
+ * owner of the client should call {@link #awaitPendingCommit()}. The background thread is stopped
+ * when it has been idle for a while, so that a coordinator does not need to be closed.
+ * </p>
+ * <p>
+ * Commits are never performed concurrently. A request that is made while a commit is in progress
+ * is not served by that commit (as it may not include all changes made before the request), but by
+ * the next one.
+ * </p>
+ * <p>
+ * This class is thread-safe.
+ * </p>
+ */
+public final class SolrCommitCoordinator {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(SolrCommitCoordinator.class);
+
+  private static final long PENDING_COMMIT_TIMEOUT_IN_SECS = 60;
+  private static final long THREAD_KEEP_ALIVE_IN_SECS = 60;
+
+  /**
+   * The default window in which commit requests are coalesced: no window, so that a flush is not
+   * delayed if there is no other activity. Requests are still coalesced if they are made before
+   * the scheduled commit is started: under load, all requests that are made while a commit is in
+   * progress are served by the one next commit.
+   */
+  public static final Duration DEFAULT_WINDOW = Duration.ZERO;
+
+  /**
+   * The type of commit that is performed.
+   */
+  public enum CommitPolicy {
+
+    /**
+     * A hard commit: changes are written to stable storage and become visible.
+     */
+    HARD(false),
+
+    /**
+     * A soft commit: changes become visible, but are not necessarily written to stable storage.
+     */
+    SOFT(true);
+
+    private final boolean softCommit;
+
+    CommitPolicy(boolean softCommit) {
+      this.softCommit = softCommit;
+    }
+  }
+
+  private final Duration window;
+  private final CommitPolicy commitPolicy;
+  private final ScheduledThreadPoolExecutor executor;
+
+  private CompletableFuture<Void> pendingCommit;
+  private CompletableFuture<Void> lastCommit = CompletableFuture.completedFuture(null);
+
+  /**
+   * Constructor.
+   *
+   * @param window The window in which requests are coalesced. Is not null and not negative.
+   * @param commitPolicy The type of commit to perform. Is not null.
+   */
+  SolrCommitCoordinator(Duration window, CommitPolicy commitPolicy) {
+    if (window.isNegative()) {
+      throw new IllegalArgumentException("The commit window can not be negative.");
+    }
+    this.window = window;
+    this.commitPolicy = commitPolicy;
+    this.executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+      final Thread thread = new Thread(runnable, "solr-commit-coordinator");
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.executor.setKeepAliveTime(THREAD_KEEP_ALIVE_IN_SECS, TimeUnit.SECONDS);
+    this.executor.allowCoreThreadTimeOut(true);
+  }
+
+  /**
+   * Requests a commit. If a commit is already scheduled (but not yet started), the request will be
+   * served by that commit. Otherwise a new commit is scheduled at the end of the window, to be
+   * performed using the given client.
+   *
+   * @param solrClient The Solr client of the caller.
+   * @return A future that completes when the commit that serves this request is complete. If the
+   * commit fails, the future completes exceptionally with the cause of the failure.
+   */
+  public synchronized CompletableFuture<Void> requestCommit(SolrClient solrClient) {
+    if (pendingCommit == null) {
+      final CompletableFuture<Void> commit = new CompletableFuture<>();
+      pendingCommit = commit;
+      lastCommit = commit;
+      executor.schedule(() -> performCommit(solrClient, commit), window.toMillis(),
+          TimeUnit.MILLISECONDS);
+    }
+    return pendingCommit;
+  }
+
+  /**
+   * Requests a commit (see {@link #requestCommit(SolrClient)}) and waits for it to complete.
+   *
+   * @param solrClient The Solr client of the caller.
+   * @throws IOException If there is a low-level I/O error.
+   * @throws SolrServerException If there is an error on the server.
+   */
+  public void commitAndWait(SolrClient solrClient) throws SolrServerException, IOException {
+    try {
+      requestCommit(solrClient).get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while waiting for the commit.", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof SolrServerException) {
+        throw (SolrServerException) e.getCause();
+      } else if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      } else if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new SolrServerException(e.getCause());
+    }
+  }
+
+  private void performCommit(SolrClient solrClient, CompletableFuture<Void> commit) {
+
+    // From now on, new requests are to be served by a new commit.
+    synchronized (this) {
+      if (pendingCommit == commit) {
+        pendingCommit = null;
+      }
+    }
+
+    // Perform the commit.
+    try {
+      solrClient.commit(true, true, commitPolicy.softCommit);
+      commit.complete(null);
+    } catch (SolrServerException | IOException | RuntimeException e) {
+      LOGGER.warn("Commit on Solr failed.", e);
+      commit.completeExceptionally(e);
+    }
+  }
+
+  /**
+   * Waits for the last requested commit to complete (whether it succeeds or not). This should be
+   * called before closing a client that was used to request commits, as the commit may be
+   * performed using that client.
+   */
+  public void awaitPendingCommit() {
+    final CompletableFuture<Void> commit;
+    synchronized (this) {
+      commit = lastCommit;
+    }
+    try {
+      commit.get(PENDING_COMMIT_TIMEOUT_IN_SECS, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      // The failure is reported to the requesters of the commit.
+    } catch (TimeoutException e) {
+      LOGGER.warn("Scheduled commit did not complete in time.");
+    }
+  }
+}
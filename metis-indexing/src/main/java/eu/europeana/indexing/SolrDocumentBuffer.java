@@ -0,0 +1,424 @@
+package eu.europeana.indexing;
+
+import eu.europeana.indexing.exception.IndexerRelatedIndexingException;
+import eu.europeana.indexing.exception.IndexingException;
+import eu.europeana.indexing.exception.RecordRelatedIndexingException;
+import eu.europeana.indexing.metrics.IndexingMetrics;
+import eu.europeana.indexing.metrics.IndexingStage;
+import eu.europeana.metis.utils.ExternalRequestUtil;
+import java.io.IOException;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.common.SolrException.ErrorCode;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.SolrInputField;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>
+ * This class buffers Solr documents and sends them to Solr in batches. A batch is sent as soon as
+ * the number of buffered documents reaches the current batch size, the (estimated) size of the
+ * buffered documents reaches the maximum batch volume, or the oldest buffered document has waited
+ * longer than the maximum delay (this is checked whenever a document is added). Any remaining
+ * documents are sent when {@link #flush()} is called.
+ * </p>
+ * <p>
+ * The batch size adapts to the observed behaviour of Solr: it grows additively as long as batches
+ * succeed within the target latency, and it is halved when a batch is slow or fails.
+ * </p>
+ * <p>
+ * If Solr rejects a batch as a bad request or a version conflict (i.e. a problem with one or more
+ * of the documents), it is split in two and the halves are sent separately, until the individual
+ * documents that fail are found. These are reported (as record-related exceptions) by the next
+ * call to {@link #flush()}. If a batch fails for any other reason (such as an overloaded server, a
+ * server error or a timeout), the failure is considered to be indexer-related and the exception is
+ * thrown immediately.
+ * </p>
+ * <p>
+ * A document can be added with a callback that is called once the document has been sent to Solr
+ * successfully. This callback is not called if the document fails.
+ * </p>
+ * <p>
+ * Atomic updates are added through {@link #addAtomicUpdate(String, SolrInputDocument, Runnable,
+ * MissingDocumentHandler)}. They are sent with a version that makes Solr reject them (with a
+ * version conflict) if the document does not exist, as Solr would otherwise create a new document
+ * containing only the updated fields. A rejected update is not reported as a failure: a handler is
+ * called instead, which can for instance send the document in full.
+ * </p>
+ * <p>
+ * This class is thread-safe: documents can be added from multiple threads.
+ * </p>
+ */
+class SolrDocumentBuffer {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(SolrDocumentBuffer.class);
+
+  private static final String SOLR_SERVER_PUBLISH_ERROR = "Could not publish to Solr server.";
+
+  private static final String VERSION_FIELD = "_version_";
+  private static final long VERSION_DOCUMENT_MUST_EXIST = 1L;
+
+  static final int DEFAULT_INITIAL_BATCH_SIZE = 50;
+  static final int DEFAULT_MAX_BATCH_SIZE = 1000;
+  static final long DEFAULT_MAX_BATCH_VOLUME_IN_BYTES = 8L * 1024 * 1024;
+  static final Duration DEFAULT_MAX_DELAY = Duration.ofSeconds(10);
+  static final Duration DEFAULT_TARGET_LATENCY = Duration.ofSeconds(2);
+
+  private static final int BATCH_SIZE_INCREMENT = 10;
+  private static final int PUBLISH_MAX_RETRIES = 30;
+  private static final int PERIOD_BETWEEN_RETRIES_IN_MILLIS = 1000;
+
+  private final SolrClient solrClient;
+  private final int maxBatchSize;
+  private final long maxBatchVolume;
+  private final long maxDelayInNanos;
+  private final long targetLatencyInNanos;
+  private final IndexingMetrics indexingMetrics;
+
+  private final Object lock = new Object();
+  private List<BufferedDocument> buffer = new ArrayList<>();
+  private long bufferVolume = 0;
+  private long oldestDocumentTime = 0;
+  private int batchSize;
+  private final List<RecordRelatedIndexingException> failures = new ArrayList<>();
+
+  /**
+   * Constructor with default settings.
+   *
+   * @param solrClient The Solr client to send the documents to.
+   */
+  SolrDocumentBuffer(SolrClient solrClient) {
+    this(solrClient, IndexingMetrics.disabled());
+  }
+
+  /**
+   * Constructor with default settings.
+   *
+   * @param solrClient The Solr client to send the documents to.
+   * @param indexingMetrics The metrics to which the requests to Solr are reported.
+   */
+  SolrDocumentBuffer(SolrClient solrClient, IndexingMetrics indexingMetrics) {
+    this(solrClient, DEFAULT_INITIAL_BATCH_SIZE, DEFAULT_MAX_BATCH_SIZE,
+        DEFAULT_MAX_BATCH_VOLUME_IN_BYTES, DEFAULT_MAX_DELAY, DEFAULT_TARGET_LATENCY,
+        indexingMetrics);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param solrClient The Solr client to send the documents to.
+   * @param initialBatchSize The initial batch size (number of documents).
+   * @param maxBatchSize The maximum batch size (number of documents).
+   * @param maxBatchVolume The maximum (estimated) batch volume in bytes.
+   * @param maxDelay The maximum time a document is buffered (checked upon adding documents).
+   * @param targetLatency The latency of a batch above which the batch size is reduced.
+   */
+  SolrDocumentBuffer(SolrClient solrClient, int initialBatchSize, int maxBatchSize,
+      long maxBatchVolume, Duration maxDelay, Duration targetLatency) {
+    this(solrClient, initialBatchSize, maxBatchSize, maxBatchVolume, maxDelay, targetLatency,
+        IndexingMetrics.disabled());
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param solrClient The Solr client to send the documents to.
+   * @param initialBatchSize The initial batch size (number of documents).
+   * @param maxBatchSize The maximum batch size (number of documents).
+   * @param maxBatchVolume The maximum (estimated) batch volume in bytes.
+   * @param maxDelay The maximum time a document is buffered (checked upon adding documents).
+   * @param targetLatency The latency of a batch above which the batch size is reduced.
+   * @param indexingMetrics The metrics to which the requests to Solr are reported.
+   */
+  SolrDocumentBuffer(SolrClient solrClient, int initialBatchSize, int maxBatchSize,
+      long maxBatchVolume, Duration maxDelay, Duration targetLatency,
+      IndexingMetrics indexingMetrics) {
+    if (initialBatchSize < 1 || maxBatchSize < initialBatchSize) {
+      throw new IllegalArgumentException("Invalid batch sizes.");
+    }
+    this.solrClient = solrClient;
+    this.batchSize = initialBatchSize;
+    this.maxBatchSize = maxBatchSize;
+    this.maxBatchVolume = maxBatchVolume;
+    this.maxDelayInNanos = maxDelay.toNanos();
+    this.targetLatencyInNanos = targetLatency.toNanos();
+    this.indexingMetrics = indexingMetrics;
+  }
+
+  /**
+   * Adds a document to the buffer. If this causes the buffer to be full, the buffered documents
+   * are sent to Solr (in the calling thread).
+   *
+   * @param recordId The ID of the record that the document represents (used for reporting).
+   * @param document The document.
+   * @throws IndexerRelatedIndexingException In case the buffered documents needed to be sent and
+   * this failed for a reason that is not related to the documents.
+   */
+  void add(String recordId, SolrInputDocument document) throws IndexerRelatedIndexingException {
+    add(recordId, document, null);
+  }
+
+  /**
+   * Adds a document to the buffer. If this causes the buffer to be full, the buffered documents
+   * are sent to Solr (in the calling thread).
+   *
+   * @param recordId The ID of the record that the document represents (used for reporting).
+   * @param document The document.
+   * @param onSuccess The callback to call once the document has been sent to Solr successfully.
+   * This callback is called in the thread that sends the document and should not throw any
+   * exceptions. Can be null.
+   * @throws IndexerRelatedIndexingException In case the buffered documents needed to be sent and
+   * this failed for a reason that is not related to the documents.
+   */
+  void add(String recordId, SolrInputDocument document, Runnable onSuccess)
+      throws IndexerRelatedIndexingException {
+    add(new BufferedDocument(recordId, document, onSuccess, null));
+  }
+
+  /**
+   * Adds an atomic update to the buffer. The update is applied only if the document exists in
+   * Solr. If it doesn't, the given handler is called (instead of the update failing). If this
+   * causes the buffer to be full, the buffered documents are sent to Solr (in the calling thread).
+   *
+   * @param recordId The ID of the record that the document represents (used for reporting).
+   * @param update The atomic update. The version field is added to it by this method.
+   * @param onSuccess The callback to call once the update has been sent to Solr successfully.
+   * This callback is called in the thread that sends the update and should not throw any
+   * exceptions. Can be null.
+   * @param onMissingDocument The handler to call if the document does not exist. This handler is
+   * called in the thread that sends the update. If it throws an exception, the record is reported
+   * as failed (unless the exception is indexer-related, in which case it is thrown). Is not null.
+   * @throws IndexerRelatedIndexingException In case the buffered documents needed to be sent and
+   * this failed for a reason that is not related to the documents.
+   */
+  void addAtomicUpdate(String recordId, SolrInputDocument update, Runnable onSuccess,
+      MissingDocumentHandler onMissingDocument) throws IndexerRelatedIndexingException {
+    update.setField(VERSION_FIELD, VERSION_DOCUMENT_MUST_EXIST);
+    add(new BufferedDocument(recordId, update, onSuccess,
+        Objects.requireNonNull(onMissingDocument)));
+  }
+
+  private void add(BufferedDocument bufferedDocument) throws IndexerRelatedIndexingException {
+    final List<BufferedDocument> batch;
+    synchronized (lock) {
+      final long now = System.nanoTime();
+      if (buffer.isEmpty()) {
+        oldestDocumentTime = now;
+      }
+      buffer.add(bufferedDocument);
+      bufferVolume += bufferedDocument.volume;
+      if (buffer.size() >= batchSize || bufferVolume >= maxBatchVolume
+          || now - oldestDocumentTime >= maxDelayInNanos) {
+        batch = takeBuffer();
+      } else {
+        batch = Collections.emptyList();
+      }
+    }
+    if (!batch.isEmpty()) {
+      send(batch);
+    }
+  }
+
+  /**
+   * Sends all buffered documents to Solr and reports any documents that have failed since the
+   * previous call to this method.
+   *
+   * @throws IndexingException In case one or more documents failed. This is the first exception,
+   * with the exceptions for other documents attached as suppressed exceptions.
+   */
+  void flush() throws IndexingException {
+    // Handlers of missing documents may add documents while sending: repeat until none are left.
+    List<BufferedDocument> batch;
+    do {
+      synchronized (lock) {
+        batch = takeBuffer();
+      }
+      if (!batch.isEmpty()) {
+        send(batch);
+      }
+    } while (!batch.isEmpty());
+    final List<RecordRelatedIndexingException> failuresToReport;
+    synchronized (failures) {
+      failuresToReport = new ArrayList<>(failures);
+      failures.clear();
+    }
+    if (!failuresToReport.isEmpty()) {
+      final RecordRelatedIndexingException result = failuresToReport.get(0);
+      failuresToReport.subList(1, failuresToReport.size()).forEach(result::addSuppressed);
+      throw result;
+    }
+  }
+
+  /**
+   * @return The current batch size.
+   */
+  int getBatchSize() {
+    synchronized (lock) {
+      return batchSize;
+    }
+  }
+
+  private List<BufferedDocument> takeBuffer() {
+    final List<BufferedDocument> result = buffer;
+    buffer = new ArrayList<>();
+    bufferVolume = 0;
+    return result;
+  }
+
+  private void send(List<BufferedDocument> batch) throws IndexerRelatedIndexingException {
+    final long start = System.nanoTime();
+    try {
+      sendWithRetries(batch);
+      adaptBatchSize(System.nanoTime() - start <= targetLatencyInNanos);
+      batch.forEach(SolrDocumentBuffer::notifySuccess);
+    } catch (RecordRelatedIndexingException e) {
+      adaptBatchSize(false);
+      if (batch.size() == 1 && batch.get(0).onMissingDocument != null && isVersionConflict(e)) {
+        handleMissingDocument(batch.get(0));
+      } else if (batch.size() == 1) {
+        LOGGER.warn("Solr rejected the document for record {}.", batch.get(0).recordId, e);
+        synchronized (failures) {
+          failures.add(new RecordRelatedIndexingException(
+              SOLR_SERVER_PUBLISH_ERROR + " Record: " + batch.get(0).recordId, e));
+        }
+      } else {
+        LOGGER.info("Solr rejected a batch of {} documents: sending the halves separately.",
+            batch.size());
+        final int half = batch.size() / 2;
+        send(batch.subList(0, half));
+        send(batch.subList(half, batch.size()));
+      }
+    } catch (IndexerRelatedIndexingException e) {
+      adaptBatchSize(false);
+      throw e;
+    }
+  }
+
+  private static boolean isVersionConflict(RecordRelatedIndexingException exception) {
+    return exception.getCause() instanceof SolrException
+        && ((SolrException) exception.getCause()).code() == ErrorCode.CONFLICT.code;
+  }
+
+  private void handleMissingDocument(BufferedDocument document)
+      throws IndexerRelatedIndexingException {
+    LOGGER.info("Solr has no document for record {}: calling the handler instead.",
+        document.recordId);
+    try {
+      document.onMissingDocument.handle();
+    } catch (IndexerRelatedIndexingException e) {
+      throw e;
+    } catch (IndexingException | RuntimeException e) {
+      synchronized (failures) {
+        failures.add(new RecordRelatedIndexingException(
+            SOLR_SERVER_PUBLISH_ERROR + " Record: " + document.recordId, e));
+      }
+    }
+  }
+
+  private void sendWithRetries(List<BufferedDocument> batch)
+      throws IndexerRelatedIndexingException, RecordRelatedIndexingException {
+    final List<SolrInputDocument> documents = batch.stream().map(document -> document.document)
+        .collect(Collectors.toList());
+    try {
+      ExternalRequestUtil.retryableExternalRequest(() -> {
+            sendToSolr(documents);
+            return null;
+          }, Collections.singletonMap(UnknownHostException.class, ""), PUBLISH_MAX_RETRIES,
+          PERIOD_BETWEEN_RETRIES_IN_MILLIS);
+    } catch (IndexerRelatedIndexingException | RecordRelatedIndexingException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new IndexerRelatedIndexingException(SOLR_SERVER_PUBLISH_ERROR, e);
+    }
+  }
+
+  private void sendToSolr(List<SolrInputDocument> documents)
+      throws IndexerRelatedIndexingException, RecordRelatedIndexingException {
+    final long start = indexingMetrics.startTimer();
+    try {
+      solrClient.add(documents);
+    } catch (SolrException e) {
+      if (e.code() == ErrorCode.BAD_REQUEST.code || e.code() == ErrorCode.CONFLICT.code) {
+        throw new RecordRelatedIndexingException(SOLR_SERVER_PUBLISH_ERROR, e);
+      }
+      throw new IndexerRelatedIndexingException(SOLR_SERVER_PUBLISH_ERROR, e);
+    } catch (IOException | SolrServerException | RuntimeException e) {
+      throw new IndexerRelatedIndexingException(SOLR_SERVER_PUBLISH_ERROR, e);
+    }
+    indexingMetrics.stopTimer(IndexingStage.SOLR_ADD, start);
+    indexingMetrics.incrementCounter(IndexingMetrics.SOLR_DOCUMENTS_ADDED, documents.size());
+  }
+
+  private static void notifySuccess(BufferedDocument document) {
+    if (document.onSuccess != null) {
+      try {
+        document.onSuccess.run();
+      } catch (RuntimeException e) {
+        LOGGER.warn("Callback failed for record {}.", document.recordId, e);
+      }
+    }
+  }
+
+  private void adaptBatchSize(boolean success) {
+    synchronized (lock) {
+      if (success) {
+        batchSize = Math.min(maxBatchSize, batchSize + BATCH_SIZE_INCREMENT);
+      } else {
+        batchSize = Math.max(1, batchSize / 2);
+      }
+    }
+  }
+
+  private static long estimateVolume(SolrInputDocument document) {
+    long result = 0;
+    for (SolrInputField field : document.values()) {
+      result += field.getName().length();
+      if (field.getValues() != null) {
+        result += field.getValues().stream().filter(Objects::nonNull)
+            .mapToLong(value -> value.toString().length()).sum();
+      }
+    }
+    return result;
+  }
+
+  private static class BufferedDocument {
+
+    private final String recordId;
+    private final SolrInputDocument document;
+    private final Runnable onSuccess;
+    private final MissingDocumentHandler onMissingDocument;
+    private final long volume;
+
+    BufferedDocument(String recordId, SolrInputDocument document, Runnable onSuccess,
+        MissingDocumentHandler onMissingDocument) {
+      this.recordId = recordId;
+      this.document = document;
+      this.onSuccess = onSuccess;
+      this.onMissingDocument = onMissingDocument;
+      this.volume = estimateVolume(document);
+    }
+  }
+
+  /**
+   * Handler for atomic updates of documents that do not exist in Solr.
+   */
+  @FunctionalInterface
+  interface MissingDocumentHandler {
+
+    /**
+     * Handles an atomic update that Solr rejected because the document does not exist.
+     *
+     * @throws IndexingException In case the record could not be handled.
+     */
+    void handle() throws IndexingException;
+  }
+}
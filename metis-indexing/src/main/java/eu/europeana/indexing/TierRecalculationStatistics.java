@@ -0,0 +1,147 @@
+package eu.europeana.indexing;
+
+import eu.europeana.indexing.tiers.model.MediaTier;
+import eu.europeana.indexing.tiers.model.MetadataTier;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * This class contains the statistics of a tier recalculation (see {@link
+ * Indexer#recalculateTiers(String, boolean)}). In a dry run, the statistics describe the changes
+ * that would have been made.
+ */
+public final class TierRecalculationStatistics {
+
+  private final boolean dryRun;
+  private long recordsProcessed;
+  private long recordsChanged;
+  private long recordsFailed;
+  private long mediaTierChanges;
+  private long metadataTierChanges;
+  private final Map<MediaTier, Long> mediaTiersBefore = new EnumMap<>(MediaTier.class);
+  private final Map<MediaTier, Long> mediaTiersAfter = new EnumMap<>(MediaTier.class);
+  private final Map<MetadataTier, Long> metadataTiersBefore = new EnumMap<>(MetadataTier.class);
+  private final Map<MetadataTier, Long> metadataTiersAfter = new EnumMap<>(MetadataTier.class);
+
+  TierRecalculationStatistics(boolean dryRun) {
+    this.dryRun = dryRun;
+  }
+
+  void addRecord(MediaTier mediaTierBefore, MetadataTier metadataTierBefore,
+      MediaTier mediaTierAfter, MetadataTier metadataTierAfter) {
+    recordsProcessed++;
+    final boolean mediaTierChanged = mediaTierBefore != mediaTierAfter;
+    final boolean metadataTierChanged = metadataTierBefore != metadataTierAfter;
+    if (mediaTierChanged) {
+      mediaTierChanges++;
+    }
+    if (metadataTierChanged) {
+      metadataTierChanges++;
+    }
+    if (mediaTierChanged || metadataTierChanged) {
+      recordsChanged++;
+    }
+    increment(mediaTiersBefore, mediaTierBefore);
+    increment(mediaTiersAfter, mediaTierAfter);
+    increment(metadataTiersBefore, metadataTierBefore);
+    increment(metadataTiersAfter, metadataTierAfter);
+  }
+
+  void addFailedRecord() {
+    recordsProcessed++;
+    recordsFailed++;
+  }
+
+  void addSolrFailures(int count) {
+    recordsFailed += count;
+  }
+
+  private static <T extends Enum<T>> void increment(Map<T, Long> distribution, T tier) {
+    if (tier != null) {
+      distribution.merge(tier, 1L, Long::sum);
+    }
+  }
+
+  /**
+   * @return Whether this was a dry run (i.e. no changes were made).
+   */
+  public boolean isDryRun() {
+    return dryRun;
+  }
+
+  /**
+   * @return The number of records that were processed (including those that failed).
+   */
+  public long getRecordsProcessed() {
+    return recordsProcessed;
+  }
+
+  /**
+   * @return The number of records of which at least one of the tiers changed.
+   */
+  public long getRecordsChanged() {
+    return recordsChanged;
+  }
+
+  /**
+   * @return The number of records that could not be processed. This includes records of which
+   * the change was saved in Mongo, but could not be sent to Solr.
+   */
+  public long getRecordsFailed() {
+    return recordsFailed;
+  }
+
+  /**
+   * @return The number of records of which the media tier changed.
+   */
+  public long getMediaTierChanges() {
+    return mediaTierChanges;
+  }
+
+  /**
+   * @return The number of records of which the metadata tier changed.
+   */
+  public long getMetadataTierChanges() {
+    return metadataTierChanges;
+  }
+
+  /**
+   * @return The number of records per media tier before the recalculation. Records without a media
+   * tier are not counted.
+   */
+  public Map<MediaTier, Long> getMediaTiersBefore() {
+    return Collections.unmodifiableMap(mediaTiersBefore);
+  }
+
+  /**
+   * @return The number of records per media tier after the recalculation.
+   */
+  public Map<MediaTier, Long> getMediaTiersAfter() {
+    return Collections.unmodifiableMap(mediaTiersAfter);
+  }
+
+  /**
+   * @return The number of records per metadata tier before the recalculation. Records without a
+   * metadata tier are not counted.
+   */
+  public Map<MetadataTier, Long> getMetadataTiersBefore() {
+    return Collections.unmodifiableMap(metadataTiersBefore);
+  }
+
+  /**
+   * @return The number of records per metadata tier after the recalculation.
+   */
+  public Map<MetadataTier, Long> getMetadataTiersAfter() {
+    return Collections.unmodifiableMap(metadataTiersAfter);
+  }
+
+  @Override
+  public String toString() {
+    return "TierRecalculationStatistics{dryRun=" + dryRun + ", recordsProcessed="
+        + recordsProcessed + ", recordsChanged=" + recordsChanged + ", recordsFailed="
+        + recordsFailed + ", mediaTierChanges=" + mediaTierChanges + ", metadataTierChanges="
+        + metadataTierChanges + ", mediaTiersAfter=" + mediaTiersAfter + ", metadataTiersAfter="
+        + metadataTiersAfter + '}';
+  }
+}
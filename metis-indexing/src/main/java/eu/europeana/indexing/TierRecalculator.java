@@ -0,0 +1,309 @@
+package eu.europeana.indexing;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.MongoClientException;
+import com.mongodb.MongoInternalException;
+import com.mongodb.MongoInterruptedException;
+import com.mongodb.MongoSocketException;
+import dev.morphia.Datastore;
+import dev.morphia.query.FindOptions;
+import dev.morphia.query.internal.MorphiaCursor;
+import eu.europeana.corelib.definitions.edm.entity.QualityAnnotation;
+import eu.europeana.corelib.definitions.jibx.RDF;
+import eu.europeana.corelib.edm.utils.EdmUtils;
+import eu.europeana.corelib.mongo.server.EdmMongoServer;
+import eu.europeana.corelib.solr.bean.impl.FullBeanImpl;
+import eu.europeana.corelib.solr.entity.AggregationImpl;
+import eu.europeana.corelib.solr.entity.EuropeanaAggregationImpl;
+import eu.europeana.corelib.solr.entity.QualityAnnotationImpl;
+import eu.europeana.indexing.exception.IndexerRelatedIndexingException;
+import eu.europeana.indexing.exception.IndexingException;
+import eu.europeana.indexing.exception.RecordRelatedIndexingException;
+import eu.europeana.indexing.fullbean.QualityAnnotationFieldInput;
+import eu.europeana.indexing.fullbean.StringToFullBeanConverter;
+import eu.europeana.indexing.solr.EdmLabel;
+import eu.europeana.indexing.solr.SolrDocumentPopulator;
+import eu.europeana.indexing.solr.property.QualityAnnotationSolrCreator;
+import eu.europeana.indexing.tiers.TierClassificationEngine;
+import eu.europeana.indexing.tiers.TierClassificationEngine.Classification;
+import eu.europeana.indexing.tiers.model.MediaTier;
+import eu.europeana.indexing.tiers.model.MetadataTier;
+import eu.europeana.indexing.utils.RdfTier;
+import eu.europeana.indexing.utils.RdfTierUtils;
+import eu.europeana.indexing.utils.RdfWrapper;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.SolrInputField;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>
+ * This class recalculates the tiers of records that are already indexed, without reindexing them.
+ * The stored full beans of a dataset are read from Mongo one by one and converted back to RDF, after
+ * which the media and metadata tiers are computed using the current classifiers (see {@link
+ * TierClassificationEngine}). For each record of which a tier changed, only the quality annotations
+ * are updated in Mongo, and only the changed tier fields are updated in Solr (using atomic updates,
+ * which are sent in batches through a {@link SolrDocumentBuffer}). If Solr does not have the
+ * document of a record, the atomic update is rejected and the document is sent in full instead
+ * (created from the record as stored in Mongo).
+ * </p>
+ * <p>
+ * The content fingerprint of changed records (see {@link eu.europeana.indexing.utils.RecordFingerprint})
+ * is removed, so that a subsequent reindex of the record is not mistaken for an unchanged record.
+ * The Solr field fingerprints (see {@link eu.europeana.indexing.solr.SolrFieldFingerprints}) are
+ * removed as well, as they no longer match the document in Solr.
+ * </p>
+ */
+class TierRecalculator {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(TierRecalculator.class);
+
+  private static final String MONGO_SERVER_ERROR = "Could not recalculate tiers in Mongo.";
+
+  private static final String ABOUT_FIELD = "about";
+  private static final String QUALITY_ANNOTATIONS_FIELD = "qualityAnnotations";
+  private static final String QUALITY_ANNOTATION_LINKS_FIELD = "dqvHasQualityAnnotation";
+  private static final int BATCH_SIZE = 100;
+
+  private static final QualityAnnotationSolrCreator QUALITY_ANNOTATION_SOLR_CREATOR =
+      new QualityAnnotationSolrCreator();
+
+  private final EdmMongoServer mongoServer;
+  private final SolrClient solrClient;
+  private final FullBeanToRdfConverter fullBeanToRdfConverter;
+  private final TierClassificationEngine tierClassificationEngine = new TierClassificationEngine();
+  private final SolrDocumentPopulator solrDocumentPopulator = new SolrDocumentPopulator();
+  private final QualityAnnotationFieldInput qualityAnnotationFieldInput =
+      new QualityAnnotationFieldInput();
+
+  /**
+   * Constructor.
+   *
+   * @param mongoServer The Mongo server connection.
+   * @param solrClient The Solr server connection.
+   */
+  TierRecalculator(EdmMongoServer mongoServer, SolrClient solrClient) {
+    this(mongoServer, solrClient, TierRecalculator::convertToRdf);
+  }
+
+  /**
+   * Constructor for testing purposes.
+   *
+   * @param mongoServer The Mongo server connection.
+   * @param solrClient The Solr server connection.
+   * @param fullBeanToRdfConverter The converter of stored full beans to RDF.
+   */
+  TierRecalculator(EdmMongoServer mongoServer, SolrClient solrClient,
+      FullBeanToRdfConverter fullBeanToRdfConverter) {
+    this.mongoServer = mongoServer;
+    this.solrClient = solrClient;
+    this.fullBeanToRdfConverter = fullBeanToRdfConverter;
+  }
+
+  private static RDF convertToRdf(FullBeanImpl fullBean) throws IndexingException {
+    return new StringToFullBeanConverter().convertStringToRdf(EdmUtils.toEDM(fullBean));
+  }
+
+  /**
+   * Recalculates the tiers of all records in a dataset.
+   *
+   * @param datasetId The ID of the dataset. Is not null.
+   * @param dryRun Whether this is a dry run. If true, nothing is changed, but the statistics are
+   * computed as if the changes were made.
+   * @return The statistics of the recalculation. Records that could not be processed for reasons
+   * related to the record are counted as failed.
+   * @throws IndexingException In case the records could not be read or the changes could not be
+   * saved for a reason that is not related to the individual records.
+   */
+  TierRecalculationStatistics recalculate(String datasetId, boolean dryRun)
+      throws IndexingException {
+    final TierRecalculationStatistics statistics = new TierRecalculationStatistics(dryRun);
+    final SolrDocumentBuffer solrDocumentBuffer = new SolrDocumentBuffer(solrClient);
+    final Datastore datastore = mongoServer.getDatastore();
+    try (final MorphiaCursor<FullBeanImpl> fullBeans = datastore.find(FullBeanImpl.class)
+        .field(ABOUT_FIELD).startsWith(DatasetRemover.getRecordIdPrefix(datasetId))
+        .find(new FindOptions().batchSize(BATCH_SIZE))) {
+      while (fullBeans.hasNext()) {
+        final FullBeanImpl fullBean = fullBeans.next();
+        try {
+          recalculate(fullBean, dryRun, statistics, solrDocumentBuffer);
+        } catch (MongoSocketException | MongoClientException | MongoInternalException | MongoInterruptedException e) {
+          throw new IndexerRelatedIndexingException(MONGO_SERVER_ERROR, e);
+        } catch (RecordRelatedIndexingException | RuntimeException e) {
+          LOGGER.warn("Could not recalculate the tiers of record {}.", fullBean.getAbout(), e);
+          statistics.addFailedRecord();
+        }
+      }
+    } catch (MongoSocketException | MongoClientException | MongoInternalException | MongoInterruptedException e) {
+      throw new IndexerRelatedIndexingException(MONGO_SERVER_ERROR, e);
+    }
+
+    // Send the remaining Solr updates.
+    try {
+      solrDocumentBuffer.flush();
+    } catch (RecordRelatedIndexingException e) {
+      LOGGER.warn("Could not update the tiers of some records in Solr.", e);
+      statistics.addSolrFailures(1 + e.getSuppressed().length);
+    }
+    LOGGER.info("Recalculated the tiers of dataset {}: {}", datasetId, statistics);
+    return statistics;
+  }
+
+  private void recalculate(FullBeanImpl fullBean, boolean dryRun,
+      TierRecalculationStatistics statistics, SolrDocumentBuffer solrDocumentBuffer)
+      throws IndexingException {
+
+    // Find the current tiers and compute the new tiers.
+    final List<RdfTier> currentTiers = getCurrentTiers(fullBean);
+    final MediaTier currentMediaTier = getTier(currentTiers, MediaTier.class);
+    final MetadataTier currentMetadataTier = getTier(currentTiers, MetadataTier.class);
+    final RDF rdf = fullBeanToRdfConverter.convert(fullBean);
+    final Classification classification = tierClassificationEngine
+        .classify(RdfWrapper.createSnapshot(rdf));
+
+    // Apply the changes to the RDF (so that the annotations are created as during indexing).
+    final boolean mediaTierChanged = currentMediaTier != classification.getMediaTier();
+    final boolean metadataTierChanged = currentMetadataTier != classification.getMetadataTier();
+    if (!mediaTierChanged && !metadataTierChanged) {
+      statistics.addRecord(currentMediaTier, currentMetadataTier, currentMediaTier,
+          currentMetadataTier);
+      return;
+    }
+    if (mediaTierChanged) {
+      RdfTierUtils.setTier(rdf, classification.getMediaTier());
+    }
+    if (metadataTierChanged) {
+      RdfTierUtils.setTier(rdf, classification.getMetadataTier());
+    }
+    final List<QualityAnnotationImpl> annotations = new RdfWrapper(rdf).getQualityAnnotations()
+        .stream().map(qualityAnnotationFieldInput).collect(Collectors.toList());
+
+    // Save the changes (unless this is a dry run).
+    if (!dryRun) {
+      final String about = fullBean.getAbout();
+      saveToMongo(fullBean, annotations);
+      solrDocumentBuffer.addAtomicUpdate(about, createSolrUpdate(about, annotations,
+          mediaTierChanged, metadataTierChanged), null,
+          () -> addFullSolrDocument(about, solrDocumentBuffer));
+    }
+    statistics.addRecord(currentMediaTier, currentMetadataTier, classification.getMediaTier(),
+        classification.getMetadataTier());
+  }
+
+  private static List<RdfTier> getCurrentTiers(FullBeanImpl fullBean) {
+    final Set<String> aggregationAbouts = Optional.ofNullable(fullBean.getAggregations())
+        .stream().flatMap(List::stream).filter(Objects::nonNull).map(AggregationImpl::getAbout)
+        .filter(Objects::nonNull).collect(Collectors.toSet());
+    return Optional.ofNullable(fullBean.getQualityAnnotations()).stream().flatMap(List::stream)
+        .filter(Objects::nonNull).filter(annotation -> Optional.ofNullable(annotation.getTarget())
+            .stream().flatMap(Arrays::stream).anyMatch(aggregationAbouts::contains))
+        .map(RdfTierUtils::getTier).filter(Objects::nonNull).collect(Collectors.toList());
+  }
+
+  private static <T extends Enum<T>> T getTier(List<RdfTier> tiers, Class<T> type) {
+    return tiers.stream().map(RdfTier::getTier).filter(type::isInstance).map(type::cast)
+        .findFirst().orElse(null);
+  }
+
+  private void saveToMongo(FullBeanImpl fullBean, List<QualityAnnotationImpl> annotations)
+      throws RecordRelatedIndexingException {
+    final Datastore datastore = mongoServer.getDatastore();
+    final EuropeanaAggregationImpl europeanaAggregation = (EuropeanaAggregationImpl) fullBean
+        .getEuropeanaAggregation();
+    if (europeanaAggregation == null) {
+      throw new RecordRelatedIndexingException("Cannot find Europeana aggregation in record.");
+    }
+
+    // Link the annotations from the Europeana aggregation (most will be linked already).
+    final Set<String> existingLinks = Optional
+        .ofNullable(europeanaAggregation.getDqvHasQualityAnnotation()).stream()
+        .flatMap(Arrays::stream).collect(Collectors.toSet());
+    final List<String> newLinks = annotations.stream().map(QualityAnnotation::getAbout)
+        .filter(about -> !existingLinks.contains(about)).collect(Collectors.toList());
+    if (!newLinks.isEmpty()) {
+      datastore.update(datastore.createQuery(EuropeanaAggregationImpl.class).field(ABOUT_FIELD)
+              .equal(europeanaAggregation.getAbout()),
+          datastore.createUpdateOperations(EuropeanaAggregationImpl.class)
+              .addToSet(QUALITY_ANNOTATION_LINKS_FIELD, newLinks));
+    }
+
+    // Replace the annotations in the full bean and remove the fingerprints.
+    datastore.update(datastore.createQuery(FullBeanImpl.class).field(ABOUT_FIELD)
+            .equal(fullBean.getAbout()),
+        datastore.createUpdateOperations(FullBeanImpl.class)
+            .set(QUALITY_ANNOTATIONS_FIELD, annotations));
+    datastore.getCollection(FullBeanImpl.class).update(
+        new BasicDBObject(ABOUT_FIELD, fullBean.getAbout()),
+        new BasicDBObject("$unset", new BasicDBObject(FullBeanPublisher.FINGERPRINT_FIELD, "")
+            .append(FullBeanPublisher.SOLR_FIELD_FINGERPRINTS_FIELD, "")));
+  }
+
+  /**
+   * Adds the full Solr document of a record to the buffer, created from the record as it is
+   * stored in Mongo. This is used when Solr does not have the document to apply the atomic update
+   * to.
+   */
+  private void addFullSolrDocument(String about, SolrDocumentBuffer solrDocumentBuffer)
+      throws IndexingException {
+    final FullBeanImpl fullBean = mongoServer.getDatastore().createQuery(FullBeanImpl.class)
+        .field(ABOUT_FIELD).equal(about).first();
+    if (fullBean == null) {
+      throw new RecordRelatedIndexingException("Cannot find record in Mongo.");
+    }
+    final SolrInputDocument document = new SolrInputDocument();
+    solrDocumentPopulator.populate(document, fullBean,
+        RdfWrapper.createSnapshot(fullBeanToRdfConverter.convert(fullBean)));
+    solrDocumentBuffer.add(about, document);
+  }
+
+  static SolrInputDocument createSolrUpdate(String about,
+      List<QualityAnnotationImpl> annotations, boolean mediaTierChanged,
+      boolean metadataTierChanged) {
+
+    // Compute the tier fields as they would be computed during indexing.
+    final SolrInputDocument tierFields = new SolrInputDocument();
+    QUALITY_ANNOTATION_SOLR_CREATOR.addAllToDocument(tierFields, annotations);
+
+    // Create an atomic update for the changed fields.
+    final SolrInputDocument document = new SolrInputDocument();
+    document.addField(EdmLabel.EUROPEANA_ID.toString(), about);
+    if (mediaTierChanged) {
+      addAtomicUpdate(document, tierFields, EdmLabel.CONTENT_TIER);
+    }
+    if (metadataTierChanged) {
+      addAtomicUpdate(document, tierFields, EdmLabel.METADATA_TIER);
+    }
+    return document;
+  }
+
+  private static void addAtomicUpdate(SolrInputDocument document, SolrInputDocument tierFields,
+      EdmLabel label) {
+    final SolrInputField field = tierFields.getField(label.toString());
+    document.addField(label.toString(), Collections.singletonMap("set",
+        field == null ? null : field.getValue()));
+  }
+
+  /**
+   * Converter of stored full beans to RDF.
+   */
+  @FunctionalInterface
+  interface FullBeanToRdfConverter {
+
+    /**
+     * Converts a full bean.
+     *
+     * @param fullBean The full bean.
+     * @return The RDF.
+     * @throws IndexingException In case the full bean could not be converted.
+     */
+    RDF convert(FullBeanImpl fullBean) throws IndexingException;
+  }
+}
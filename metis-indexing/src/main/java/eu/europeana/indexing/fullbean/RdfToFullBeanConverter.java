@@ -9,7 +9,6 @@ import java.util.List;
 import java.util.Optional;
 import java.util.function.Function;
 import java.util.function.Supplier;
-import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 import eu.europeana.corelib.definitions.jibx.Created;
 import eu.europeana.corelib.definitions.jibx.EuropeanaAggregationType;
@@ -98,8 +97,7 @@ public class RdfToFullBeanConverter {
     public List<WebResourceImpl> get() {
       if (webResources == null) {
         final Collection<WebResourceType> webResourcesBeforeConversion =
-            record.getWebResources().stream().collect(Collectors.toMap(WebResourceType::getAbout,
-                UnaryOperator.identity(), (first, second) -> first)).values();
+            record.getWebResourcesByAbout().values();
         if (webResourcesBeforeConversion.isEmpty()) {
           webResources = Collections.emptyList();
         } else {
@@ -6,25 +6,34 @@ import eu.europeana.indexing.exception.IndexerRelatedIndexingException;
 import eu.europeana.indexing.exception.IndexingException;
 import eu.europeana.indexing.exception.RecordRelatedIndexingException;
 import eu.europeana.indexing.utils.RdfWrapper;
-import java.io.IOException;
 import java.io.InputStream;
+import java.io.StringReader;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.function.Supplier;
-import org.apache.commons.io.IOUtils;
 import org.jibx.runtime.BindingDirectory;
 import org.jibx.runtime.IBindingFactory;
 import org.jibx.runtime.IUnmarshallingContext;
 import org.jibx.runtime.JiBXException;
 
 /**
+ * <p>
  * This class converts String representations of RDF (XML) to instances of {@link FullBeanImpl}.
+ * </p>
+ * <p>
+ * JiBX unmarshalling contexts are not thread-safe, but they can be reused after they are reset.
+ * This class therefore keeps one context per thread, which is reset after every document and is
+ * shared by all instances of this class (as long as they use the same binding factory).
+ * </p>
  *
  * @author jochen
  */
 public class StringToFullBeanConverter extends RdfToFullBeanConverter {
 
-  private static IBindingFactory globalRdfBindingFactory;
+  private static volatile IBindingFactory globalRdfBindingFactory;
+
+  private static final ThreadLocal<ThreadConfinedContext> THREAD_CONFINED_CONTEXT =
+      new ThreadLocal<>();
 
   private static final Charset DEFAULT_CHARSET = StandardCharsets.UTF_8;
 
@@ -42,7 +51,7 @@ public class StringToFullBeanConverter extends RdfToFullBeanConverter {
    *
    * @param rdfBindingFactorySupplier Supplies an instance of {@link IBindingFactory} (RDF Binding
    * Factory) used to parse strings to instances of {@link RDF}. Will be called once during every
-   * call to convert a string.
+   * call to convert a string or stream.
    */
   StringToFullBeanConverter(IndexingSupplier<IBindingFactory> rdfBindingFactorySupplier) {
     this.rdfBindingFactorySupplier = rdfBindingFactorySupplier;
@@ -59,6 +68,17 @@ public class StringToFullBeanConverter extends RdfToFullBeanConverter {
     return convertRdfToFullBean(new RdfWrapper(convertStringToRdf(record)));
   }
 
+  /**
+   * Converts an input stream (XML of RDF) to Full Bean.
+   *
+   * @param record The record as an input stream. This stream is not closed.
+   * @return The Full Bean.
+   * @throws IndexingException In case there was a problem with the parsing or conversion.
+   */
+  public FullBeanImpl convertToFullBean(InputStream record) throws IndexingException {
+    return convertRdfToFullBean(new RdfWrapper(convertToRdf(record)));
+  }
+
   /**
    * Converts a string (XML of RDF) to an RDF object.
    *
@@ -67,11 +87,7 @@ public class StringToFullBeanConverter extends RdfToFullBeanConverter {
    * @throws IndexingException In case there was a problem with the parsing or conversion.
    */
   public RDF convertStringToRdf(String record) throws IndexingException {
-    try (InputStream stream = IOUtils.toInputStream(record, DEFAULT_CHARSET)) {
-      return convertToRdf(stream);
-    } catch (IOException e) {
-      throw new RecordRelatedIndexingException("Could not read string value.", e);
-    }
+    return unmarshal(context -> context.unmarshalDocument(new StringReader(record)));
   }
 
   /**
@@ -82,15 +98,20 @@ public class StringToFullBeanConverter extends RdfToFullBeanConverter {
    * @throws IndexingException In case there was a problem with the parsing or conversion.
    */
   public RDF convertToRdf(InputStream record) throws IndexingException {
+    return unmarshal(context -> context.unmarshalDocument(record, DEFAULT_CHARSET.name()));
+  }
+
+  private RDF unmarshal(UnmarshallingOperation operation) throws IndexingException {
 
-    // Convert string to RDF
+    // Convert the document to RDF
     final RDF rdf;
-    final IBindingFactory rdfBindingFactory = rdfBindingFactorySupplier.get();
+    final IUnmarshallingContext context = getUnmarshallingContext();
     try {
-      final IUnmarshallingContext context = rdfBindingFactory.createUnmarshallingContext();
-      rdf = (RDF) context.unmarshalDocument(record, DEFAULT_CHARSET.name());
+      rdf = (RDF) operation.unmarshal(context);
     } catch (JiBXException e) {
       throw new RecordRelatedIndexingException("Could not convert record to RDF.", e);
+    } finally {
+      context.reset();
     }
 
     // Sanity check - shouldn't happen
@@ -103,18 +124,72 @@ public class StringToFullBeanConverter extends RdfToFullBeanConverter {
     return rdf;
   }
 
+  private IUnmarshallingContext getUnmarshallingContext() throws IndexerRelatedIndexingException {
+    final IBindingFactory rdfBindingFactory = rdfBindingFactorySupplier.get();
+    final ThreadConfinedContext existingContext = THREAD_CONFINED_CONTEXT.get();
+    if (existingContext != null && existingContext.factory == rdfBindingFactory) {
+      return existingContext.context;
+    }
+    final IUnmarshallingContext context;
+    try {
+      context = rdfBindingFactory.createUnmarshallingContext();
+    } catch (JiBXException e) {
+      throw new IndexerRelatedIndexingException("Error creating the JibX unmarshalling context.",
+          e);
+    }
+    THREAD_CONFINED_CONTEXT.set(new ThreadConfinedContext(rdfBindingFactory, context));
+    return context;
+  }
+
   private static IBindingFactory getRdfBindingFactory()
       throws IndexerRelatedIndexingException {
-    synchronized (StringToFullBeanConverter.class) {
-      if (globalRdfBindingFactory == null) {
-        try {
-          globalRdfBindingFactory = BindingDirectory.getFactory(RDF.class);
-        } catch (JiBXException e) {
-          throw new IndexerRelatedIndexingException("Error creating the JibX factory.", e);
+    // Only synchronize when the factory has not been created yet.
+    IBindingFactory result = globalRdfBindingFactory;
+    if (result == null) {
+      synchronized (StringToFullBeanConverter.class) {
+        result = globalRdfBindingFactory;
+        if (result == null) {
+          try {
+            result = BindingDirectory.getFactory(RDF.class);
+          } catch (JiBXException e) {
+            throw new IndexerRelatedIndexingException("Error creating the JibX factory.", e);
+          }
+          globalRdfBindingFactory = result;
         }
       }
-      return globalRdfBindingFactory;
     }
+    return result;
+  }
+
+  /**
+   * An unmarshalling context that is confined to one thread, along with the factory that created
+   * it.
+   */
+  private static final class ThreadConfinedContext {
+
+    private final IBindingFactory factory;
+    private final IUnmarshallingContext context;
+
+    ThreadConfinedContext(IBindingFactory factory, IUnmarshallingContext context) {
+      this.factory = factory;
+      this.context = context;
+    }
+  }
+
+  /**
+   * An operation that unmarshals a document using the given context.
+   */
+  @FunctionalInterface
+  private interface UnmarshallingOperation {
+
+    /**
+     * Unmarshals a document.
+     *
+     * @param context The unmarshalling context to use.
+     * @return The unmarshalled document.
+     * @throws JiBXException In case the document could not be unmarshalled.
+     */
+    Object unmarshal(IUnmarshallingContext context) throws JiBXException;
   }
 
   /**
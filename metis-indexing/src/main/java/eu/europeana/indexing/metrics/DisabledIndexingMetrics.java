@@ -0,0 +1,25 @@
+package eu.europeana.indexing.metrics;
+
+/**
+ * Implementation of {@link IndexingMetrics} that does not record anything. Timers are not started
+ * (see {@link IndexingMetrics#startTimer()}), so that the overhead is negligible.
+ */
+enum DisabledIndexingMetrics implements IndexingMetrics {
+
+  INSTANCE;
+
+  @Override
+  public boolean isEnabled() {
+    return false;
+  }
+
+  @Override
+  public void recordLatency(IndexingStage stage, long durationInNanos) {
+    // Nothing to do.
+  }
+
+  @Override
+  public void incrementCounter(String counter, long amount) {
+    // Nothing to do.
+  }
+}
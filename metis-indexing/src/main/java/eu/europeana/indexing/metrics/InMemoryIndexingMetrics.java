@@ -0,0 +1,88 @@
+package eu.europeana.indexing.metrics;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Implementation of {@link IndexingMetrics} that keeps the metrics in memory: a latency histogram
+ * per stage (see {@link LatencyHistogram}) and the counters. The memory used does not depend on
+ * the number of measurements. This class is thread-safe.
+ */
+public class InMemoryIndexingMetrics implements IndexingMetrics {
+
+  private final Map<IndexingStage, LatencyHistogram> histograms;
+  private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+
+  /**
+   * Constructor.
+   */
+  public InMemoryIndexingMetrics() {
+    final Map<IndexingStage, LatencyHistogram> histogramMap = new EnumMap<>(IndexingStage.class);
+    for (IndexingStage stage : IndexingStage.values()) {
+      histogramMap.put(stage, new LatencyHistogram());
+    }
+    this.histograms = Collections.unmodifiableMap(histogramMap);
+  }
+
+  @Override
+  public boolean isEnabled() {
+    return true;
+  }
+
+  @Override
+  public void recordLatency(IndexingStage stage, long durationInNanos) {
+    histograms.get(stage).record(durationInNanos);
+  }
+
+  @Override
+  public void incrementCounter(String counter, long amount) {
+    counters.computeIfAbsent(counter, name -> new LongAdder()).add(amount);
+  }
+
+  /**
+   * @param stage The stage.
+   * @return The latency statistics for the given stage.
+   */
+  public LatencyStatistics getLatencyStatistics(IndexingStage stage) {
+    return histograms.get(stage).getStatistics();
+  }
+
+  /**
+   * @return The latency statistics for all stages.
+   */
+  public Map<IndexingStage, LatencyStatistics> getLatencyStatistics() {
+    final Map<IndexingStage, LatencyStatistics> result = new EnumMap<>(IndexingStage.class);
+    histograms.forEach((stage, histogram) -> result.put(stage, histogram.getStatistics()));
+    return result;
+  }
+
+  /**
+   * @param counter The name of the counter.
+   * @return The value of the counter, or 0 if it was never incremented.
+   */
+  public long getCounter(String counter) {
+    final LongAdder value = counters.get(counter);
+    return value == null ? 0 : value.sum();
+  }
+
+  /**
+   * @return The values of all counters, sorted by name.
+   */
+  public Map<String, Long> getCounters() {
+    final Map<String, Long> result = new TreeMap<>();
+    counters.forEach((name, value) -> result.put(name, value.sum()));
+    return result;
+  }
+
+  /**
+   * Resets all histograms and counters. Values recorded concurrently may or may not be retained.
+   */
+  public void reset() {
+    histograms.values().forEach(LatencyHistogram::reset);
+    counters.values().forEach(LongAdder::reset);
+  }
+}
@@ -0,0 +1,91 @@
+package eu.europeana.indexing.metrics;
+
+/**
+ * <p>
+ * This interface is a facade for recording metrics on indexing: the latency of each of the stages
+ * of indexing (see {@link IndexingStage}) and counters (such as the number of Mongo round trips
+ * per entity type). Implementations are to be thread-safe.
+ * </p>
+ * <p>
+ * Use {@link #disabled()} if no metrics are needed, {@link InMemoryIndexingMetrics} to keep the
+ * metrics in memory and {@link JmxIndexingMetricsExporter} to expose those through JMX.
+ * </p>
+ */
+public interface IndexingMetrics {
+
+  /**
+   * The prefix of the counters for the Mongo round trips. The counter name is completed by the
+   * simple name of the class of the entity (e.g. <code>mongo.roundTrips.AgentImpl</code>).
+   */
+  String MONGO_ROUND_TRIPS_PREFIX = "mongo.roundTrips.";
+
+  /**
+   * The counter for records that were published (saved in full).
+   */
+  String RECORDS_PUBLISHED = "records.published";
+
+  /**
+   * The counter for records that were unchanged (of which only the timestamp was saved).
+   */
+  String RECORDS_UNCHANGED = "records.unchanged";
+
+  /**
+   * The counter for documents that were added to Solr.
+   */
+  String SOLR_DOCUMENTS_ADDED = "solr.documentsAdded";
+
+  /**
+   * The counter for published records of which only the changed fields were sent to Solr.
+   */
+  String SOLR_PARTIAL_UPDATES = "solr.partialUpdates";
+
+  /**
+   * @return An instance that does not record anything and has negligible overhead.
+   */
+  static IndexingMetrics disabled() {
+    return DisabledIndexingMetrics.INSTANCE;
+  }
+
+  /**
+   * @return Whether this instance records metrics. If not, callers can skip any work needed to
+   * compute the values to record.
+   */
+  boolean isEnabled();
+
+  /**
+   * Records the latency of a stage.
+   *
+   * @param stage The stage.
+   * @param durationInNanos The duration in nanoseconds.
+   */
+  void recordLatency(IndexingStage stage, long durationInNanos);
+
+  /**
+   * Increments a counter.
+   *
+   * @param counter The name of the counter.
+   * @param amount The amount by which to increment the counter.
+   */
+  void incrementCounter(String counter, long amount);
+
+  /**
+   * Starts a timer: to be used in combination with {@link #stopTimer(IndexingStage, long)}.
+   *
+   * @return The start time of the timer, or 0 if this instance is not enabled.
+   */
+  default long startTimer() {
+    return isEnabled() ? System.nanoTime() : 0L;
+  }
+
+  /**
+   * Stops a timer and records the latency for the given stage.
+   *
+   * @param stage The stage.
+   * @param startTime The start time, as returned by {@link #startTimer()}.
+   */
+  default void stopTimer(IndexingStage stage, long startTime) {
+    if (isEnabled()) {
+      recordLatency(stage, System.nanoTime() - startTime);
+    }
+  }
+}
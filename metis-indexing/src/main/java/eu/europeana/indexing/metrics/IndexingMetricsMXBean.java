@@ -0,0 +1,24 @@
+package eu.europeana.indexing.metrics;
+
+import java.util.Map;
+
+/**
+ * The JMX interface for indexing metrics (see {@link JmxIndexingMetricsExporter}).
+ */
+public interface IndexingMetricsMXBean {
+
+  /**
+   * @return The latency statistics, by name of the stage (see {@link IndexingStage}).
+   */
+  Map<String, LatencyStatistics> getLatencies();
+
+  /**
+   * @return The values of the counters, by name.
+   */
+  Map<String, Long> getCounters();
+
+  /**
+   * Resets all metrics.
+   */
+  void reset();
+}
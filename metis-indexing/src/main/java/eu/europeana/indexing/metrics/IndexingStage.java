@@ -0,0 +1,59 @@
+package eu.europeana.indexing.metrics;
+
+/**
+ * The stages of indexing for which the latency is measured (see {@link IndexingMetrics}).
+ */
+public enum IndexingStage {
+
+  /**
+   * Parsing of a record (XML) to RDF. Measured per record.
+   */
+  PARSE,
+
+  /**
+   * Tier classification of a record. Measured per record.
+   */
+  TIER_CLASSIFICATION,
+
+  /**
+   * Conversion of a record from RDF to a full bean. Measured per record.
+   */
+  CONVERSION,
+
+  /**
+   * Searching and applying redirects for a record (or for a batch of records, if the redirects
+   * are resolved for the batch at once).
+   */
+  REDIRECTS,
+
+  /**
+   * Computation of the fingerprint of a record. Measured per record.
+   */
+  FINGERPRINT,
+
+  /**
+   * Writing a record to Mongo (including the check whether the record is unchanged). Measured per
+   * record.
+   */
+  MONGO_WRITE,
+
+  /**
+   * Creation of the Solr document for a record. Measured per record.
+   */
+  SOLR_DOCUMENT,
+
+  /**
+   * Adding a batch of documents to Solr. Measured per request to Solr.
+   */
+  SOLR_ADD,
+
+  /**
+   * Publication of a record (all stages after tier classification). Measured per record.
+   */
+  PUBLISH,
+
+  /**
+   * Indexing of a batch of records (all stages). Measured per batch.
+   */
+  BATCH
+}
@@ -0,0 +1,95 @@
+package eu.europeana.indexing.metrics;
+
+import java.io.Closeable;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanRegistrationException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+
+/**
+ * This class exposes the metrics of an {@link InMemoryIndexingMetrics} instance through JMX (on
+ * the platform MBean server), as an {@link IndexingMetricsMXBean} with object name
+ * <code>eu.europeana.indexing:type=IndexingMetrics,name=[name]</code>. Closing this exporter
+ * unregisters the bean.
+ */
+public class JmxIndexingMetricsExporter implements Closeable {
+
+  private static final String OBJECT_NAME_PREFIX = "eu.europeana.indexing:type=IndexingMetrics,name=";
+
+  private final MBeanServer server;
+  private final ObjectName objectName;
+
+  /**
+   * Constructor. Registers the bean.
+   *
+   * @param metrics The metrics to expose.
+   * @param name The name under which to expose the metrics (must be unique for the JVM).
+   * @throws JMException In case the bean could not be registered.
+   */
+  public JmxIndexingMetricsExporter(InMemoryIndexingMetrics metrics, String name)
+      throws JMException {
+    this(metrics, name, ManagementFactory.getPlatformMBeanServer());
+  }
+
+  JmxIndexingMetricsExporter(InMemoryIndexingMetrics metrics, String name, MBeanServer server)
+      throws JMException {
+    this.server = server;
+    this.objectName = createObjectName(name);
+    server.registerMBean(new IndexingMetricsBean(metrics), objectName);
+  }
+
+  static ObjectName createObjectName(String name) throws MalformedObjectNameException {
+    return new ObjectName(OBJECT_NAME_PREFIX + ObjectName.quote(name));
+  }
+
+  /**
+   * @return The object name under which the metrics are registered.
+   */
+  public ObjectName getObjectName() {
+    return objectName;
+  }
+
+  @Override
+  public void close() {
+    try {
+      server.unregisterMBean(objectName);
+    } catch (InstanceNotFoundException | MBeanRegistrationException e) {
+      // Nothing to do: the bean is not registered.
+    }
+  }
+
+  /**
+   * The implementation of the bean.
+   */
+  private static class IndexingMetricsBean implements IndexingMetricsMXBean {
+
+    private final InMemoryIndexingMetrics metrics;
+
+    IndexingMetricsBean(InMemoryIndexingMetrics metrics) {
+      this.metrics = metrics;
+    }
+
+    @Override
+    public Map<String, LatencyStatistics> getLatencies() {
+      final Map<String, LatencyStatistics> result = new TreeMap<>();
+      metrics.getLatencyStatistics().forEach((stage, statistics) -> result
+          .put(stage.name(), statistics));
+      return result;
+    }
+
+    @Override
+    public Map<String, Long> getCounters() {
+      return metrics.getCounters();
+    }
+
+    @Override
+    public void reset() {
+      metrics.reset();
+    }
+  }
+}
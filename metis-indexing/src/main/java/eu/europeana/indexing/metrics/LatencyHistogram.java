@@ -0,0 +1,105 @@
+package eu.europeana.indexing.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>
+ * A histogram of latencies (in nanoseconds). Values are counted in buckets that divide every power
+ * of two in {@value #SUB_BUCKETS} equal parts, so that percentiles can be estimated with a
+ * relative error of at most 1/{@value #SUB_BUCKETS}. The memory used is constant.
+ * </p>
+ * <p>
+ * This class is thread-safe. Recording a value does not block.
+ * </p>
+ */
+final class LatencyHistogram {
+
+  private static final int SUB_BUCKET_BITS = 3;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+  private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+  private final LongAdder total = new LongAdder();
+  private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+  /**
+   * Records a value.
+   *
+   * @param value The value in nanoseconds. Negative values are recorded as 0.
+   */
+  void record(long value) {
+    final long nonNegativeValue = Math.max(value, 0);
+    buckets.incrementAndGet(getBucket(nonNegativeValue));
+    total.add(nonNegativeValue);
+    max.accumulate(nonNegativeValue);
+  }
+
+  static int getBucket(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    final int highestBit = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+    final int shift = highestBit - SUB_BUCKET_BITS;
+    final int subBucket = (int) (value >>> shift) - SUB_BUCKETS;
+    return (shift + 1) * SUB_BUCKETS + subBucket;
+  }
+
+  static long getBucketUpperBound(int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    final int shift = bucket / SUB_BUCKETS - 1;
+    final long lowerBound = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+    return lowerBound + (1L << shift) - 1;
+  }
+
+  /**
+   * Creates a snapshot of the current state. As recording does not block, the snapshot may be
+   * slightly inconsistent if values are recorded concurrently.
+   *
+   * @return The statistics.
+   */
+  LatencyStatistics getStatistics() {
+    // The count is derived from the buckets, so that it is consistent with the percentiles.
+    final long[] counts = new long[BUCKETS];
+    long bucketTotal = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      counts[i] = buckets.get(i);
+      bucketTotal += counts[i];
+    }
+    final long maximum = max.get();
+    return new LatencyStatistics(bucketTotal, total.sum(), maximum,
+        getPercentile(counts, bucketTotal, 0.50, maximum),
+        getPercentile(counts, bucketTotal, 0.95, maximum),
+        getPercentile(counts, bucketTotal, 0.99, maximum));
+  }
+
+  private static long getPercentile(long[] counts, long totalCount, double percentile,
+      long maximum) {
+    if (totalCount == 0) {
+      return 0;
+    }
+    final long rank = (long) Math.ceil(percentile * totalCount);
+    long cumulativeCount = 0;
+    for (int i = 0; i < counts.length; i++) {
+      cumulativeCount += counts[i];
+      if (cumulativeCount >= rank) {
+        return Math.min(getBucketUpperBound(i), maximum);
+      }
+    }
+    return maximum;
+  }
+
+  /**
+   * Resets the histogram. Values recorded concurrently may or may not be retained.
+   */
+  void reset() {
+    for (int i = 0; i < BUCKETS; i++) {
+      buckets.set(i, 0);
+    }
+    total.reset();
+    max.reset();
+  }
+}
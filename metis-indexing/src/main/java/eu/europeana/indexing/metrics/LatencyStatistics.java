@@ -0,0 +1,82 @@
+package eu.europeana.indexing.metrics;
+
+/**
+ * Statistics on the latency of an indexing stage (see {@link IndexingStage}) at a given moment.
+ * All durations are in nanoseconds. Percentiles are estimates. Instances of this class are
+ * immutable.
+ */
+public final class LatencyStatistics {
+
+  private final long count;
+  private final long totalNanos;
+  private final long maxNanos;
+  private final long medianNanos;
+  private final long percentile95Nanos;
+  private final long percentile99Nanos;
+
+  LatencyStatistics(long count, long totalNanos, long maxNanos, long medianNanos,
+      long percentile95Nanos, long percentile99Nanos) {
+    this.count = count;
+    this.totalNanos = totalNanos;
+    this.maxNanos = maxNanos;
+    this.medianNanos = medianNanos;
+    this.percentile95Nanos = percentile95Nanos;
+    this.percentile99Nanos = percentile99Nanos;
+  }
+
+  /**
+   * @return The number of measurements.
+   */
+  public long getCount() {
+    return count;
+  }
+
+  /**
+   * @return The sum of all measurements.
+   */
+  public long getTotalNanos() {
+    return totalNanos;
+  }
+
+  /**
+   * @return The mean of the measurements, or 0 if there are none.
+   */
+  public double getMeanNanos() {
+    return count == 0 ? 0 : ((double) totalNanos) / count;
+  }
+
+  /**
+   * @return The maximum measurement, or 0 if there are none.
+   */
+  public long getMaxNanos() {
+    return maxNanos;
+  }
+
+  /**
+   * @return The (estimated) median, or 0 if there are no measurements.
+   */
+  public long getMedianNanos() {
+    return medianNanos;
+  }
+
+  /**
+   * @return The (estimated) 95th percentile, or 0 if there are no measurements.
+   */
+  public long getPercentile95Nanos() {
+    return percentile95Nanos;
+  }
+
+  /**
+   * @return The (estimated) 99th percentile, or 0 if there are no measurements.
+   */
+  public long getPercentile99Nanos() {
+    return percentile99Nanos;
+  }
+
+  @Override
+  public String toString() {
+    return "LatencyStatistics{count=" + count + ", meanNanos=" + getMeanNanos() + ", medianNanos="
+        + medianNanos + ", percentile95Nanos=" + percentile95Nanos + ", percentile99Nanos="
+        + percentile99Nanos + ", maxNanos=" + maxNanos + '}';
+  }
+}
@@ -3,6 +3,7 @@ package eu.europeana.indexing.mongo;
 import eu.europeana.corelib.definitions.edm.beans.FullBean;
 import eu.europeana.corelib.definitions.edm.entity.AbstractEdmEntity;
 import eu.europeana.corelib.storage.MongoServer;
+import eu.europeana.indexing.mongo.property.MongoBulkOperations;
 import eu.europeana.indexing.mongo.property.MongoPropertyUpdater;
 import eu.europeana.indexing.mongo.property.MongoPropertyUpdaterFactory;
 import java.util.Date;
@@ -18,9 +19,10 @@ public abstract class AbstractEdmEntityUpdater<R extends AbstractEdmEntity, A>
 
   @Override
   protected final MongoPropertyUpdater<R> createPropertyUpdater(R newEntity, A ancestorInformation,
-      Date recordDate, Date recordCreationDate, MongoServer mongoServer) {
+      Date recordDate, Date recordCreationDate, MongoServer mongoServer,
+      MongoBulkOperations bulkOperations) {
     return MongoPropertyUpdaterFactory.createForObjectWithAbout(newEntity, mongoServer,
-        getObjectClass(), AbstractEdmEntity::getAbout, null, null, null);
+        getObjectClass(), AbstractEdmEntity::getAbout, bulkOperations);
   }
 
   /**
@@ -1,6 +1,7 @@
 package eu.europeana.indexing.mongo;
 
 import eu.europeana.corelib.storage.MongoServer;
+import eu.europeana.indexing.mongo.property.MongoBulkOperations;
 import eu.europeana.indexing.mongo.property.MongoObjectUpdater;
 import eu.europeana.indexing.mongo.property.MongoPropertyUpdater;
 import java.util.Date;
@@ -14,10 +15,11 @@ import java.util.Date;
 public abstract class AbstractMongoObjectUpdater<R, A> implements MongoObjectUpdater<R, A> {
 
   @Override
-  public final R update(R newEntity, A ancestorInformation, Date recordDate, Date recordCreationDate, MongoServer mongoServer) {
+  public final R update(R newEntity, A ancestorInformation, Date recordDate,
+      Date recordCreationDate, MongoServer mongoServer, MongoBulkOperations bulkOperations) {
     preprocessEntity(newEntity, ancestorInformation);
-    final MongoPropertyUpdater<R> propertyUpdater =
-        createPropertyUpdater(newEntity, ancestorInformation, recordDate, recordCreationDate, mongoServer);
+    final MongoPropertyUpdater<R> propertyUpdater = createPropertyUpdater(newEntity,
+        ancestorInformation, recordDate, recordCreationDate, mongoServer, bulkOperations);
     update(propertyUpdater, ancestorInformation);
     return propertyUpdater.applyOperations();
   }
@@ -29,11 +31,12 @@ public abstract class AbstractMongoObjectUpdater<R, A> implements MongoObjectUpd
    * @param ancestorInformation The ancestor information for this entity.
    * @param recordCreationDate The date that represents the creation date of the record
    * @param mongoServer The mongo server.
+   * @param bulkOperations The bulk operations. Can be null.
    * @return The property updater for the given entity.
    */
   protected abstract MongoPropertyUpdater<R> createPropertyUpdater(R newEntity,
       A ancestorInformation, Date recordDate, Date recordCreationDate,
-      MongoServer mongoServer);
+      MongoServer mongoServer, MongoBulkOperations bulkOperations);
 
   /**
    * This method allows subclasses to perform preprocessing on the entity before saving it to the
@@ -2,17 +2,38 @@ package eu.europeana.indexing.mongo;
 
 import eu.europeana.corelib.definitions.edm.beans.FullBean;
 import eu.europeana.corelib.definitions.edm.entity.Proxy;
+import eu.europeana.corelib.definitions.edm.entity.WebResource;
 import eu.europeana.corelib.solr.bean.impl.FullBeanImpl;
 import eu.europeana.corelib.solr.entity.EuropeanaAggregationImpl;
 import eu.europeana.corelib.solr.entity.ProxyImpl;
+import eu.europeana.corelib.definitions.edm.entity.AbstractEdmEntity;
+import eu.europeana.corelib.definitions.edm.entity.Aggregation;
+import eu.europeana.corelib.definitions.edm.entity.EuropeanaAggregation;
+import eu.europeana.corelib.solr.entity.AgentImpl;
+import eu.europeana.corelib.solr.entity.AggregationImpl;
+import eu.europeana.corelib.solr.entity.ConceptImpl;
+import eu.europeana.corelib.solr.entity.LicenseImpl;
+import eu.europeana.corelib.solr.entity.PlaceImpl;
+import eu.europeana.corelib.solr.entity.ProvidedCHOImpl;
+import eu.europeana.corelib.solr.entity.ServiceImpl;
+import eu.europeana.corelib.solr.entity.TimespanImpl;
+import eu.europeana.corelib.solr.entity.WebResourceImpl;
 import eu.europeana.corelib.storage.MongoServer;
+import eu.europeana.indexing.mongo.property.MongoBulkOperations;
 import eu.europeana.indexing.mongo.property.MongoPropertyUpdater;
 import eu.europeana.indexing.mongo.property.MongoPropertyUpdaterFactory;
 import eu.europeana.indexing.mongo.property.RootAboutWrapper;
 import eu.europeana.indexing.utils.TriConsumer;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import org.apache.commons.lang3.tuple.Pair;
 
 /**
@@ -29,7 +50,7 @@ public class FullBeanUpdater extends AbstractMongoObjectUpdater<FullBeanImpl, Vo
    * retrieved the current version of the full bean from the database. It will be called once. It's
    * first parameter is the current full bean (as retrieved from the database) and its second
    * parameter is the updated full bean (as passed to {@link AbstractMongoObjectUpdater#createPropertyUpdater(Object,
-   * Object, Date, Date, MongoServer)}).
+   * Object, Date, Date, MongoServer, MongoBulkOperations)}).
    */
   public FullBeanUpdater(TriConsumer<FullBeanImpl, FullBeanImpl, Pair<Date, Date>> fullBeanPreprocessor) {
     this.fullBeanPreprocessor = fullBeanPreprocessor;
@@ -50,13 +71,79 @@ public class FullBeanUpdater extends AbstractMongoObjectUpdater<FullBeanImpl, Vo
     return update(newEntity, null, recordDate, recordCreationDate, mongoServer);
   }
 
+  /**
+   * <p>
+   * Update the full bean using bulk operations. This method has the same result as {@link
+   * #update(FullBeanImpl, Date, Date, MongoServer)}, but it uses far fewer round trips to the
+   * database: the current versions of all referenced entities are retrieved using one query per
+   * entity type, and all referenced entities are saved using one unordered bulk write per entity
+   * type. The full bean itself is saved (and retrieved again) only after the referenced entities
+   * have been saved.
+   * </p>
+   * <p>
+   * The bulk operations can be reused for multiple records (e.g. to share the current versions of
+   * entities that are referenced by more than one record), but they can not be shared between
+   * threads.
+   * </p>
+   *
+   * @param newEntity The new entity (to take the new values from).
+   * @param recordDate The date that would represent the created/updated date of a record
+   * @param recordCreationDate The date that would represent the created date if it already existed,
+   * e.g. from a redirected record
+   * @param mongoServer The mongo server.
+   * @param bulkOperations The bulk operations to use.
+   * @return The updated entity.
+   */
+  public final FullBeanImpl updateInBulk(FullBeanImpl newEntity, Date recordDate,
+      Date recordCreationDate, MongoServer mongoServer, MongoBulkOperations bulkOperations) {
+    prefetch(newEntity, bulkOperations);
+    return update(newEntity, null, recordDate, recordCreationDate, mongoServer, bulkOperations);
+  }
+
+  private static void prefetch(FullBeanImpl fullBean, MongoBulkOperations bulkOperations) {
+    prefetch(PlaceImpl.class, fullBean.getPlaces(), bulkOperations);
+    prefetch(AgentImpl.class, fullBean.getAgents(), bulkOperations);
+    prefetch(TimespanImpl.class, fullBean.getTimespans(), bulkOperations);
+    prefetch(ConceptImpl.class, fullBean.getConcepts(), bulkOperations);
+    prefetch(ProvidedCHOImpl.class, fullBean.getProvidedCHOs(), bulkOperations);
+    prefetch(AggregationImpl.class, fullBean.getAggregations(), bulkOperations);
+    prefetch(EuropeanaAggregationImpl.class,
+        Optional.ofNullable(getEuropeanaAggregationFromFullBean(fullBean))
+            .map(Collections::singletonList).orElse(null), bulkOperations);
+    prefetch(ProxyImpl.class, fullBean.getProxies(), bulkOperations);
+    prefetch(ServiceImpl.class, fullBean.getServices(), bulkOperations);
+    prefetch(LicenseImpl.class, fullBean.getLicenses(), bulkOperations);
+    final Stream<List<? extends WebResource>> webResourceLists = Stream.concat(
+        Optional.ofNullable(fullBean.getAggregations()).map(List::stream).orElseGet(Stream::empty)
+            .filter(Objects::nonNull).map(Aggregation::getWebResources),
+        Optional.ofNullable(getEuropeanaAggregationFromFullBean(fullBean))
+            .map(EuropeanaAggregation::getWebResources).stream());
+    final List<WebResourceImpl> webResources = webResourceLists.filter(Objects::nonNull)
+        .<WebResource>flatMap(List::stream).filter(Objects::nonNull)
+        .map(WebResourceImpl.class::cast).collect(Collectors.toList());
+    prefetch(WebResourceImpl.class, webResources, bulkOperations);
+    if (fullBean.getAbout() != null) {
+      WebResourceMetaInfoUpdater.prefetch(webResources.stream().map(WebResourceImpl::getAbout)
+          .filter(Objects::nonNull).collect(Collectors.toList()), fullBean.getAbout(),
+          bulkOperations);
+    }
+  }
+
+  private static <T extends AbstractEdmEntity> void prefetch(Class<T> objectClass,
+      Collection<? extends AbstractEdmEntity> entities, MongoBulkOperations bulkOperations) {
+    if (entities != null && !entities.isEmpty()) {
+      bulkOperations.prefetch(objectClass, "about", entities.stream().filter(Objects::nonNull)
+          .map(AbstractEdmEntity::getAbout).collect(Collectors.toList()), T::getAbout);
+    }
+  }
+
   @Override
   protected MongoPropertyUpdater<FullBeanImpl> createPropertyUpdater(FullBeanImpl newEntity,
       Void ancestorInformation, Date recordDate, Date recordCreationDate,
-      MongoServer mongoServer) {
-    return MongoPropertyUpdaterFactory.createForObjectWithAbout(newEntity, mongoServer,
+      MongoServer mongoServer, MongoBulkOperations bulkOperations) {
+    return MongoPropertyUpdaterFactory.createForRootObjectWithAbout(newEntity, mongoServer,
         FullBeanImpl.class, FullBeanImpl::getAbout, fullBeanPreprocessor, recordDate,
-        recordCreationDate);
+        recordCreationDate, bulkOperations);
   }
 
   @Override
@@ -9,13 +9,17 @@ import eu.europeana.corelib.definitions.edm.model.metainfo.TextMetaInfo;
 import eu.europeana.corelib.definitions.edm.model.metainfo.VideoMetaInfo;
 import eu.europeana.corelib.edm.model.metainfo.WebResourceMetaInfoImpl;
 import eu.europeana.corelib.storage.MongoServer;
+import eu.europeana.indexing.mongo.property.MongoBulkOperations;
 import eu.europeana.indexing.mongo.property.MongoPropertyUpdater;
 import eu.europeana.indexing.mongo.property.MongoPropertyUpdaterFactory;
 import java.nio.charset.StandardCharsets;
+import java.util.Collection;
 import java.util.Date;
+import java.util.List;
 import java.util.Optional;
 import java.util.function.Function;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 /**
  * Field updater for instances of {@link WebResourceMetaInfoImpl}.
@@ -28,13 +32,31 @@ public class WebResourceMetaInfoUpdater
   @Override
   protected MongoPropertyUpdater<WebResourceMetaInfoImpl> createPropertyUpdater(
       WebResourceMetaInfoImpl newEntity, WebResourceInformation ancestorInformation,
-      Date recordDate, Date recordCreationDate, MongoServer mongoServer) {
+      Date recordDate, Date recordCreationDate, MongoServer mongoServer,
+      MongoBulkOperations bulkOperations) {
     final String hashCode = generateHashCode(ancestorInformation.getWebResourceAbout(),
         ancestorInformation.getRootAbout());
     final Supplier<Query<WebResourceMetaInfoImpl>> querySupplier =
         () -> createQuery(mongoServer, hashCode);
     return MongoPropertyUpdaterFactory.createForObjectWithoutAbout(newEntity, mongoServer,
-        WebResourceMetaInfoImpl.class, querySupplier, null);
+        WebResourceMetaInfoImpl.class, hashCode, querySupplier, null, bulkOperations);
+  }
+
+  /**
+   * Retrieves the current versions of the web resource meta info objects for the given web
+   * resources (see {@link MongoBulkOperations#prefetch(Class, String, Collection, Function)}).
+   *
+   * @param webResourceAbouts The about values of the web resources.
+   * @param rootAbout The about value of the record to which the web resources belong.
+   * @param bulkOperations The bulk operations in which to retrieve the objects.
+   */
+  static void prefetch(Collection<String> webResourceAbouts, String rootAbout,
+      MongoBulkOperations bulkOperations) {
+    final List<String> hashCodes = webResourceAbouts.stream()
+        .map(webResourceAbout -> generateHashCode(webResourceAbout, rootAbout))
+        .collect(Collectors.toList());
+    bulkOperations.prefetch(WebResourceMetaInfoImpl.class, "_id", hashCodes,
+        WebResourceMetaInfoImpl::getId);
   }
 
   private static Query<WebResourceMetaInfoImpl> createQuery(MongoServer mongoServer, String id) {
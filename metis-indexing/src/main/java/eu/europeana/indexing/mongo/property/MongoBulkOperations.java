@@ -0,0 +1,305 @@
+package eu.europeana.indexing.mongo.property;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.BulkWriteError;
+import com.mongodb.BulkWriteException;
+import com.mongodb.BulkWriteOperation;
+import com.mongodb.DBCollection;
+import com.mongodb.DBObject;
+import com.mongodb.DBRef;
+import dev.morphia.query.Query;
+import dev.morphia.query.UpdateOperations;
+import dev.morphia.query.UpdateOpsImpl;
+import eu.europeana.corelib.definitions.edm.entity.AbstractEdmEntity;
+import eu.europeana.corelib.storage.MongoServer;
+import eu.europeana.indexing.metrics.IndexingMetrics;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import org.apache.commons.lang3.StringUtils;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>
+ * This class collects the upserts of Mongo objects so that they can be sent to the database in as
+ * few round trips as possible: the current versions of the objects are retrieved using one query
+ * per object class (see {@link #prefetch(Class, String, Collection, Function)}) and the resulting
+ * upserts are sent as one unordered bulk write per object class (see {@link #flush()}). The
+ * set/unset/setOnInsert operations themselves are computed by {@link MongoPropertyUpdater}
+ * instances exactly as they would be without bulk operations.
+ * </p>
+ * <p>
+ * Objects that are referenced by other objects (i.e. instances of {@link AbstractEdmEntity}) are
+ * assigned their (existing or new) identifier as soon as their upsert is registered, so that the
+ * referencing object can be computed before the upsert is actually sent to the database.
+ * </p>
+ * <p>
+ * The round trips to the database are reported, per object class, to the {@link IndexingMetrics}
+ * given at construction (see {@link IndexingMetrics#MONGO_ROUND_TRIPS_PREFIX}).
+ * </p>
+ * <p>
+ * This class is not thread-safe: an instance is meant to be used within one thread.
+ * </p>
+ */
+public class MongoBulkOperations {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(MongoBulkOperations.class);
+
+  private static final int DUPLICATE_KEY_ERROR_CODE = 11000;
+  private static final String ID_FIELD = "_id";
+  private static final String SET_ON_INSERT_OPERATOR = "$setOnInsert";
+
+  private final MongoServer mongoServer;
+  private final IndexingMetrics indexingMetrics;
+  private final Map<Class<?>, Map<String, Object>> currentObjects = new HashMap<>();
+  private final Map<Class<?>, List<PendingUpsert>> pendingUpserts = new LinkedHashMap<>();
+  private final Map<ObjectId, ObjectId> reassignedIdentifiers = new HashMap<>();
+
+  /**
+   * Constructor.
+   *
+   * @param mongoServer The Mongo server to which the operations are to be sent.
+   */
+  public MongoBulkOperations(MongoServer mongoServer) {
+    this(mongoServer, IndexingMetrics.disabled());
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param mongoServer The Mongo server to which the operations are to be sent.
+   * @param indexingMetrics The metrics to which the round trips to the database are reported.
+   */
+  public MongoBulkOperations(MongoServer mongoServer, IndexingMetrics indexingMetrics) {
+    this.mongoServer = mongoServer;
+    this.indexingMetrics = indexingMetrics;
+  }
+
+  /**
+   * Reports round trips to the database.
+   *
+   * @param objectClass The class of the objects concerned.
+   * @param roundTrips The number of round trips.
+   */
+  void recordRoundTrips(Class<?> objectClass, int roundTrips) {
+    if (indexingMetrics.isEnabled()) {
+      indexingMetrics.incrementCounter(
+          IndexingMetrics.MONGO_ROUND_TRIPS_PREFIX + objectClass.getSimpleName(), roundTrips);
+    }
+  }
+
+  /**
+   * Retrieves the current versions of the objects with the given keys from the database using one
+   * query. Objects for which the current version is already known are not retrieved again. Keys for
+   * which no object exists are remembered as such.
+   *
+   * @param objectClass The class of the objects to retrieve.
+   * @param keyField The name of the field that contains the key (e.g. 'about').
+   * @param keys The keys of the objects to retrieve. Blank keys are ignored.
+   * @param keyGetter The function that obtains the key value from a retrieved object.
+   * @param <T> The type of the objects to retrieve.
+   */
+  public <T> void prefetch(Class<T> objectClass, String keyField, Collection<String> keys,
+      Function<T, String> keyGetter) {
+    final Map<String, Object> objects = getCurrentObjects(objectClass);
+    final Set<String> keysToFetch = keys.stream().filter(StringUtils::isNotBlank)
+        .filter(key -> !objects.containsKey(key)).collect(Collectors.toSet());
+    if (keysToFetch.isEmpty()) {
+      return;
+    }
+    keysToFetch.forEach(key -> objects.put(key, null));
+    mongoServer.getDatastore().find(objectClass).field(keyField).in(keysToFetch).asList()
+        .forEach(object -> objects.put(keyGetter.apply(object), object));
+    recordRoundTrips(objectClass, 1);
+  }
+
+  /**
+   * Obtains the current version of the object with the given key. If the object was prefetched or
+   * its upsert was registered already, this method does not access the database.
+   *
+   * @param objectClass The class of the object.
+   * @param key The key of the object.
+   * @param queryCreator The function that creates the mongo query that can retrieve the object
+   * from Mongo in case it is not known.
+   * @param <T> The type of the object.
+   * @return The current version of the object, or null if it does not exist.
+   */
+  <T> T getCurrent(Class<T> objectClass, String key, Supplier<Query<T>> queryCreator) {
+    final Map<String, Object> objects = getCurrentObjects(objectClass);
+    if (!objects.containsKey(key)) {
+      objects.put(key, queryCreator.get().first());
+      recordRoundTrips(objectClass, 1);
+    }
+    return objectClass.cast(objects.get(key));
+  }
+
+  /**
+   * Registers an upsert. It will be sent to the database during the next call to {@link
+   * #flush()}. If the updated object is an instance of {@link AbstractEdmEntity}, it will be
+   * assigned the identifier of the current version or, if there is none, a new identifier that
+   * will be set on insert.
+   *
+   * @param objectClass The class of the object.
+   * @param key The key of the object.
+   * @param current The current version of the object (or null if there is none).
+   * @param updated The updated version of the object.
+   * @param query The query that selects the object to upsert.
+   * @param operations The operations to apply to the object.
+   * @param <T> The type of the object.
+   * @return The updated object.
+   */
+  <T> T addUpsert(Class<T> objectClass, String key, T current, T updated, Query<T> query,
+      UpdateOperations<T> operations) {
+
+    // Obtain the update and assign the identifier if needed.
+    final DBObject update = ((UpdateOpsImpl<T>) operations).getOps();
+    AbstractEdmEntity entity = null;
+    if (updated instanceof AbstractEdmEntity) {
+      entity = (AbstractEdmEntity) updated;
+      final ObjectId currentId = current == null ? null : ((AbstractEdmEntity) current).getId();
+      final ObjectId id = currentId == null ? new ObjectId() : currentId;
+      entity.setId(id);
+
+      // Always set the id on insert: the object may not be in the database yet.
+      DBObject setOnInsert = (DBObject) update.get(SET_ON_INSERT_OPERATOR);
+      if (setOnInsert == null) {
+        setOnInsert = new BasicDBObject();
+        update.put(SET_ON_INSERT_OPERATOR, setOnInsert);
+      }
+      setOnInsert.put(ID_FIELD, id);
+    }
+
+    // Register the upsert (if there is anything to do) and remember the new state of the object.
+    if (!update.keySet().isEmpty()) {
+      pendingUpserts.computeIfAbsent(objectClass, type -> new ArrayList<>())
+          .add(new PendingUpsert(query.getQueryObject(), update, entity));
+    }
+    getCurrentObjects(objectClass).put(key, updated);
+    return updated;
+  }
+
+  /**
+   * Sends all registered upserts to the database: one unordered bulk write per object class.
+   */
+  public void flush() {
+    for (Entry<Class<?>, List<PendingUpsert>> entry : pendingUpserts.entrySet()) {
+      if (!entry.getValue().isEmpty()) {
+        execute(entry.getKey(), entry.getValue());
+      }
+    }
+    pendingUpserts.clear();
+  }
+
+  /**
+   * <p>
+   * During a call to {@link #flush()}, an object that was assigned a new identifier may turn out to
+   * have been inserted by another process in the meantime (with a different identifier). In that
+   * case, the object is assigned the existing identifier, but any references to this object that
+   * were computed before the flush are no longer valid.
+   * </p>
+   * <p>
+   * This method replaces any such references in the given operations by references to the
+   * existing identifiers. It should be called for all operations that were computed before the
+   * flush and are applied after it.
+   * </p>
+   *
+   * @param operations The operations in which to replace the references.
+   */
+  void replaceReassignedIdentifiers(UpdateOperations<?> operations) {
+    if (!reassignedIdentifiers.isEmpty()) {
+      replaceReassignedIdentifiers(((UpdateOpsImpl<?>) operations).getOps());
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private Object replaceReassignedIdentifiers(Object value) {
+    final Object result;
+    if (value instanceof ObjectId) {
+      result = reassignedIdentifiers.getOrDefault(value, (ObjectId) value);
+    } else if (value instanceof DBRef) {
+      final DBRef reference = (DBRef) value;
+      final ObjectId newId = reassignedIdentifiers.get(reference.getId());
+      result = newId == null ? reference : new DBRef(reference.getDatabaseName(),
+          reference.getCollectionName(), newId);
+    } else if (value instanceof List) {
+      ((List<Object>) value).replaceAll(this::replaceReassignedIdentifiers);
+      result = value;
+    } else if (value instanceof DBObject) {
+      final DBObject object = (DBObject) value;
+      for (String key : new ArrayList<>(object.keySet())) {
+        object.put(key, replaceReassignedIdentifiers(object.get(key)));
+      }
+      result = object;
+    } else {
+      result = value;
+    }
+    return result;
+  }
+
+  private Map<String, Object> getCurrentObjects(Class<?> objectClass) {
+    return currentObjects.computeIfAbsent(objectClass, type -> new HashMap<>());
+  }
+
+  private void execute(Class<?> objectClass, List<PendingUpsert> upserts) {
+    final DBCollection collection = mongoServer.getDatastore().getCollection(objectClass);
+    final BulkWriteOperation bulkOperation = collection.initializeUnorderedBulkOperation();
+    upserts.forEach(upsert -> bulkOperation.find(upsert.query).upsert().updateOne(upsert.update));
+    recordRoundTrips(objectClass, 1);
+    try {
+      bulkOperation.execute();
+    } catch (BulkWriteException e) {
+
+      // Only duplicate key errors can be solved: see MongoPropertyUpdater#applyOperations().
+      final List<BulkWriteError> errors = e.getWriteErrors();
+      if (errors.isEmpty() || errors.stream()
+          .anyMatch(error -> error.getCode() != DUPLICATE_KEY_ERROR_CODE)) {
+        throw e;
+      }
+      LOGGER.debug("Received duplicate key errors, trying these upserts again once more.", e);
+      for (BulkWriteError error : errors) {
+        retryUpsert(objectClass, collection, upserts.get(error.getIndex()));
+      }
+    }
+  }
+
+  private void retryUpsert(Class<?> objectClass, DBCollection collection, PendingUpsert upsert) {
+
+    // The object was inserted by another process in the meantime: now we can update it.
+    collection.update(upsert.query, upsert.update, true, false);
+    recordRoundTrips(objectClass, 1);
+
+    // In this case, the id we assigned was not used: find the actual one.
+    if (upsert.entity != null) {
+      final DBObject saved = collection.findOne(upsert.query, new BasicDBObject(ID_FIELD, 1));
+      recordRoundTrips(objectClass, 1);
+      final ObjectId savedId = saved == null ? null : (ObjectId) saved.get(ID_FIELD);
+      if (savedId != null && !savedId.equals(upsert.entity.getId())) {
+        reassignedIdentifiers.put(upsert.entity.getId(), savedId);
+        upsert.entity.setId(savedId);
+      }
+    }
+  }
+
+  private static class PendingUpsert {
+
+    private final DBObject query;
+    private final DBObject update;
+    private final AbstractEdmEntity entity;
+
+    PendingUpsert(DBObject query, DBObject update, AbstractEdmEntity entity) {
+      this.query = query;
+      this.update = update;
+      this.entity = entity;
+    }
+  }
+}
@@ -21,5 +21,26 @@ public interface MongoObjectUpdater<R, A> {
    * @param mongoServer The mongo server.
    * @return The updated entity.
    */
-  R update(R newEntity, A ancestorInformation, Date recordDate, Date recordCreationDate, MongoServer mongoServer);
+  default R update(R newEntity, A ancestorInformation, Date recordDate, Date recordCreationDate,
+      MongoServer mongoServer) {
+    return update(newEntity, ancestorInformation, recordDate, recordCreationDate, mongoServer,
+        null);
+  }
+
+  /**
+   * Update a property as part of bulk operations. If bulk operations are provided, the updates
+   * for this entity are not necessarily sent to the database immediately: they may be added to the
+   * bulk operations instead (see {@link MongoBulkOperations}).
+   *
+   * @param newEntity The new entity (to take the new values from).
+   * @param ancestorInformation The ancestor information for this entity.
+   * @param recordDate The date that would represent the created/updated date of a record
+   * @param recordCreationDate The date that would represent the created date if it already existed,
+   * @param mongoServer The mongo server.
+   * @param bulkOperations The bulk operations. Can be null, in which case the updates are applied
+   * directly.
+   * @return The updated entity.
+   */
+  R update(R newEntity, A ancestorInformation, Date recordDate, Date recordCreationDate,
+      MongoServer mongoServer, MongoBulkOperations bulkOperations);
 }
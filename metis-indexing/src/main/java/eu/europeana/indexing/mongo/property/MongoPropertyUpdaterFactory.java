@@ -25,8 +25,8 @@ public final class MongoPropertyUpdaterFactory {
   private static <T> MongoPropertyUpdater<T> create(T updated, MongoServer mongoServer,
       Class<T> objectClass, Supplier<Query<T>> queryCreator,
       TriConsumer<T, T, Pair<Date, Date>> dataPreprocessor, Date recordDate,
-      Date recordCreationDate,
-      Consumer<UpdateOperations<T>> operationsPreprocessor) {
+      Date recordCreationDate, Consumer<UpdateOperations<T>> operationsPreprocessor,
+      MongoBulkOperations bulkOperations, String key, boolean deferOperations) {
 
     // Sanity checks.
     if (updated == null || mongoServer == null || objectClass == null || queryCreator == null) {
@@ -40,15 +40,26 @@ public final class MongoPropertyUpdaterFactory {
       operationsPreprocessor.accept(mongoOperations);
     }
 
-    // Obtain the current state from the database and perform preprocessing on it.
-    final T current = queryCreator.get().first();
+    // Obtain the current state from the database (or the bulk operations) and preprocess it.
+    final T current;
+    if (bulkOperations == null || !deferOperations) {
+      current = queryCreator.get().first();
+      if (bulkOperations != null) {
+        bulkOperations.recordRoundTrips(objectClass, 1);
+      }
+    } else {
+      current = bulkOperations.getCurrent(objectClass, key, queryCreator);
+    }
     if (dataPreprocessor != null) {
       dataPreprocessor.accept(current, updated, ImmutablePair.of(recordDate, recordCreationDate));
     }
 
     // Done
+    final MongoPropertyUpdaterImpl.BulkSettings<T> bulkSettings = bulkOperations == null ? null
+        : new MongoPropertyUpdaterImpl.BulkSettings<>(bulkOperations, objectClass, key,
+            deferOperations);
     return new MongoPropertyUpdaterImpl<>(current, updated, mongoServer, mongoOperations,
-        queryCreator);
+        queryCreator, bulkSettings);
   }
 
   /**
@@ -71,7 +82,35 @@ public final class MongoPropertyUpdaterFactory {
   public static <T> MongoPropertyUpdater<T> createForObjectWithoutAbout(T updated,
       MongoServer mongoServer, Class<T> objectClass, Supplier<Query<T>> queryCreator,
       TriConsumer<T, T, Pair<Date, Date>> preprocessor) {
-    return create(updated, mongoServer, objectClass, queryCreator, preprocessor, null, null, null);
+    return create(updated, mongoServer, objectClass, queryCreator, preprocessor, null, null, null,
+        null, null, false);
+  }
+
+  /**
+   * Static constructor for objects that do not have an about field, and that are updated as part of
+   * bulk operations. The operations of the resulting property updater will be added to the bulk
+   * operations (instead of being applied directly).
+   *
+   * @param updated The updated object (i.e. the object to take the value from). This object will
+   * remain unchanged.
+   * @param mongoServer The Mongo connection.
+   * @param objectClass The class of the object which is used to create an instance of {@link
+   * UpdateOperations}.
+   * @param key The value that uniquely identifies the object (see {@link MongoBulkOperations}).
+   * @param queryCreator The function that creates the mongo query that can retrieve the object from
+   * Mongo.
+   * @param preprocessor This provides the option of performing some preprocessing on the current
+   * and/or the new object before applying the operations. See {@link
+   * #createForObjectWithoutAbout(Object, MongoServer, Class, Supplier, TriConsumer)}. Can be null.
+   * @param bulkOperations The bulk operations. Can be null, in which case this method is equivalent
+   * to {@link #createForObjectWithoutAbout(Object, MongoServer, Class, Supplier, TriConsumer)}.
+   * @return The property updater.
+   */
+  public static <T> MongoPropertyUpdater<T> createForObjectWithoutAbout(T updated,
+      MongoServer mongoServer, Class<T> objectClass, String key, Supplier<Query<T>> queryCreator,
+      TriConsumer<T, T, Pair<Date, Date>> preprocessor, MongoBulkOperations bulkOperations) {
+    return create(updated, mongoServer, objectClass, queryCreator, preprocessor, null, null, null,
+        bulkOperations, key, true);
   }
 
   /**
@@ -96,6 +135,68 @@ public final class MongoPropertyUpdaterFactory {
   public static <T> MongoPropertyUpdater<T> createForObjectWithAbout(T updated,
       MongoServer mongoServer, Class<T> objectClass, Function<T, String> aboutGetter,
       TriConsumer<T, T, Pair<Date, Date>> preprocessor, Date recordDate, Date recordCreationDate) {
+    return createForObjectWithAbout(updated, mongoServer, objectClass, aboutGetter, preprocessor,
+        recordDate, recordCreationDate, null, false);
+  }
+
+  /**
+   * Static constructor for objects that have an about field, and that are updated as part of bulk
+   * operations. The operations of the resulting property updater will be added to the bulk
+   * operations (instead of being applied directly).
+   *
+   * @param updated The updated object (i.e. the object to take the value from). This object will
+   * remain unchanged.
+   * @param mongoServer The Mongo connection.
+   * @param objectClass The class of the object which is used to create an instance of {@link
+   * UpdateOperations}.
+   * @param aboutGetter The function that obtains the about value from the object.
+   * @param bulkOperations The bulk operations. Can be null, in which case this method is equivalent
+   * to {@link #createForObjectWithAbout(Object, MongoServer, Class, Function, TriConsumer, Date,
+   * Date)} without preprocessor and dates.
+   * @return The property updater.
+   */
+  public static <T> MongoPropertyUpdater<T> createForObjectWithAbout(T updated,
+      MongoServer mongoServer, Class<T> objectClass, Function<T, String> aboutGetter,
+      MongoBulkOperations bulkOperations) {
+    return createForObjectWithAbout(updated, mongoServer, objectClass, aboutGetter, null, null,
+        null, bulkOperations, true);
+  }
+
+  /**
+   * Static constructor for root objects (i.e. full beans) that have an about field, and of which
+   * the referenced objects are updated as part of bulk operations. The operations of the resulting
+   * property updater will be applied directly, but only after the bulk operations are flushed.
+   *
+   * @param updated The updated object (i.e. the object to take the value from). This object will
+   * remain unchanged.
+   * @param mongoServer The Mongo connection.
+   * @param objectClass The class of the object which is used to create an instance of {@link
+   * UpdateOperations}.
+   * @param aboutGetter The function that obtains the about value from the object.
+   * @param preprocessor This provides the option of performing some preprocessing on the current
+   * and/or the new object before applying the operations. See {@link
+   * #createForObjectWithAbout(Object, MongoServer, Class, Function, TriConsumer, Date, Date)}. Can
+   * be null.
+   * @param recordDate The date that would represent the created/updated date of a record
+   * @param recordCreationDate The date that would represent the created date if it already existed,
+   * e.g. from a redirected record
+   * @param bulkOperations The bulk operations. Can be null, in which case this method is equivalent
+   * to {@link #createForObjectWithAbout(Object, MongoServer, Class, Function, TriConsumer, Date,
+   * Date)}.
+   * @return The property updater.
+   */
+  public static <T> MongoPropertyUpdater<T> createForRootObjectWithAbout(T updated,
+      MongoServer mongoServer, Class<T> objectClass, Function<T, String> aboutGetter,
+      TriConsumer<T, T, Pair<Date, Date>> preprocessor, Date recordDate, Date recordCreationDate,
+      MongoBulkOperations bulkOperations) {
+    return createForObjectWithAbout(updated, mongoServer, objectClass, aboutGetter, preprocessor,
+        recordDate, recordCreationDate, bulkOperations, false);
+  }
+
+  private static <T> MongoPropertyUpdater<T> createForObjectWithAbout(T updated,
+      MongoServer mongoServer, Class<T> objectClass, Function<T, String> aboutGetter,
+      TriConsumer<T, T, Pair<Date, Date>> preprocessor, Date recordDate, Date recordCreationDate,
+      MongoBulkOperations bulkOperations, boolean deferOperations) {
 
     // Sanity checks.
     if (aboutGetter == null) {
@@ -115,6 +216,7 @@ public final class MongoPropertyUpdaterFactory {
 
     // Done
     return create(updated, mongoServer, objectClass, queryCreator, preprocessor, recordDate,
-        recordCreationDate, operationsPreprocessor);
+        recordCreationDate, operationsPreprocessor, bulkOperations, aboutGetter.apply(updated),
+        deferOperations);
   }
 }
@@ -49,14 +49,26 @@ class MongoPropertyUpdaterImpl<T> implements MongoPropertyUpdater<T> {
   private final MongoServer mongoServer;
   private final UpdateOperations<T> mongoOperations;
   private final Supplier<Query<T>> queryCreator;
+  private final BulkSettings<T> bulkSettings;
 
   MongoPropertyUpdaterImpl(T current, T updated, MongoServer mongoServer,
       UpdateOperations<T> mongoOperations, Supplier<Query<T>> queryCreator) {
+    this(current, updated, mongoServer, mongoOperations, queryCreator, null);
+  }
+
+  MongoPropertyUpdaterImpl(T current, T updated, MongoServer mongoServer,
+      UpdateOperations<T> mongoOperations, Supplier<Query<T>> queryCreator,
+      BulkSettings<T> bulkSettings) {
     this.current = current;
     this.updated = updated;
     this.mongoServer = mongoServer;
     this.mongoOperations = mongoOperations;
     this.queryCreator = queryCreator;
+    this.bulkSettings = bulkSettings;
+  }
+
+  private MongoBulkOperations getBulkOperations() {
+    return bulkSettings == null ? null : bulkSettings.bulkOperations;
   }
 
   private static <I extends Comparable<I>> boolean listEquals(List<I> listA, List<I> listB) {
@@ -178,7 +190,8 @@ class MongoPropertyUpdaterImpl<T> implements MongoPropertyUpdater<T> {
       MongoObjectUpdater<P, A> objectUpdater) {
     final A ancestorInformation = ancestorInfoGetter.apply(updated);
     final UnaryOperator<P> preprocessing =
-        entity -> objectUpdater.update(entity, ancestorInformation, null, null, mongoServer);
+        entity -> objectUpdater.update(entity, ancestorInformation, null, null, mongoServer,
+            getBulkOperations());
     updateProperty(updateField, getter, MongoPropertyUpdaterImpl::equals, preprocessing);
   }
 
@@ -195,8 +208,8 @@ class MongoPropertyUpdaterImpl<T> implements MongoPropertyUpdater<T> {
       MongoObjectUpdater<P, A> objectUpdater) {
     final A ancestorInformation = ancestorInfoGetter.apply(updated);
     final UnaryOperator<List<P>> preprocessing = entities -> entities.stream()
-        .map(entity -> objectUpdater.update(entity, ancestorInformation, null, null, mongoServer))
-        .collect(Collectors.toList());
+        .map(entity -> objectUpdater.update(entity, ancestorInformation, null, null, mongoServer,
+            getBulkOperations())).collect(Collectors.toList());
     final BiPredicate<List<P>, List<P>> equality =
         (w1, w2) -> listEquals(w1, w2, ENTITY_COMPARATOR);
     updateProperty(updateField, getter, equality, preprocessing);
@@ -264,21 +277,70 @@ class MongoPropertyUpdaterImpl<T> implements MongoPropertyUpdater<T> {
     final WebResourceMetaInfo entity = Optional.of(updated).map(getter).orElse(null);
     final WebResourceInformation ancestorInformation = ancestorInfoGetter.apply(updated);
     if (entity != null) {
-      updaterSupplier.get()
-          .update((WebResourceMetaInfoImpl) entity, ancestorInformation, null, null, mongoServer);
+      updaterSupplier.get().update((WebResourceMetaInfoImpl) entity, ancestorInformation, null,
+          null, mongoServer, getBulkOperations());
     }
   }
 
   @Override
   public T applyOperations() {
+
+    // In case of bulk operations, we either defer our update or flush the deferred updates first.
+    if (bulkSettings != null) {
+      if (bulkSettings.deferOperations) {
+        return bulkSettings.bulkOperations.addUpsert(bulkSettings.objectClass, bulkSettings.key,
+            current, updated, queryCreator.get(), mongoOperations);
+      }
+      bulkSettings.bulkOperations.flush();
+      bulkSettings.bulkOperations.replaceReassignedIdentifiers(mongoOperations);
+    }
+
+    // Apply the update.
+    int roundTrips = 2;
     try {
       mongoServer.getDatastore().update(queryCreator.get(), mongoOperations,
               new UpdateOptions().upsert(true).multi(true));
     } catch (DuplicateKeyException e) {
       LOGGER.debug("Received duplicate key exception, trying again once more.", e);
+      roundTrips++;
       mongoServer.getDatastore().update(queryCreator.get(), mongoOperations,
               new UpdateOptions().upsert(true).multi(true));
     }
-    return queryCreator.get().first();
+    final T result = queryCreator.get().first();
+    if (bulkSettings != null) {
+      bulkSettings.bulkOperations.recordRoundTrips(bulkSettings.objectClass, roundTrips);
+    }
+    return result;
+  }
+
+  /**
+   * The settings for property updaters that are part of bulk operations.
+   *
+   * @param <T> The type of the object to update.
+   */
+  static class BulkSettings<T> {
+
+    private final MongoBulkOperations bulkOperations;
+    private final Class<T> objectClass;
+    private final String key;
+    private final boolean deferOperations;
+
+    /**
+     * Constructor.
+     *
+     * @param bulkOperations The bulk operations.
+     * @param objectClass The class of the object to update.
+     * @param key The key of the object to update (see {@link MongoBulkOperations}).
+     * @param deferOperations Whether the operations of the property updater are to be added to the
+     * bulk operations (true), or whether they are to be applied directly after the bulk operations
+     * are flushed (false). The latter is the case for the root object (i.e. the full bean).
+     */
+    BulkSettings(MongoBulkOperations bulkOperations, Class<T> objectClass, String key,
+        boolean deferOperations) {
+      this.bulkOperations = bulkOperations;
+      this.objectClass = objectClass;
+      this.key = key;
+      this.deferOperations = deferOperations;
+    }
   }
 }
@@ -7,6 +7,7 @@ import eu.europeana.corelib.solr.entity.AggregationImpl;
 import eu.europeana.corelib.solr.entity.LicenseImpl;
 import eu.europeana.corelib.solr.entity.ProxyImpl;
 import eu.europeana.indexing.solr.facet.FacetEncoder;
+import eu.europeana.indexing.solr.facet.FacetEncoder.FacetCodes;
 import eu.europeana.indexing.solr.property.AgentSolrCreator;
 import eu.europeana.indexing.solr.property.AggregationSolrCreator;
 import eu.europeana.indexing.solr.property.ConceptSolrCreator;
@@ -25,7 +26,6 @@ import eu.europeana.metis.utils.MediaType;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.EnumSet;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -39,16 +39,52 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.solr.common.SolrInputDocument;
 
 /**
+ * <p>
  * This class provides functionality to populate Solr documents. Both methods in this class should
  * be called to fill the Solr document. The method {@link #populateWithProperties(SolrInputDocument,
  * FullBeanImpl)} copies properties from the source to the Solr document. The method {@link
  * #populateWithFacets(SolrInputDocument, RdfWrapper)} on the other hand performs some analysis
- * and sets technical metadata.
+ * and sets technical metadata. The method {@link #populate(SolrInputDocument, FullBeanImpl,
+ * RdfWrapper)} does both for a (possibly previously used) document.
+ * </p>
+ * <p>
+ * This class is thread-safe. It is meant to be created once and used for many records: it holds
+ * on to the creators that do not depend on the record, so that only the creators that need
+ * record-specific information (such as the licenses) are created for each record.
+ * </p>
  *
  * @author jochen
  */
 public class SolrDocumentPopulator {
 
+  private final ProvidedChoSolrCreator providedChoSolrCreator = new ProvidedChoSolrCreator();
+  private final ProxySolrCreator proxySolrCreator = new ProxySolrCreator();
+  private final ConceptSolrCreator conceptSolrCreator = new ConceptSolrCreator();
+  private final TimespanSolrCreator timespanSolrCreator = new TimespanSolrCreator();
+  private final AgentSolrCreator agentSolrCreator = new AgentSolrCreator();
+  private final PlaceSolrCreator placeSolrCreator = new PlaceSolrCreator();
+  private final ServiceSolrCreator serviceSolrCreator = new ServiceSolrCreator();
+
+  // Facet encoders are not thread-safe, but they can be reused within a thread.
+  private final ThreadLocal<FacetEncoder> facetEncoder = ThreadLocal.withInitial(FacetEncoder::new);
+
+  /**
+   * Populates a Solr document with the properties of the full bean and the CRF fields of the RDF
+   * (see {@link #populateWithProperties(SolrInputDocument, FullBeanImpl)} and {@link
+   * #populateWithFacets(SolrInputDocument, RdfWrapper)}). Any fields that the document contains
+   * are removed first, so that a document can be reused for multiple records (provided that its
+   * previous contents are no longer needed).
+   *
+   * @param document The Solr document to populate.
+   * @param fullBean The FullBean to populate from.
+   * @param rdf The RDF to populate from.
+   */
+  public void populate(SolrInputDocument document, FullBeanImpl fullBean, RdfWrapper rdf) {
+    document.clear();
+    populateWithProperties(document, fullBean);
+    populateWithFacets(document, rdf);
+  }
+
   /**
    * Populates a Solr document with the properties of the full bean. Please note: this method should
    * only be called once on a given document, otherwise the behavior is not defined.
@@ -83,17 +119,17 @@ public class SolrDocumentPopulator {
         .collect(Collectors.toMap(QualityAnnotation::getAbout, Function.identity(), (v1, v2) -> v1));
 
     // Add the containing objects.
-    new ProvidedChoSolrCreator().addToDocument(document, fullBean.getProvidedCHOs().get(0));
+    providedChoSolrCreator.addToDocument(document, fullBean.getProvidedCHOs().get(0));
     new AggregationSolrCreator(licenses).addToDocument(document,
         fullBean.getAggregations().get(0));
     new EuropeanaAggregationSolrCreator(licenses, qualityAnnotations::get)
         .addToDocument(document, fullBean.getEuropeanaAggregation());
-    new ProxySolrCreator().addAllToDocument(document, fullBean.getProxies());
-    new ConceptSolrCreator().addAllToDocument(document, fullBean.getConcepts());
-    new TimespanSolrCreator().addAllToDocument(document, fullBean.getTimespans());
-    new AgentSolrCreator().addAllToDocument(document, fullBean.getAgents());
-    new PlaceSolrCreator().addAllToDocument(document, fullBean.getPlaces());
-    new ServiceSolrCreator().addAllToDocument(document, fullBean.getServices());
+    proxySolrCreator.addAllToDocument(document, fullBean.getProxies());
+    conceptSolrCreator.addAllToDocument(document, fullBean.getConcepts());
+    timespanSolrCreator.addAllToDocument(document, fullBean.getTimespans());
+    agentSolrCreator.addAllToDocument(document, fullBean.getAgents());
+    placeSolrCreator.addAllToDocument(document, fullBean.getPlaces());
+    serviceSolrCreator.addAllToDocument(document, fullBean.getServices());
 
     // Add the licenses.
     final Set<String> defRights = fullBean.getAggregations().stream()
@@ -143,19 +179,13 @@ public class SolrDocumentPopulator {
     document.addField(EdmLabel.FACET_IS_FULL_TEXT.toString(), isFullText);
 
     // Compose the filter and facet tags. Only use the web resources of type 'isShownBy' or 'hasView'.
-    final Set<Integer> filterCodes = new HashSet<>();
-    final Set<Integer> valueCodes = new HashSet<>();
-    final FacetEncoder encoder = new FacetEncoder();
-    for (WebResourceWrapper webResource : webResourcesWithMedia) {
-      filterCodes.addAll(encoder.getFacetFilterCodes(webResource));
-      valueCodes.addAll(encoder.getFacetValueCodes(webResource));
-    }
+    final FacetCodes facetCodes = facetEncoder.get().getFacetCodes(webResourcesWithMedia);
 
     // Add the filter and facet tags to the Solr document.
-    for (Integer code : filterCodes) {
+    for (int code : facetCodes.getFilterCodes()) {
       document.addField(EdmLabel.FACET_FILTER_CODES.toString(), code);
     }
-    for (Integer code : valueCodes) {
+    for (int code : facetCodes.getValueCodes()) {
       document.addField(EdmLabel.FACET_VALUE_CODES.toString(), code);
     }
   }
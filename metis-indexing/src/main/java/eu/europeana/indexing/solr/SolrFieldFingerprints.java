@@ -0,0 +1,203 @@
+package eu.europeana.indexing.solr;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.SolrInputField;
+
+/**
+ * <p>
+ * This class contains the fingerprints of the individual fields of a Solr document. The
+ * fingerprint of a field is a (truncated) hash of its values. By comparing the fingerprints of a
+ * new version of a document with those of the indexed version, an atomic update can be created
+ * that contains only the fields that changed (see {@link #createAtomicUpdate(SolrInputDocument,
+ * SolrFieldFingerprints)}).
+ * </p>
+ * <p>
+ * The fingerprints can be stored (see {@link #toStoredValue()}) as a list of strings. The first
+ * entry of this list is the version ({@link #FINGERPRINT_VERSION}): this version should be
+ * incremented whenever the way the fingerprints are computed changes, so that stored fingerprints
+ * that were computed using a previous version are ignored.
+ * </p>
+ */
+public final class SolrFieldFingerprints {
+
+  /**
+   * The version of the computation of the fingerprints (see class documentation).
+   */
+  static final String FINGERPRINT_VERSION = "1";
+
+  /**
+   * The maximum fraction of fields that may change for an atomic update to be created. If more
+   * fields change, it is cheaper to replace the document in full.
+   */
+  static final double MAX_CHANGED_FIELD_FRACTION = 0.5;
+
+  private static final String DIGEST_ALGORITHM = "SHA-256";
+  private static final int FINGERPRINT_LENGTH_IN_BYTES = 12;
+  private static final String ATOMIC_SET = "set";
+
+  private final Map<String, String> fingerprints;
+
+  private SolrFieldFingerprints(Map<String, String> fingerprints) {
+    this.fingerprints = fingerprints;
+  }
+
+  /**
+   * Computes the field fingerprints of the given document.
+   *
+   * @param document The document. Is not null.
+   * @return The fingerprints. Is not null.
+   */
+  public static SolrFieldFingerprints compute(SolrInputDocument document) {
+    final MessageDigest digest = createDigest();
+    final Map<String, String> result = new HashMap<>();
+    for (SolrInputField field : document.values()) {
+      result.put(field.getName(), computeFingerprint(digest, field.getValues()));
+    }
+    return new SolrFieldFingerprints(result);
+  }
+
+  private static String computeFingerprint(MessageDigest digest, Collection<Object> values) {
+    digest.reset();
+    if (values != null) {
+      for (Object value : values) {
+        final String serializedValue;
+        if (value instanceof Date) {
+          serializedValue = "d" + ((Date) value).getTime();
+        } else {
+          serializedValue = "v" + value;
+        }
+
+        // Prefix the value with its length so that different value lists have different input.
+        digest.update((serializedValue.length() + ":" + serializedValue)
+            .getBytes(StandardCharsets.UTF_8));
+      }
+    }
+    return Base64.getEncoder().withoutPadding()
+        .encodeToString(Arrays.copyOf(digest.digest(), FINGERPRINT_LENGTH_IN_BYTES));
+  }
+
+  /**
+   * Restores fingerprints from a value that was previously obtained through {@link
+   * #toStoredValue()}.
+   *
+   * @param storedValue The stored value. Can be null.
+   * @return The fingerprints, or null if the stored value is null, is not valid or was created
+   * using a different version of this class.
+   */
+  public static SolrFieldFingerprints fromStoredValue(Object storedValue) {
+    if (!(storedValue instanceof List) || ((List<?>) storedValue).isEmpty()
+        || !FINGERPRINT_VERSION.equals(((List<?>) storedValue).get(0))) {
+      return null;
+    }
+    final List<?> entries = (List<?>) storedValue;
+    final Map<String, String> result = new HashMap<>();
+    for (Object entry : entries.subList(1, entries.size())) {
+      final String entryString = Objects.toString(entry, "");
+      final int separator = entryString.indexOf(' ');
+      if (separator < 0) {
+        return null;
+      }
+      result.put(entryString.substring(separator + 1), entryString.substring(0, separator));
+    }
+    return new SolrFieldFingerprints(result);
+  }
+
+  /**
+   * Converts the fingerprints to a value that can be stored. Each entry after the version consists
+   * of a field fingerprint and the field name, separated by a space.
+   *
+   * @return The value to store. Is not null.
+   */
+  public List<String> toStoredValue() {
+    final List<String> result = new ArrayList<>(fingerprints.size() + 1);
+    result.add(FINGERPRINT_VERSION);
+    fingerprints.forEach((field, fingerprint) -> result.add(fingerprint + ' ' + field));
+    return result;
+  }
+
+  /**
+   * <p>
+   * Creates an atomic update that changes the previous version of a document into the given
+   * document. The update contains the ID field of the document, a 'set' operation for every field
+   * that was added or changed and a 'set' operation with a null value for every field that was
+   * removed. Multi-valued fields are replaced in full.
+   * </p>
+   * <p>
+   * Note that atomic updates require a Solr schema in which all fields are stored or have doc
+   * values (except for the targets of copy fields). Also, if the document does not exist, Solr
+   * creates a new document with only the fields in the update. The update should therefore be
+   * sent with a version that requires the document to exist (i.e. a '_version_' field with value
+   * 1), with the full document as fallback.
+   * </p>
+   *
+   * @param document The new version of the document, of which this object contains the
+   * fingerprints. Is not null.
+   * @param previous The fingerprints of the previous version of the document. Is not null.
+   * @return The atomic update, which contains only the ID field if nothing changed. Or null, if
+   * the document should be replaced in full: if the ID changed, or if too many fields changed for
+   * an atomic update to be beneficial (see {@link #MAX_CHANGED_FIELD_FRACTION}).
+   */
+  public SolrInputDocument createAtomicUpdate(SolrInputDocument document,
+      SolrFieldFingerprints previous) {
+
+    // The ID should be present and should not have changed.
+    final String idField = EdmLabel.EUROPEANA_ID.toString();
+    final SolrInputField id = document.getField(idField);
+    if (id == null || !Objects.equals(fingerprints.get(idField),
+        previous.fingerprints.get(idField))) {
+      return null;
+    }
+
+    // Find the fields that changed or were removed.
+    final List<String> changedFields = new ArrayList<>();
+    fingerprints.forEach((field, fingerprint) -> {
+      if (!fingerprint.equals(previous.fingerprints.get(field))) {
+        changedFields.add(field);
+      }
+    });
+    final List<String> removedFields = new ArrayList<>();
+    previous.fingerprints.keySet().forEach(field -> {
+      if (!fingerprints.containsKey(field)) {
+        removedFields.add(field);
+      }
+    });
+    final int totalFields = fingerprints.size() + removedFields.size();
+    if (changedFields.size() + removedFields.size() > totalFields * MAX_CHANGED_FIELD_FRACTION) {
+      return null;
+    }
+
+    // Create the atomic update.
+    final SolrInputDocument result = new SolrInputDocument();
+    result.addField(idField, id.getValue());
+    for (String field : changedFields) {
+      result.addField(field,
+          Collections.singletonMap(ATOMIC_SET, document.getFieldValues(field)));
+    }
+    for (String field : removedFields) {
+      result.addField(field, Collections.singletonMap(ATOMIC_SET, null));
+    }
+    return result;
+  }
+
+  private static MessageDigest createDigest() {
+    try {
+      return MessageDigest.getInstance(DIGEST_ALGORITHM);
+    } catch (NoSuchAlgorithmException e) {
+      // Should not happen: every Java platform is required to support this algorithm.
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -12,6 +12,7 @@ import eu.europeana.indexing.solr.facet.value.MimeTypeEncoding;
 import eu.europeana.indexing.solr.facet.value.VideoDuration;
 import eu.europeana.indexing.solr.facet.value.VideoQuality;
 import eu.europeana.indexing.utils.WebResourceWrapper;
+import java.util.Arrays;
 import java.util.EnumSet;
 import java.util.Map;
 import java.util.Optional;
@@ -61,6 +62,7 @@ public final class EncodedFacet<T extends Enum<T> & FacetValue> {
   private final int numberOfBits;
   private final Function<WebResourceWrapper, Set<T>> resourceCategorizer;
   private final Map<Integer, T> codeToValueMap;
+  private final int[] encodedValuesByOrdinal;
 
   private EncodedFacet(final int bitPosition, final int numberOfBits, Class<T> valueType,
       Function<WebResourceWrapper, Set<T>> resourceCategorizer) {
@@ -69,6 +71,8 @@ public final class EncodedFacet<T extends Enum<T> & FacetValue> {
     this.resourceCategorizer = resourceCategorizer;
     this.codeToValueMap = EnumSet.allOf(valueType).stream()
         .collect(Collectors.toMap(this::getCodeFromValue, Function.identity()));
+    this.encodedValuesByOrdinal = EnumSet.allOf(valueType).stream()
+        .mapToInt(this::computeEncodedValue).toArray();
   }
 
   private EncodedFacet(final int bitPosition, final int numberOfBits,
@@ -102,6 +106,19 @@ public final class EncodedFacet<T extends Enum<T> & FacetValue> {
     return value.getCode();
   }
 
+  /**
+   * Computes the shifted code of the value. This method is used to precompute the codes for all
+   * values of this facet.
+   *
+   * @param value The value to compute the code for.
+   * @return The shifted code, or -1 if the value's code falls outside the permitted interval for
+   * this facet.
+   */
+  private int computeEncodedValue(T value) {
+    final int code = value.getCode();
+    return (code < 0 || code > getMaxValue()) ? -1 : (code << bitPosition);
+  }
+
   private static <T extends Enum<T> & FacetValue> Set<T> toSet(T value, Class<T> valueType) {
     return Optional.ofNullable(value).map(EnumSet::of).orElseGet(() -> EnumSet.noneOf(valueType));
   }
@@ -124,11 +141,11 @@ public final class EncodedFacet<T extends Enum<T> & FacetValue> {
    * this facet.
    */
   int encodeValue(T value) {
-    final int code = value.getCode();
-    if (code < 0 || code > getMaxValue()) {
+    final int encodedValue = encodedValuesByOrdinal[value.ordinal()];
+    if (encodedValue < 0) {
       throw new IllegalArgumentException("The input does not fit in this facet's interval. ");
     }
-    return code << bitPosition;
+    return encodedValue;
   }
 
   /**
@@ -143,6 +160,39 @@ public final class EncodedFacet<T extends Enum<T> & FacetValue> {
         .collect(Collectors.toSet());
   }
 
+  /**
+   * Evaluate the facet for the given web resource and return the result as an array. The result
+   * consists of a number of distinct codes that are all shifted according to this facet's rules.
+   *
+   * @param webResource The web resource to evaluate this facet on.
+   * @return The codes. Is not null, but may be empty.
+   */
+  int[] encodeValuesAsArray(WebResourceWrapper webResource) {
+    return encodeValuesAsArray(resourceCategorizer.apply(webResource));
+  }
+
+  /**
+   * Encode the given values and return the result as an array. The result consists of a number of
+   * distinct codes that are all shifted according to this facet's rules.
+   *
+   * @param values The values to encode. Can be null. Null values are ignored.
+   * @return The codes. Is not null, but may be empty.
+   */
+  int[] encodeValuesAsArray(Set<T> values) {
+    if (values == null || values.isEmpty()) {
+      return new int[0];
+    }
+    final int[] result = new int[values.size()];
+    int count = 0;
+    for (T value : values) {
+      if (value != null) {
+        result[count] = encodeValue(value);
+        count++;
+      }
+    }
+    return count == result.length ? result : Arrays.copyOf(result, count);
+  }
+
   /**
    * Determines the facet's bit mask based on the rules of this facet.
    *
@@ -4,6 +4,7 @@ import eu.europeana.indexing.solr.facet.value.MediaTypeEncoding;
 import eu.europeana.indexing.utils.WebResourceWrapper;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Function;
@@ -47,6 +48,7 @@ enum EncodedFacetCollection {
 
   private final MediaTypeEncoding mediaType;
   private final Set<EncodedFacet> facets;
+  private final List<EncodedFacet<?>> facetList;
 
   /**
    * Constructor.
@@ -58,6 +60,8 @@ enum EncodedFacetCollection {
   EncodedFacetCollection(final MediaTypeEncoding value, EncodedFacet... facets) {
     this.mediaType = value;
     this.facets = Stream.of(facets).collect(Collectors.toSet());
+    this.facetList = Stream.of(facets).map(facet -> (EncodedFacet<?>) facet)
+        .collect(Collectors.toUnmodifiableList());
   }
 
   /**
@@ -74,6 +78,13 @@ enum EncodedFacetCollection {
     return Collections.unmodifiableSet(facets);
   }
 
+  /**
+   * @return The facets that are to be applied to web resources of this type, in a fixed order.
+   */
+  List<EncodedFacet<?>> getFacetList() {
+    return facetList;
+  }
+
   /**
    * Get the facets for the given web resource.
    *
@@ -10,24 +10,32 @@ import eu.europeana.indexing.solr.facet.value.ImageSize;
 import eu.europeana.indexing.solr.facet.value.MimeTypeEncoding;
 import eu.europeana.indexing.solr.facet.value.VideoDuration;
 import eu.europeana.indexing.solr.facet.value.VideoQuality;
-import eu.europeana.indexing.utils.SetUtils;
 import eu.europeana.indexing.utils.WebResourceWrapper;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Objects;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 /**
  * This class provides functionality to extract the facet values from web resources and combine them
  * into facet value and/or filter codes that may be added to the web resource's persistence and thus
  * allow categorizing, filtering and searching them based on the facets' values.
+ * <p>
+ * Internally, the codes are handled as primitive int arrays and the combinations are generated in
+ * a buffer that is reused between calls. This means that instances of this class are not
+ * thread-safe: they should not be shared between threads.
+ * </p>
  *
  * @author jochen
  */
 public class FacetEncoder {
 
+  private static final int[][] NO_CODES = new int[0][];
+
+  private final CodeBuffer combinationBuffer = new CodeBuffer();
+
   /**
    * <p>
    * This method returns all possible combinations of the facet value codes: each facet's value(s)
@@ -60,7 +68,7 @@ public class FacetEncoder {
   public final Set<Integer> getFacetFilterCodes(WebResourceWrapper webResource) {
 
     // Get all the individual codes from all the facets.
-    final List<Set<Integer>> codes = compileIntegerSets(webResource);
+    final int[][] codes = compileIntegerSets(webResource);
 
     // Find all the combinations; make sure there is always the media type value 'or'-ed into them.
     return getFacetFilterCodes(EncodedFacetCollection.get(webResource), codes);
@@ -77,7 +85,7 @@ public class FacetEncoder {
    */
   public final Set<Integer> getAudioFacetFilterCodes(Set<MimeTypeEncoding> mimeTypes,
       Set<AudioQuality> audioQualities, Set<AudioDuration> audioDurations) {
-    final List<Set<Integer>> codes = compileAudioIntegerSets(mimeTypes, audioQualities,
+    final int[][] codes = compileAudioIntegerSets(mimeTypes, audioQualities,
         audioDurations);
     return getFacetFilterCodes(EncodedFacetCollection.AUDIO, codes);
   }
@@ -93,7 +101,7 @@ public class FacetEncoder {
    */
   public final Set<Integer> getVideoFacetFilterCodes(Set<MimeTypeEncoding> mimeTypes,
       Set<VideoQuality> videoQualities, Set<VideoDuration> videoDurations) {
-    final List<Set<Integer>> codes = compileVideoIntegerSets(mimeTypes, videoQualities,
+    final int[][] codes = compileVideoIntegerSets(mimeTypes, videoQualities,
         videoDurations);
     return getFacetFilterCodes(EncodedFacetCollection.VIDEO, codes);
   }
@@ -112,7 +120,7 @@ public class FacetEncoder {
   public final Set<Integer> getImageFacetFilterCodes(Set<MimeTypeEncoding> mimeTypes,
       Set<ImageSize> imageSizes, Set<ImageColorSpace> imageColorSpaces,
       Set<ImageAspectRatio> imageAspectRatios, Set<ImageColorEncoding> imageColorEncodings) {
-    final List<Set<Integer>> codes = compileImageIntegerSets(mimeTypes, imageSizes,
+    final int[][] codes = compileImageIntegerSets(mimeTypes, imageSizes,
         imageColorSpaces, imageAspectRatios, imageColorEncodings);
     return getFacetFilterCodes(EncodedFacetCollection.IMAGE, codes);
   }
@@ -125,18 +133,44 @@ public class FacetEncoder {
    * @return The set of facet codes.
    */
   public final Set<Integer> getTextFacetFilterCodes(Set<MimeTypeEncoding> mimeTypes) {
-    final List<Set<Integer>> codes = compileTextIntegerSets(mimeTypes);
+    final int[][] codes = compileTextIntegerSets(mimeTypes);
     return getFacetFilterCodes(EncodedFacetCollection.TEXT, codes);
   }
 
-  private static Set<Integer> getFacetFilterCodes(EncodedFacetCollection mediaType,
-      List<Set<Integer>> codes) {
+  private Set<Integer> getFacetFilterCodes(EncodedFacetCollection mediaType, int[][] codes) {
     if (mediaType == null) {
       return Collections.emptySet();
     }
-    final int shiftedMediaTypeCode = getShiftedMediaTypeCode(mediaType);
-    return SetUtils.generateCombinations(codes, shiftedMediaTypeCode,
-        (combination, code) -> combination | code);
+    combinationBuffer.clear();
+    generateCombinations(codes, getShiftedMediaTypeCode(mediaType), combinationBuffer);
+    return combinationBuffer.toSet();
+  }
+
+  /**
+   * This method generates all possible combinations of codes of different facets, with the given
+   * seed 'or'-ed into them. Each combination consists of zero or one code of each facet. This
+   * method is equivalent to {@link eu.europeana.indexing.utils.SetUtils#generateCombinations(List,
+   * Object, java.util.function.BiFunction)} with the 'or' operation as concatenator, except that
+   * the resulting buffer may contain duplicates (if the codes of different facets overlap).
+   *
+   * @param codes The codes, per facet.
+   * @param seed The empty combination.
+   * @param target The buffer to add the combinations to.
+   */
+  private static void generateCombinations(int[][] codes, int seed, CodeBuffer target) {
+    final int start = target.size();
+    target.add(seed);
+    for (int[] facetCodes : codes) {
+
+      // Add each code to each of the combinations we have so far. The existing combinations are
+      // kept in place: they are those that will not contain a code of the current facet.
+      final int end = target.size();
+      for (int code : facetCodes) {
+        for (int i = start; i < end; i++) {
+          target.add(target.get(i) | code);
+        }
+      }
+    }
   }
 
   /**
@@ -168,7 +202,7 @@ public class FacetEncoder {
   public final Set<Integer> getFacetValueCodes(WebResourceWrapper webResource) {
 
     // Get all the individual codes from all the facets.
-    final List<Set<Integer>> codes = compileIntegerSets(webResource);
+    final int[][] codes = compileIntegerSets(webResource);
 
     // Combine the codes and make sure there is always the media type value 'or'-ed into them.
     return getFacetValueCodes(EncodedFacetCollection.get(webResource), codes);
@@ -185,7 +219,7 @@ public class FacetEncoder {
    */
   public final Set<Integer> getAudioFacetValueCodes(Set<MimeTypeEncoding> mimeTypes,
       Set<AudioQuality> audioQualities, Set<AudioDuration> audioDurations) {
-    final List<Set<Integer>> codes = compileAudioIntegerSets(mimeTypes, audioQualities,
+    final int[][] codes = compileAudioIntegerSets(mimeTypes, audioQualities,
         audioDurations);
     return getFacetValueCodes(EncodedFacetCollection.AUDIO, codes);
   }
@@ -201,7 +235,7 @@ public class FacetEncoder {
    */
   public final Set<Integer> getVideoFacetValueCodes(Set<MimeTypeEncoding> mimeTypes,
       Set<VideoQuality> videoQualities, Set<VideoDuration> videoDurations) {
-    final List<Set<Integer>> codes = compileVideoIntegerSets(mimeTypes, videoQualities,
+    final int[][] codes = compileVideoIntegerSets(mimeTypes, videoQualities,
         videoDurations);
     return getFacetValueCodes(EncodedFacetCollection.VIDEO, codes);
   }
@@ -220,7 +254,7 @@ public class FacetEncoder {
   public final Set<Integer> getImageFacetValueCodes(Set<MimeTypeEncoding> mimeTypes,
       Set<ImageSize> imageSizes, Set<ImageColorSpace> imageColorSpaces,
       Set<ImageAspectRatio> imageAspectRatios, Set<ImageColorEncoding> imageColorEncodings) {
-    final List<Set<Integer>> codes = compileImageIntegerSets(mimeTypes, imageSizes,
+    final int[][] codes = compileImageIntegerSets(mimeTypes, imageSizes,
         imageColorSpaces, imageAspectRatios, imageColorEncodings);
     return getFacetValueCodes(EncodedFacetCollection.IMAGE, codes);
   }
@@ -233,68 +267,191 @@ public class FacetEncoder {
    * @return The set of facet codes.
    */
   public final Set<Integer> getTextFacetValueCodes(Set<MimeTypeEncoding> mimeTypes) {
-    final List<Set<Integer>> codes = compileTextIntegerSets(mimeTypes);
+    final int[][] codes = compileTextIntegerSets(mimeTypes);
     return getFacetValueCodes(EncodedFacetCollection.TEXT, codes);
   }
 
-  private static Set<Integer> getFacetValueCodes(EncodedFacetCollection mediaType,
-      List<Set<Integer>> codes) {
+  private Set<Integer> getFacetValueCodes(EncodedFacetCollection mediaType, int[][] codes) {
     if (mediaType == null) {
       return Collections.emptySet();
     }
-    final int shiftedMediaTypeCode = getShiftedMediaTypeCode(mediaType);
-    return codes.stream().flatMap(Set::stream)
-        .map(code -> shiftedMediaTypeCode | code).collect(Collectors.toSet());
+    combinationBuffer.clear();
+    addValueCodes(codes, getShiftedMediaTypeCode(mediaType), combinationBuffer);
+    return combinationBuffer.toSet();
+  }
+
+  private static void addValueCodes(int[][] codes, int shiftedMediaTypeCode, CodeBuffer target) {
+    for (int[] facetCodes : codes) {
+      for (int code : facetCodes) {
+        target.add(shiftedMediaTypeCode | code);
+      }
+    }
+  }
+
+  /**
+   * This method computes the facet filter codes and the facet value codes for a number of web
+   * resources at once. It is equivalent to calling {@link #getFacetFilterCodes(WebResourceWrapper)}
+   * and {@link #getFacetValueCodes(WebResourceWrapper)} for each web resource and combining the
+   * results, but it evaluates the facets only once per web resource and does not box the codes.
+   *
+   * @param webResources The web resources for which to retrieve the facet codes.
+   * @return The facet codes. Is not null.
+   */
+  public final FacetCodes getFacetCodes(Collection<WebResourceWrapper> webResources) {
+    combinationBuffer.clear();
+    final CodeBuffer valueCodes = new CodeBuffer();
+    for (WebResourceWrapper webResource : webResources) {
+      final EncodedFacetCollection mediaType = EncodedFacetCollection.get(webResource);
+      if (mediaType != null) {
+        final int[][] codes = compileIntegerSets(mediaType, webResource);
+        final int shiftedMediaTypeCode = getShiftedMediaTypeCode(mediaType);
+        generateCombinations(codes, shiftedMediaTypeCode, combinationBuffer);
+        addValueCodes(codes, shiftedMediaTypeCode, valueCodes);
+      }
+    }
+    return new FacetCodes(combinationBuffer.toSortedDistinctArray(),
+        valueCodes.toSortedDistinctArray());
   }
 
-  private static List<Set<Integer>> compileIntegerSets(WebResourceWrapper webResource) {
+  private static int[][] compileIntegerSets(WebResourceWrapper webResource) {
     final EncodedFacetCollection facets = EncodedFacetCollection.get(webResource);
     if (facets == null) {
-      return Collections.emptyList();
+      return NO_CODES;
     }
-    return facets.getFacets().stream()
-        .map(facet -> ((EncodedFacet<?>) facet).encodeValues(webResource))
-        .filter(set -> !set.isEmpty()).collect(Collectors.toList());
+    return compileIntegerSets(facets, webResource);
   }
 
-  private static List<Set<Integer>> compileAudioIntegerSets(Set<MimeTypeEncoding> mimeTypes,
+  private static int[][] compileIntegerSets(EncodedFacetCollection facets,
+      WebResourceWrapper webResource) {
+    final List<EncodedFacet<?>> facetList = facets.getFacetList();
+    final int[][] result = new int[facetList.size()][];
+    int count = 0;
+    for (EncodedFacet<?> facet : facetList) {
+      final int[] codes = facet.encodeValuesAsArray(webResource);
+      if (codes.length > 0) {
+        result[count] = codes;
+        count++;
+      }
+    }
+    return count == result.length ? result : Arrays.copyOf(result, count);
+  }
+
+  private static int[][] compileAudioIntegerSets(Set<MimeTypeEncoding> mimeTypes,
       Set<AudioQuality> audioQualities, Set<AudioDuration> audioDurations) {
-    return Arrays.asList(compileIntegerSet(EncodedFacet.MIME_TYPE, mimeTypes),
+    return new int[][]{compileIntegerSet(EncodedFacet.MIME_TYPE, mimeTypes),
         compileIntegerSet(EncodedFacet.AUDIO_QUALITY, audioQualities),
-        compileIntegerSet(EncodedFacet.AUDIO_DURATION, audioDurations));
+        compileIntegerSet(EncodedFacet.AUDIO_DURATION, audioDurations)};
   }
 
-  private static List<Set<Integer>> compileVideoIntegerSets(Set<MimeTypeEncoding> mimeTypes,
+  private static int[][] compileVideoIntegerSets(Set<MimeTypeEncoding> mimeTypes,
       Set<VideoQuality> videoQualities, Set<VideoDuration> videoDurations) {
-    return Arrays.asList(compileIntegerSet(EncodedFacet.MIME_TYPE, mimeTypes),
+    return new int[][]{compileIntegerSet(EncodedFacet.MIME_TYPE, mimeTypes),
         compileIntegerSet(EncodedFacet.VIDEO_QUALITY, videoQualities),
-        compileIntegerSet(EncodedFacet.VIDEO_DURATION, videoDurations));
+        compileIntegerSet(EncodedFacet.VIDEO_DURATION, videoDurations)};
   }
 
-  private static List<Set<Integer>> compileImageIntegerSets(Set<MimeTypeEncoding> mimeTypes,
+  private static int[][] compileImageIntegerSets(Set<MimeTypeEncoding> mimeTypes,
       Set<ImageSize> imageSizes, Set<ImageColorSpace> imageColorSpaces,
       Set<ImageAspectRatio> imageAspectRatios, Set<ImageColorEncoding> imageColorEncodings){
-    return Arrays.asList(compileIntegerSet(EncodedFacet.MIME_TYPE, mimeTypes),
+    return new int[][]{compileIntegerSet(EncodedFacet.MIME_TYPE, mimeTypes),
         compileIntegerSet(EncodedFacet.IMAGE_SIZE, imageSizes),
         compileIntegerSet(EncodedFacet.IMAGE_COLOR_SPACE, imageColorSpaces),
         compileIntegerSet(EncodedFacet.IMAGE_ASPECT_RATIO, imageAspectRatios),
-        compileIntegerSet(EncodedFacet.IMAGE_COLOR_ENCODING, imageColorEncodings));
+        compileIntegerSet(EncodedFacet.IMAGE_COLOR_ENCODING, imageColorEncodings)};
   }
 
-  private static List<Set<Integer>> compileTextIntegerSets(Set<MimeTypeEncoding> mimeTypes) {
-    return Collections.singletonList(compileIntegerSet(EncodedFacet.MIME_TYPE, mimeTypes));
+  private static int[][] compileTextIntegerSets(Set<MimeTypeEncoding> mimeTypes) {
+    return new int[][]{compileIntegerSet(EncodedFacet.MIME_TYPE, mimeTypes)};
   }
 
-  private static <T extends Enum<T> & FacetValue> Set<Integer> compileIntegerSet(
+  private static <T extends Enum<T> & FacetValue> int[] compileIntegerSet(
       EncodedFacet<T> encodedFacet, Set<T> values) {
-    if (values == null) {
-      return Collections.emptySet();
-    }
-    return values.stream().filter(Objects::nonNull).map(encodedFacet::encodeValue)
-        .collect(Collectors.toSet());
+    return encodedFacet.encodeValuesAsArray(values);
   }
 
   private static int getShiftedMediaTypeCode(EncodedFacetCollection encoder) {
     return EncodedFacet.MEDIA_TYPE.encodeValue(encoder.getMediaType());
   }
+
+  /**
+   * The facet codes for a number of web resources: the filter codes and the value codes (see
+   * {@link #getFacetFilterCodes(WebResourceWrapper)} and {@link
+   * #getFacetValueCodes(WebResourceWrapper)} respectively).
+   */
+  public static final class FacetCodes {
+
+    private final int[] filterCodes;
+    private final int[] valueCodes;
+
+    FacetCodes(int[] filterCodes, int[] valueCodes) {
+      this.filterCodes = filterCodes;
+      this.valueCodes = valueCodes;
+    }
+
+    /**
+     * @return The distinct filter codes in ascending order. The caller should not modify the array.
+     */
+    public int[] getFilterCodes() {
+      return filterCodes;
+    }
+
+    /**
+     * @return The distinct value codes in ascending order. The caller should not modify the array.
+     */
+    public int[] getValueCodes() {
+      return valueCodes;
+    }
+  }
+
+  /**
+   * A growable buffer of (primitive) codes.
+   */
+  private static final class CodeBuffer {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private int[] codes = new int[INITIAL_CAPACITY];
+    private int size = 0;
+
+    void clear() {
+      size = 0;
+    }
+
+    int size() {
+      return size;
+    }
+
+    int get(int index) {
+      return codes[index];
+    }
+
+    void add(int code) {
+      if (size == codes.length) {
+        codes = Arrays.copyOf(codes, codes.length * 2);
+      }
+      codes[size] = code;
+      size++;
+    }
+
+    Set<Integer> toSet() {
+      final Set<Integer> result = new HashSet<>();
+      for (int i = 0; i < size; i++) {
+        result.add(codes[i]);
+      }
+      return result;
+    }
+
+    int[] toSortedDistinctArray() {
+      final int[] sorted = Arrays.copyOf(codes, size);
+      Arrays.sort(sorted);
+      int count = 0;
+      for (int i = 0; i < sorted.length; i++) {
+        if (i == 0 || sorted[i] != sorted[i - 1]) {
+          sorted[count] = sorted[i];
+          count++;
+        }
+      }
+      return count == sorted.length ? sorted : Arrays.copyOf(sorted, count);
+    }
+  }
 }
@@ -15,6 +15,7 @@ import org.apache.solr.common.SolrInputDocument;
 public class AggregationSolrCreator implements PropertySolrCreator<Aggregation> {
 
   private final List<? extends License> licenses;
+  private final WebResourceSolrCreator webResourceSolrCreator;
 
   /**
    * Constructor.
@@ -23,6 +24,7 @@ public class AggregationSolrCreator implements PropertySolrCreator<Aggregation>
    */
   public AggregationSolrCreator(List<? extends License> licenses) {
     this.licenses = new ArrayList<>(licenses);
+    this.webResourceSolrCreator = new WebResourceSolrCreator(this.licenses);
   }
 
   @Override
@@ -47,6 +49,6 @@ public class AggregationSolrCreator implements PropertySolrCreator<Aggregation>
     SolrPropertyUtils.addValue(doc, EdmLabel.PROVIDER_AGGREGATION_EDM_OBJECT, aggr.getEdmObject());
     SolrPropertyUtils.addValue(doc, EdmLabel.EDM_UGC, aggr.getEdmUgc());
     doc.addField(EdmLabel.PREVIEW_NO_DISTRIBUTE.toString(), aggr.getEdmPreviewNoDistribute());
-    new WebResourceSolrCreator(licenses).addAllToDocument(doc, aggr.getWebResources());
+    webResourceSolrCreator.addAllToDocument(doc, aggr.getWebResources());
   }
 }
@@ -4,7 +4,6 @@ import eu.europeana.corelib.definitions.edm.entity.EuropeanaAggregation;
 import eu.europeana.corelib.definitions.edm.entity.License;
 import eu.europeana.corelib.definitions.edm.entity.QualityAnnotation;
 import eu.europeana.indexing.solr.EdmLabel;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
@@ -20,7 +19,10 @@ import org.apache.solr.common.SolrInputDocument;
  */
 public class EuropeanaAggregationSolrCreator implements PropertySolrCreator<EuropeanaAggregation> {
 
-  private final List<? extends License> licenses;
+  private static final QualityAnnotationSolrCreator QUALITY_ANNOTATION_SOLR_CREATOR =
+      new QualityAnnotationSolrCreator();
+
+  private final WebResourceSolrCreator webResourceSolrCreator;
   private final Function<String, QualityAnnotation> qualityAnnotationGetter;
 
   /**
@@ -34,7 +36,7 @@ public class EuropeanaAggregationSolrCreator implements PropertySolrCreator<Euro
    */
   public EuropeanaAggregationSolrCreator(List<? extends License> licenses,
       Function<String, QualityAnnotation> qualityAnnotationGetter) {
-    this.licenses = new ArrayList<>(licenses);
+    this.webResourceSolrCreator = new WebResourceSolrCreator(licenses);
     this.qualityAnnotationGetter = qualityAnnotationGetter;
   }
 
@@ -46,12 +48,11 @@ public class EuropeanaAggregationSolrCreator implements PropertySolrCreator<Euro
         europeanaAggregation.getEdmLanguage());
     SolrPropertyUtils.addValue(doc, EdmLabel.EUROPEANA_AGGREGATION_EDM_PREVIEW,
         europeanaAggregation.getEdmPreview());
-    new WebResourceSolrCreator(licenses)
-        .addAllToDocument(doc, europeanaAggregation.getWebResources());
+    webResourceSolrCreator.addAllToDocument(doc, europeanaAggregation.getWebResources());
     final List<QualityAnnotation> annotationsToAdd = Optional
         .ofNullable(europeanaAggregation.getDqvHasQualityAnnotation()).map(Arrays::stream)
         .orElseGet(Stream::empty).filter(StringUtils::isNotBlank).distinct()
         .map(qualityAnnotationGetter).filter(Objects::nonNull).collect(Collectors.toList());
-    new QualityAnnotationSolrCreator().addAllToDocument(doc, annotationsToAdd);
+    QUALITY_ANNOTATION_SOLR_CREATOR.addAllToDocument(doc, annotationsToAdd);
   }
 }
@@ -1,14 +1,16 @@
 package eu.europeana.indexing.solr.property;
 
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
 import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.SolrInputField;
 import eu.europeana.indexing.solr.EdmLabel;
 
 /**
@@ -19,6 +21,22 @@ import eu.europeana.indexing.solr.EdmLabel;
  */
 public final class SolrPropertyUtils {
 
+  /**
+   * The maximum number of qualified labels (of the form [EDM label].[map key]) that are cached per
+   * EDM label. The map keys are usually language codes, but there is no guarantee for that.
+   */
+  private static final int MAX_CACHED_QUALIFIED_LABELS = 256;
+
+  private static final Map<EdmLabel, Map<String, String>> QUALIFIED_LABELS;
+
+  static {
+    final Map<EdmLabel, Map<String, String>> qualifiedLabels = new EnumMap<>(EdmLabel.class);
+    for (EdmLabel label : EdmLabel.values()) {
+      qualifiedLabels.put(label, new ConcurrentHashMap<>());
+    }
+    QUALIFIED_LABELS = Collections.unmodifiableMap(qualifiedLabels);
+  }
+
   private SolrPropertyUtils() {}
 
   private static void addValues(SolrInputDocument document, String label, Object[] values) {
@@ -28,15 +46,33 @@ public final class SolrPropertyUtils {
       return;
     }
 
-    // Get collection to add to
-    Collection<Object> existingValues = document.getFieldValues(label);
-    if (existingValues == null) {
-      existingValues = new ArrayList<>();
+    // Add to the existing field, or create a new one.
+    final SolrInputField existingField = document.getField(label);
+    if (existingField == null) {
+      final List<Object> newValues = new ArrayList<>(values.length);
+      Collections.addAll(newValues, values);
+      document.setField(label, newValues);
+    } else {
+      for (Object value : values) {
+        existingField.addValue(value);
+      }
     }
+  }
 
-    // Add and store.
-    existingValues.addAll(Arrays.asList(values));
-    document.setField(label, existingValues);
+  private static String getQualifiedLabel(EdmLabel label, String key) {
+    if (key == null) {
+      return label.toString() + "." + key;
+    }
+    final Map<String, String> qualifiedLabels = QUALIFIED_LABELS.get(label);
+    final String cachedLabel = qualifiedLabels.get(key);
+    if (cachedLabel != null) {
+      return cachedLabel;
+    }
+    final String qualifiedLabel = label.toString() + "." + key;
+    if (qualifiedLabels.size() < MAX_CACHED_QUALIFIED_LABELS) {
+      qualifiedLabels.putIfAbsent(key, qualifiedLabel);
+    }
+    return qualifiedLabel;
   }
 
   /**
@@ -91,8 +127,8 @@ public final class SolrPropertyUtils {
     }
     for (Entry<String, List<String>> entry : values.entrySet()) {
       if (entry.getValue() != null) {
-        addValues(document, label.toString() + "." + entry.getKey(),
-            entry.getValue().toArray(new String[0]));
+        addValues(document, getQualifiedLabel(label, entry.getKey()),
+            entry.getValue().toArray());
       }
     }
   }
@@ -0,0 +1,83 @@
+package eu.europeana.indexing.tiers;
+
+import eu.europeana.indexing.tiers.model.MediaTier;
+import eu.europeana.indexing.tiers.model.MetadataTier;
+import eu.europeana.indexing.tiers.model.TierClassifier;
+import eu.europeana.indexing.utils.RdfWrapper;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * This class performs the media and metadata tier classification of records. It holds on to one
+ * instance of each of the classifiers, so that an engine can be created once (e.g. per indexer)
+ * and be used for all records. The classifiers are stateless, so this class is thread-safe.
+ */
+public final class TierClassificationEngine {
+
+  private final TierClassifier<MediaTier> mediaClassifier;
+  private final TierClassifier<MetadataTier> metadataClassifier;
+
+  /**
+   * Constructor.
+   */
+  public TierClassificationEngine() {
+    this(ClassifierFactory.getMediaClassifier(), ClassifierFactory.getMetadataClassifier());
+  }
+
+  /**
+   * Constructor for testing purposes.
+   *
+   * @param mediaClassifier The classifier for the media tier.
+   * @param metadataClassifier The classifier for the metadata tier.
+   */
+  TierClassificationEngine(TierClassifier<MediaTier> mediaClassifier,
+      TierClassifier<MetadataTier> metadataClassifier) {
+    this.mediaClassifier = mediaClassifier;
+    this.metadataClassifier = metadataClassifier;
+  }
+
+  /**
+   * Classifies a record. Note that this method does not set the tiers in the record.
+   *
+   * @param record The record to classify. It is recommended to supply a snapshot (see {@link
+   * RdfWrapper#createSnapshot(eu.europeana.corelib.definitions.jibx.RDF)}) so that the classifiers
+   * can share the derived views of the record.
+   * @return The classification of the record. Is not null.
+   */
+  public Classification classify(RdfWrapper record) {
+    return new Classification(mediaClassifier.classify(record),
+        metadataClassifier.classify(record));
+  }
+
+  /**
+   * Classifies a list of records. Note that this method does not set the tiers in the records.
+   *
+   * @param records The records to classify.
+   * @return The classifications of the records, in the same order as the records.
+   */
+  public List<Classification> classify(List<RdfWrapper> records) {
+    return records.stream().map(this::classify).collect(Collectors.toList());
+  }
+
+  /**
+   * The result of the tier classification of a record.
+   */
+  public static final class Classification {
+
+    private final MediaTier mediaTier;
+    private final MetadataTier metadataTier;
+
+    Classification(MediaTier mediaTier, MetadataTier metadataTier) {
+      this.mediaTier = mediaTier;
+      this.metadataTier = metadataTier;
+    }
+
+    public MediaTier getMediaTier() {
+      return mediaTier;
+    }
+
+    public MetadataTier getMetadataTier() {
+      return metadataTier;
+    }
+  }
+}
@@ -13,6 +13,7 @@ import eu.europeana.corelib.definitions.jibx.ResourceOrLiteralType.Resource;
 import eu.europeana.corelib.definitions.jibx.ResourceType;
 import eu.europeana.corelib.definitions.jibx.TimeSpanType;
 import eu.europeana.corelib.definitions.jibx._Long;
+import eu.europeana.indexing.tiers.metadata.ResourceLinkFromProxy.LinkAndValueGetter;
 import eu.europeana.indexing.tiers.model.MetadataTier;
 import eu.europeana.indexing.tiers.model.TierClassifier;
 import eu.europeana.indexing.utils.RdfWrapper;
@@ -29,6 +30,10 @@ import org.apache.commons.lang.StringUtils;
  */
 public class ContextualClassClassifier implements TierClassifier<MetadataTier> {
 
+  private static final List<LinkAndValueGetter> LINK_GETTERS = Stream
+      .of(ResourceLinkFromProxy.values()).map(ResourceLinkFromProxy::getLinkAndValueGetter)
+      .collect(Collectors.toUnmodifiableList());
+
   @Override
   public MetadataTier classify(RdfWrapper entity) {
 
@@ -76,9 +81,8 @@ public class ContextualClassClassifier implements TierClassifier<MetadataTier> {
   }
 
   private static Set<String> getResourceLinks(ProxyType proxy) {
-    return Stream.of(ResourceLinkFromProxy.values())
-        .map(ResourceLinkFromProxy::getLinkAndValueGetter)
-        .flatMap(link -> link.getLinks(proxy)).collect(Collectors.toSet());
+    return LINK_GETTERS.stream().flatMap(link -> link.getLinks(proxy))
+        .collect(Collectors.toSet());
   }
 
   private static <T extends AboutType> boolean hasQualifiedEntities(List<T> entities,
@@ -18,6 +18,8 @@ import java.util.stream.Collectors;
  */
 public class EnablingElementsClassifier implements TierClassifier<MetadataTier> {
 
+  private static final List<EnablingElement> ENABLING_ELEMENTS = List
+      .of(EnablingElement.values());
 
   private static final int MIN_ELEMENTS_TIER_A = 1;
   private static final int MIN_ELEMENTS_TIER_B = 3;
@@ -57,11 +59,12 @@ public class EnablingElementsClassifier implements TierClassifier<MetadataTier>
         entity);
 
     // Go by all the enabling elements and match them.
+    final List<ProxyType> providerProxies = entity.getProviderProxies();
     final Set<EnablingElement> elements = EnumSet.noneOf(EnablingElement.class);
     final Set<EnablingElementGroup> groups = EnumSet.noneOf(EnablingElementGroup.class);
-    for (EnablingElement element : EnablingElement.values()) {
-      final Set<EnablingElementGroup> groupsToAdd = analyzeForElement(element,
-          entity.getProviderProxies(), contextualObjectMap);
+    for (EnablingElement element : ENABLING_ELEMENTS) {
+      final Set<EnablingElementGroup> groupsToAdd = analyzeForElement(element, providerProxies,
+          contextualObjectMap);
       if (!groupsToAdd.isEmpty()) {
         elements.add(element);
         groups.addAll(groupsToAdd);
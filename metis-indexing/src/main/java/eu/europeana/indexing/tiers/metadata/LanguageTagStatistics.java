@@ -7,17 +7,14 @@ import eu.europeana.corelib.definitions.jibx.LiteralType;
 import eu.europeana.corelib.definitions.jibx.PlaceType;
 import eu.europeana.corelib.definitions.jibx.ResourceOrLiteralType;
 import eu.europeana.corelib.definitions.jibx.TimeSpanType;
-import java.util.Collection;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Optional;
 import java.util.Set;
-import java.util.function.BiConsumer;
+import java.util.function.BiPredicate;
 import java.util.function.Function;
 import java.util.function.Predicate;
-import java.util.stream.Stream;
 import org.apache.commons.lang3.StringUtils;
 
 /**
@@ -30,6 +27,11 @@ import org.apache.commons.lang3.StringUtils;
  * </li></ol>
  * It is then able to return for how many of the known property types a language qualification is
  * present.
+ * <p>
+ * The statistics are kept as bitmaps of property types (indexed by the ordinal of {@link
+ * PropertyType}), so adding a property value costs constant time and computing the statistics for a
+ * record costs linear time in the number of property values.
+ * </p>
  */
 class LanguageTagStatistics {
 
@@ -58,10 +60,19 @@ class LanguageTagStatistics {
     EDM_IS_RELATED_TO
   }
 
+  private static final PropertyType[] PROPERTY_TYPES = PropertyType.values();
+  private static final ProxyChoiceKind[] PROXY_CHOICE_KINDS = ProxyChoiceKind.values();
+
+  static {
+    // Sanity check: the bitmaps need to be able to hold all property types.
+    if (PROPERTY_TYPES.length > Integer.SIZE) {
+      throw new IllegalStateException("Too many property types for the bitmaps.");
+    }
+  }
+
   private final Set<String> contextualClassesWithLanguage = new HashSet<>();
-  private final EnumSet<PropertyType> allAddedProperties = EnumSet.noneOf(PropertyType.class);
-  private final EnumSet<PropertyType> addedPropertiesWithLanguage = EnumSet
-      .noneOf(PropertyType.class);
+  private int allAddedProperties = 0;
+  private int addedPropertiesWithLanguage = 0;
 
   /**
    * Constructor.
@@ -75,12 +86,20 @@ class LanguageTagStatistics {
    */
   LanguageTagStatistics(List<PlaceType> places, List<TimeSpanType> timeSpans,
       List<Concept> concepts) {
-    getStream(places).filter(LanguageTagStatistics::hasValidLanguage).map(AboutType::getAbout)
-        .forEach(contextualClassesWithLanguage::add);
-    getStream(timeSpans).filter(LanguageTagStatistics::hasValidLanguage).map(AboutType::getAbout)
-        .forEach(contextualClassesWithLanguage::add);
-    getStream(concepts).filter(LanguageTagStatistics::hasValidLanguage).map(AboutType::getAbout)
-        .forEach(contextualClassesWithLanguage::add);
+    addContextualClasses(places, LanguageTagStatistics::hasValidLanguage);
+    addContextualClasses(timeSpans, LanguageTagStatistics::hasValidLanguage);
+    addContextualClasses(concepts, LanguageTagStatistics::hasValidLanguage);
+  }
+
+  private <T extends AboutType> void addContextualClasses(List<T> entities,
+      Predicate<T> hasValidLanguage) {
+    if (entities != null) {
+      for (T entity : entities) {
+        if (hasValidLanguage.test(entity)) {
+          contextualClassesWithLanguage.add(entity.getAbout());
+        }
+      }
+    }
   }
 
   Set<String> getContextualClassesWithLanguage() {
@@ -88,37 +107,73 @@ class LanguageTagStatistics {
   }
 
   Set<PropertyType> getAllAddedProperties() {
-    return Collections.unmodifiableSet(allAddedProperties);
+    return toPropertyTypes(allAddedProperties);
   }
 
   Set<PropertyType> getAddedPropertiesWithLanguage() {
-    return Collections.unmodifiableSet(addedPropertiesWithLanguage);
+    return toPropertyTypes(addedPropertiesWithLanguage);
   }
 
-  boolean containsContextualClass(String about) {
-    return contextualClassesWithLanguage.contains(about);
+  private static Set<PropertyType> toPropertyTypes(int bitmap) {
+    final EnumSet<PropertyType> result = EnumSet.noneOf(PropertyType.class);
+    for (int remaining = bitmap; remaining != 0; remaining &= remaining - 1) {
+      result.add(PROPERTY_TYPES[Integer.numberOfTrailingZeros(remaining)]);
+    }
+    return Collections.unmodifiableSet(result);
+  }
+
+  private static int toBit(PropertyType type) {
+    return 1 << type.ordinal();
   }
 
-  private static <T> Stream<T> getStream(List<T> list) {
-    return Optional.ofNullable(list).stream().flatMap(Collection::stream);
+  private boolean hasAddedWithLanguage(int bit) {
+    return (addedPropertiesWithLanguage & bit) != 0;
+  }
+
+  boolean containsContextualClass(String about) {
+    return contextualClassesWithLanguage.contains(about);
   }
 
   private static boolean hasValidLanguage(PlaceType place) {
-    return getStream(place.getPrefLabelList()).anyMatch(LanguageTagStatistics::hasValidLanguage);
+    return hasValidLanguage(place.getPrefLabelList());
   }
 
   private static boolean hasValidLanguage(TimeSpanType timespan) {
-    return getStream(timespan.getPrefLabelList()).anyMatch(LanguageTagStatistics::hasValidLanguage);
+    return hasValidLanguage(timespan.getPrefLabelList());
   }
 
   private static boolean hasValidLanguage(Concept concept) {
-    return getStream(concept.getChoiceList()).filter(Concept.Choice::ifPrefLabel)
-        .map(Concept.Choice::getPrefLabel).anyMatch(LanguageTagStatistics::hasValidLanguage);
+    if (concept.getChoiceList() != null) {
+      for (Concept.Choice choice : concept.getChoiceList()) {
+        if (choice.ifPrefLabel() && hasValidLanguage(choice.getPrefLabel())) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private static boolean hasValidLanguage(List<? extends LiteralType> literals) {
+    if (literals != null) {
+      for (LiteralType literal : literals) {
+        if (hasValidLanguage(literal)) {
+          return true;
+        }
+      }
+    }
+    return false;
   }
 
   private static boolean hasValidLanguage(LiteralType literal) {
-    return StringUtils.isNotBlank(literal.getString()) && literal.getLang() != null && StringUtils
-        .isNotBlank(literal.getLang().getLang());
+    return StringUtils.isNotBlank(literal.getString()) && hasLanguage(literal.getLang());
+  }
+
+  private static boolean hasLanguage(LiteralType.Lang lang) {
+    return lang != null && StringUtils.isNotBlank(lang.getLang());
+  }
+
+  private static boolean hasLanguage(ResourceOrLiteralType.Lang lang) {
+    return lang != null && StringUtils.isNotBlank(lang.getLang());
   }
 
   /**
@@ -136,11 +191,16 @@ class LanguageTagStatistics {
       // sanity check.
       return;
     }
+    final int bit = toBit(type);
+    if (hasAddedWithLanguage(bit)) {
+      // Nothing can change for this type anymore.
+      return;
+    }
     if (StringUtils.isNotBlank(property.getString())) {
       // If the literal has a value, check whether the language is not empty.
-      allAddedProperties.add(type);
-      if (property.getLang() != null && StringUtils.isNotBlank(property.getLang().getLang())) {
-        addedPropertiesWithLanguage.add(type);
+      allAddedProperties |= bit;
+      if (hasLanguage(property.getLang())) {
+        addedPropertiesWithLanguage |= bit;
       }
     }
   }
@@ -160,19 +220,24 @@ class LanguageTagStatistics {
       // sanity check.
       return;
     }
+    final int bit = toBit(type);
+    if (hasAddedWithLanguage(bit)) {
+      // Nothing can change for this type anymore.
+      return;
+    }
     if (StringUtils.isNotBlank(property.getString())) {
       // If the property has a value, check whether the language is not empty.
-      allAddedProperties.add(type);
-      if (property.getLang() != null && StringUtils.isNotBlank(property.getLang().getLang())) {
-        addedPropertiesWithLanguage.add(type);
+      allAddedProperties |= bit;
+      if (hasLanguage(property.getLang())) {
+        addedPropertiesWithLanguage |= bit;
       }
     }
     if (property.getResource() != null && StringUtils
         .isNotBlank(property.getResource().getResource())) {
       // If the property has a resource link, check whether the link is a contextual class.
-      allAddedProperties.add(type);
+      allAddedProperties |= bit;
       if (containsContextualClass(property.getResource().getResource())) {
-        addedPropertiesWithLanguage.add(type);
+        addedPropertiesWithLanguage |= bit;
       }
     }
   }
@@ -192,22 +257,26 @@ class LanguageTagStatistics {
       // sanity check.
       return;
     }
-    getStream(properties).forEach(property -> addToStatistics(property, type));
+    for (ResourceOrLiteralType property : properties) {
+      addToStatistics(property, type);
+    }
   }
 
   /**
    * Adds a property occurrence to the statistics.
    *
    * @param choice The choice list containing the property value (s). The type of the property is
-   * determined based on which element of the choice is set.
+   * determined based on which element of the choice is set (only one element can be set).
    */
   void addToStatistics(Choice choice) {
     if (choice == null) {
       // sanity check.
       return;
     }
-    for (ProxyChoiceKind kind : ProxyChoiceKind.values()) {
-      kind.valueProcessing.accept(choice, this);
+    for (ProxyChoiceKind kind : PROXY_CHOICE_KINDS) {
+      if (kind.valueProcessing.test(choice, this)) {
+        break;
+      }
     }
   }
 
@@ -239,7 +308,10 @@ class LanguageTagStatistics {
         PropertyType.DCTERMS_TABLE_OF_CONTENTS),
     DCTERMS_TEMPORAL(Choice::ifTemporal, Choice::getTemporal, PropertyType.DCTERMS_TEMPORAL);
 
-    protected final BiConsumer<Choice, LanguageTagStatistics> valueProcessing;
+    /**
+     * Processes the value if the choice has this kind. Returns whether this was the case.
+     */
+    protected final BiPredicate<Choice, LanguageTagStatistics> valueProcessing;
 
     ProxyChoiceKind(Predicate<Choice> choiceSelection,
         Function<Choice, ResourceOrLiteralType> valueExtraction, PropertyType type) {
@@ -252,7 +324,9 @@ class LanguageTagStatistics {
         if (choiceSelection.test(choice)) {
           inclusionInStatistics
               .includeInStatistics(statistics, valueExtraction.apply(choice), type);
+          return true;
         }
+        return false;
       };
     }
 
@@ -278,6 +352,7 @@ class LanguageTagStatistics {
    * @return The ratio.
    */
   double getPropertyWithLanguageRatio() {
+    // Note: this is computed once per record, so there is no need to avoid creating the sets.
     final Set<PropertyType> addedProperties = getAllAddedProperties();
     if (addedProperties.isEmpty()) {
       return 0;
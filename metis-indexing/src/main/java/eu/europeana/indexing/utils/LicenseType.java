@@ -2,6 +2,9 @@ package eu.europeana.indexing.utils;
 
 import eu.europeana.corelib.definitions.jibx.Rights1;
 import eu.europeana.corelib.web.model.rights.RightReusabilityCategorizer;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -22,6 +25,14 @@ public enum LicenseType {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(LicenseType.class);
 
+  /**
+   * The number of distinct rights statements is small in practice, so we remember the results. The
+   * cache is bounded in case we receive many distinct (invalid) statements.
+   */
+  private static final int MAX_CACHED_LICENSE_TYPES = 1000;
+  private static final Map<String, Optional<LicenseType>> LICENSE_TYPE_CACHE =
+      new ConcurrentHashMap<>();
+
   /**
    * Retrieves the license corresponding to the given url.
    *
@@ -35,9 +46,26 @@ public enum LicenseType {
       return null;
     }
 
+    // Check whether we know the answer already.
+    final String resource = rights.getResource();
+    final Optional<LicenseType> cachedResult = LICENSE_TYPE_CACHE.get(resource);
+    if (cachedResult != null) {
+      return cachedResult.orElse(null);
+    }
+
+    // Compute the license type and remember it if there is space.
+    final LicenseType result = computeLicenseType(resource);
+    if (LICENSE_TYPE_CACHE.size() < MAX_CACHED_LICENSE_TYPES) {
+      LICENSE_TYPE_CACHE.put(resource, Optional.ofNullable(result));
+    }
+    return result;
+  }
+
+  private static LicenseType computeLicenseType(String resource) {
+
     // Find the reuse policy.
     final RightReusabilityCategorizer categorizer = new RightReusabilityCategorizer();
-    categorizer.categorize(rights.getResource(), 1);
+    categorizer.categorize(resource, 1);
     final long open = categorizer.getNumberOfOpen();
     final long restricted = categorizer.getNumberOfRestricted();
 
@@ -0,0 +1,239 @@
+package eu.europeana.indexing.utils;
+
+import eu.europeana.corelib.definitions.jibx.AgentType;
+import eu.europeana.corelib.definitions.jibx.Aggregation;
+import eu.europeana.corelib.definitions.jibx.Concept;
+import eu.europeana.corelib.definitions.jibx.Description;
+import eu.europeana.corelib.definitions.jibx.EdmType;
+import eu.europeana.corelib.definitions.jibx.EuropeanaAggregationType;
+import eu.europeana.corelib.definitions.jibx.EuropeanaType.Choice;
+import eu.europeana.corelib.definitions.jibx.Identifier;
+import eu.europeana.corelib.definitions.jibx.IsShownBy;
+import eu.europeana.corelib.definitions.jibx.License;
+import eu.europeana.corelib.definitions.jibx.PlaceType;
+import eu.europeana.corelib.definitions.jibx.ProvidedCHOType;
+import eu.europeana.corelib.definitions.jibx.ProxyType;
+import eu.europeana.corelib.definitions.jibx.QualityAnnotation;
+import eu.europeana.corelib.definitions.jibx.RDF;
+import eu.europeana.corelib.definitions.jibx.Service;
+import eu.europeana.corelib.definitions.jibx.TimeSpanType;
+import eu.europeana.corelib.definitions.jibx.Title;
+import eu.europeana.corelib.definitions.jibx.WebResourceType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * A snapshot view of a record: an {@link RdfWrapper} that computes each of the derived views once
+ * and then returns the same immutable instance for every subsequent call. Instances of this class
+ * are created using {@link RdfWrapper#createSnapshot(RDF)}. This class is thread-safe provided that
+ * the underlying record is not modified.
+ */
+final class RdfSnapshotWrapper extends RdfWrapper {
+
+  private final Map<Object, Optional<?>> cache = new ConcurrentHashMap<>();
+
+  /**
+   * Constructor.
+   *
+   * @param record The record to wrap.
+   */
+  RdfSnapshotWrapper(RDF record) {
+    super(record);
+  }
+
+  /**
+   * Returns the cached value for the given key, computing it first if needed. Note that we don't
+   * use {@link ConcurrentHashMap#computeIfAbsent(Object, java.util.function.Function)} as the
+   * computation of one value may require other (cached) values: in the worst case a value is
+   * computed twice by different threads, in which case the first value to be stored wins.
+   */
+  @SuppressWarnings("unchecked")
+  private <T> T getCached(Object key, Supplier<T> computation) {
+    Optional<?> result = cache.get(key);
+    if (result == null) {
+      final Optional<?> computed = Optional.ofNullable(computation.get());
+      final Optional<?> existing = cache.putIfAbsent(key, computed);
+      result = existing == null ? computed : existing;
+    }
+    return (T) result.orElse(null);
+  }
+
+  private <T> List<T> getCachedList(Object key, Supplier<List<T>> computation) {
+    return getCached(key, () -> Collections.unmodifiableList(new ArrayList<>(computation.get())));
+  }
+
+  private <T> Set<T> getCachedSet(Object key, Supplier<Set<T>> computation) {
+    return getCached(key, () -> Collections.unmodifiableSet(computation.get()));
+  }
+
+  private static Object createKey(String name, Set<WebResourceLinkType> types) {
+    return Arrays.asList(name, Set.copyOf(types));
+  }
+
+  @Override
+  public String getAbout() {
+    return getCached("about", super::getAbout);
+  }
+
+  @Override
+  public String getDatasetName() {
+    return getCached("datasetName", super::getDatasetName);
+  }
+
+  @Override
+  public Optional<EuropeanaAggregationType> getEuropeanaAggregation() {
+    return getCached("europeanaAggregation", super::getEuropeanaAggregation);
+  }
+
+  @Override
+  public List<Identifier> getProviderProxyIdentifiers() {
+    return getCachedList("providerProxyIdentifiers", super::getProviderProxyIdentifiers);
+  }
+
+  @Override
+  public List<Title> getProviderProxyTitles() {
+    return getCachedList("providerProxyTitles", super::getProviderProxyTitles);
+  }
+
+  @Override
+  public List<Description> getProviderProxyDescriptions() {
+    return getCachedList("providerProxyDescriptions", super::getProviderProxyDescriptions);
+  }
+
+  @Override
+  public List<Choice> getProviderProxiesChoices() {
+    return getCachedList("providerProxiesChoices", super::getProviderProxiesChoices);
+  }
+
+  @Override
+  public List<IsShownBy> getIsShownByList() {
+    return getCachedList("isShownByList", super::getIsShownByList);
+  }
+
+  @Override
+  public List<ProvidedCHOType> getProvidedCHOs() {
+    return getCachedList("providedCHOs", super::getProvidedCHOs);
+  }
+
+  @Override
+  public List<ProxyType> getProxies() {
+    return getCachedList("proxies", super::getProxies);
+  }
+
+  @Override
+  public List<ProxyType> getProviderProxies() {
+    return getCachedList("providerProxies", super::getProviderProxies);
+  }
+
+  @Override
+  public List<Aggregation> getAggregations() {
+    return getCachedList("aggregations", super::getAggregations);
+  }
+
+  @Override
+  public LicenseType getLicenseType() {
+    return getCached("licenseType", super::getLicenseType);
+  }
+
+  @Override
+  public EdmType getEdmType() {
+    return getCached("edmType", super::getEdmType);
+  }
+
+  @Override
+  public boolean hasLandingPage() {
+    return getCached("hasLandingPage", super::hasLandingPage);
+  }
+
+  @Override
+  public List<WebResourceType> getWebResources() {
+    return getCachedList("webResources", super::getWebResources);
+  }
+
+  @Override
+  public Map<String, WebResourceType> getWebResourcesByAbout() {
+    return getCached("webResourcesByAbout",
+        () -> Collections.unmodifiableMap(new LinkedHashMap<>(super.getWebResourcesByAbout())));
+  }
+
+  @Override
+  public Set<String> getUrlsOfTypes(Set<WebResourceLinkType> types) {
+    return getCachedSet(createKey("urlsOfTypes", types), () -> super.getUrlsOfTypes(types));
+  }
+
+  @Override
+  public List<WebResourceWrapper> getWebResourceWrappers(Set<WebResourceLinkType> types) {
+    return getCachedList(createKey("webResourceWrappers", types),
+        () -> super.getWebResourceWrappers(types));
+  }
+
+  @Override
+  public List<WebResourceWrapper> getWebResourceWrappers() {
+    return getCachedList("allWebResourceWrappers", super::getWebResourceWrappers);
+  }
+
+  @Override
+  public List<WebResourceType> getWebResources(Set<WebResourceLinkType> types) {
+    return getCachedList(createKey("webResources", types), () -> super.getWebResources(types));
+  }
+
+  @Override
+  Map<WebResourceLinkType, Set<String>> getUrlsByType() {
+    return getCached("urlsByType", () -> {
+      final Map<WebResourceLinkType, Set<String>> result = new EnumMap<>(
+          WebResourceLinkType.class);
+      super.getUrlsByType().forEach((type, urls) -> result.put(type,
+          Collections.unmodifiableSet(urls)));
+      return Collections.unmodifiableMap(result);
+    });
+  }
+
+  @Override
+  public boolean hasThumbnails() {
+    return getCached("hasThumbnails", super::hasThumbnails);
+  }
+
+  @Override
+  public List<AgentType> getAgents() {
+    return getCachedList("agents", super::getAgents);
+  }
+
+  @Override
+  public List<Concept> getConcepts() {
+    return getCachedList("concepts", super::getConcepts);
+  }
+
+  @Override
+  public List<License> getLicenses() {
+    return getCachedList("licenses", super::getLicenses);
+  }
+
+  @Override
+  public List<PlaceType> getPlaces() {
+    return getCachedList("places", super::getPlaces);
+  }
+
+  @Override
+  public List<TimeSpanType> getTimeSpans() {
+    return getCachedList("timeSpans", super::getTimeSpans);
+  }
+
+  @Override
+  public List<Service> getServices() {
+    return getCachedList("services", super::getServices);
+  }
+
+  @Override
+  public List<QualityAnnotation> getQualityAnnotations() {
+    return getCachedList("qualityAnnotations", super::getQualityAnnotations);
+  }
+}
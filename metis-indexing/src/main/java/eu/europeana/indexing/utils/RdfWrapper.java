@@ -30,6 +30,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -60,6 +61,28 @@ public class RdfWrapper {
     this.record = record;
   }
 
+  /**
+   * Creates a snapshot view of the given record. The snapshot computes each of the derived views
+   * (lists, sets and maps) only once, upon first request, and returns the same immutable instance
+   * for every subsequent request. This makes it suitable for sharing between all consumers of a
+   * record (such as the tier classifiers, the converters and the Solr document populator).
+   * Note that this means that the record must not be modified for as long as the snapshot is in
+   * use: changes will not be reflected in views that were already computed.
+   *
+   * @param record The record to wrap.
+   * @return The snapshot view of the record.
+   */
+  public static RdfWrapper createSnapshot(RDF record) {
+    return new RdfSnapshotWrapper(record);
+  }
+
+  /**
+   * @return The wrapped record.
+   */
+  RDF getRecord() {
+    return record;
+  }
+
   /**
    * This method extracts the rdf:about from the RDF object.
    *
@@ -207,6 +230,19 @@ public class RdfWrapper {
     return getFilteredPropertyList(record.getWebResourceList());
   }
 
+  /**
+   * This method extracts all web resources from the RDF object and indexes them by their about
+   * value. This will filter the objects: it only considers those with a non-blank about value. If
+   * multiple web resources have the same about value, only the first one is included.
+   *
+   * @return The web resources by about value, in the order in which they occur in the record. Is
+   * not null, but could be empty.
+   */
+  public Map<String, WebResourceType> getWebResourcesByAbout() {
+    return getWebResources().stream().collect(Collectors.toMap(WebResourceType::getAbout,
+        Function.identity(), (first, second) -> first, LinkedHashMap::new));
+  }
+
   /**
    * This method retrieves all URLs (as {@link String} objects) that the entity contains of the
    * provided link types. This method does not check whether there is a full web resource object for
@@ -217,7 +253,8 @@ public class RdfWrapper {
    * @return The URLs. They are not blank or null. The list is not null, but could be empty.
    */
   public Set<String> getUrlsOfTypes(Set<WebResourceLinkType> types) {
-    return types.stream().map(this::getUrlsOfType).flatMap(Set::stream).collect(Collectors.toSet());
+    final Map<WebResourceLinkType, Set<String>> urlsByType = getUrlsByType();
+    return types.stream().map(urlsByType::get).flatMap(Set::stream).collect(Collectors.toSet());
   }
 
   /**
@@ -231,7 +268,7 @@ public class RdfWrapper {
   public List<WebResourceWrapper> getWebResourceWrappers(Set<WebResourceLinkType> types) {
     final Map<String, Set<WebResourceLinkType>> webResourceUrlsWithTypes = getAllLinksForTypes(
         types);
-    return getFilteredPropertyStream(record.getWebResourceList())
+    return getWebResources().stream()
         .filter(webResource -> webResourceUrlsWithTypes.containsKey(webResource.getAbout()))
         .map(webResource -> new WebResourceWrapper(webResource,
             webResourceUrlsWithTypes.get(webResource.getAbout()))).collect(Collectors.toList());
@@ -248,7 +285,7 @@ public class RdfWrapper {
   public List<WebResourceWrapper> getWebResourceWrappers() {
     final Map<String, Set<WebResourceLinkType>> webResourceUrlsWithTypes =
         getAllLinksForTypes(Stream.of(WebResourceLinkType.values()).collect(Collectors.toSet()));
-    return getFilteredPropertyStream(record.getWebResourceList()).map(
+    return getWebResources().stream().map(
         webResource -> new WebResourceWrapper(webResource,
             webResourceUrlsWithTypes.get(webResource.getAbout()))).collect(Collectors.toList());
   }
@@ -264,7 +301,7 @@ public class RdfWrapper {
   public List<WebResourceType> getWebResources(Set<WebResourceLinkType> types) {
     final Map<String, Set<WebResourceLinkType>> webResourceUrlsWithTypes = getAllLinksForTypes(
         types);
-    return getFilteredPropertyStream(record.getWebResourceList())
+    return getWebResources().stream()
         .filter(webResource -> webResourceUrlsWithTypes.containsKey(webResource.getAbout()))
         .collect(Collectors.toList());
   }
@@ -282,6 +319,16 @@ public class RdfWrapper {
         .filter(org.apache.commons.lang.StringUtils::isNotBlank).collect(Collectors.toSet());
   }
 
+  /**
+   * This method retrieves, for each link type, all URLs that this entity contains of that type.
+   *
+   * @return The URLs by link type. Contains all link types. The URLs are not blank or null.
+   */
+  Map<WebResourceLinkType, Set<String>> getUrlsByType() {
+    return Stream.of(WebResourceLinkType.values())
+        .collect(Collectors.toMap(Function.identity(), this::getUrlsOfType));
+  }
+
   /**
    * This method creates a map of all web resource URLs in this entity with the given link types.
    *
@@ -294,8 +341,7 @@ public class RdfWrapper {
       Set<WebResourceLinkType> types) {
 
     // All types with the urls that have that type. This is the complete overview.
-    final Map<WebResourceLinkType, Set<String>> urlsByType = Stream.of(WebResourceLinkType.values())
-        .collect(Collectors.toMap(Function.identity(), this::getUrlsOfType));
+    final Map<WebResourceLinkType, Set<String>> urlsByType = getUrlsByType();
 
     // The result map with empty type lists. Only contains the urls with one of the required types.
     final Map<String, Set<WebResourceLinkType>> result = types.stream().map(urlsByType::get)
@@ -325,7 +371,7 @@ public class RdfWrapper {
   public boolean hasThumbnails() {
     final String previewUri = getEuropeanaAggregation().map(EuropeanaAggregationType::getPreview)
         .map(ResourceType::getResource).filter(StringUtils::isNotBlank).orElse(null);
-    return previewUri != null && getFilteredPropertyStream(record.getWebResourceList())
+    return previewUri != null && getWebResources().stream()
         .filter(resource -> previewUri.equals(resource.getAbout()))
         .map(WebResourceWrapper::getMimeType).anyMatch(StringUtils::isNotBlank);
   }
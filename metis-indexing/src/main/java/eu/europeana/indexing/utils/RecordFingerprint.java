@@ -0,0 +1,185 @@
+package eu.europeana.indexing.utils;
+
+import eu.europeana.corelib.definitions.jibx.QualityAnnotation;
+import eu.europeana.corelib.definitions.jibx.RDF;
+import eu.europeana.indexing.exception.IndexerRelatedIndexingException;
+import eu.europeana.indexing.exception.IndexingException;
+import eu.europeana.indexing.exception.RecordRelatedIndexingException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import org.jibx.runtime.BindingDirectory;
+import org.jibx.runtime.IBindingFactory;
+import org.jibx.runtime.IMarshallingContext;
+import org.jibx.runtime.JiBXException;
+
+/**
+ * <p>
+ * This class computes content fingerprints of records. The fingerprint is a hash of the serialized
+ * record: two records with the same fingerprint have the same content and therefore result in the
+ * same full bean and Solr document (except for the timestamps, which are not part of the RDF
+ * unless they are preserved from the RDF). The creation dates of the quality annotations (i.e. of
+ * the tiers) are not part of the fingerprint either, as they are set to the current time whenever
+ * the tiers are computed: the record is serialized through a shallow copy in which the quality
+ * annotations are replaced by copies without a creation date (the record itself is not modified).
+ * </p>
+ * <p>
+ * The fingerprint also includes a version number ({@link #FINGERPRINT_VERSION}). This version
+ * should be incremented whenever the conversion of records to full beans or Solr documents
+ * changes, so that records that were indexed using a previous version are not considered to be
+ * unchanged.
+ * </p>
+ * <p>
+ * JiBX marshalling contexts are not thread-safe, but they can be reused after they are reset.
+ * This class therefore keeps one context per thread, which is reset after every record. The
+ * serialized record is not kept in memory: it is written directly into the digest.
+ * </p>
+ */
+public final class RecordFingerprint {
+
+  /**
+   * The version of the conversion of records (see class documentation).
+   */
+  static final String FINGERPRINT_VERSION = "1";
+
+  private static final String DIGEST_ALGORITHM = "SHA-256";
+  private static final String ENCODING = StandardCharsets.UTF_8.name();
+
+  private static final List<Field> RDF_FIELDS = getInstanceFields(RDF.class);
+  private static final List<Field> QUALITY_ANNOTATION_FIELDS =
+      getInstanceFields(QualityAnnotation.class);
+
+  private static volatile IBindingFactory globalRdfBindingFactory;
+
+  private static final ThreadLocal<IMarshallingContext> THREAD_CONFINED_CONTEXT =
+      new ThreadLocal<>();
+
+  private RecordFingerprint() {
+  }
+
+  /**
+   * Computes the fingerprint of the given record.
+   *
+   * @param record The record. Is not null.
+   * @return The fingerprint. Is not null.
+   * @throws IndexingException In case the record could not be serialized.
+   */
+  public static String compute(RdfWrapper record) throws IndexingException {
+    final RDF recordToSerialize = createCopyWithoutCreationDates(record.getRecord());
+    final MessageDigest digest = createDigest();
+    digest.update((FINGERPRINT_VERSION + ':').getBytes(StandardCharsets.UTF_8));
+    final IMarshallingContext context = getMarshallingContext();
+    try (OutputStream outputStream = new DigestOutputStream(OutputStream.nullOutputStream(),
+        digest)) {
+      context.marshalDocument(recordToSerialize, ENCODING, null, outputStream);
+    } catch (JiBXException | IOException e) {
+      throw new RecordRelatedIndexingException("Could not serialize record.", e);
+    } finally {
+      context.reset();
+    }
+    return Base64.getEncoder().encodeToString(digest.digest());
+  }
+
+  /**
+   * Creates a shallow copy of the record in which the quality annotations are replaced by copies
+   * without a creation date. The copies are made field by field, so that they are complete
+   * regardless of the properties that the model classes define.
+   */
+  private static RDF createCopyWithoutCreationDates(RDF record)
+      throws IndexerRelatedIndexingException {
+    final List<QualityAnnotation> annotations = record.getQualityAnnotationList();
+    if (annotations == null || annotations.isEmpty()) {
+      return record;
+    }
+    final List<QualityAnnotation> annotationCopies = new ArrayList<>(annotations.size());
+    for (QualityAnnotation annotation : annotations) {
+      final QualityAnnotation annotationCopy = annotation == null ? null
+          : copyFields(annotation, new QualityAnnotation(), QUALITY_ANNOTATION_FIELDS);
+      if (annotationCopy != null) {
+        annotationCopy.setCreated(null);
+      }
+      annotationCopies.add(annotationCopy);
+    }
+    final RDF copy = copyFields(record, new RDF(), RDF_FIELDS);
+    copy.setQualityAnnotationList(annotationCopies);
+    return copy;
+  }
+
+  private static <T> T copyFields(T source, T target, List<Field> fields)
+      throws IndexerRelatedIndexingException {
+    try {
+      for (Field field : fields) {
+        field.set(target, field.get(source));
+      }
+    } catch (IllegalAccessException e) {
+      throw new IndexerRelatedIndexingException("Could not copy record for fingerprint.", e);
+    }
+    return target;
+  }
+
+  private static List<Field> getInstanceFields(Class<?> type) {
+    final List<Field> result = new ArrayList<>();
+    for (Class<?> current = type; current != Object.class; current = current.getSuperclass()) {
+      for (Field field : current.getDeclaredFields()) {
+        if (!Modifier.isStatic(field.getModifiers())) {
+          field.setAccessible(true);
+          result.add(field);
+        }
+      }
+    }
+    return Collections.unmodifiableList(result);
+  }
+
+  private static IMarshallingContext getMarshallingContext()
+      throws IndexerRelatedIndexingException {
+    final IMarshallingContext existingContext = THREAD_CONFINED_CONTEXT.get();
+    if (existingContext != null) {
+      return existingContext;
+    }
+    final IMarshallingContext context;
+    try {
+      context = getRdfBindingFactory().createMarshallingContext();
+    } catch (JiBXException e) {
+      throw new IndexerRelatedIndexingException("Error creating the JibX marshalling context.", e);
+    }
+    THREAD_CONFINED_CONTEXT.set(context);
+    return context;
+  }
+
+  private static IBindingFactory getRdfBindingFactory() throws IndexerRelatedIndexingException {
+    // Only synchronize when the factory has not been created yet.
+    IBindingFactory result = globalRdfBindingFactory;
+    if (result == null) {
+      synchronized (RecordFingerprint.class) {
+        result = globalRdfBindingFactory;
+        if (result == null) {
+          try {
+            result = BindingDirectory.getFactory(RDF.class);
+          } catch (JiBXException e) {
+            throw new IndexerRelatedIndexingException("Error creating the JibX factory.", e);
+          }
+          globalRdfBindingFactory = result;
+        }
+      }
+    }
+    return result;
+  }
+
+  private static MessageDigest createDigest() {
+    try {
+      return MessageDigest.getInstance(DIGEST_ALGORITHM);
+    } catch (NoSuchAlgorithmException e) {
+      // Should not happen: every Java platform is required to support this algorithm.
+      throw new IllegalStateException(e);
+    }
+  }
+}
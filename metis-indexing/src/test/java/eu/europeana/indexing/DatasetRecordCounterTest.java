@@ -0,0 +1,81 @@
+package eu.europeana.indexing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DB;
+import com.mongodb.DBCollection;
+import com.mongodb.DBObject;
+import dev.morphia.Datastore;
+import dev.morphia.query.FieldEnd;
+import dev.morphia.query.Query;
+import eu.europeana.corelib.solr.bean.impl.FullBeanImpl;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class DatasetRecordCounterTest {
+
+  private static final String DATASET_ID = "123";
+
+  private DBCollection counterCollection;
+  private Query<FullBeanImpl> recordQuery;
+  private DatasetRecordCounter counter;
+
+  @BeforeEach
+  @SuppressWarnings("unchecked")
+  void setUp() {
+    final Datastore datastore = mock(Datastore.class);
+    final DB database = mock(DB.class);
+    counterCollection = mock(DBCollection.class);
+    doReturn(database).when(datastore).getDB();
+    doReturn(counterCollection).when(database)
+        .getCollection(DatasetRecordCounter.COUNTER_COLLECTION_NAME);
+    recordQuery = mock(Query.class);
+    final FieldEnd<Query<FullBeanImpl>> fieldEnd = mock(FieldEnd.class);
+    doReturn(recordQuery).when(datastore).createQuery(FullBeanImpl.class);
+    doReturn(fieldEnd).when(recordQuery).field("about");
+    doReturn(recordQuery).when(fieldEnd).startsWith("/" + DATASET_ID + "/");
+    counter = new DatasetRecordCounter(datastore);
+  }
+
+  @Test
+  void testGetDatasetId() {
+    assertEquals(Optional.of(DATASET_ID), DatasetRecordCounter.getDatasetId("/123/abc"));
+    assertFalse(DatasetRecordCounter.getDatasetId("123/abc").isPresent());
+    assertFalse(DatasetRecordCounter.getDatasetId(null).isPresent());
+  }
+
+  @Test
+  void testCountWithExistingCounter() {
+    doReturn(new BasicDBObject("_id", DATASET_ID).append("count", 42L)).when(counterCollection)
+        .findOne(new BasicDBObject("_id", DATASET_ID));
+    assertEquals(42L, counter.count(DATASET_ID));
+    verify(recordQuery, never()).count();
+  }
+
+  @Test
+  void testCountWithoutCounter() {
+    doReturn(7L).when(recordQuery).count();
+    assertEquals(7L, counter.count(DATASET_ID));
+    verify(counterCollection).update(eq(new BasicDBObject("_id", DATASET_ID)),
+        any(DBObject.class), eq(true), eq(false));
+  }
+
+  @Test
+  void testIncrement() {
+    counter.increment(DATASET_ID, -3);
+    verify(counterCollection).update(new BasicDBObject("_id", DATASET_ID),
+        new BasicDBObject("$inc", new BasicDBObject("count", -3L)));
+    counter.increment(DATASET_ID, 0);
+    verify(counterCollection, never()).update(new BasicDBObject("_id", DATASET_ID),
+        new BasicDBObject("$inc", new BasicDBObject("count", 0L)));
+  }
+}
@@ -0,0 +1,168 @@
+package eu.europeana.indexing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import com.mongodb.BasicDBList;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBCollection;
+import com.mongodb.DBCursor;
+import com.mongodb.DBObject;
+import com.mongodb.DBRef;
+import com.mongodb.WriteResult;
+import dev.morphia.Datastore;
+import eu.europeana.corelib.solr.bean.impl.FullBeanImpl;
+import eu.europeana.corelib.solr.entity.AggregationImpl;
+import eu.europeana.corelib.solr.entity.EuropeanaAggregationImpl;
+import eu.europeana.corelib.solr.entity.ProvidedCHOImpl;
+import eu.europeana.corelib.solr.entity.ProxyImpl;
+import eu.europeana.indexing.exception.IndexerRelatedIndexingException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class DatasetRemoverTest {
+
+  private static final List<Class<?>> COLLECTION_CLASSES = Arrays.asList(FullBeanImpl.class,
+      AggregationImpl.class, EuropeanaAggregationImpl.class, ProvidedCHOImpl.class,
+      ProxyImpl.class);
+
+  private Datastore datastore;
+  private SolrClient solrClient;
+  private DBCursor cursor;
+  private Map<Class<?>, List<List<?>>> removedIds;
+
+  @BeforeEach
+  void setUp() {
+    datastore = mock(Datastore.class);
+    solrClient = mock(SolrClient.class);
+    removedIds = new HashMap<>();
+    for (Class<?> collectionClass : COLLECTION_CLASSES) {
+      final DBCollection collection = mock(DBCollection.class);
+      doReturn(collection).when(datastore).getCollection(collectionClass);
+      removedIds.put(collectionClass, new ArrayList<>());
+      doAnswer(invocation -> {
+        final DBObject query = invocation.getArgument(0);
+        final List<?> ids = (List<?>) ((DBObject) query.get("_id")).get("$in");
+        removedIds.get(collectionClass).add(ids);
+        final WriteResult result = mock(WriteResult.class);
+        doReturn(ids.size()).when(result).getN();
+        return result;
+      }).when(collection).remove(any(DBObject.class));
+    }
+    cursor = mock(DBCursor.class);
+    doReturn(cursor).when(datastore.getCollection(FullBeanImpl.class))
+        .find(any(DBObject.class), any(DBObject.class));
+    doReturn(cursor).when(cursor).sort(any(DBObject.class));
+    doReturn(cursor).when(cursor).limit(anyInt());
+  }
+
+  private static DBObject createRecord(String about, ObjectId... proxyIds) {
+    final BasicDBList proxies = new BasicDBList();
+    Arrays.stream(proxyIds).map(id -> new DBRef("Proxy", id)).forEach(proxies::add);
+    return new BasicDBObject("_id", new ObjectId()).append("about", about)
+        .append("europeanaAggregation", new DBRef("EuropeanaAggregation", new ObjectId()))
+        .append("proxies", proxies);
+  }
+
+  @Test
+  void testRemoveDatasetInChunks() throws IndexerRelatedIndexingException, IOException,
+      SolrServerException {
+
+    // Create a dataset of three records that is removed in chunks of two.
+    final ObjectId proxy1 = new ObjectId();
+    final ObjectId proxy2 = new ObjectId();
+    final ObjectId proxy3 = new ObjectId();
+    final DBObject record1 = createRecord("/1/a", proxy1, proxy2);
+    final DBObject record2 = createRecord("/1/b", proxy3);
+    final DBObject record3 = createRecord("/1/c");
+    doReturn(Arrays.asList(record1, record2), Collections.singletonList(record3),
+        Collections.emptyList()).when(cursor).toArray();
+
+    // Remove the dataset
+    final DatasetRemovalProgress progress = new DatasetRemovalProgress();
+    assertEquals(3, new DatasetRemover(datastore, solrClient, 2).removeDataset("1", null,
+        progress));
+
+    // Check the removals from Mongo: one delete per collection per chunk.
+    assertEquals(Arrays.asList(Arrays.asList(record1.get("_id"), record2.get("_id")),
+        Collections.singletonList(record3.get("_id"))), removedIds.get(FullBeanImpl.class));
+    assertEquals(Collections.singletonList(Arrays.asList(proxy1, proxy2, proxy3)),
+        removedIds.get(ProxyImpl.class));
+    assertEquals(2, removedIds.get(EuropeanaAggregationImpl.class).size());
+    assertEquals(Collections.emptyList(), removedIds.get(AggregationImpl.class));
+
+    // Check the removals from Solr: one per chunk and a final one for the whole dataset.
+    verify(solrClient).deleteByQuery("europeana_id:(\\/1\\/a OR \\/1\\/b)");
+    verify(solrClient).deleteByQuery("europeana_id:(\\/1\\/c)");
+    verify(solrClient).deleteByQuery("europeana_id:\\/1\\/*");
+
+    // Check the progress.
+    assertEquals(3, progress.getRecordsRemovedFromMongo());
+    assertEquals(3, progress.getRecordsRemovedFromSolr());
+    assertEquals(6, progress.getDependentEntitiesRemovedFromMongo());
+    assertEquals(2, progress.getChunksCompleted());
+    assertEquals("/1/c", progress.getLastRemovedRecordId());
+  }
+
+  @Test
+  void testRemoveDatasetWithSolrFailure() throws IOException, SolrServerException {
+
+    // Let the removal from Solr fail.
+    doReturn(Collections.singletonList(createRecord("/1/a")), Collections.emptyList())
+        .when(cursor).toArray();
+    doThrow(new SolrServerException("Solr is down.")).when(solrClient)
+        .deleteByQuery(anyString());
+
+    // The failure should be reported and the chunk should not be registered as completed.
+    final DatasetRemovalProgress progress = new DatasetRemovalProgress();
+    final DatasetRemover remover = new DatasetRemover(datastore, solrClient);
+    assertThrows(IndexerRelatedIndexingException.class,
+        () -> remover.removeDataset("1", null, progress));
+    assertEquals(0, progress.getChunksCompleted());
+    assertNull(progress.getLastRemovedRecordId());
+  }
+
+  @Test
+  void testRemoveRecord() throws IndexerRelatedIndexingException, IOException,
+      SolrServerException {
+
+    // Remove an existing record
+    final ObjectId proxy = new ObjectId();
+    final DBObject record = createRecord("/1/a", proxy);
+    doReturn(record).when(datastore.getCollection(FullBeanImpl.class))
+        .findOne(any(DBObject.class), any(DBObject.class));
+    final DatasetRemover remover = new DatasetRemover(datastore, solrClient);
+    assertTrue(remover.removeRecord("/1/a"));
+    verify(solrClient).deleteByQuery("europeana_id:(\\/1\\/a)");
+    assertEquals(Collections.singletonList(Collections.singletonList(proxy)),
+        removedIds.get(ProxyImpl.class));
+
+    // Remove a non-existing record
+    doReturn(null).when(datastore.getCollection(FullBeanImpl.class))
+        .findOne(any(DBObject.class), any(DBObject.class));
+    assertFalse(remover.removeRecord("/1/b"));
+    verify(datastore.getCollection(ProvidedCHOImpl.class), never()).remove(any(DBObject.class));
+  }
+}
@@ -0,0 +1,37 @@
+package eu.europeana.indexing;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrRequest;
+import org.apache.solr.client.solrj.impl.BinaryRequestWriter;
+import org.apache.solr.client.solrj.request.UpdateRequest;
+import org.apache.solr.common.SolrDocumentList;
+import org.apache.solr.common.util.NamedList;
+
+/**
+ * An in-process stand-in for a Solr server, for use in benchmarks. Update requests are serialized
+ * (as they would be when sent to a real server) and then discarded. Queries always return an empty
+ * result.
+ */
+final class InMemorySolrClient extends SolrClient {
+
+  private static final long serialVersionUID = -3925810327624127581L;
+
+  private final transient BinaryRequestWriter requestWriter = new BinaryRequestWriter();
+
+  @Override
+  public NamedList<Object> request(SolrRequest request, String collection) throws IOException {
+    if (request instanceof UpdateRequest) {
+      requestWriter.write(request, OutputStream.nullOutputStream());
+    }
+    final NamedList<Object> response = new NamedList<>();
+    response.add("response", new SolrDocumentList());
+    return response;
+  }
+
+  @Override
+  public void close() {
+    // Nothing to do.
+  }
+}
@@ -0,0 +1,127 @@
+package eu.europeana.indexing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+import eu.europeana.indexing.exception.IndexerRelatedIndexingException;
+import eu.europeana.indexing.exception.IndexingException;
+import eu.europeana.indexing.exception.RecordRelatedIndexingException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.pool2.BasePooledObjectFactory;
+import org.apache.commons.pool2.PooledObject;
+import org.apache.commons.pool2.impl.DefaultPooledObject;
+import org.junit.jupiter.api.Test;
+
+class IndexerPoolTest {
+
+  private static class MockIndexerFactory extends BasePooledObjectFactory<Indexer> {
+
+    private final List<Indexer> indexers = new ArrayList<>();
+
+    @Override
+    public synchronized Indexer create() {
+      final Indexer indexer = mock(Indexer.class);
+      indexers.add(indexer);
+      return indexer;
+    }
+
+    @Override
+    public PooledObject<Indexer> wrap(Indexer indexer) {
+      return new DefaultPooledObject<>(indexer);
+    }
+
+    synchronized List<Indexer> getIndexers() {
+      return new ArrayList<>(indexers);
+    }
+  }
+
+  @Test
+  void testIndexerIsReturnedAfterRecordFailure() throws IndexingException {
+    final MockIndexerFactory factory = new MockIndexerFactory();
+    try (final IndexerPool pool = new IndexerPool(factory, 60, 60, 1, Duration.ofSeconds(1))) {
+
+      // Index a record that fails.
+      pool.index("record1", null, false, null, false);
+      doThrow(new RecordRelatedIndexingException("Invalid record.")).when(
+          factory.getIndexers().get(0)).index(anyString(), any(), anyBoolean(), any(),
+          anyBoolean());
+      assertThrows(RecordRelatedIndexingException.class,
+          () -> pool.index("record2", null, false, null, false));
+
+      // The indexer should be back in the pool.
+      final IndexerPoolStatistics statistics = pool.getStatistics();
+      assertEquals(0, statistics.getActiveIndexers());
+      assertEquals(1, statistics.getIdleIndexers());
+      assertEquals(1, statistics.getCreatedIndexers());
+      assertEquals(2, statistics.getBorrowedIndexers());
+    }
+  }
+
+  @Test
+  void testIndexerIsInvalidatedAfterIndexerFailure() throws IndexingException {
+    final MockIndexerFactory factory = new MockIndexerFactory();
+    try (final IndexerPool pool = new IndexerPool(factory, 60, 60, 1, Duration.ofSeconds(1))) {
+      pool.index("record1", null, false, null, false);
+      doThrow(new IndexerRelatedIndexingException("Connection lost.")).when(
+          factory.getIndexers().get(0)).index(anyString(), any(), anyBoolean(), any(),
+          anyBoolean());
+      assertThrows(IndexerRelatedIndexingException.class,
+          () -> pool.index("record2", null, false, null, false));
+      final IndexerPoolStatistics statistics = pool.getStatistics();
+      assertEquals(0, statistics.getIdleIndexers());
+      assertEquals(1, statistics.getDestroyedIndexers());
+    }
+  }
+
+  @Test
+  void testBoundedPoolTimesOut() throws Exception {
+    final MockIndexerFactory factory = new MockIndexerFactory();
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    try (final IndexerPool pool = new IndexerPool(factory, 60, 60, 1,
+        Duration.ofMillis(100))) {
+
+      // Let the only indexer block until we release it.
+      pool.index("record1", null, false, null, false);
+      final CountDownLatch started = new CountDownLatch(1);
+      final CountDownLatch release = new CountDownLatch(1);
+      doAnswer(invocation -> {
+        started.countDown();
+        release.await();
+        return null;
+      }).when(factory.getIndexers().get(0)).index(anyString(), any(), anyBoolean(), any(),
+          anyBoolean());
+      final Future<?> blockingTask = executor.submit(() -> {
+        pool.index("record2", null, false, null, false);
+        return null;
+      });
+      assertTrue(started.await(10, TimeUnit.SECONDS));
+
+      // A second caller should not get a new indexer, but time out.
+      assertThrows(IndexerRelatedIndexingException.class,
+          () -> pool.index("record3", null, false, null, false));
+      assertEquals(1, pool.getStatistics().getActiveIndexers());
+      assertEquals(1, factory.getIndexers().size());
+
+      // Release the indexer.
+      release.countDown();
+      blockingTask.get(10, TimeUnit.SECONDS);
+      assertEquals(0, pool.getStatistics().getActiveIndexers());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,297 @@
+package eu.europeana.indexing;
+
+import com.mongodb.MongoClient;
+import com.mongodb.ServerAddress;
+import eu.europeana.corelib.mongo.server.EdmMongoServer;
+import eu.europeana.corelib.mongo.server.impl.EdmMongoServerImpl;
+import eu.europeana.corelib.solr.bean.impl.FullBeanImpl;
+import eu.europeana.indexing.SyntheticRecordGenerator.RecordComplexity;
+import eu.europeana.indexing.exception.IndexerRelatedIndexingException;
+import eu.europeana.indexing.exception.IndexingException;
+import eu.europeana.indexing.fullbean.RdfToFullBeanConverter;
+import eu.europeana.indexing.fullbean.StringToFullBeanConverter;
+import eu.europeana.indexing.mongo.FullBeanUpdater;
+import eu.europeana.indexing.solr.SolrDocumentPopulator;
+import eu.europeana.indexing.tiers.TierClassificationEngine;
+import eu.europeana.indexing.utils.RdfWrapper;
+import eu.europeana.metis.mongo.EmbeddedLocalhostMongo;
+import eu.europeana.metis.mongo.RecordRedirectDao;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.apache.solr.client.solrj.SolrRequest.METHOD;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.params.MapSolrParams;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * <p>
+ * JMH benchmarks for the indexing of records. The records are synthetic EDM records (see {@link
+ * SyntheticRecordGenerator}) of varying complexity. Mongo is an embedded Mongo server and Solr is
+ * an in-process stand-in (see {@link InMemorySolrClient}) that serializes update requests but does
+ * not index them.
+ * </p>
+ * <p>
+ * The stage benchmarks report the average time per record for each of the stages of indexing:
+ * parsing, tier classification, conversion to a full bean, redirect handling, writing to Mongo,
+ * creating the Solr document and adding it to Solr. The end-to-end benchmarks report the number of
+ * records indexed per second, both for new or changed records and for unchanged records.
+ * </p>
+ * <p>
+ * These benchmarks are not run as part of the build. Run them using the main method of this class
+ * (after <code>mvn test-compile</code>), or using the JMH runner
+ * <code>org.openjdk.jmh.Main IndexingBenchmark</code> on the test class path.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class IndexingBenchmark {
+
+  private static final int CORPUS_SIZE = 100;
+  private static final String DATASET_ID = "benchmark";
+  private static final String REDIRECT_DATASET_ID = "benchmark_previous";
+  private static final String DATABASE_NAME = "metis-indexing-benchmark";
+  private static final String REDIRECT_DATABASE_NAME = "metis-indexing-benchmark-redirects";
+
+  @Param({"MINIMAL", "TYPICAL", "RICH"})
+  public RecordComplexity complexity;
+
+  private EmbeddedLocalhostMongo embeddedMongo;
+  private MongoClient mongoClient;
+  private EdmMongoServer edmMongoServer;
+  private RecordRedirectDao recordRedirectDao;
+  private InMemorySolrClient solrClient;
+  private Indexer indexer;
+
+  private SyntheticRecordGenerator generator;
+  private List<String> records;
+  private List<RdfWrapper> rdfs;
+  private List<FullBeanImpl> fullBeans;
+  private List<SolrInputDocument> solrDocuments;
+
+  private final StringToFullBeanConverter stringConverter = new StringToFullBeanConverter();
+  private final RdfToFullBeanConverter fullBeanConverter = new RdfToFullBeanConverter();
+  private final TierClassificationEngine tierClassificationEngine = new TierClassificationEngine();
+  private final SolrDocumentPopulator solrDocumentPopulator = new SolrDocumentPopulator();
+
+  /**
+   * Sets up the persistence and the corpus.
+   *
+   * @throws IndexingException In case the corpus could not be prepared.
+   */
+  @Setup(Level.Trial)
+  public void setUp() throws IndexingException {
+
+    // Set up the persistence.
+    embeddedMongo = new EmbeddedLocalhostMongo();
+    embeddedMongo.start();
+    mongoClient = new MongoClient(
+        new ServerAddress(embeddedMongo.getMongoHost(), embeddedMongo.getMongoPort()));
+    edmMongoServer = new EdmMongoServerImpl(mongoClient, DATABASE_NAME, false);
+    recordRedirectDao = new RecordRedirectDao(mongoClient, REDIRECT_DATABASE_NAME);
+    solrClient = new InMemorySolrClient();
+    indexer = new IndexerFactory(edmMongoServer, recordRedirectDao, solrClient).getIndexer();
+
+    // Prepare the corpus and the intermediate results for the stage benchmarks.
+    generator = new SyntheticRecordGenerator(DATASET_ID, complexity);
+    records = generator.generateCorpus(CORPUS_SIZE, 0);
+    rdfs = new ArrayList<>(CORPUS_SIZE);
+    for (String record : records) {
+      rdfs.add(new RdfWrapper(stringConverter.convertStringToRdf(record)));
+    }
+    fullBeans = rdfs.stream().map(fullBeanConverter::convertRdfToFullBean)
+        .collect(Collectors.toList());
+    solrDocuments = new ArrayList<>(CORPUS_SIZE);
+    for (int i = 0; i < CORPUS_SIZE; i++) {
+      final SolrInputDocument document = new SolrInputDocument();
+      solrDocumentPopulator.populate(document, fullBeans.get(i), rdfs.get(i));
+      solrDocuments.add(document);
+    }
+
+    // Index the corpus once, so that the unchanged benchmark starts from indexed records.
+    indexer.index(records, null, false, null, false);
+  }
+
+  /**
+   * Releases the persistence.
+   *
+   * @throws IOException In case the indexer could not be closed.
+   */
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    indexer.close();
+    mongoClient.close();
+    embeddedMongo.stop();
+  }
+
+  /**
+   * Stage: parsing the XML to RDF.
+   */
+  @Benchmark
+  @OperationsPerInvocation(CORPUS_SIZE)
+  public void parse(Blackhole blackhole) throws IndexingException {
+    for (String record : records) {
+      blackhole.consume(stringConverter.convertStringToRdf(record));
+    }
+  }
+
+  /**
+   * Stage: tier classification.
+   */
+  @Benchmark
+  @OperationsPerInvocation(CORPUS_SIZE)
+  public void classifyTiers(Blackhole blackhole) {
+    for (RdfWrapper rdf : rdfs) {
+      blackhole.consume(tierClassificationEngine.classify(rdf));
+    }
+  }
+
+  /**
+   * Stage: conversion of the RDF to a full bean.
+   */
+  @Benchmark
+  @OperationsPerInvocation(CORPUS_SIZE)
+  public void convertToFullBean(Blackhole blackhole) {
+    for (RdfWrapper rdf : rdfs) {
+      blackhole.consume(fullBeanConverter.convertRdfToFullBean(rdf));
+    }
+  }
+
+  /**
+   * Stage: searching for and applying redirects. As the Solr stand-in has no records, this measures
+   * the query creation and the redirect bookkeeping.
+   */
+  @Benchmark
+  @OperationsPerInvocation(CORPUS_SIZE)
+  public void handleRedirects(Blackhole blackhole) throws IndexingException {
+    final Date recordDate = new Date();
+    final List<String> datasetIds = Collections.singletonList(REDIRECT_DATASET_ID);
+    for (RdfWrapper rdf : rdfs) {
+      blackhole.consume(RecordRedirectsUtil.checkAndApplyRedirects(recordRedirectDao, rdf,
+          recordDate, datasetIds, true, queryParams -> {
+            try {
+              return solrClient.query(new MapSolrParams(queryParams), METHOD.POST).getResults();
+            } catch (SolrServerException | IOException e) {
+              throw new IndexerRelatedIndexingException("Could not search Solr.", e);
+            }
+          }));
+    }
+  }
+
+  /**
+   * Stage: writing the full bean (and its dependent entities) to Mongo. The same full beans are
+   * written in every invocation, so this measures updates of existing records.
+   */
+  @Benchmark
+  @OperationsPerInvocation(CORPUS_SIZE)
+  public void writeToMongo(Blackhole blackhole) {
+    final Date recordDate = new Date();
+    final FullBeanUpdater updater = new FullBeanUpdater((current, updated, dates) -> {
+    });
+    for (FullBeanImpl fullBean : fullBeans) {
+      blackhole.consume(updater.update(fullBean, recordDate, null, edmMongoServer));
+    }
+  }
+
+  /**
+   * Stage: creating the Solr document.
+   */
+  @Benchmark
+  @OperationsPerInvocation(CORPUS_SIZE)
+  public void populateSolrDocument(Blackhole blackhole) {
+    for (int i = 0; i < CORPUS_SIZE; i++) {
+      final SolrInputDocument document = new SolrInputDocument();
+      solrDocumentPopulator.populate(document, fullBeans.get(i), rdfs.get(i));
+      blackhole.consume(document);
+    }
+  }
+
+  /**
+   * Stage: adding the Solr documents to Solr (in one request, as the indexer does).
+   */
+  @Benchmark
+  @OperationsPerInvocation(CORPUS_SIZE)
+  public void addToSolr(Blackhole blackhole) throws SolrServerException, IOException {
+    blackhole.consume(solrClient.add(solrDocuments));
+  }
+
+  /**
+   * End-to-end: indexing records that have changed since they were last indexed.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.SECONDS)
+  @OperationsPerInvocation(CORPUS_SIZE)
+  public void indexChangedRecords(ChangedRecords changedRecords) throws IndexingException {
+    indexer.index(changedRecords.records, null, false, null, false);
+  }
+
+  /**
+   * End-to-end: indexing records that have not changed since they were last indexed.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.SECONDS)
+  @OperationsPerInvocation(CORPUS_SIZE)
+  public void indexUnchangedRecords() throws IndexingException {
+    indexer.index(records, null, false, null, false);
+  }
+
+  /**
+   * A new revision of the corpus for every invocation, so that every indexed record is changed.
+   */
+  @State(Scope.Thread)
+  public static class ChangedRecords {
+
+    private int revision = 0;
+    private List<String> records;
+
+    /**
+     * Generates the next revision of the corpus.
+     *
+     * @param benchmark The benchmark state (holding the generator).
+     */
+    @Setup(Level.Invocation)
+    public void prepare(IndexingBenchmark benchmark) {
+      revision++;
+      records = benchmark.generator.generateCorpus(CORPUS_SIZE, revision);
+    }
+  }
+
+  /**
+   * Runs the benchmarks.
+   *
+   * @param args The command line arguments (not used).
+   * @throws RunnerException In case the benchmarks could not be run.
+   */
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(IndexingBenchmark.class.getSimpleName()).build())
+        .run();
+  }
+}
@@ -0,0 +1,105 @@
+package eu.europeana.indexing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import eu.europeana.indexing.exception.IndexingException;
+import eu.europeana.indexing.exception.RecordRelatedIndexingException;
+import eu.europeana.indexing.exception.SetupRelatedIndexingException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+class IndexingPipelineTest {
+
+  private static final List<Integer> RECORDS = IntStream.range(0, 50).boxed()
+      .collect(Collectors.toList());
+
+  @Test
+  void testProcessAllRecords() throws IndexingException {
+    for (int parallelism : Arrays.asList(1, 4)) {
+      try (final IndexingPipeline pipeline = new IndexingPipeline(parallelism)) {
+        final Set<Integer> processed = ConcurrentHashMap.newKeySet();
+        pipeline.process(RECORDS, processed::add);
+        assertEquals(Set.copyOf(RECORDS), processed);
+      }
+    }
+  }
+
+  @Test
+  void testRecordRelatedErrorsAreIsolated() {
+    for (int parallelism : Arrays.asList(1, 4)) {
+      try (final IndexingPipeline pipeline = new IndexingPipeline(parallelism)) {
+
+        // Records 10 and 20 fail: all others should be processed nonetheless.
+        final Set<Integer> processed = ConcurrentHashMap.newKeySet();
+        final RecordRelatedIndexingException exception10 = new RecordRelatedIndexingException("10");
+        final RecordRelatedIndexingException exception20 = new RecordRelatedIndexingException("20");
+        final RecordRelatedIndexingException thrown = assertThrows(
+            RecordRelatedIndexingException.class, () -> pipeline.process(RECORDS, record -> {
+              if (record == 10) {
+                throw exception10;
+              } else if (record == 20) {
+                throw exception20;
+              }
+              processed.add(record);
+            }));
+
+        // The first exception is thrown, the other is suppressed.
+        assertSame(exception10, thrown);
+        assertEquals(Collections.singletonList(exception20),
+            Arrays.asList(thrown.getSuppressed()));
+        assertEquals(RECORDS.size() - 2, processed.size());
+      }
+    }
+  }
+
+  @Test
+  void testOtherErrorsAbortProcessing() {
+    try (final IndexingPipeline pipeline = new IndexingPipeline(1)) {
+      final Set<Integer> processed = ConcurrentHashMap.newKeySet();
+      final SetupRelatedIndexingException exception = new SetupRelatedIndexingException("setup");
+      final SetupRelatedIndexingException thrown = assertThrows(SetupRelatedIndexingException.class,
+          () -> pipeline.process(RECORDS, record -> {
+            if (record == 10) {
+              throw exception;
+            }
+            processed.add(record);
+          }));
+      assertSame(exception, thrown);
+      assertEquals(10, processed.size());
+    }
+  }
+
+  @Test
+  void testOtherErrorsAbortProcessingInParallel() {
+    try (final IndexingPipeline pipeline = new IndexingPipeline(2)) {
+      final Set<Integer> processed = ConcurrentHashMap.newKeySet();
+      final SetupRelatedIndexingException exception = new SetupRelatedIndexingException("setup");
+      final SetupRelatedIndexingException thrown = assertThrows(SetupRelatedIndexingException.class,
+          () -> pipeline.process(RECORDS, record -> {
+            if (record == 0) {
+              throw exception;
+            }
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+            processed.add(record);
+          }));
+      assertSame(exception, thrown);
+      assertTrue(processed.size() < RECORDS.size() - 1);
+    }
+  }
+
+  @Test
+  void testInvalidParallelism() {
+    assertThrows(IllegalArgumentException.class, () -> new IndexingPipeline(0));
+  }
+}
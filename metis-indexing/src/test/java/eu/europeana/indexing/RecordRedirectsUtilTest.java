@@ -0,0 +1,168 @@
+package eu.europeana.indexing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+import eu.europeana.corelib.definitions.jibx.Identifier;
+import eu.europeana.corelib.definitions.jibx.Title;
+import eu.europeana.indexing.exception.IndexingException;
+import eu.europeana.indexing.solr.EdmLabel;
+import eu.europeana.indexing.utils.RdfWrapper;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.SolrDocumentList;
+import org.junit.jupiter.api.Test;
+
+class RecordRedirectsUtilTest {
+
+  private static RdfWrapper createRdf(String about, String identifier, String title) {
+    final RdfWrapper rdf = mock(RdfWrapper.class);
+    doReturn(about).when(rdf).getAbout();
+    final Identifier identifierObject = new Identifier();
+    identifierObject.setString(identifier);
+    doReturn(Collections.singletonList(identifierObject)).when(rdf).getProviderProxyIdentifiers();
+    final Title titleObject = new Title();
+    titleObject.setString(title);
+    doReturn(Collections.singletonList(titleObject)).when(rdf).getProviderProxyTitles();
+    return rdf;
+  }
+
+  private static SolrDocument createDocument(String id, String datasetName, String identifier,
+      String title, Date created) {
+    final SolrDocument document = new SolrDocument();
+    document.addField(EdmLabel.EUROPEANA_ID.toString(), id);
+    document.addField(EdmLabel.EDM_DATASETNAME.toString(), datasetName);
+    document.addField(EdmLabel.PROXY_DC_IDENTIFIER.toString(), identifier);
+    document.addField(EdmLabel.PROXY_DC_TITLE.toString(), title);
+    document.addField(EdmLabel.TIMESTAMP_CREATED.toString(), created);
+    return document;
+  }
+
+  @Test
+  void testSearchMatchingRecordsForRedirectionInBatch() throws IndexingException {
+
+    // Create the records and the documents in Solr.
+    final RdfWrapper rdf1 = createRdf("/ds/rec1", "id1", "t1");
+    final RdfWrapper rdf2 = createRdf("/ds/rec2", "id2", "t2");
+    final Date created = new Date();
+    final SolrDocumentList documents = new SolrDocumentList();
+    documents.add(createDocument("/old/a", "old_test", "id1", "t1", created));
+    documents.add(createDocument("/other/b", "other_test", "id2", "t2", created));
+    documents.add(createDocument("/ds/rec2", "ds_test", "id2", "t2", created));
+
+    // Create the Solr retriever: keep track of the queries.
+    final List<Map<String, String>> queries = new ArrayList<>();
+    final RecordRedirectsUtil.ThrowingFunction<Map<String, String>, SolrDocumentList, IndexingException> retriever = query -> {
+      queries.add(query);
+      if ("0".equals(query.get("rows"))) {
+        final SolrDocumentList result = new SolrDocumentList();
+        result.setNumFound(3);
+        return result;
+      }
+      return documents;
+    };
+
+    // Perform the search.
+    final Map<String, List<Pair<String, Date>>> result = RecordRedirectsUtil
+        .searchMatchingRecordsForRedirection(Arrays.asList(rdf1, rdf2),
+            Collections.singletonList("old"), retriever, new HashMap<>());
+
+    // Check the result: one check for records in the datasets, one combined query.
+    assertEquals(2, queries.size());
+    assertTrue(queries.get(1).get("q").contains("rec1"));
+    assertTrue(queries.get(1).get("q").contains("rec2"));
+    assertEquals(2, result.size());
+    assertEquals(Collections.singletonList(Pair.of("/old/a", created)), result.get("/ds/rec1"));
+    assertEquals(Collections.emptyList(), result.get("/ds/rec2"));
+  }
+
+  @Test
+  void testSearchMatchingRecordsForRedirectionWithoutRecordsInDatasets()
+      throws IndexingException {
+
+    // Create the Solr retriever: there are no records in the datasets.
+    final List<Map<String, String>> queries = new ArrayList<>();
+    final RecordRedirectsUtil.ThrowingFunction<Map<String, String>, SolrDocumentList, IndexingException> retriever = query -> {
+      queries.add(query);
+      return new SolrDocumentList();
+    };
+
+    // Perform the search twice with the same cache.
+    final Map<String, Boolean> cache = new HashMap<>();
+    final List<RdfWrapper> rdfs = Arrays
+        .asList(createRdf("/ds/rec1", "id1", "t1"), createRdf("/ds/rec2", "id2", "t2"));
+    final Map<String, List<Pair<String, Date>>> result = RecordRedirectsUtil
+        .searchMatchingRecordsForRedirection(rdfs, Collections.emptyList(), retriever, cache);
+    RecordRedirectsUtil
+        .searchMatchingRecordsForRedirection(rdfs, Collections.emptyList(), retriever, cache);
+
+    // Check that only the first check was performed.
+    assertEquals(1, queries.size());
+    assertEquals("0", queries.get(0).get("rows"));
+    assertEquals(Collections.emptyList(), result.get("/ds/rec1"));
+    assertEquals(Collections.emptyList(), result.get("/ds/rec2"));
+  }
+
+  @Test
+  void testSearchMatchingRecordsForRedirectionForSingleRecord() throws IndexingException {
+
+    // Create the Solr retriever: keep track of the queries.
+    final List<Map<String, String>> queries = new ArrayList<>();
+    final RecordRedirectsUtil.ThrowingFunction<Map<String, String>, SolrDocumentList, IndexingException> retriever = query -> {
+      queries.add(query);
+      return new SolrDocumentList();
+    };
+
+    // Perform the search: there should be no check for records in the datasets.
+    RecordRedirectsUtil.searchMatchingRecordsForRedirection(
+        Collections.singletonList(createRdf("/ds/rec1", "id1", "t1")),
+        Collections.singletonList("old"), retriever, new HashMap<>());
+    assertEquals(1, queries.size());
+    assertEquals("10", queries.get(0).get("rows"));
+  }
+
+  @Test
+  void testSearchMatchingRecordsForRedirectionWithFullResultWindow() throws IndexingException {
+
+    // Create the records and the documents in Solr.
+    final RdfWrapper rdf1 = createRdf("/ds/rec1", "id1", "t1");
+    final RdfWrapper rdf2 = createRdf("/ds/rec2", "id2", "t2");
+    final Date created = new Date();
+    final SolrDocument document1 = createDocument("/old/a", "old_test", "id1", "t1", created);
+    final SolrDocument document2 = createDocument("/old/b", "old_test", "id2", "t2", created);
+
+    // Create the Solr retriever: the combined query returns only the results for the first record.
+    final List<Map<String, String>> queries = new ArrayList<>();
+    final RecordRedirectsUtil.ThrowingFunction<Map<String, String>, SolrDocumentList, IndexingException> retriever = query -> {
+      queries.add(query);
+      final SolrDocumentList result = new SolrDocumentList();
+      if ("0".equals(query.get("rows"))) {
+        result.setNumFound(100);
+      } else if (query.get("q").contains("rec1") && query.get("q").contains("rec2")) {
+        result.add(document1);
+        result.setNumFound(100);
+      } else {
+        result.add(query.get("q").contains("rec1") ? document1 : document2);
+        result.setNumFound(1);
+      }
+      return result;
+    };
+
+    // Perform the search: the queries should be executed again separately.
+    final Map<String, List<Pair<String, Date>>> result = RecordRedirectsUtil
+        .searchMatchingRecordsForRedirection(Arrays.asList(rdf1, rdf2),
+            Collections.singletonList("old"), retriever, new HashMap<>());
+    assertEquals(4, queries.size());
+    assertEquals(Collections.singletonList(Pair.of("/old/a", created)), result.get("/ds/rec1"));
+    assertEquals(Collections.singletonList(Pair.of("/old/b", created)), result.get("/ds/rec2"));
+  }
+}
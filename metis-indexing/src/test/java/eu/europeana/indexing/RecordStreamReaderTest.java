@@ -0,0 +1,168 @@
+package eu.europeana.indexing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import eu.europeana.indexing.exception.IndexerRelatedIndexingException;
+import eu.europeana.indexing.exception.IndexingException;
+import eu.europeana.indexing.exception.RecordRelatedIndexingException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.junit.jupiter.api.Test;
+
+class RecordStreamReaderTest {
+
+  private static final String RDF_NAMESPACE = "http://www.w3.org/1999/02/22-rdf-syntax-ns#";
+  private static final String EDM_NAMESPACE = "http://www.europeana.eu/schemas/edm/";
+
+  private static String createDocument(String about) {
+    return "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" + createRecord(about, true);
+  }
+
+  private static String createRecord(String about, boolean declareNamespaces) {
+    final String namespaces = declareNamespaces ?
+        (" xmlns:rdf=\"" + RDF_NAMESPACE + "\" xmlns:edm=\"" + EDM_NAMESPACE + "\"") : "";
+    return "<rdf:RDF" + namespaces + "><edm:ProvidedCHO rdf:about=\"" + about
+        + "\"><![CDATA[a < b]]></edm:ProvidedCHO></rdf:RDF>";
+  }
+
+  private static InputStream toStream(String content) {
+    return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static List<String> readAll(InputStream stream) throws IndexingException, IOException {
+    final List<String> result = new ArrayList<>();
+    try (final RecordStreamReader reader = new RecordStreamReader(stream)) {
+      String record = reader.nextRecord();
+      while (record != null) {
+        result.add(record);
+        record = reader.nextRecord();
+      }
+    }
+    return result;
+  }
+
+  private static void assertRecord(String record, String about) {
+    assertTrue(record.contains("rdf:about=\"" + about + "\""));
+    assertTrue(record.contains("xmlns:rdf=\"" + RDF_NAMESPACE + "\""));
+    assertTrue(record.contains("xmlns:edm=\"" + EDM_NAMESPACE + "\""));
+    assertTrue(record.contains("<![CDATA[a < b]]>") || record.contains("a &lt; b"));
+  }
+
+  @Test
+  void testConcatenatedDocuments() throws IndexingException, IOException {
+    final String content = "\uFEFF" + createDocument("/1/a") + "\n" + createDocument("/1/b")
+        + createDocument("/1/c");
+    final List<String> records = readAll(toStream(content));
+    assertEquals(3, records.size());
+    assertRecord(records.get(0), "/1/a");
+    assertRecord(records.get(1), "/1/b");
+    assertRecord(records.get(2), "/1/c");
+  }
+
+  @Test
+  void testDeclarationsAreOnlyRemovedBetweenDocuments() throws IndexingException, IOException {
+    final String declaration = "<?xml version=\"1.0\"?>";
+    final String record = createRecord("/1/a", true).replace("<![CDATA[a < b]]>",
+        "<![CDATA[a < b]]><![CDATA[" + declaration + "\uFEFF]]>");
+    final String content = record + "\n<!-- comment -->\n\uFEFF" + createDocument("/1/b");
+    final List<String> records = readAll(toStream(content));
+    assertEquals(2, records.size());
+    assertRecord(records.get(0), "/1/a");
+    assertTrue(records.get(0).contains("\uFEFF"));
+    assertTrue(records.get(0).contains(declaration)
+        || records.get(0).contains("&lt;?xml version=\"1.0\"?&gt;"));
+    assertRecord(records.get(1), "/1/b");
+  }
+
+  @Test
+  void testWrappedRecords() throws IndexingException, IOException {
+    final String content = "<?xml version=\"1.0\"?><list xmlns:rdf=\"" + RDF_NAMESPACE
+        + "\"><item xmlns:edm=\"" + EDM_NAMESPACE + "\">" + createRecord("/1/a", false)
+        + "</item><item xmlns:edm=\"" + EDM_NAMESPACE + "\">" + createRecord("/1/b", false)
+        + "</item></list>";
+    final List<String> records = readAll(toStream(content));
+    assertEquals(2, records.size());
+    assertRecord(records.get(0), "/1/a");
+    assertRecord(records.get(1), "/1/b");
+  }
+
+  @Test
+  void testZip() throws IndexingException, IOException {
+    final ByteArrayOutputStream zip = new ByteArrayOutputStream();
+    try (final ZipOutputStream zipStream = new ZipOutputStream(zip)) {
+      zipStream.putNextEntry(new ZipEntry("records/"));
+      zipStream.closeEntry();
+      zipStream.putNextEntry(new ZipEntry("records/a.xml"));
+      zipStream.write(createDocument("/1/a").getBytes(StandardCharsets.UTF_8));
+      zipStream.closeEntry();
+      zipStream.putNextEntry(new ZipEntry("records/bc.xml"));
+      zipStream.write((createDocument("/1/b") + createDocument("/1/c"))
+          .getBytes(StandardCharsets.UTF_8));
+      zipStream.closeEntry();
+    }
+    final List<String> records = readAll(new ByteArrayInputStream(zip.toByteArray()));
+    assertEquals(3, records.size());
+    assertRecord(records.get(0), "/1/a");
+    assertRecord(records.get(1), "/1/b");
+    assertRecord(records.get(2), "/1/c");
+  }
+
+  @Test
+  void testEmptyStream() throws IndexingException, IOException {
+    assertTrue(readAll(toStream("")).isEmpty());
+  }
+
+  @Test
+  void testMalformedStream() throws IndexingException, IOException {
+    try (final RecordStreamReader reader = new RecordStreamReader(
+        toStream(createDocument("/1/a") + "<rdf:RDF xmlns:rdf=\"" + RDF_NAMESPACE + "\">"))) {
+      assertRecord(reader.nextRecord(), "/1/a");
+      assertThrows(RecordRelatedIndexingException.class, reader::nextRecord);
+      assertNull(reader.nextRecord());
+    }
+  }
+
+  @Test
+  void testMalformedZipEntry() throws IndexingException, IOException {
+    final ByteArrayOutputStream zip = new ByteArrayOutputStream();
+    try (final ZipOutputStream zipStream = new ZipOutputStream(zip)) {
+      zipStream.putNextEntry(new ZipEntry("a.xml"));
+      zipStream.write(createDocument("/1/a").getBytes(StandardCharsets.UTF_8));
+      zipStream.closeEntry();
+      zipStream.putNextEntry(new ZipEntry("b.xml"));
+      zipStream.write("<rdf:RDF><unclosed>".getBytes(StandardCharsets.UTF_8));
+      zipStream.closeEntry();
+      zipStream.putNextEntry(new ZipEntry("c.xml"));
+      zipStream.write(createDocument("/1/c").getBytes(StandardCharsets.UTF_8));
+      zipStream.closeEntry();
+    }
+    try (final RecordStreamReader reader = new RecordStreamReader(
+        new ByteArrayInputStream(zip.toByteArray()))) {
+      assertRecord(reader.nextRecord(), "/1/a");
+      assertThrows(RecordRelatedIndexingException.class, reader::nextRecord);
+      assertRecord(reader.nextRecord(), "/1/c");
+      assertNull(reader.nextRecord());
+    }
+  }
+
+  @Test
+  void testUnreadableStream() {
+    final InputStream stream = new InputStream() {
+      @Override
+      public int read() throws IOException {
+        throw new IOException("Connection reset.");
+      }
+    };
+    assertThrows(IndexerRelatedIndexingException.class, () -> new RecordStreamReader(stream));
+  }
+}
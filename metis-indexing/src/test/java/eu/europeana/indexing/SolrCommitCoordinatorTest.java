@@ -0,0 +1,105 @@
+package eu.europeana.indexing;
+
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import eu.europeana.indexing.SolrCommitCoordinator.CommitPolicy;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.junit.jupiter.api.Test;
+
+class SolrCommitCoordinatorTest {
+
+  @Test
+  void testRequestsWithinWindowAreCoalesced() throws Exception {
+    final SolrClient solrClient = mock(SolrClient.class);
+    final SolrCommitCoordinator coordinator = new SolrCommitCoordinator(Duration.ofMillis(200),
+        CommitPolicy.HARD);
+    final CompletableFuture<Void> first = coordinator.requestCommit(solrClient);
+    final CompletableFuture<Void> second = coordinator.requestCommit(solrClient);
+    assertSame(first, second);
+    CompletableFuture.allOf(first, second).get(10, TimeUnit.SECONDS);
+    verify(solrClient, times(1)).commit(true, true, false);
+  }
+
+  @Test
+  void testRequestsFromDifferentClientsAreCoalesced() throws Exception {
+    final SolrClient firstClient = mock(SolrClient.class);
+    final SolrClient secondClient = mock(SolrClient.class);
+    final SolrCommitCoordinator coordinator = new SolrCommitCoordinator(Duration.ofMillis(200),
+        CommitPolicy.HARD);
+    final CompletableFuture<Void> first = coordinator.requestCommit(firstClient);
+    final CompletableFuture<Void> second = coordinator.requestCommit(secondClient);
+    assertSame(first, second);
+    coordinator.awaitPendingCommit();
+    assertTrue(first.isDone());
+    verify(firstClient, times(1)).commit(true, true, false);
+    verify(secondClient, never()).commit(anyBoolean(), anyBoolean(), anyBoolean());
+  }
+
+  @Test
+  void testSoftCommitPolicy() throws Exception {
+    final SolrClient solrClient = mock(SolrClient.class);
+    final SolrCommitCoordinator coordinator = new SolrCommitCoordinator(Duration.ZERO,
+        CommitPolicy.SOFT);
+    coordinator.commitAndWait(solrClient);
+    verify(solrClient, times(1)).commit(true, true, true);
+  }
+
+  @Test
+  void testRequestDuringCommitIsServedByNextCommit() throws Exception {
+    final SolrClient solrClient = mock(SolrClient.class);
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    doAnswer(invocation -> {
+      started.countDown();
+      release.await();
+      return null;
+    }).doReturn(null).when(solrClient).commit(anyBoolean(), anyBoolean(), anyBoolean());
+    final SolrCommitCoordinator coordinator = new SolrCommitCoordinator(Duration.ZERO,
+        CommitPolicy.HARD);
+    final CompletableFuture<Void> first = coordinator.requestCommit(solrClient);
+    assertTrue(started.await(10, TimeUnit.SECONDS));
+    final CompletableFuture<Void> second = coordinator.requestCommit(solrClient);
+    assertNotSame(first, second);
+    release.countDown();
+    CompletableFuture.allOf(first, second).get(10, TimeUnit.SECONDS);
+    verify(solrClient, times(2)).commit(true, true, false);
+  }
+
+  @Test
+  void testFailedCommit() throws Exception {
+    final SolrClient solrClient = mock(SolrClient.class);
+    doThrow(new SolrServerException("Commit failed.")).when(solrClient)
+        .commit(anyBoolean(), anyBoolean(), anyBoolean());
+    final SolrCommitCoordinator coordinator = new SolrCommitCoordinator(Duration.ZERO,
+        CommitPolicy.HARD);
+    assertThrows(SolrServerException.class, () -> coordinator.commitAndWait(solrClient));
+    final ExecutionException exception = assertThrows(ExecutionException.class,
+        () -> coordinator.requestCommit(solrClient).get(10, TimeUnit.SECONDS));
+    assertTrue(exception.getCause() instanceof SolrServerException);
+
+    // Waiting for the failed commit does not throw.
+    coordinator.awaitPendingCommit();
+  }
+
+  @Test
+  void testNegativeWindow() {
+    assertThrows(IllegalArgumentException.class,
+        () -> new SolrCommitCoordinator(Duration.ofMillis(-1), CommitPolicy.HARD));
+  }
+}
@@ -0,0 +1,200 @@
+package eu.europeana.indexing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import eu.europeana.indexing.exception.IndexerRelatedIndexingException;
+import eu.europeana.indexing.exception.IndexingException;
+import eu.europeana.indexing.exception.RecordRelatedIndexingException;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.common.SolrException.ErrorCode;
+import org.apache.solr.common.SolrInputDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SolrDocumentBufferTest {
+
+  private static final String ID_FIELD = "europeana_id";
+  private static final String VERSION_FIELD = "_version_";
+  private static final String BAD_RECORD = "bad";
+  private static final String MISSING_RECORD = "missing";
+
+  private SolrClient solrClient;
+  private List<List<String>> sentBatches;
+
+  @BeforeEach
+  void setUp() throws IOException, SolrServerException {
+    solrClient = mock(SolrClient.class);
+    sentBatches = new ArrayList<>();
+    doAnswer(invocation -> {
+      final Collection<SolrInputDocument> documents = invocation.getArgument(0);
+      final List<String> ids = documents.stream()
+          .map(document -> (String) document.getFieldValue(ID_FIELD))
+          .collect(Collectors.toList());
+      if (ids.contains(BAD_RECORD)) {
+        throw new SolrException(ErrorCode.BAD_REQUEST, "Bad document.");
+      }
+      if (documents.stream().anyMatch(document -> MISSING_RECORD.equals(
+          document.getFieldValue(ID_FIELD)) && document.getFieldValue(VERSION_FIELD) != null)) {
+        throw new SolrException(ErrorCode.CONFLICT, "Document not found.");
+      }
+      sentBatches.add(ids);
+      return null;
+    }).when(solrClient).add(anyCollection());
+  }
+
+  private static SolrInputDocument createDocument(String id) {
+    final SolrInputDocument document = new SolrInputDocument();
+    document.addField(ID_FIELD, id);
+    return document;
+  }
+
+  private static SolrDocumentBuffer createBuffer(SolrClient solrClient, int initialBatchSize,
+      int maxBatchSize) {
+    return new SolrDocumentBuffer(solrClient, initialBatchSize, maxBatchSize, Long.MAX_VALUE,
+        Duration.ofDays(1), Duration.ofDays(1));
+  }
+
+  @Test
+  void testBatchesBySize() throws IndexingException {
+    final SolrDocumentBuffer buffer = createBuffer(solrClient, 3, 3);
+    for (int i = 0; i < 7; i++) {
+      buffer.add("record" + i, createDocument("record" + i));
+    }
+    assertEquals(2, sentBatches.size());
+    assertEquals(List.of("record0", "record1", "record2"), sentBatches.get(0));
+    assertEquals(List.of("record3", "record4", "record5"), sentBatches.get(1));
+    buffer.flush();
+    assertEquals(3, sentBatches.size());
+    assertEquals(List.of("record6"), sentBatches.get(2));
+  }
+
+  @Test
+  void testBatchesByVolume() throws IndexingException {
+    final SolrDocumentBuffer buffer = new SolrDocumentBuffer(solrClient, 10, 10, 1,
+        Duration.ofDays(1), Duration.ofDays(1));
+    buffer.add("record0", createDocument("record0"));
+    buffer.add("record1", createDocument("record1"));
+    assertEquals(List.of(List.of("record0"), List.of("record1")), sentBatches);
+  }
+
+  @Test
+  void testFlushWithEmptyBuffer() throws IndexingException, IOException, SolrServerException {
+    createBuffer(solrClient, 3, 3).flush();
+    verify(solrClient, never()).add(anyCollection());
+  }
+
+  @Test
+  void testBadDocumentIsIsolated() throws IndexingException {
+
+    // Add documents, one of which is bad.
+    final SolrDocumentBuffer buffer = createBuffer(solrClient, 8, 8);
+    for (int i = 0; i < 7; i++) {
+      buffer.add("record" + i, createDocument(i == 5 ? BAD_RECORD : ("record" + i)));
+    }
+
+    // Flush: the bad record should be reported, all other records should be sent.
+    final RecordRelatedIndexingException exception = assertThrows(
+        RecordRelatedIndexingException.class, buffer::flush);
+    assertTrue(exception.getMessage().contains("record5"));
+    assertEquals(6, sentBatches.stream().mapToInt(List::size).sum());
+
+    // The failure is reported only once.
+    buffer.flush();
+  }
+
+  @Test
+  void testSuccessCallback() throws IndexingException {
+    final SolrDocumentBuffer buffer = createBuffer(solrClient, 8, 8);
+    final List<String> succeeded = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      final String recordId = "record" + i;
+      buffer.add(recordId, createDocument(i == 1 ? BAD_RECORD : recordId),
+          () -> succeeded.add(recordId));
+    }
+
+    // The callbacks are called only after the documents are sent, and not for the bad record.
+    assertTrue(succeeded.isEmpty());
+    assertThrows(RecordRelatedIndexingException.class, buffer::flush);
+    assertEquals(List.of("record0", "record2"), succeeded);
+  }
+
+  @Test
+  void testAtomicUpdateOfMissingDocument() throws IndexingException {
+    final SolrDocumentBuffer buffer = createBuffer(solrClient, 8, 8);
+    final List<String> succeeded = new ArrayList<>();
+    final List<String> missing = new ArrayList<>();
+    for (String recordId : List.of("record0", MISSING_RECORD, "record2")) {
+      final SolrInputDocument update = createDocument(recordId);
+      buffer.addAtomicUpdate(recordId, update, () -> succeeded.add(recordId), () -> {
+        missing.add(recordId);
+        buffer.add(recordId, createDocument(recordId), () -> succeeded.add(recordId));
+      });
+      assertEquals(1L, update.getFieldValue(VERSION_FIELD));
+    }
+
+    // The handler is called for the missing document only: it sends the document in full.
+    buffer.flush();
+    assertEquals(List.of(MISSING_RECORD), missing);
+    assertEquals(List.of("record0", "record2", MISSING_RECORD), succeeded);
+    assertEquals(List.of(MISSING_RECORD), sentBatches.get(sentBatches.size() - 1));
+  }
+
+  @Test
+  void testBatchSizeAdapts() throws IndexingException {
+    final SolrDocumentBuffer buffer = createBuffer(solrClient, 20, 100);
+
+    // Successful batch: batch size grows.
+    for (int i = 0; i < 20; i++) {
+      buffer.add("record" + i, createDocument("record" + i));
+    }
+    assertEquals(30, buffer.getBatchSize());
+
+    // Failed batch: batch size shrinks.
+    buffer.add(BAD_RECORD, createDocument(BAD_RECORD));
+    assertThrows(RecordRelatedIndexingException.class, buffer::flush);
+    assertEquals(15, buffer.getBatchSize());
+  }
+
+  @Test
+  void testIndexerRelatedErrorIsThrownImmediately() throws IOException, SolrServerException {
+    final SolrClient failingClient = mock(SolrClient.class);
+    doAnswer(invocation -> {
+      throw new IOException("Connection refused.");
+    }).when(failingClient).add(anyCollection());
+    final SolrDocumentBuffer buffer = createBuffer(failingClient, 1, 1);
+    assertThrows(IndexerRelatedIndexingException.class,
+        () -> buffer.add("record", createDocument("record")));
+  }
+
+  @Test
+  void testServerErrorIsNotBisected()
+      throws IOException, SolrServerException, IndexingException {
+    final SolrClient failingClient = mock(SolrClient.class);
+    doAnswer(invocation -> {
+      throw new SolrException(ErrorCode.SERVICE_UNAVAILABLE, "Overloaded.");
+    }).when(failingClient).add(anyCollection());
+    final SolrDocumentBuffer buffer = createBuffer(failingClient, 4, 4);
+    for (int i = 0; i < 3; i++) {
+      buffer.add("record" + i, createDocument("record" + i));
+    }
+    assertThrows(IndexerRelatedIndexingException.class,
+        () -> buffer.add("record3", createDocument("record3")));
+    verify(failingClient, times(1)).add(anyCollection());
+  }
+}
@@ -0,0 +1,214 @@
+package eu.europeana.indexing;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generates synthetic EDM records (as RDF/XML strings) of varying complexity, for use in
+ * benchmarks. The records are deterministic: the same parameters produce the same records.
+ */
+final class SyntheticRecordGenerator {
+
+  private static final String[] LANGUAGES = {"en", "de", "fr", "nl", "it", "es", "pl", "el"};
+
+  private static final String NAMESPACES = " xmlns:rdf=\"http://www.w3.org/1999/02/22-rdf-syntax-ns#\""
+      + " xmlns:dc=\"http://purl.org/dc/elements/1.1/\""
+      + " xmlns:dcterms=\"http://purl.org/dc/terms/\""
+      + " xmlns:edm=\"http://www.europeana.eu/schemas/edm/\""
+      + " xmlns:ore=\"http://www.openarchives.org/ore/terms/\""
+      + " xmlns:skos=\"http://www.w3.org/2004/02/skos/core#\"";
+
+  private static final String RIGHTS = "http://creativecommons.org/licenses/by-sa/4.0/";
+
+  /**
+   * The complexity of a generated record.
+   */
+  enum RecordComplexity {
+
+    /**
+     * One web resource, one language and no contextual entities.
+     */
+    MINIMAL(0, 0, 0, 0, 1, 1),
+
+    /**
+     * A few contextual entities and web resources, in two languages.
+     */
+    TYPICAL(2, 1, 2, 1, 3, 2),
+
+    /**
+     * Many contextual entities and web resources, in many languages.
+     */
+    RICH(10, 5, 10, 3, 20, 8);
+
+    private final int agents;
+    private final int places;
+    private final int concepts;
+    private final int timespans;
+    private final int webResources;
+    private final int languages;
+
+    RecordComplexity(int agents, int places, int concepts, int timespans, int webResources,
+        int languages) {
+      this.agents = agents;
+      this.places = places;
+      this.concepts = concepts;
+      this.timespans = timespans;
+      this.webResources = webResources;
+      this.languages = languages;
+    }
+  }
+
+  private final String datasetId;
+  private final RecordComplexity complexity;
+
+  /**
+   * Constructor.
+   *
+   * @param datasetId The dataset ID of the generated records.
+   * @param complexity The complexity of the generated records.
+   */
+  SyntheticRecordGenerator(String datasetId, RecordComplexity complexity) {
+    this.datasetId = datasetId;
+    this.complexity = complexity;
+  }
+
+  /**
+   * Generates a corpus of records.
+   *
+   * @param size The number of records.
+   * @param revision The revision of the records: records with a different revision have different
+   * content (but the same identifiers).
+   * @return The records.
+   */
+  List<String> generateCorpus(int size, int revision) {
+    final List<String> result = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      result.add(generateRecord(i, revision));
+    }
+    return result;
+  }
+
+  /**
+   * Generates one record.
+   *
+   * @param index The index of the record (determines the identifiers).
+   * @param revision The revision of the record (determines part of the content).
+   * @return The record.
+   */
+  String generateRecord(int index, int revision) {
+    final String about = "/" + datasetId + "/record_" + index;
+    final String entityPrefix = "http://data.example.org/" + datasetId + "/" + index;
+    final StringBuilder builder = new StringBuilder();
+    builder.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+    builder.append("<rdf:RDF").append(NAMESPACES).append('>');
+
+    // The provided CHO and the web resources.
+    builder.append("<edm:ProvidedCHO rdf:about=\"").append(about).append("\"/>");
+    for (int i = 0; i < complexity.webResources; i++) {
+      builder.append("<edm:WebResource rdf:about=\"").append(webResource(entityPrefix, i))
+          .append("\"><edm:rights rdf:resource=\"").append(RIGHTS)
+          .append("\"/></edm:WebResource>");
+    }
+
+    // The contextual entities.
+    for (int i = 0; i < complexity.agents; i++) {
+      builder.append("<edm:Agent rdf:about=\"").append(entityPrefix).append("/agent/").append(i)
+          .append("\">");
+      appendLabels(builder, "skos:prefLabel", "Agent " + i);
+      builder.append("</edm:Agent>");
+    }
+    for (int i = 0; i < complexity.places; i++) {
+      builder.append("<edm:Place rdf:about=\"").append(entityPrefix).append("/place/").append(i)
+          .append("\">");
+      appendLabels(builder, "skos:prefLabel", "Place " + i);
+      builder.append("</edm:Place>");
+    }
+    for (int i = 0; i < complexity.concepts; i++) {
+      builder.append("<skos:Concept rdf:about=\"").append(entityPrefix).append("/concept/")
+          .append(i).append("\">");
+      appendLabels(builder, "skos:prefLabel", "Concept " + i);
+      builder.append("</skos:Concept>");
+    }
+    for (int i = 0; i < complexity.timespans; i++) {
+      final int year = 1800 + 10 * i;
+      builder.append("<edm:TimeSpan rdf:about=\"").append(entityPrefix).append("/timespan/")
+          .append(i).append("\">");
+      appendLabels(builder, "skos:prefLabel", String.valueOf(year));
+      builder.append("<edm:begin>").append(year).append("-01-01</edm:begin>");
+      builder.append("<edm:end>").append(year).append("-12-31</edm:end>");
+      builder.append("</edm:TimeSpan>");
+    }
+
+    // The provider aggregation.
+    builder.append("<ore:Aggregation rdf:about=\"/aggregation/provider").append(about)
+        .append("\">");
+    builder.append("<edm:aggregatedCHO rdf:resource=\"").append(about).append("\"/>");
+    builder.append("<edm:dataProvider>Data provider of ").append(datasetId)
+        .append("</edm:dataProvider>");
+    for (int i = 1; i < complexity.webResources; i++) {
+      builder.append("<edm:hasView rdf:resource=\"").append(webResource(entityPrefix, i))
+          .append("\"/>");
+    }
+    builder.append("<edm:isShownAt rdf:resource=\"").append(entityPrefix).append("\"/>");
+    builder.append("<edm:isShownBy rdf:resource=\"").append(webResource(entityPrefix, 0))
+        .append("\"/>");
+    builder.append("<edm:object rdf:resource=\"").append(webResource(entityPrefix, 0))
+        .append("\"/>");
+    builder.append("<edm:provider>Provider</edm:provider>");
+    builder.append("<edm:rights rdf:resource=\"").append(RIGHTS).append("\"/>");
+    builder.append("</ore:Aggregation>");
+
+    // The provider proxy.
+    builder.append("<ore:Proxy rdf:about=\"/proxy/provider").append(about).append("\">");
+    appendLabels(builder, "dc:title", "Record " + index + " revision " + revision);
+    appendLabels(builder, "dc:description",
+        "Description of record " + index + " with some additional text to index");
+    for (int i = 0; i < complexity.agents; i++) {
+      builder.append("<dc:creator rdf:resource=\"").append(entityPrefix).append("/agent/")
+          .append(i).append("\"/>");
+    }
+    for (int i = 0; i < complexity.places; i++) {
+      builder.append("<dcterms:spatial rdf:resource=\"").append(entityPrefix).append("/place/")
+          .append(i).append("\"/>");
+    }
+    for (int i = 0; i < complexity.concepts; i++) {
+      builder.append("<dc:subject rdf:resource=\"").append(entityPrefix).append("/concept/")
+          .append(i).append("\"/>");
+    }
+    for (int i = 0; i < complexity.timespans; i++) {
+      builder.append("<dcterms:temporal rdf:resource=\"").append(entityPrefix)
+          .append("/timespan/").append(i).append("\"/>");
+    }
+    builder.append("<dc:date>").append(1800 + index % 200).append("</dc:date>");
+    builder.append("<edm:type>IMAGE</edm:type>");
+    builder.append("</ore:Proxy>");
+
+    // The Europeana proxy and aggregation.
+    builder.append("<ore:Proxy rdf:about=\"/proxy/europeana").append(about).append("\">");
+    builder.append("<edm:europeanaProxy>true</edm:europeanaProxy>");
+    builder.append("</ore:Proxy>");
+    builder.append("<edm:EuropeanaAggregation rdf:about=\"/aggregation/europeana").append(about)
+        .append("\">");
+    builder.append("<edm:aggregatedCHO rdf:resource=\"").append(about).append("\"/>");
+    builder.append("<edm:country>Europe</edm:country>");
+    builder.append("<edm:language>mul</edm:language>");
+    builder.append("<edm:rights rdf:resource=\"").append(RIGHTS).append("\"/>");
+    builder.append("</edm:EuropeanaAggregation>");
+
+    // Done.
+    builder.append("</rdf:RDF>");
+    return builder.toString();
+  }
+
+  private static String webResource(String entityPrefix, int index) {
+    return entityPrefix + "/media/" + index + ".jpg";
+  }
+
+  private void appendLabels(StringBuilder builder, String element, String text) {
+    for (int i = 0; i < complexity.languages; i++) {
+      builder.append('<').append(element).append(" xml:lang=\"").append(LANGUAGES[i])
+          .append("\">").append(text).append(" (").append(LANGUAGES[i]).append(")</")
+          .append(element).append('>');
+    }
+  }
+}
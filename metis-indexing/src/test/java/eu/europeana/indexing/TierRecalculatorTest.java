@@ -0,0 +1,322 @@
+package eu.europeana.indexing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+import com.mongodb.MongoClient;
+import com.mongodb.ServerAddress;
+import dev.morphia.Datastore;
+import eu.europeana.corelib.definitions.edm.entity.QualityAnnotation;
+import eu.europeana.corelib.mongo.server.EdmMongoServer;
+import eu.europeana.corelib.mongo.server.impl.EdmMongoServerImpl;
+import eu.europeana.corelib.solr.bean.impl.FullBeanImpl;
+import eu.europeana.corelib.solr.entity.QualityAnnotationImpl;
+import eu.europeana.indexing.SyntheticRecordGenerator.RecordComplexity;
+import eu.europeana.indexing.exception.IndexingException;
+import eu.europeana.indexing.solr.EdmLabel;
+import eu.europeana.indexing.tiers.model.MediaTier;
+import eu.europeana.indexing.tiers.model.MetadataTier;
+import eu.europeana.indexing.utils.RdfTier;
+import eu.europeana.indexing.utils.RdfTierUtils;
+import eu.europeana.metis.mongo.EmbeddedLocalhostMongo;
+import eu.europeana.metis.mongo.RecordRedirectDao;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.common.SolrException.ErrorCode;
+import org.apache.solr.common.SolrInputDocument;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+class TierRecalculatorTest {
+
+  private static final String ABOUT = "/123/abc";
+  private static final String DATABASE_NAME = "metis-indexing-test";
+  private static final String REDIRECT_DATABASE_NAME = "metis-indexing-test-redirects";
+  private static final String DATASET_ID = "1";
+  private static final String OTHER_DATASET_ID = "2";
+  private static final String ABOUT_FIELD = "about";
+  private static final String VERSION_FIELD = "_version_";
+
+  private final EmbeddedLocalhostMongo embeddedLocalhostMongo = new EmbeddedLocalhostMongo();
+  private MongoClient mongoClient;
+  private EdmMongoServer edmMongoServer;
+  private SolrClient solrClient;
+
+  @BeforeEach
+  void setUp() {
+    embeddedLocalhostMongo.start();
+    mongoClient = new MongoClient(new ServerAddress(embeddedLocalhostMongo.getMongoHost(),
+        embeddedLocalhostMongo.getMongoPort()));
+    edmMongoServer = new EdmMongoServerImpl(mongoClient, DATABASE_NAME, false);
+    solrClient = mock(SolrClient.class);
+  }
+
+  @AfterEach
+  void tearDown() {
+    mongoClient.close();
+    embeddedLocalhostMongo.stop();
+  }
+
+  private List<String> indexRecords(String datasetId, int count)
+      throws IndexingException, IOException {
+    final List<String> records = new SyntheticRecordGenerator(datasetId, RecordComplexity.TYPICAL)
+        .generateCorpus(count, 0);
+    try (final Indexer indexer = new IndexerFactory(edmMongoServer,
+        new RecordRedirectDao(mongoClient, REDIRECT_DATABASE_NAME), new InMemorySolrClient())
+        .getIndexer()) {
+      indexer.index(records, null, false, null, false);
+    }
+    final List<String> abouts = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      abouts.add("/" + datasetId + "/record_" + i);
+    }
+    return abouts;
+  }
+
+  private FullBeanImpl getFullBean(String about) {
+    return edmMongoServer.getDatastore().createQuery(FullBeanImpl.class).field(ABOUT_FIELD)
+        .equal(about).first();
+  }
+
+  private boolean hasFingerprint(String about) {
+    return hasField(about, FullBeanPublisher.FINGERPRINT_FIELD);
+  }
+
+  private boolean hasField(String about, String field) {
+    final DBObject document = edmMongoServer.getDatastore().getCollection(FullBeanImpl.class)
+        .findOne(new BasicDBObject(ABOUT_FIELD, about));
+    return document.containsField(field);
+  }
+
+  private Set<RdfTier> getStoredTiers(String about) {
+    return getFullBean(about).getQualityAnnotations().stream().map(RdfTierUtils::getTier)
+        .filter(Objects::nonNull).collect(Collectors.toSet());
+  }
+
+  private static RdfTier getTier(Set<RdfTier> tiers, Class<?> type) {
+    return tiers.stream().filter(tier -> type.isInstance(tier.getTier())).findFirst()
+        .orElse(null);
+  }
+
+  /**
+   * Replaces the stored media tier of a record, leaving the other annotations as they are.
+   */
+  private void storeMediaTier(String about, RdfTier mediaTier) {
+    final List<QualityAnnotationImpl> annotations = new ArrayList<>();
+    for (QualityAnnotation annotation : getFullBean(about).getQualityAnnotations()) {
+      final RdfTier tier = RdfTierUtils.getTier(annotation);
+      final QualityAnnotationImpl copy = new QualityAnnotationImpl();
+      copy.setAbout(annotation.getAbout());
+      copy.setTarget(annotation.getTarget());
+      copy.setBody(tier != null && tier.getTier() instanceof MediaTier ? mediaTier.getUri()
+          : annotation.getBody());
+      annotations.add(copy);
+    }
+    final Datastore datastore = edmMongoServer.getDatastore();
+    datastore.update(datastore.createQuery(FullBeanImpl.class).field(ABOUT_FIELD).equal(about),
+        datastore.createUpdateOperations(FullBeanImpl.class)
+            .set("qualityAnnotations", annotations));
+  }
+
+  private static RdfTier getOtherMediaTier(RdfTier mediaTier) {
+    return mediaTier == RdfTier.CONTENT_TIER_4 ? RdfTier.CONTENT_TIER_0 : RdfTier.CONTENT_TIER_4;
+  }
+
+  private static QualityAnnotationImpl createAnnotation(RdfTier tier) {
+    final QualityAnnotationImpl annotation = new QualityAnnotationImpl();
+    annotation.setBody(tier.getUri());
+    return annotation;
+  }
+
+  @Test
+  void testCreateSolrUpdateForChangedTiersOnly() {
+    final List<QualityAnnotationImpl> annotations = Arrays
+        .asList(createAnnotation(RdfTier.CONTENT_TIER_1), createAnnotation(RdfTier.METADATA_TIER_A));
+
+    final SolrInputDocument mediaOnly = TierRecalculator
+        .createSolrUpdate(ABOUT, annotations, true, false);
+    assertEquals(ABOUT, mediaOnly.getFieldValue(EdmLabel.EUROPEANA_ID.toString()));
+    assertEquals(Collections.singletonMap("set", "1"),
+        mediaOnly.getFieldValue(EdmLabel.CONTENT_TIER.toString()));
+    assertFalse(mediaOnly.containsKey(EdmLabel.METADATA_TIER.toString()));
+
+    final SolrInputDocument both = TierRecalculator
+        .createSolrUpdate(ABOUT, annotations, true, true);
+    assertEquals(Collections.singletonMap("set", "1"),
+        both.getFieldValue(EdmLabel.CONTENT_TIER.toString()));
+    assertEquals(Collections.singletonMap("set", "A"),
+        both.getFieldValue(EdmLabel.METADATA_TIER.toString()));
+  }
+
+  @Test
+  void testCreateSolrUpdateForRemovedTier() {
+    final SolrInputDocument document = TierRecalculator
+        .createSolrUpdate(ABOUT, Collections.emptyList(), true, false);
+    final Object update = document.getFieldValue(EdmLabel.CONTENT_TIER.toString());
+    assertTrue(update instanceof Map);
+    assertTrue(((Map<?, ?>) update).containsKey("set"));
+    assertNull(((Map<?, ?>) update).get("set"));
+  }
+
+  @Test
+  void testStatistics() {
+    final TierRecalculationStatistics statistics = new TierRecalculationStatistics(true);
+    statistics.addRecord(MediaTier.T1, MetadataTier.TA, MediaTier.T1, MetadataTier.TA);
+    statistics.addRecord(MediaTier.T1, MetadataTier.TA, MediaTier.T2, MetadataTier.TA);
+    statistics.addRecord(MediaTier.T0, MetadataTier.T0, MediaTier.T2, MetadataTier.TB);
+    statistics.addFailedRecord();
+    statistics.addSolrFailures(2);
+
+    assertTrue(statistics.isDryRun());
+    assertEquals(4, statistics.getRecordsProcessed());
+    assertEquals(2, statistics.getRecordsChanged());
+    assertEquals(3, statistics.getRecordsFailed());
+    assertEquals(2, statistics.getMediaTierChanges());
+    assertEquals(1, statistics.getMetadataTierChanges());
+    assertEquals(Long.valueOf(2), statistics.getMediaTiersBefore().get(MediaTier.T1));
+    assertEquals(Long.valueOf(2), statistics.getMediaTiersAfter().get(MediaTier.T2));
+    assertNull(statistics.getMediaTiersAfter().get(MediaTier.T0));
+    assertEquals(Long.valueOf(1), statistics.getMetadataTiersAfter().get(MetadataTier.TB));
+  }
+
+  @Test
+  void testRecalculateUnchangedRecords()
+      throws IndexingException, IOException, SolrServerException {
+    final List<String> abouts = indexRecords(DATASET_ID, 3);
+
+    // The records converted back from Mongo classify the same as the original RDF.
+    final TierRecalculationStatistics statistics = new TierRecalculator(edmMongoServer,
+        solrClient).recalculate(DATASET_ID, false);
+    assertEquals(3, statistics.getRecordsProcessed());
+    assertEquals(0, statistics.getRecordsChanged());
+    assertEquals(0, statistics.getRecordsFailed());
+
+    // Nothing is changed.
+    for (String about : abouts) {
+      assertTrue(hasFingerprint(about));
+    }
+    verify(solrClient, never()).add(anyCollection());
+  }
+
+  @Test
+  void testRecalculateOnlyProcessesDataset() throws IndexingException, IOException {
+    indexRecords(DATASET_ID, 2);
+    indexRecords(OTHER_DATASET_ID, 3);
+    final TierRecalculator recalculator = new TierRecalculator(edmMongoServer, solrClient);
+    assertEquals(2, recalculator.recalculate(DATASET_ID, true).getRecordsProcessed());
+    assertEquals(3, recalculator.recalculate(OTHER_DATASET_ID, true).getRecordsProcessed());
+    assertEquals(0, recalculator.recalculate("3", true).getRecordsProcessed());
+  }
+
+  @Test
+  void testRecalculateChangedMediaTier()
+      throws IndexingException, IOException, SolrServerException {
+
+    // Index a record and store a wrong media tier.
+    final String about = indexRecords(DATASET_ID, 1).get(0);
+    final Set<RdfTier> originalTiers = getStoredTiers(about);
+    final RdfTier mediaTier = getTier(originalTiers, MediaTier.class);
+    final RdfTier metadataTier = getTier(originalTiers, MetadataTier.class);
+    storeMediaTier(about, getOtherMediaTier(mediaTier));
+
+    // Recalculate: only the media tier is changed.
+    final TierRecalculationStatistics statistics = new TierRecalculator(edmMongoServer,
+        solrClient).recalculate(DATASET_ID, false);
+    assertEquals(1, statistics.getRecordsChanged());
+    assertEquals(1, statistics.getMediaTierChanges());
+    assertEquals(0, statistics.getMetadataTierChanges());
+
+    // Check Mongo: the metadata tier is kept and the fingerprints are removed.
+    final Set<RdfTier> storedTiers = getStoredTiers(about);
+    assertEquals(mediaTier, getTier(storedTiers, MediaTier.class));
+    assertEquals(metadataTier, getTier(storedTiers, MetadataTier.class));
+    assertFalse(hasFingerprint(about));
+    assertFalse(hasField(about, FullBeanPublisher.SOLR_FIELD_FINGERPRINTS_FIELD));
+
+    // Check Solr: only the media tier is updated.
+    @SuppressWarnings("unchecked") final ArgumentCaptor<Collection<SolrInputDocument>> captor =
+        ArgumentCaptor.forClass(Collection.class);
+    verify(solrClient, times(1)).add(captor.capture());
+    assertEquals(1, captor.getValue().size());
+    final SolrInputDocument document = captor.getValue().iterator().next();
+    assertEquals(about, document.getFieldValue(EdmLabel.EUROPEANA_ID.toString()));
+    assertEquals(1L, document.getFieldValue(VERSION_FIELD));
+    assertTrue(document.containsKey(EdmLabel.CONTENT_TIER.toString()));
+    assertFalse(document.containsKey(EdmLabel.METADATA_TIER.toString()));
+  }
+
+  @Test
+  void testRecalculateRecordMissingInSolr()
+      throws IndexingException, IOException, SolrServerException {
+
+    // Index a record and store a wrong media tier. Solr rejects updates: it has no documents.
+    final String about = indexRecords(DATASET_ID, 1).get(0);
+    final RdfTier mediaTier = getTier(getStoredTiers(about), MediaTier.class);
+    storeMediaTier(about, getOtherMediaTier(mediaTier));
+    final List<SolrInputDocument> sentDocuments = new ArrayList<>();
+    doAnswer(invocation -> {
+      final Collection<SolrInputDocument> documents = invocation.getArgument(0);
+      if (documents.stream().anyMatch(document -> document.containsKey(VERSION_FIELD))) {
+        throw new SolrException(ErrorCode.CONFLICT, "Document not found.");
+      }
+      sentDocuments.addAll(documents);
+      return null;
+    }).when(solrClient).add(anyCollection());
+
+    // Recalculate: the full document is sent instead of the atomic update.
+    final TierRecalculationStatistics statistics = new TierRecalculator(edmMongoServer,
+        solrClient).recalculate(DATASET_ID, false);
+    assertEquals(1, statistics.getRecordsChanged());
+    assertEquals(0, statistics.getRecordsFailed());
+    assertEquals(1, sentDocuments.size());
+    final SolrInputDocument document = sentDocuments.get(0);
+    assertEquals(about, document.getFieldValue(EdmLabel.EUROPEANA_ID.toString()));
+    final Object expectedMediaTier = ((Map<?, ?>) TierRecalculator.createSolrUpdate(about,
+        List.of(createAnnotation(mediaTier)), true, false)
+        .getFieldValue(EdmLabel.CONTENT_TIER.toString())).get("set");
+    assertEquals(expectedMediaTier, document.getFieldValue(EdmLabel.CONTENT_TIER.toString()));
+    assertTrue(document.containsKey(EdmLabel.METADATA_TIER.toString()));
+  }
+
+  @Test
+  void testDryRunChangesNothing() throws IndexingException, IOException, SolrServerException {
+
+    // Index a record and store a wrong media tier.
+    final String about = indexRecords(DATASET_ID, 1).get(0);
+    final RdfTier wrongMediaTier = getOtherMediaTier(
+        getTier(getStoredTiers(about), MediaTier.class));
+    storeMediaTier(about, wrongMediaTier);
+
+    // Recalculate: the change is counted, but not saved.
+    final TierRecalculationStatistics statistics = new TierRecalculator(edmMongoServer,
+        solrClient).recalculate(DATASET_ID, true);
+    assertTrue(statistics.isDryRun());
+    assertEquals(1, statistics.getRecordsChanged());
+    assertEquals(wrongMediaTier, getTier(getStoredTiers(about), MediaTier.class));
+    assertTrue(hasFingerprint(about));
+    verify(solrClient, never()).add(anyCollection());
+  }
+}
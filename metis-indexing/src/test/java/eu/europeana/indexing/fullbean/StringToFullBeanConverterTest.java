@@ -0,0 +1,65 @@
+package eu.europeana.indexing.fullbean;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import eu.europeana.corelib.definitions.jibx.RDF;
+import eu.europeana.indexing.exception.IndexingException;
+import eu.europeana.indexing.exception.RecordRelatedIndexingException;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import org.jibx.runtime.IBindingFactory;
+import org.jibx.runtime.IUnmarshallingContext;
+import org.jibx.runtime.JiBXException;
+import org.junit.jupiter.api.Test;
+
+class StringToFullBeanConverterTest {
+
+  @Test
+  void testContextIsReusedAndReset() throws IndexingException, JiBXException {
+
+    // Create the factory and the context
+    final IBindingFactory factory = mock(IBindingFactory.class);
+    final IUnmarshallingContext context = mock(IUnmarshallingContext.class);
+    doReturn(context).when(factory).createUnmarshallingContext();
+    final RDF rdf = new RDF();
+    doReturn(rdf).when(context).unmarshalDocument(any(Reader.class));
+    doReturn(rdf).when(context).unmarshalDocument(any(InputStream.class), anyString());
+
+    // Convert a few records using different converters with the same factory.
+    assertSame(rdf, new StringToFullBeanConverter(() -> factory).convertStringToRdf("record1"));
+    assertSame(rdf, new StringToFullBeanConverter(() -> factory).convertStringToRdf("record2"));
+    assertSame(rdf, new StringToFullBeanConverter(() -> factory).convertToRdf(
+        new ByteArrayInputStream("record3".getBytes(StandardCharsets.UTF_8))));
+
+    // Check that only one context is created and that it is reset after every record.
+    verify(factory, times(1)).createUnmarshallingContext();
+    verify(context, times(3)).reset();
+  }
+
+  @Test
+  void testContextIsResetAfterFailure() throws JiBXException {
+
+    // Create the factory and the context
+    final IBindingFactory factory = mock(IBindingFactory.class);
+    final IUnmarshallingContext context = mock(IUnmarshallingContext.class);
+    doReturn(context).when(factory).createUnmarshallingContext();
+    doThrow(new JiBXException("Invalid record.")).when(context)
+        .unmarshalDocument(any(Reader.class));
+
+    // Check that the failure is reported and that the context is reset.
+    final StringToFullBeanConverter converter = new StringToFullBeanConverter(() -> factory);
+    assertThrows(RecordRelatedIndexingException.class,
+        () -> converter.convertStringToRdf("record"));
+    verify(context, times(1)).reset();
+  }
+}
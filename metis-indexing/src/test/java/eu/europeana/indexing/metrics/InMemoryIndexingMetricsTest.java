@@ -0,0 +1,80 @@
+package eu.europeana.indexing.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class InMemoryIndexingMetricsTest {
+
+  @Test
+  void testBuckets() {
+    for (long value = 0; value < 100_000; value++) {
+      final int bucket = LatencyHistogram.getBucket(value);
+      assertTrue(value <= LatencyHistogram.getBucketUpperBound(bucket));
+      assertTrue(bucket == 0 || value > LatencyHistogram.getBucketUpperBound(bucket - 1));
+    }
+    assertEquals(Long.MAX_VALUE,
+        LatencyHistogram.getBucketUpperBound(LatencyHistogram.getBucket(Long.MAX_VALUE)));
+  }
+
+  @Test
+  void testLatencyStatistics() {
+    final InMemoryIndexingMetrics metrics = new InMemoryIndexingMetrics();
+    for (long value = 1; value <= 1000; value++) {
+      metrics.recordLatency(IndexingStage.PARSE, value * 1000);
+    }
+    final LatencyStatistics statistics = metrics.getLatencyStatistics(IndexingStage.PARSE);
+    assertEquals(1000, statistics.getCount());
+    assertEquals(500_500_000L, statistics.getTotalNanos());
+    assertEquals(500_500.0, statistics.getMeanNanos());
+    assertEquals(1_000_000L, statistics.getMaxNanos());
+    assertEstimate(500_000L, statistics.getMedianNanos());
+    assertEstimate(950_000L, statistics.getPercentile95Nanos());
+    assertEstimate(990_000L, statistics.getPercentile99Nanos());
+
+    // Other stages are not affected.
+    assertEquals(0, metrics.getLatencyStatistics(IndexingStage.BATCH).getCount());
+    assertEquals(0, metrics.getLatencyStatistics(IndexingStage.BATCH).getMedianNanos());
+  }
+
+  private static void assertEstimate(long expected, long actual) {
+    assertTrue(actual >= expected, "Estimate " + actual + " is below " + expected);
+    assertTrue(actual <= expected + expected / 8, "Estimate " + actual + " is above " + expected);
+  }
+
+  @Test
+  void testCounters() {
+    final InMemoryIndexingMetrics metrics = new InMemoryIndexingMetrics();
+    assertEquals(0, metrics.getCounter(IndexingMetrics.RECORDS_PUBLISHED));
+    metrics.incrementCounter(IndexingMetrics.RECORDS_PUBLISHED, 2);
+    metrics.incrementCounter(IndexingMetrics.RECORDS_PUBLISHED, 3);
+    metrics.incrementCounter(IndexingMetrics.RECORDS_UNCHANGED, 1);
+    final Map<String, Long> counters = metrics.getCounters();
+    assertEquals(2, counters.size());
+    assertEquals(5L, counters.get(IndexingMetrics.RECORDS_PUBLISHED));
+    assertEquals(1L, counters.get(IndexingMetrics.RECORDS_UNCHANGED));
+  }
+
+  @Test
+  void testTimerAndReset() {
+    final InMemoryIndexingMetrics metrics = new InMemoryIndexingMetrics();
+    metrics.stopTimer(IndexingStage.SOLR_ADD, metrics.startTimer());
+    metrics.incrementCounter(IndexingMetrics.SOLR_DOCUMENTS_ADDED, 10);
+    assertEquals(1, metrics.getLatencyStatistics(IndexingStage.SOLR_ADD).getCount());
+    metrics.reset();
+    assertEquals(0, metrics.getLatencyStatistics(IndexingStage.SOLR_ADD).getCount());
+    assertEquals(0, metrics.getCounter(IndexingMetrics.SOLR_DOCUMENTS_ADDED));
+  }
+
+  @Test
+  void testDisabled() {
+    final IndexingMetrics metrics = IndexingMetrics.disabled();
+    assertFalse(metrics.isEnabled());
+    assertEquals(0, metrics.startTimer());
+    metrics.stopTimer(IndexingStage.PARSE, 0);
+    metrics.incrementCounter(IndexingMetrics.RECORDS_PUBLISHED, 1);
+  }
+}
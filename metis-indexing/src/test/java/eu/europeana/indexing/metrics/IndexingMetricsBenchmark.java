@@ -0,0 +1,88 @@
+package eu.europeana.indexing.metrics;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * <p>
+ * JMH benchmarks for the overhead of the instrumentation of one indexing stage: a timer and a
+ * counter around a small amount of work. The baseline has no instrumentation, so the difference
+ * with the disabled metrics (see {@link IndexingMetrics#disabled()}) is the overhead of
+ * instrumented code when no metrics are needed, and the difference with {@link
+ * InMemoryIndexingMetrics} is the overhead of recording metrics.
+ * </p>
+ * <p>
+ * These benchmarks are not run as part of the build. Run them using the main method of this class
+ * (after <code>mvn test-compile</code>), or using the JMH runner
+ * <code>org.openjdk.jmh.Main IndexingMetricsBenchmark</code> on the test class path.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class IndexingMetricsBenchmark {
+
+  private static final int WORK_TOKENS = 100;
+
+  private final IndexingMetrics disabledMetrics = IndexingMetrics.disabled();
+  private final IndexingMetrics inMemoryMetrics = new InMemoryIndexingMetrics();
+
+  /**
+   * No instrumentation.
+   */
+  @Benchmark
+  public void baseline() {
+    Blackhole.consumeCPU(WORK_TOKENS);
+  }
+
+  /**
+   * Instrumentation with disabled metrics.
+   */
+  @Benchmark
+  public void disabled() {
+    instrumentedWork(disabledMetrics);
+  }
+
+  /**
+   * Instrumentation with in-memory metrics.
+   */
+  @Benchmark
+  public void inMemory() {
+    instrumentedWork(inMemoryMetrics);
+  }
+
+  private static void instrumentedWork(IndexingMetrics metrics) {
+    final long start = metrics.startTimer();
+    Blackhole.consumeCPU(WORK_TOKENS);
+    metrics.stopTimer(IndexingStage.MONGO_WRITE, start);
+    metrics.incrementCounter(IndexingMetrics.RECORDS_PUBLISHED, 1);
+  }
+
+  /**
+   * Runs the benchmarks.
+   *
+   * @param args The command line arguments (not used).
+   * @throws RunnerException In case the benchmarks could not be run.
+   */
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(IndexingMetricsBenchmark.class.getSimpleName())
+        .build()).run();
+  }
+}
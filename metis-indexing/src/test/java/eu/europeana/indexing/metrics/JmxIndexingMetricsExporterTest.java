@@ -0,0 +1,48 @@
+package eu.europeana.indexing.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+import org.junit.jupiter.api.Test;
+
+class JmxIndexingMetricsExporterTest {
+
+  @Test
+  void testExport() throws JMException {
+    final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    final InMemoryIndexingMetrics metrics = new InMemoryIndexingMetrics();
+    metrics.recordLatency(IndexingStage.MONGO_WRITE, 1000);
+    metrics.incrementCounter(IndexingMetrics.RECORDS_PUBLISHED, 3);
+
+    try (final JmxIndexingMetricsExporter exporter = new JmxIndexingMetricsExporter(metrics,
+        "test")) {
+      assertTrue(server.isRegistered(exporter.getObjectName()));
+
+      // Check the latencies.
+      final TabularData latencies = (TabularData) server
+          .getAttribute(exporter.getObjectName(), "Latencies");
+      final CompositeData mongoWrite = (CompositeData) latencies
+          .get(new Object[]{IndexingStage.MONGO_WRITE.name()}).get("value");
+      assertEquals(1L, mongoWrite.get("count"));
+      assertEquals(1000L, mongoWrite.get("maxNanos"));
+
+      // Check the counters.
+      final TabularData counters = (TabularData) server
+          .getAttribute(exporter.getObjectName(), "Counters");
+      assertEquals(3L, counters.get(new Object[]{IndexingMetrics.RECORDS_PUBLISHED}).get("value"));
+
+      // Check the reset.
+      server.invoke(exporter.getObjectName(), "reset", new Object[0], new String[0]);
+      assertEquals(0, metrics.getLatencyStatistics(IndexingStage.MONGO_WRITE).getCount());
+    }
+
+    // Check that the bean is unregistered.
+    assertFalse(server.isRegistered(JmxIndexingMetricsExporter.createObjectName("test")));
+  }
+}
@@ -0,0 +1,156 @@
+package eu.europeana.indexing.mongo.property;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.BulkWriteOperation;
+import com.mongodb.DBCollection;
+import com.mongodb.DBObject;
+import com.mongodb.DBRef;
+import dev.morphia.Datastore;
+import dev.morphia.query.Query;
+import dev.morphia.query.UpdateOpsImpl;
+import eu.europeana.corelib.solr.entity.AgentImpl;
+import eu.europeana.corelib.storage.MongoServer;
+import eu.europeana.indexing.metrics.InMemoryIndexingMetrics;
+import eu.europeana.indexing.metrics.IndexingMetrics;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class MongoBulkOperationsTest {
+
+  private MongoServer mongoServer;
+  private Datastore datastore;
+  private DBCollection collection;
+  private BulkWriteOperation bulkWriteOperation;
+
+  @BeforeEach
+  void setUp() {
+    mongoServer = mock(MongoServer.class);
+    datastore = mock(Datastore.class);
+    collection = mock(DBCollection.class);
+    bulkWriteOperation = mock(BulkWriteOperation.class, RETURNS_DEEP_STUBS);
+    when(mongoServer.getDatastore()).thenReturn(datastore);
+    when(datastore.getCollection(AgentImpl.class)).thenReturn(collection);
+    when(collection.initializeUnorderedBulkOperation()).thenReturn(bulkWriteOperation);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static UpdateOpsImpl<AgentImpl> createOperations(DBObject ops) {
+    final UpdateOpsImpl<AgentImpl> operations = mock(UpdateOpsImpl.class);
+    doReturn(ops).when(operations).getOps();
+    return operations;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Query<AgentImpl> createQuery() {
+    final Query<AgentImpl> query = mock(Query.class);
+    when(query.getQueryObject()).thenReturn(new BasicDBObject("about", "agent"));
+    return query;
+  }
+
+  @Test
+  void testAddUpsertForNewEntity() {
+
+    // Add an upsert for an object that does not exist yet.
+    final MongoBulkOperations bulkOperations = new MongoBulkOperations(mongoServer);
+    final AgentImpl updated = new AgentImpl();
+    final DBObject ops = new BasicDBObject("$set", new BasicDBObject("foafName", "name"));
+    final AgentImpl result = bulkOperations.addUpsert(AgentImpl.class, "agent", null, updated,
+        createQuery(), createOperations(ops));
+
+    // Check that the object got a new identifier that is set on insert.
+    assertSame(updated, result);
+    assertNotNull(updated.getId());
+    assertEquals(updated.getId(), ((DBObject) ops.get("$setOnInsert")).get("_id"));
+
+    // Check that the object is now known without accessing the database.
+    @SuppressWarnings("unchecked") final Supplier<Query<AgentImpl>> queryCreator = mock(
+        Supplier.class);
+    assertSame(updated, bulkOperations.getCurrent(AgentImpl.class, "agent", queryCreator));
+    verify(queryCreator, never()).get();
+  }
+
+  @Test
+  void testAddUpsertForExistingEntity() {
+
+    // Add an upsert for an object that exists already.
+    final MongoBulkOperations bulkOperations = new MongoBulkOperations(mongoServer);
+    final AgentImpl current = new AgentImpl();
+    current.setId(new ObjectId());
+    final AgentImpl updated = new AgentImpl();
+    final DBObject ops = new BasicDBObject("$setOnInsert", new BasicDBObject("about", "agent"));
+    bulkOperations.addUpsert(AgentImpl.class, "agent", current, updated, createQuery(),
+        createOperations(ops));
+
+    // Check that the object kept its identifier.
+    assertEquals(current.getId(), updated.getId());
+    final DBObject setOnInsert = (DBObject) ops.get("$setOnInsert");
+    assertEquals(current.getId(), setOnInsert.get("_id"));
+    assertEquals("agent", setOnInsert.get("about"));
+  }
+
+  @Test
+  void testFlush() {
+
+    // Add two upserts and flush.
+    final MongoBulkOperations bulkOperations = new MongoBulkOperations(mongoServer);
+    bulkOperations.addUpsert(AgentImpl.class, "agent1", null, new AgentImpl(), createQuery(),
+        createOperations(new BasicDBObject()));
+    bulkOperations.addUpsert(AgentImpl.class, "agent2", null, new AgentImpl(), createQuery(),
+        createOperations(new BasicDBObject()));
+    bulkOperations.flush();
+
+    // Check that both upserts are sent in one bulk write.
+    verify(collection, times(1)).initializeUnorderedBulkOperation();
+    verify(bulkWriteOperation, times(2)).find(any());
+    verify(bulkWriteOperation, times(1)).execute();
+
+    // Flush again: nothing should happen.
+    bulkOperations.flush();
+    verify(collection, times(1)).initializeUnorderedBulkOperation();
+  }
+
+  @Test
+  void testRoundTripsAreRecorded() {
+
+    // Look up an unknown object and flush two upserts.
+    final InMemoryIndexingMetrics metrics = new InMemoryIndexingMetrics();
+    final MongoBulkOperations bulkOperations = new MongoBulkOperations(mongoServer, metrics);
+    final Query<AgentImpl> query = createQuery();
+    bulkOperations.getCurrent(AgentImpl.class, "agent1", () -> query);
+    bulkOperations.addUpsert(AgentImpl.class, "agent1", null, new AgentImpl(), createQuery(),
+        createOperations(new BasicDBObject()));
+    bulkOperations.addUpsert(AgentImpl.class, "agent2", null, new AgentImpl(), createQuery(),
+        createOperations(new BasicDBObject()));
+    bulkOperations.flush();
+
+    // Check that there were two round trips: the lookup and the bulk write.
+    assertEquals(2, metrics.getCounter(IndexingMetrics.MONGO_ROUND_TRIPS_PREFIX + "AgentImpl"));
+  }
+
+  @Test
+  void testReplaceReassignedIdentifiersWithoutReassignments() {
+    final MongoBulkOperations bulkOperations = new MongoBulkOperations(mongoServer);
+    final ObjectId id = new ObjectId();
+    final List<Object> references = new ArrayList<>();
+    references.add(new DBRef("Agent", id));
+    final DBObject ops = new BasicDBObject("$set", new BasicDBObject("agents", references));
+    bulkOperations.replaceReassignedIdentifiers(createOperations(ops));
+    assertEquals(id, ((DBRef) references.get(0)).getId());
+  }
+}
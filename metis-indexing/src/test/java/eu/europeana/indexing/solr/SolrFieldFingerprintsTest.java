@@ -0,0 +1,89 @@
+package eu.europeana.indexing.solr;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import org.apache.solr.common.SolrInputDocument;
+import org.junit.jupiter.api.Test;
+
+class SolrFieldFingerprintsTest {
+
+  private static final String ID = "/123/abc";
+
+  private static SolrInputDocument createDocument(String title, Date updated) {
+    final SolrInputDocument document = new SolrInputDocument();
+    document.addField(EdmLabel.EUROPEANA_ID.toString(), ID);
+    document.addField(EdmLabel.TIMESTAMP_UPDATED.toString(), updated);
+    document.addField(EdmLabel.CONTENT_TIER.toString(), "2");
+    document.addField(EdmLabel.METADATA_TIER.toString(), "A");
+    document.addField("proxy_dc_title.en", title);
+    document.addField("proxy_dc_subject", Arrays.asList("subject 1", "subject 2"));
+    return document;
+  }
+
+  @Test
+  void testStoredValueRoundTrip() {
+    final SolrFieldFingerprints fingerprints = SolrFieldFingerprints
+        .compute(createDocument("title", new Date(1000)));
+    final List<String> storedValue = fingerprints.toStoredValue();
+    assertEquals(SolrFieldFingerprints.FINGERPRINT_VERSION, storedValue.get(0));
+    assertEquals(storedValue.size() - 1, createDocument("title", new Date(1000)).size());
+
+    final SolrFieldFingerprints restored = SolrFieldFingerprints.fromStoredValue(storedValue);
+    assertNotNull(restored);
+    assertEquals(1, fingerprints
+        .createAtomicUpdate(createDocument("title", new Date(1000)), restored).size());
+  }
+
+  @Test
+  void testInvalidStoredValues() {
+    assertNull(SolrFieldFingerprints.fromStoredValue(null));
+    assertNull(SolrFieldFingerprints.fromStoredValue("1"));
+    assertNull(SolrFieldFingerprints.fromStoredValue(Collections.emptyList()));
+    assertNull(SolrFieldFingerprints.fromStoredValue(Arrays.asList("0", "abc field")));
+    assertNull(SolrFieldFingerprints.fromStoredValue(Arrays.asList(
+        SolrFieldFingerprints.FINGERPRINT_VERSION, "no-separator")));
+  }
+
+  @Test
+  void testAtomicUpdateContainsChangedFieldsOnly() {
+    final SolrInputDocument previousDocument = createDocument("title", new Date(1000));
+    final SolrFieldFingerprints previous = SolrFieldFingerprints.compute(previousDocument);
+    final SolrInputDocument document = createDocument("title", new Date(2000));
+    document.removeField("proxy_dc_subject");
+
+    final SolrInputDocument update = SolrFieldFingerprints.compute(document)
+        .createAtomicUpdate(document, previous);
+    assertNotNull(update);
+    assertEquals(3, update.size());
+    assertEquals(ID, update.getFieldValue(EdmLabel.EUROPEANA_ID.toString()));
+    assertEquals(Collections.singletonMap("set", Collections.singletonList(new Date(2000))),
+        update.getFieldValue(EdmLabel.TIMESTAMP_UPDATED.toString()));
+    assertEquals(Collections.singletonMap("set", null),
+        update.getFieldValue("proxy_dc_subject"));
+  }
+
+  @Test
+  void testFullReplaceWhenTooManyFieldsChange() {
+    final SolrFieldFingerprints previous = SolrFieldFingerprints
+        .compute(createDocument("title", new Date(1000)));
+    final SolrInputDocument document = createDocument("other title", new Date(2000));
+    document.setField(EdmLabel.CONTENT_TIER.toString(), "3");
+    document.setField(EdmLabel.METADATA_TIER.toString(), "B");
+    assertNull(SolrFieldFingerprints.compute(document).createAtomicUpdate(document, previous));
+  }
+
+  @Test
+  void testFullReplaceWhenIdChanges() {
+    final SolrFieldFingerprints previous = SolrFieldFingerprints
+        .compute(createDocument("title", new Date(1000)));
+    final SolrInputDocument document = createDocument("title", new Date(1000));
+    document.setField(EdmLabel.EUROPEANA_ID.toString(), "/123/other");
+    assertNull(SolrFieldFingerprints.compute(document).createAtomicUpdate(document, previous));
+  }
+}
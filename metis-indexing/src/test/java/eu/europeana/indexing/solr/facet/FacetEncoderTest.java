@@ -0,0 +1,172 @@
+package eu.europeana.indexing.solr.facet;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+import eu.europeana.indexing.solr.facet.FacetEncoder.FacetCodes;
+import eu.europeana.indexing.solr.facet.value.AudioDuration;
+import eu.europeana.indexing.solr.facet.value.AudioQuality;
+import eu.europeana.indexing.solr.facet.value.FacetValue;
+import eu.europeana.indexing.solr.facet.value.ImageAspectRatio;
+import eu.europeana.indexing.solr.facet.value.ImageColorEncoding;
+import eu.europeana.indexing.solr.facet.value.ImageColorSpace;
+import eu.europeana.indexing.solr.facet.value.ImageSize;
+import eu.europeana.indexing.solr.facet.value.MediaTypeEncoding;
+import eu.europeana.indexing.solr.facet.value.MimeTypeEncoding;
+import eu.europeana.indexing.solr.facet.value.VideoDuration;
+import eu.europeana.indexing.solr.facet.value.VideoQuality;
+import eu.europeana.indexing.utils.SetUtils;
+import eu.europeana.indexing.utils.WebResourceWrapper;
+import eu.europeana.indexing.utils.WebResourceWrapper.ColorSpace;
+import eu.europeana.indexing.utils.WebResourceWrapper.Orientation;
+import eu.europeana.metis.utils.MediaType;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Differential test: compares the results of the {@link FacetEncoder} with those of a reference
+ * implementation based on sets of (boxed) integers.
+ */
+class FacetEncoderTest {
+
+  private static final int ITERATIONS = 200;
+
+  private final Random random = new Random(42);
+
+  private <T extends Enum<T>> Set<T> randomSubset(Class<T> type, int expectedSize) {
+    final Set<T> values = EnumSet.allOf(type);
+    final double probability = Math.min(1.0, ((double) expectedSize) / values.size());
+    return values.stream().filter(value -> random.nextDouble() < probability)
+        .collect(Collectors.toCollection(() -> EnumSet.noneOf(type)));
+  }
+
+  private static <T extends Enum<T> & FacetValue> Set<Integer> encode(EncodedFacet<T> facet,
+      Set<T> values) {
+    return values.stream().map(facet::encodeValue).collect(Collectors.toSet());
+  }
+
+  private static Set<Integer> referenceFilterCodes(MediaTypeEncoding mediaType,
+      List<Set<Integer>> codes) {
+    return SetUtils.generateCombinations(codes, EncodedFacet.MEDIA_TYPE.encodeValue(mediaType),
+        (combination, code) -> combination | code);
+  }
+
+  private static Set<Integer> referenceValueCodes(MediaTypeEncoding mediaType,
+      List<Set<Integer>> codes) {
+    final int shiftedMediaTypeCode = EncodedFacet.MEDIA_TYPE.encodeValue(mediaType);
+    return codes.stream().flatMap(Set::stream).map(code -> shiftedMediaTypeCode | code)
+        .collect(Collectors.toSet());
+  }
+
+  @Test
+  void testImageCodes() {
+    final FacetEncoder encoder = new FacetEncoder();
+    for (int i = 0; i < ITERATIONS; i++) {
+      final Set<MimeTypeEncoding> mimeTypes = randomSubset(MimeTypeEncoding.class, 2);
+      final Set<ImageSize> sizes = randomSubset(ImageSize.class, 1);
+      final Set<ImageColorSpace> colorSpaces = randomSubset(ImageColorSpace.class, 1);
+      final Set<ImageAspectRatio> aspectRatios = randomSubset(ImageAspectRatio.class, 1);
+      final Set<ImageColorEncoding> colors = randomSubset(ImageColorEncoding.class, 6);
+      final List<Set<Integer>> codes = Arrays.asList(encode(EncodedFacet.MIME_TYPE, mimeTypes),
+          encode(EncodedFacet.IMAGE_SIZE, sizes),
+          encode(EncodedFacet.IMAGE_COLOR_SPACE, colorSpaces),
+          encode(EncodedFacet.IMAGE_ASPECT_RATIO, aspectRatios),
+          encode(EncodedFacet.IMAGE_COLOR_ENCODING, colors));
+      assertEquals(referenceFilterCodes(MediaTypeEncoding.IMAGE, codes), encoder
+          .getImageFacetFilterCodes(mimeTypes, sizes, colorSpaces, aspectRatios, colors));
+      assertEquals(referenceValueCodes(MediaTypeEncoding.IMAGE, codes), encoder
+          .getImageFacetValueCodes(mimeTypes, sizes, colorSpaces, aspectRatios, colors));
+    }
+  }
+
+  @Test
+  void testAudioCodes() {
+    final FacetEncoder encoder = new FacetEncoder();
+    for (int i = 0; i < ITERATIONS; i++) {
+      final Set<MimeTypeEncoding> mimeTypes = randomSubset(MimeTypeEncoding.class, 2);
+      final Set<AudioQuality> qualities = randomSubset(AudioQuality.class, 1);
+      final Set<AudioDuration> durations = randomSubset(AudioDuration.class, 2);
+      final List<Set<Integer>> codes = Arrays.asList(encode(EncodedFacet.MIME_TYPE, mimeTypes),
+          encode(EncodedFacet.AUDIO_QUALITY, qualities),
+          encode(EncodedFacet.AUDIO_DURATION, durations));
+      assertEquals(referenceFilterCodes(MediaTypeEncoding.AUDIO, codes),
+          encoder.getAudioFacetFilterCodes(mimeTypes, qualities, durations));
+      assertEquals(referenceValueCodes(MediaTypeEncoding.AUDIO, codes),
+          encoder.getAudioFacetValueCodes(mimeTypes, qualities, durations));
+    }
+  }
+
+  @Test
+  void testVideoAndTextCodes() {
+    final FacetEncoder encoder = new FacetEncoder();
+    for (int i = 0; i < ITERATIONS; i++) {
+      final Set<MimeTypeEncoding> mimeTypes = randomSubset(MimeTypeEncoding.class, 3);
+      final Set<VideoQuality> qualities = randomSubset(VideoQuality.class, 1);
+      final Set<VideoDuration> durations = randomSubset(VideoDuration.class, 2);
+      final List<Set<Integer>> videoCodes = Arrays.asList(
+          encode(EncodedFacet.MIME_TYPE, mimeTypes), encode(EncodedFacet.VIDEO_QUALITY, qualities),
+          encode(EncodedFacet.VIDEO_DURATION, durations));
+      assertEquals(referenceFilterCodes(MediaTypeEncoding.VIDEO, videoCodes),
+          encoder.getVideoFacetFilterCodes(mimeTypes, qualities, durations));
+      assertEquals(referenceValueCodes(MediaTypeEncoding.VIDEO, videoCodes),
+          encoder.getVideoFacetValueCodes(mimeTypes, qualities, durations));
+      final List<Set<Integer>> textCodes = List.of(encode(EncodedFacet.MIME_TYPE, mimeTypes));
+      assertEquals(referenceFilterCodes(MediaTypeEncoding.TEXT, textCodes),
+          encoder.getTextFacetFilterCodes(mimeTypes));
+      assertEquals(referenceValueCodes(MediaTypeEncoding.TEXT, textCodes),
+          encoder.getTextFacetValueCodes(mimeTypes));
+    }
+  }
+
+  private WebResourceWrapper createImageWebResource() {
+    final WebResourceWrapper webResource = mock(WebResourceWrapper.class);
+    doReturn(MediaType.IMAGE).when(webResource).getMediaType();
+    doReturn(random.nextBoolean() ? "image/jpeg" : "image/png").when(webResource).getMimeType();
+    doReturn((long) random.nextInt(5_000_000)).when(webResource).getSize();
+    doReturn(ColorSpace.values()[random.nextInt(ColorSpace.values().length)]).when(webResource)
+        .getColorSpace();
+    doReturn(Orientation.values()[random.nextInt(Orientation.values().length)]).when(webResource)
+        .getOrientation();
+    doReturn(randomSubset(ImageColorEncoding.class, 5).stream()
+        .map(ImageColorEncoding::getHexStringWithHash).collect(Collectors.toSet()))
+        .when(webResource).getColorHexCodes();
+    return webResource;
+  }
+
+  @Test
+  void testFacetCodesForWebResources() {
+    for (int i = 0; i < ITERATIONS / 10; i++) {
+
+      // Create web resources, including one without supported media type.
+      final List<WebResourceWrapper> webResources = Arrays
+          .asList(createImageWebResource(), createImageWebResource(),
+              mock(WebResourceWrapper.class));
+
+      // Compute the expected result using the single-resource methods.
+      final FacetEncoder encoder = new FacetEncoder();
+      final Set<Integer> expectedFilterCodes = new HashSet<>();
+      final Set<Integer> expectedValueCodes = new HashSet<>();
+      for (WebResourceWrapper webResource : webResources) {
+        expectedFilterCodes.addAll(encoder.getFacetFilterCodes(webResource));
+        expectedValueCodes.addAll(encoder.getFacetValueCodes(webResource));
+      }
+      assertTrue(expectedFilterCodes.containsAll(expectedValueCodes));
+
+      // Compare with the combined result.
+      final FacetCodes result = encoder.getFacetCodes(webResources);
+      assertArrayEquals(expectedFilterCodes.stream().mapToInt(Integer::intValue).sorted()
+          .toArray(), result.getFilterCodes());
+      assertArrayEquals(expectedValueCodes.stream().mapToInt(Integer::intValue).sorted()
+          .toArray(), result.getValueCodes());
+    }
+  }
+}
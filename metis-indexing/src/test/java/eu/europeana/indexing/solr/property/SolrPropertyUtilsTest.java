@@ -86,6 +86,25 @@ public class SolrPropertyUtilsTest {
 
   }
 
+  @Test
+  public void testAddMapValuesRepeatedly() {
+
+    // Add values for the same keys to the same document twice.
+    final SolrInputDocument document = new SolrInputDocument();
+    final Map<String, List<String>> input = new HashMap<>();
+    input.put("en", Arrays.asList("A", "B"));
+    input.put("nl", Collections.singletonList("C"));
+    SolrPropertyUtils.addValues(document, EdmLabel.PL_SKOS_PREF_LABEL, input);
+    SolrPropertyUtils.addValues(document, EdmLabel.PL_SKOS_PREF_LABEL, input);
+
+    // Verify that the values are appended to the fields.
+    assertEquals(2, document.getFieldNames().size());
+    assertEquals(Arrays.asList("A", "B", "A", "B"), List.copyOf(
+        document.getFieldValues(EdmLabel.PL_SKOS_PREF_LABEL.toString() + ".en")));
+    assertEquals(Arrays.asList("C", "C"), List.copyOf(
+        document.getFieldValues(EdmLabel.PL_SKOS_PREF_LABEL.toString() + ".nl")));
+  }
+
   @Test
   public void testRightsForMap() {
 
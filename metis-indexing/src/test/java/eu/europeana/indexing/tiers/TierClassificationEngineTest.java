@@ -0,0 +1,52 @@
+package eu.europeana.indexing.tiers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import eu.europeana.indexing.tiers.TierClassificationEngine.Classification;
+import eu.europeana.indexing.tiers.model.MediaTier;
+import eu.europeana.indexing.tiers.model.MetadataTier;
+import eu.europeana.indexing.tiers.model.TierClassifier;
+import eu.europeana.indexing.utils.RdfWrapper;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class TierClassificationEngineTest {
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void testClassify() {
+
+    // Create the classifiers and records
+    final TierClassifier<MediaTier> mediaClassifier = mock(TierClassifier.class);
+    final TierClassifier<MetadataTier> metadataClassifier = mock(TierClassifier.class);
+    final RdfWrapper record1 = mock(RdfWrapper.class);
+    final RdfWrapper record2 = mock(RdfWrapper.class);
+    doReturn(MediaTier.T1).when(mediaClassifier).classify(record1);
+    doReturn(MetadataTier.TA).when(metadataClassifier).classify(record1);
+    doReturn(MediaTier.T4).when(mediaClassifier).classify(record2);
+    doReturn(MetadataTier.TC).when(metadataClassifier).classify(record2);
+    final TierClassificationEngine engine = new TierClassificationEngine(mediaClassifier,
+        metadataClassifier);
+
+    // Classify a single record
+    final Classification classification = engine.classify(record1);
+    assertSame(MediaTier.T1, classification.getMediaTier());
+    assertSame(MetadataTier.TA, classification.getMetadataTier());
+
+    // Classify a batch of records: the order should be preserved.
+    final List<Classification> classifications = engine.classify(Arrays.asList(record2, record1));
+    assertEquals(2, classifications.size());
+    assertSame(MediaTier.T4, classifications.get(0).getMediaTier());
+    assertSame(MetadataTier.TC, classifications.get(0).getMetadataTier());
+    assertSame(MediaTier.T1, classifications.get(1).getMediaTier());
+    assertSame(MetadataTier.TA, classifications.get(1).getMetadataTier());
+    verify(mediaClassifier, times(2)).classify(record1);
+    verify(metadataClassifier, times(1)).classify(record2);
+  }
+}
@@ -280,6 +280,25 @@ class LanguageTagStatisticsTest {
         statistics.getAddedPropertiesWithLanguage());
   }
 
+  @Test
+  void testAddToStatisticsForTypeWithLanguage() {
+
+    // Register a type with language.
+    final LanguageTagStatistics statistics = spy(new LanguageTagStatistics(null, null, null));
+    final PropertyType propertyType = PropertyType.DC_SUBJECT;
+    statistics.addToStatistics(createResourceOrLiteralType("lang", null, "value"), propertyType);
+
+    // Add many more values: the outcome can't change, so contextual classes are not checked.
+    for (int i = 0; i < 1000; i++) {
+      statistics.addToStatistics(createResourceOrLiteralType(null, "resource" + i, "value" + i),
+          propertyType);
+    }
+    verify(statistics, never()).containsContextualClass(any());
+    assertEquals(EnumSet.of(propertyType), statistics.getAllAddedProperties());
+    assertEquals(EnumSet.of(propertyType), statistics.getAddedPropertiesWithLanguage());
+    assertEquals(1.0, statistics.getPropertyWithLanguageRatio());
+  }
+
   private ResourceOrLiteralType createResourceOrLiteralType(String language, String resource,
       String value) {
     final ResourceOrLiteralType result = new ResourceOrLiteralType();
@@ -0,0 +1,87 @@
+package eu.europeana.indexing.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import eu.europeana.corelib.definitions.jibx.AgentType;
+import eu.europeana.corelib.definitions.jibx.ProxyType;
+import eu.europeana.corelib.definitions.jibx.RDF;
+import eu.europeana.corelib.definitions.jibx.WebResourceType;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class RdfSnapshotWrapperTest {
+
+  private static WebResourceType createWebResource(String about) {
+    final WebResourceType webResource = mock(WebResourceType.class);
+    doReturn(about).when(webResource).getAbout();
+    return webResource;
+  }
+
+  @Test
+  void testViewsAreComputedOnce() {
+
+    // Create the record
+    final AgentType agent = mock(AgentType.class);
+    doReturn("agent").when(agent).getAbout();
+    final RDF rdf = mock(RDF.class);
+    when(rdf.getAgentList()).thenReturn(Arrays.asList(agent, null));
+    when(rdf.getWebResourceList())
+        .thenReturn(Arrays.asList(createWebResource("wr1"), createWebResource(" ")));
+
+    // Check that the snapshot gives the same result as the regular wrapper.
+    final RdfWrapper snapshot = RdfWrapper.createSnapshot(rdf);
+    final RdfWrapper wrapper = new RdfWrapper(rdf);
+    assertEquals(wrapper.getAgents(), snapshot.getAgents());
+    assertEquals(wrapper.getWebResources(), snapshot.getWebResources());
+    assertEquals(wrapper.getAbout(), snapshot.getAbout());
+    assertEquals(wrapper.getEdmType(), snapshot.getEdmType());
+
+    // Check that the views are computed only once.
+    assertSame(snapshot.getAgents(), snapshot.getAgents());
+    assertSame(snapshot.getWebResourceWrappers(EnumSet.of(WebResourceLinkType.IS_SHOWN_BY)),
+        snapshot.getWebResourceWrappers(EnumSet.of(WebResourceLinkType.IS_SHOWN_BY)));
+    verify(rdf, times(2)).getAgentList();
+    verify(rdf, times(2)).getWebResourceList();
+  }
+
+  @Test
+  void testViewsAreImmutable() {
+    final RDF rdf = mock(RDF.class);
+    when(rdf.getProxyList()).thenReturn(Collections.singletonList(mock(ProxyType.class)));
+    when(rdf.getWebResourceList()).thenReturn(List.of(createWebResource("wr1")));
+    final RdfWrapper snapshot = RdfWrapper.createSnapshot(rdf);
+    assertThrows(UnsupportedOperationException.class, () -> snapshot.getProxies().clear());
+    assertThrows(UnsupportedOperationException.class, () -> snapshot.getWebResources().clear());
+    assertThrows(UnsupportedOperationException.class,
+        () -> snapshot.getWebResourcesByAbout().clear());
+    assertThrows(UnsupportedOperationException.class,
+        () -> snapshot.getUrlsOfTypes(EnumSet.allOf(WebResourceLinkType.class)).clear());
+  }
+
+  @Test
+  void testWebResourcesByAbout() {
+    final WebResourceType webResource1 = createWebResource("wr1");
+    final WebResourceType webResource2 = createWebResource("wr2");
+    final WebResourceType duplicate = createWebResource("wr1");
+    final RDF rdf = mock(RDF.class);
+    when(rdf.getWebResourceList())
+        .thenReturn(Arrays.asList(webResource1, null, webResource2, duplicate));
+    final Map<String, WebResourceType> result = RdfWrapper.createSnapshot(rdf)
+        .getWebResourcesByAbout();
+    assertEquals(Arrays.asList("wr1", "wr2"), List.copyOf(result.keySet()));
+    assertSame(webResource1, result.get("wr1"));
+    assertSame(webResource2, result.get("wr2"));
+    assertEquals(result, new RdfWrapper(rdf).getWebResourcesByAbout());
+  }
+}
@@ -0,0 +1,59 @@
+package eu.europeana.indexing.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import eu.europeana.corelib.definitions.jibx.Created;
+import eu.europeana.corelib.definitions.jibx.HasBody;
+import eu.europeana.corelib.definitions.jibx.ProvidedCHOType;
+import eu.europeana.corelib.definitions.jibx.QualityAnnotation;
+import eu.europeana.corelib.definitions.jibx.RDF;
+import eu.europeana.indexing.exception.IndexingException;
+import java.util.Collections;
+import org.junit.jupiter.api.Test;
+
+class RecordFingerprintTest {
+
+  private static RdfWrapper createRecord(String about) {
+    final ProvidedCHOType providedCHO = new ProvidedCHOType();
+    providedCHO.setAbout(about);
+    final RDF rdf = new RDF();
+    rdf.setProvidedCHOList(Collections.singletonList(providedCHO));
+    return new RdfWrapper(rdf);
+  }
+
+  @Test
+  void testFingerprint() throws IndexingException {
+    final String fingerprint = RecordFingerprint.compute(createRecord("/1/a"));
+    assertEquals(fingerprint, RecordFingerprint.compute(createRecord("/1/a")));
+    assertEquals(fingerprint, RecordFingerprint.compute(RdfWrapper.createSnapshot(
+        createRecord("/1/a").getRecord())));
+    assertNotEquals(fingerprint, RecordFingerprint.compute(createRecord("/1/b")));
+  }
+
+  @Test
+  void testFingerprintIgnoresTierCreationDate() throws IndexingException {
+    final RdfWrapper record1 = createRecordWithAnnotation("/1/a", "2020-01-01T00:00:00Z");
+    final RdfWrapper record2 = createRecordWithAnnotation("/1/a", "2020-06-01T00:00:00Z");
+    assertEquals(RecordFingerprint.compute(record1), RecordFingerprint.compute(record2));
+    assertEquals(RecordFingerprint.compute(record1), RecordFingerprint.compute(record1));
+    assertEquals("2020-01-01T00:00:00Z",
+        record1.getRecord().getQualityAnnotationList().get(0).getCreated().getString());
+    assertNotEquals(RecordFingerprint.compute(record1),
+        RecordFingerprint.compute(createRecord("/1/a")));
+  }
+
+  private static RdfWrapper createRecordWithAnnotation(String about, String created) {
+    final RdfWrapper record = createRecord(about);
+    final QualityAnnotation annotation = new QualityAnnotation();
+    annotation.setAbout("/item" + about + "#contentTier");
+    final Created creationDate = new Created();
+    creationDate.setString(created);
+    annotation.setCreated(creationDate);
+    final HasBody body = new HasBody();
+    body.setResource(RdfTier.CONTENT_TIER_1.getUri());
+    annotation.setHasBody(body);
+    record.getRecord().setQualityAnnotationList(Collections.singletonList(annotation));
+    return record;
+  }
+}
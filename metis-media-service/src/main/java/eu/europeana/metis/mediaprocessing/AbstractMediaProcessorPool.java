@@ -5,9 +5,11 @@ import eu.europeana.metis.mediaprocessing.exception.MediaExtractionException;
 import eu.europeana.metis.mediaprocessing.exception.MediaProcessorException;
 import eu.europeana.metis.mediaprocessing.model.MediaExtractorInput;
 import eu.europeana.metis.mediaprocessing.model.RdfResourceEntry;
+import eu.europeana.metis.mediaprocessing.model.ResourceExtractionOutcome;
 import eu.europeana.metis.mediaprocessing.model.ResourceExtractionResult;
 import java.io.Closeable;
 import java.time.Duration;
+import java.util.List;
 import org.apache.commons.pool2.BasePooledObjectFactory;
 import org.apache.commons.pool2.PooledObject;
 import org.apache.commons.pool2.impl.DefaultPooledObject;
@@ -75,6 +77,11 @@ public abstract class AbstractMediaProcessorPool<I, O, E extends Exception, T ex
    * @throws MediaProcessorException In case a problem occurred while obtaining processor from the pool.
    */
   public final O processTask(I input) throws MediaProcessorException, E {
+    return performWithProcessor(processor -> processor.processTask(input));
+  }
+
+  final <R, X extends Exception> R performWithProcessor(ProcessorAction<T, R, X> action)
+      throws MediaProcessorException, X {
 
     // Obtain indexer from the pool.
     final T processor;
@@ -86,7 +93,7 @@ public abstract class AbstractMediaProcessorPool<I, O, E extends Exception, T ex
 
     // Perform indexing and release indexer.
     try {
-      return processor.processTask(input);
+      return action.perform(processor);
     } finally {
       pool.returnObject(processor);
     }
@@ -133,6 +140,12 @@ public abstract class AbstractMediaProcessorPool<I, O, E extends Exception, T ex
     T create(MediaProcessorFactory factory) throws MediaProcessorException;
   }
 
+  @FunctionalInterface
+  interface ProcessorAction<T, R, X extends Exception> {
+
+    R perform(T processor) throws X;
+  }
+
   /**
    * A {@link AbstractMediaProcessorPool} for {@link MediaExtractor} instances.
    */
@@ -172,6 +185,24 @@ public abstract class AbstractMediaProcessorPool<I, O, E extends Exception, T ex
       return processTask(new MediaExtractorInput(resourceEntry, mainThumbnailAvailable));
     }
 
+    /**
+     * This method provides access to the pool. It takes one processor from the pool and processes
+     * the given resources of one record. See {@link MediaExtractor#performMediaExtraction(List,
+     * boolean)}.
+     *
+     * @param resourceEntries The resource entries (obtained from an RDF).
+     * @param mainThumbnailAvailable Whether the main thumbnail for this record is available. This
+     * may influence the decision on whether to generate a thumbnail for these resources.
+     * @return The outcomes, in the same order as the resource entries.
+     * @throws MediaProcessorException In case a problem occurred while obtaining processor from the
+     * pool.
+     */
+    public List<ResourceExtractionOutcome> processTasks(List<RdfResourceEntry> resourceEntries,
+        boolean mainThumbnailAvailable) throws MediaProcessorException {
+      return performWithProcessor(
+          processor -> processor.performMediaExtraction(resourceEntries, mainThumbnailAvailable));
+    }
+
     /**
      * This method provides access to the pool. It takes one processor from the pool and processes
      * the given input. This is a convenience method for {@link #processTask(Object)};
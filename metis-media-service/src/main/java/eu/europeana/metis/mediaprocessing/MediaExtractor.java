@@ -3,7 +3,10 @@ package eu.europeana.metis.mediaprocessing;
 import eu.europeana.metis.mediaprocessing.exception.MediaExtractionException;
 import eu.europeana.metis.mediaprocessing.model.MediaExtractorInput;
 import eu.europeana.metis.mediaprocessing.model.RdfResourceEntry;
+import eu.europeana.metis.mediaprocessing.model.ResourceExtractionOutcome;
 import eu.europeana.metis.mediaprocessing.model.ResourceExtractionResult;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Implementations of this interface provide the media extraction functionality. This object can be
@@ -27,6 +30,32 @@ public interface MediaExtractor extends
   ResourceExtractionResult performMediaExtraction(RdfResourceEntry resourceEntry,
           boolean mainThumbnailAvailable) throws MediaExtractionException;
 
+  /**
+   * Perform media extraction on the given resource links, typically all the resources of one
+   * record. This is functionally equivalent to calling {@link
+   * #performMediaExtraction(RdfResourceEntry, boolean)} for each of the resources, but
+   * implementations may process the resources together where this is more efficient.
+   *
+   * @param resourceEntries The resource entries (obtained from an RDF).
+   * @param mainThumbnailAvailable Whether the main thumbnail for this record is available. This may
+   * influence the decision on whether to generate a thumbnail for these resources.
+   * @return The outcomes, in the same order as the resource entries. Each outcome contains either
+   * the result of the extraction for that resource or the exception that occurred.
+   */
+  default List<ResourceExtractionOutcome> performMediaExtraction(
+      List<RdfResourceEntry> resourceEntries, boolean mainThumbnailAvailable) {
+    final List<ResourceExtractionOutcome> result = new ArrayList<>(resourceEntries.size());
+    for (RdfResourceEntry resourceEntry : resourceEntries) {
+      try {
+        result.add(new ResourceExtractionOutcome(
+            performMediaExtraction(resourceEntry, mainThumbnailAvailable), null));
+      } catch (MediaExtractionException e) {
+        result.add(new ResourceExtractionOutcome(null, e));
+      }
+    }
+    return result;
+  }
+
   /**
    * Perform media extraction on the given resource link.
    *
@@ -2,7 +2,9 @@ package eu.europeana.metis.mediaprocessing;
 
 import eu.europeana.metis.mediaprocessing.exception.MediaProcessorException;
 import eu.europeana.metis.mediaprocessing.extraction.MediaExtractorImpl;
+import eu.europeana.metis.mediaprocessing.http.HostDownloadScheduler;
 import eu.europeana.metis.mediaprocessing.linkchecking.LinkCheckerImpl;
+import java.time.Duration;
 
 /**
  * This factory creates objects for media extraction and link checking. This object is thread-safe.
@@ -51,12 +53,35 @@ public class MediaProcessorFactory {
    */
   public static final int DEFAULT_RESOURCE_DOWNLOAD_TIMEOUT = 600_000;
 
+  /**
+   * The default value of the maximum number of concurrent downloads (to all hosts combined). It's
+   * {@value MediaProcessorFactory#DEFAULT_MAX_CONCURRENT_DOWNLOADS}.
+   */
+  public static final int DEFAULT_MAX_CONCURRENT_DOWNLOADS = 100;
+
+  /**
+   * The default value of the maximum number of concurrent downloads from the same host. It's
+   * {@value MediaProcessorFactory#DEFAULT_MAX_CONCURRENT_DOWNLOADS_PER_HOST}.
+   */
+  public static final int DEFAULT_MAX_CONCURRENT_DOWNLOADS_PER_HOST = 8;
+
+  /**
+   * The default value of the minimum delay between the starts of two downloads from the same host.
+   * It's {@value MediaProcessorFactory#DEFAULT_MIN_DOWNLOAD_DELAY_PER_HOST} milliseconds.
+   */
+  public static final int DEFAULT_MIN_DOWNLOAD_DELAY_PER_HOST = 0;
+
   private int maxRedirectCount = DEFAULT_MAX_REDIRECT_COUNT;
   private int thumbnailGenerateTimeout = DEFAULT_THUMBNAIL_GENERATE_TIMEOUT;
   private int audioVideoProbeTimeout = DEFAULT_AUDIO_VIDEO_PROBE_TIMEOUT;
   private int resourceConnectTimeout = DEFAULT_RESOURCE_CONNECT_TIMEOUT;
   private int resourceResponseTimeout = DEFAULT_RESOURCE_RESPONSE_TIMEOUT;
   private int resourceDownloadTimeout = DEFAULT_RESOURCE_DOWNLOAD_TIMEOUT;
+  private int maxConcurrentDownloads = DEFAULT_MAX_CONCURRENT_DOWNLOADS;
+  private int maxConcurrentDownloadsPerHost = DEFAULT_MAX_CONCURRENT_DOWNLOADS_PER_HOST;
+  private int minDownloadDelayPerHost = DEFAULT_MIN_DOWNLOAD_DELAY_PER_HOST;
+  private HostDownloadScheduler downloadScheduler;
+  private boolean javaThumbnailBackendEnabled;
 
   /**
    * Set the maximum number of times we will follow a redirect. The default (when not calling this
@@ -146,6 +171,77 @@ public class MediaProcessorFactory {
         resourceDownloadTimeout < 1 ? DEFAULT_RESOURCE_DOWNLOAD_TIMEOUT : resourceDownloadTimeout;
   }
 
+  /**
+   * Set the maximum number of concurrent downloads (to all hosts combined) by all media extractors
+   * and link checkers created by this factory. The default (when not calling this method or calling
+   * it with zero or a negative number) is {@value MediaProcessorFactory#DEFAULT_MAX_CONCURRENT_DOWNLOADS}.
+   * This setting only applies to media extractors and link checkers that are created afterwards.
+   *
+   * @param maxConcurrentDownloads The maximum number of concurrent downloads.
+   */
+  public synchronized void setMaxConcurrentDownloads(int maxConcurrentDownloads) {
+    this.maxConcurrentDownloads =
+        maxConcurrentDownloads < 1 ? DEFAULT_MAX_CONCURRENT_DOWNLOADS : maxConcurrentDownloads;
+    this.downloadScheduler = null;
+  }
+
+  /**
+   * Set the maximum number of concurrent downloads from the same host by all media extractors and
+   * link checkers created by this factory. The default (when not calling this method or calling it
+   * with zero or a negative number) is {@value MediaProcessorFactory#DEFAULT_MAX_CONCURRENT_DOWNLOADS_PER_HOST}.
+   * This setting only applies to media extractors and link checkers that are created afterwards.
+   *
+   * @param maxConcurrentDownloadsPerHost The maximum number of concurrent downloads per host.
+   */
+  public synchronized void setMaxConcurrentDownloadsPerHost(int maxConcurrentDownloadsPerHost) {
+    this.maxConcurrentDownloadsPerHost =
+        maxConcurrentDownloadsPerHost < 1 ? DEFAULT_MAX_CONCURRENT_DOWNLOADS_PER_HOST
+            : maxConcurrentDownloadsPerHost;
+    this.downloadScheduler = null;
+  }
+
+  /**
+   * Set the minimum amount of time, in milliseconds, between the starts of two downloads from the
+   * same host by all media extractors and link checkers created by this factory. The default (when
+   * not calling this method or calling it with a negative number) is {@value
+   * MediaProcessorFactory#DEFAULT_MIN_DOWNLOAD_DELAY_PER_HOST} milliseconds. This setting only
+   * applies to media extractors and link checkers that are created afterwards.
+   *
+   * @param minDownloadDelayPerHost The minimum delay per host in milliseconds.
+   */
+  public synchronized void setMinDownloadDelayPerHost(int minDownloadDelayPerHost) {
+    this.minDownloadDelayPerHost =
+        minDownloadDelayPerHost < 0 ? DEFAULT_MIN_DOWNLOAD_DELAY_PER_HOST : minDownloadDelayPerHost;
+    this.downloadScheduler = null;
+  }
+
+  /**
+   * Set whether thumbnails for common image formats (JPEG, PNG, GIF and BMP) are to be generated
+   * in Java instead of by ImageMagick. This avoids starting an external process for each of these
+   * images. ImageMagick is still used for other formats and for images that can't be processed in
+   * Java. The default (when not calling this method) is false. This setting only applies to media
+   * extractors that are created afterwards.
+   *
+   * @param javaThumbnailBackendEnabled Whether to generate thumbnails in Java where possible.
+   */
+  public void setJavaThumbnailBackendEnabled(boolean javaThumbnailBackendEnabled) {
+    this.javaThumbnailBackendEnabled = javaThumbnailBackendEnabled;
+  }
+
+  /**
+   * Provides the download scheduler that is shared by all media extractors and link checkers
+   * created by this factory (until one of the scheduler settings changes).
+   *
+   * @return The download scheduler.
+   */
+  private synchronized HostDownloadScheduler getDownloadScheduler() {
+    if (downloadScheduler == null) {
+      downloadScheduler = new HostDownloadScheduler(maxConcurrentDownloads,
+          maxConcurrentDownloadsPerHost, Duration.ofMillis(minDownloadDelayPerHost));
+    }
+    return downloadScheduler;
+  }
+
   /**
    * Create a media extractor object that can be used to extract media metadata and thumbnails.
    *
@@ -155,7 +251,7 @@ public class MediaProcessorFactory {
   public MediaExtractor createMediaExtractor() throws MediaProcessorException {
     return new MediaExtractorImpl(maxRedirectCount, thumbnailGenerateTimeout,
         audioVideoProbeTimeout, resourceConnectTimeout, resourceResponseTimeout,
-        resourceDownloadTimeout);
+        resourceDownloadTimeout, getDownloadScheduler(), javaThumbnailBackendEnabled);
   }
 
   /**
@@ -165,6 +261,6 @@ public class MediaProcessorFactory {
    * @throws MediaProcessorException In case there was a problem creating the link checker.
    */
   public LinkChecker createLinkChecker() throws MediaProcessorException {
-    return new LinkCheckerImpl(maxRedirectCount);
+    return new LinkCheckerImpl(maxRedirectCount, getDownloadScheduler());
   }
 }
@@ -67,25 +67,60 @@ class CommandExecutor {
     try {
       return executeInternal(command, redirectErrorStream, exceptionProducer);
     } catch (IOException | RuntimeException e) {
-      final E exceptionToThrow = exceptionProducer
-              .apply("Problem while executing command: " + e.getMessage());
-      exceptionToThrow.initCause(e);
-      throw exceptionToThrow;
+      throw createException(e, exceptionProducer);
     }
   }
 
+  /**
+   * Execute a command that does the work of multiple regular commands (e.g. processing multiple
+   * files in one go), and is therefore allowed to take a multiple of the regular timeout.
+   *
+   * @param command The command to execute, as a list of directives and parameters
+   * @param timeoutMultiplier The number of regular commands that this command replaces. The
+   * timeout is multiplied by this number. Must be positive.
+   * @param redirectErrorStream Whether to return the contents of the error stream as part of the
+   * command's output. See {@link #execute(List, boolean, Function)}.
+   * @param exceptionProducer The function producing the exception that is to be thrown if something
+   * goes wrong. Should accept null values.
+   * @param <E> The type of exception thrown by this instance.
+   * @return The output of the command as a String.
+   * @throws E In case a problem occurs.
+   */
+  <E extends Exception> String execute(List<String> command, int timeoutMultiplier,
+      boolean redirectErrorStream, Function<String, E> exceptionProducer) throws E {
+    try {
+      return executeInternal(command, (long) commandTimeout * timeoutMultiplier,
+          redirectErrorStream, exceptionProducer);
+    } catch (IOException | RuntimeException e) {
+      throw createException(e, exceptionProducer);
+    }
+  }
+
+  private static <E extends Exception> E createException(Exception cause,
+      Function<String, E> exceptionProducer) {
+    final E exceptionToThrow = exceptionProducer
+        .apply("Problem while executing command: " + cause.getMessage());
+    exceptionToThrow.initCause(cause);
+    return exceptionToThrow;
+  }
+
   <E extends Exception> String executeInternal(List<String> command, boolean redirectErrorStream,
           Function<String, E> exceptionProducer) throws IOException, E {
+    return executeInternal(command, commandTimeout, redirectErrorStream, exceptionProducer);
+  }
+
+  private <E extends Exception> String executeInternal(List<String> command, long timeout,
+      boolean redirectErrorStream, Function<String, E> exceptionProducer) throws IOException, E {
 
     // Create process and start it.
     final Process process = processFactory.createProcess(command, redirectErrorStream);
 
     // Wait for the process to finish (or the time-out to elapse).
     try {
-      if (!process.waitFor(commandTimeout, TimeUnit.SECONDS)) {
+      if (!process.waitFor(timeout, TimeUnit.SECONDS)) {
         process.destroyForcibly();
         throw exceptionProducer.apply("The process did not terminate within the timeout of " +
-                commandTimeout + " seconds. It was forcibly destroyed.");
+                timeout + " seconds. It was forcibly destroyed.");
       }
     } catch (InterruptedException e) {
       process.destroyForcibly();
@@ -2,11 +2,16 @@ package eu.europeana.metis.mediaprocessing.extraction;
 
 import eu.europeana.corelib.definitions.jibx.ColorSpaceType;
 import eu.europeana.metis.mediaprocessing.exception.MediaExtractionException;
+import eu.europeana.metis.mediaprocessing.extraction.ThumbnailGenerator.BatchInput;
+import eu.europeana.metis.mediaprocessing.extraction.ThumbnailGenerator.BatchResult;
 import eu.europeana.metis.mediaprocessing.model.ImageResourceMetadata;
 import eu.europeana.metis.mediaprocessing.model.Resource;
+import eu.europeana.metis.mediaprocessing.model.ResourceExtractionOutcome;
 import eu.europeana.metis.mediaprocessing.model.ResourceExtractionResultImpl;
 import eu.europeana.metis.mediaprocessing.model.Thumbnail;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import org.apache.commons.lang3.tuple.Pair;
 
@@ -49,6 +54,66 @@ class ImageProcessor implements MediaProcessor {
   public ResourceExtractionResultImpl extractMetadata(Resource resource, String detectedMimeType,
           boolean mainThumbnailAvailable) throws MediaExtractionException {
 
+    // Check the resource and get its size.
+    final Long contentSize = getContentSize(resource);
+
+    // Create the thumbnails for this image.
+    final Pair<ImageMetadata, List<Thumbnail>> thumbnailsAndMetadata =
+        thumbnailGenerator.generateThumbnails(resource.getResourceUrl(), detectedMimeType,
+            resource.getContentFile(), false);
+
+    // Done.
+    return createResult(resource, detectedMimeType, contentSize, thumbnailsAndMetadata);
+  }
+
+  /**
+   * Process multiple resources by extracting the metadata from the content. This is functionally
+   * equivalent to calling {@link #extractMetadata(Resource, String, boolean)} for each of the
+   * resources, but the thumbnails are generated in batches (see {@link
+   * ThumbnailGenerator#generateThumbnails(List)}).
+   *
+   * @param resources The resources to process, each with the mime type that was detected for it.
+   * @return The outcomes, in the same order as the resources. Each outcome contains either the
+   * result of the processing of that resource or the exception that occurred.
+   */
+  List<ResourceExtractionOutcome> extractMetadata(List<Pair<Resource, String>> resources) {
+
+    // Check the resources: only the ones that pass are sent to the thumbnail generator.
+    final ResourceExtractionOutcome[] outcomes = new ResourceExtractionOutcome[resources.size()];
+    final Long[] contentSizes = new Long[resources.size()];
+    final List<Integer> indices = new ArrayList<>(resources.size());
+    final List<BatchInput> inputs = new ArrayList<>(resources.size());
+    for (int i = 0; i < resources.size(); i++) {
+      final Resource resource = resources.get(i).getLeft();
+      try {
+        contentSizes[i] = getContentSize(resource);
+        inputs.add(new BatchInput(resource.getResourceUrl(), resources.get(i).getRight(),
+            resource.getContentFile(), false));
+        indices.add(i);
+      } catch (MediaExtractionException e) {
+        outcomes[i] = new ResourceExtractionOutcome(null, e);
+      }
+    }
+
+    // Create the thumbnails for these images and compile the results.
+    final List<BatchResult> batchResults = thumbnailGenerator.generateThumbnails(inputs);
+    for (int j = 0; j < indices.size(); j++) {
+      final int i = indices.get(j);
+      try {
+        outcomes[i] = new ResourceExtractionOutcome(
+            createResult(resources.get(i).getLeft(), resources.get(i).getRight(), contentSizes[i],
+                batchResults.get(j).getThumbnailsAndMetadata()), null);
+      } catch (MediaExtractionException e) {
+        outcomes[i] = new ResourceExtractionOutcome(null, e);
+      }
+    }
+
+    // Done.
+    return Arrays.asList(outcomes);
+  }
+
+  private Long getContentSize(Resource resource) throws MediaExtractionException {
+
     // Sanity check
     try {
       if (!resource.hasContent()) {
@@ -59,18 +124,16 @@ class ImageProcessor implements MediaProcessor {
     }
 
     // Get the size of the resource
-    final Long contentSize;
     try {
-      contentSize = nullIfNegative(resource.getContentSize());
+      return nullIfNegative(resource.getContentSize());
     } catch (IOException e) {
       throw new MediaExtractionException(
           "Could not determine the size of the resource " + resource.getResourceUrl(), e);
     }
+  }
 
-    // Create the thumbnails for this image.
-    final Pair<ImageMetadata, List<Thumbnail>> thumbnailsAndMetadata =
-        thumbnailGenerator.generateThumbnails(resource.getResourceUrl(), detectedMimeType,
-            resource.getContentFile(), false);
+  private ResourceExtractionResultImpl createResult(Resource resource, String detectedMimeType,
+      Long contentSize, Pair<ImageMetadata, List<Thumbnail>> thumbnailsAndMetadata) {
 
     // Set the metadata in the web resource.
     final ImageResourceMetadata resourceMetadata;
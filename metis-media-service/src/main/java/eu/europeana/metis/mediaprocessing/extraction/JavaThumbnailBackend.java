@@ -0,0 +1,488 @@
+package eu.europeana.metis.mediaprocessing.extraction;
+
+import eu.europeana.metis.mediaprocessing.exception.MediaExtractionException;
+import eu.europeana.metis.mediaprocessing.exception.MediaProcessorException;
+import eu.europeana.metis.mediaprocessing.extraction.ThumbnailGenerator.ThumbnailWithSize;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.color.ColorSpace;
+import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * <p>
+ * This class generates thumbnails in-process using Java's ImageIO, so that no external process
+ * needs to be started for the common image formats (JPEG, PNG, GIF and BMP). It aims to produce the
+ * same results as the ImageMagick command used by {@link ThumbnailGenerator}:
+ * </p>
+ * <ul>
+ * <li>Only the first frame of the image is used.</li>
+ * <li>The thumbnails are scaled down in steps of at most a factor of two using bilinear
+ * interpolation, which approximates area averaging. Large images are subsampled while they are
+ * read, so that the number of pixels in memory is limited (see {@link #MAX_DECODED_PIXELS}) and the
+ * memory needed does not depend on the size of the image. Images that can not be processed within
+ * this limit (such as very tall images, of which the thumbnails themselves are too large) are
+ * rejected, so that they are left to ImageMagick.</li>
+ * <li>The dominant colors are determined by remapping the last thumbnail to the colors of the color
+ * map using Riemersma dithering (like ImageMagick's <code>-dither Riemersma -remap</code>) and
+ * counting the resulting colors.</li>
+ * </ul>
+ */
+class JavaThumbnailBackend implements ThumbnailBackend {
+
+  private static final Set<String> SUPPORTED_MIME_TYPES = Set
+      .of("image/jpeg", "image/png", "image/gif", "image/bmp", "image/x-ms-bmp");
+
+  private static final String JPEG_FORMAT = "jpeg";
+  private static final float JPEG_QUALITY = 0.92F;
+
+  /**
+   * The minimum width of the image as it is read, in terms of the size of the largest thumbnail.
+   */
+  private static final int MIN_DECODED_WIDTH_FACTOR = 4;
+
+  /**
+   * The maximum number of pixels of the image as it is read (after any subsampling), and of the
+   * thumbnails. The memory needed for processing an image is a small multiple of this.
+   */
+  static final long MAX_DECODED_PIXELS = 4_000_000L;
+
+  private static final int MAX_DOMINANT_COLORS = 6;
+
+  /**
+   * The number of previous errors that are diffused to a pixel. The weights of the errors form a
+   * geometric series: the oldest error has weight 1/16, the most recent error has weight 1.
+   */
+  private static final int ERROR_QUEUE_LENGTH = 16;
+  private static final double OLDEST_ERROR_WEIGHT = 1.0 / ERROR_QUEUE_LENGTH;
+  private static final double ERROR_WEIGHT_RATIO = Math
+      .exp(Math.log(ERROR_QUEUE_LENGTH) / (ERROR_QUEUE_LENGTH - 1));
+
+  private final int[] palette;
+  private final int[][] paletteComponents;
+
+  /**
+   * Constructor. The palette is read from the color map (see {@link
+   * ThumbnailGenerator#COLORMAP_PNG}).
+   *
+   * @throws MediaProcessorException In case the color map could not be read.
+   */
+  JavaThumbnailBackend() throws MediaProcessorException {
+    this(loadPalette());
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param palette The colors (as RGB values) to which to remap the image for determining the
+   * dominant colors.
+   */
+  JavaThumbnailBackend(int[] palette) {
+    this.palette = palette.clone();
+    this.paletteComponents = IntStream.of(palette).mapToObj(JavaThumbnailBackend::toComponents)
+        .toArray(int[][]::new);
+  }
+
+  private static int[] loadPalette() throws MediaProcessorException {
+    try (InputStream colorMapInputStream = Thread.currentThread().getContextClassLoader()
+        .getResourceAsStream(ThumbnailGenerator.COLORMAP_PNG)) {
+      if (colorMapInputStream == null) {
+        throw new MediaProcessorException("Could not load color map file: could not find file.");
+      }
+      final BufferedImage colorMap = ImageIO.read(colorMapInputStream);
+      if (colorMap == null) {
+        throw new MediaProcessorException("Could not load color map file: unsupported format.");
+      }
+      return IntStream.of(colorMap.getRGB(0, 0, colorMap.getWidth(), colorMap.getHeight(), null, 0,
+          colorMap.getWidth())).map(rgb -> rgb & 0xFFFFFF).distinct().sorted().toArray();
+    } catch (IOException e) {
+      throw new MediaProcessorException(
+          String.format("Could not load color map file: %s", ThumbnailGenerator.COLORMAP_PNG), e);
+    }
+  }
+
+  int[] getPalette() {
+    return palette.clone();
+  }
+
+  @Override
+  public boolean supports(String detectedMimeType) {
+    return SUPPORTED_MIME_TYPES.contains(detectedMimeType);
+  }
+
+  @Override
+  public ImageMetadata generateThumbnails(List<ThumbnailWithSize> thumbnails, boolean removeAlpha,
+      File content) throws MediaExtractionException {
+    if (thumbnails.isEmpty()) {
+      throw new MediaExtractionException("No thumbnails to generate.");
+    }
+    try {
+
+      // Read the image.
+      final int maxThumbnailSize = thumbnails.stream().mapToInt(ThumbnailWithSize::getImageSize)
+          .max().orElseThrow();
+      final ImageWithSize image = readImage(content, maxThumbnailSize);
+      final String colorSpace =
+          image.getImage().getColorModel().getColorSpace().getType() == ColorSpace.TYPE_GRAY
+              ? "Gray" : "sRGB";
+      final BufferedImage sourceImage = convertToRgb(image.getImage(), removeAlpha);
+
+      // Create the thumbnails: they get the aspect ratio of the original image.
+      BufferedImage thumbnailImage = null;
+      for (ThumbnailWithSize thumbnail : thumbnails) {
+        final int thumbnailHeight = Math.max(1, (int) Math
+            .round((double) image.getHeight() * thumbnail.getImageSize() / image.getWidth()));
+        thumbnailImage = scale(sourceImage, thumbnail.getImageSize(), thumbnailHeight);
+        writeThumbnail(thumbnailImage, thumbnail);
+      }
+
+      // Done.
+      return new ImageMetadata(image.getWidth(), image.getHeight(), colorSpace,
+          getDominantColors(thumbnailImage));
+    } catch (IOException | RuntimeException e) {
+      throw new MediaExtractionException("Could not generate thumbnails: " + e.getMessage(), e);
+    }
+  }
+
+  private static ImageWithSize readImage(File content, int maxThumbnailSize)
+      throws IOException, MediaExtractionException {
+    try (ImageInputStream input = ImageIO.createImageInputStream(content)) {
+      final Iterator<ImageReader> readers = input == null ? null : ImageIO.getImageReaders(input);
+      if (readers == null || !readers.hasNext()) {
+        throw new MediaExtractionException("Image format not supported.");
+      }
+      final ImageReader reader = readers.next();
+      try {
+        reader.setInput(input, true, true);
+        final int width = reader.getWidth(0);
+        final int height = reader.getHeight(0);
+
+        // Subsample large images: we don't need all pixels.
+        final int subsampling = computeSubsampling(width, height, maxThumbnailSize);
+        final ImageReadParam param = reader.getDefaultReadParam();
+        param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+        return new ImageWithSize(reader.read(0, param), width, height);
+      } finally {
+        reader.dispose();
+      }
+    }
+  }
+
+  /**
+   * Computes the subsampling with which to read an image. The image as read is at least {@link
+   * #MIN_DECODED_WIDTH_FACTOR} times as wide as the largest thumbnail (if the image is wide enough),
+   * but it has no more than {@link #MAX_DECODED_PIXELS} pixels.
+   *
+   * @param width The width of the image.
+   * @param height The height of the image.
+   * @param maxThumbnailSize The size (i.e. width) of the largest thumbnail.
+   * @return The subsampling, i.e. the factor by which to reduce both dimensions while reading.
+   * @throws MediaExtractionException In case the image can not be processed within the limit: if
+   * the largest thumbnail has too many pixels, or if the image would become narrower than this
+   * thumbnail.
+   */
+  static int computeSubsampling(int width, int height, int maxThumbnailSize)
+      throws MediaExtractionException {
+    final long thumbnailPixels = maxThumbnailSize
+        * Math.max(1, Math.round((double) height * maxThumbnailSize / width));
+    final int subsamplingForWidth = width / (MIN_DECODED_WIDTH_FACTOR * maxThumbnailSize);
+    final int subsamplingForPixels = (int) Math
+        .ceil(Math.sqrt((double) width * height / MAX_DECODED_PIXELS));
+    int subsampling = Math.max(1, Math.max(subsamplingForWidth, subsamplingForPixels));
+    while (getSubsampledSize(width, subsampling) * getSubsampledSize(height, subsampling)
+        > MAX_DECODED_PIXELS) {
+      subsampling++;
+    }
+    if (thumbnailPixels > MAX_DECODED_PIXELS
+        || getSubsampledSize(width, subsampling) < Math.min(width, maxThumbnailSize)) {
+      throw new MediaExtractionException("Image too large: " + width + "x" + height + ".");
+    }
+    return subsampling;
+  }
+
+  private static long getSubsampledSize(int size, int subsampling) {
+    return (size + subsampling - 1) / subsampling;
+  }
+
+  private static BufferedImage convertToRgb(BufferedImage image, boolean removeAlpha) {
+    final boolean keepAlpha = image.getColorModel().hasAlpha() && !removeAlpha;
+    final BufferedImage result = new BufferedImage(image.getWidth(), image.getHeight(),
+        keepAlpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+
+    // Gray values are copied as they are: Java would treat them as linear and convert them.
+    if (image.getColorModel().getColorSpace().getType() == ColorSpace.TYPE_GRAY) {
+      copyGrayValues(image, result, removeAlpha);
+      return result;
+    }
+
+    // Draw the image, on a white background if the alpha is to be removed.
+    final Graphics2D graphics = result.createGraphics();
+    try {
+      if (removeAlpha) {
+        graphics.setColor(Color.WHITE);
+        graphics.fillRect(0, 0, result.getWidth(), result.getHeight());
+      }
+      graphics.drawImage(image, 0, 0, null);
+    } finally {
+      graphics.dispose();
+    }
+    return result;
+  }
+
+  private static void copyGrayValues(BufferedImage source, BufferedImage target,
+      boolean removeAlpha) {
+    final Raster raster = source.getRaster();
+    final int maxGray = (1 << source.getColorModel().getComponentSize(0)) - 1;
+    final boolean hasAlpha = source.getColorModel().hasAlpha();
+    final int maxAlpha = hasAlpha ? (1 << source.getColorModel().getComponentSize(1)) - 1 : 1;
+    for (int y = 0; y < source.getHeight(); y++) {
+      for (int x = 0; x < source.getWidth(); x++) {
+        int gray = raster.getSample(x, y, 0) * 255 / maxGray;
+        final int alpha = hasAlpha ? raster.getSample(x, y, 1) * 255 / maxAlpha : 255;
+        if (removeAlpha) {
+          gray = (gray * alpha + 255 * (255 - alpha)) / 255;
+        }
+        target.setRGB(x, y, (alpha << 24) | (gray << 16) | (gray << 8) | gray);
+      }
+    }
+  }
+
+  private static BufferedImage scale(BufferedImage image, int targetWidth, int targetHeight) {
+    BufferedImage result = image;
+    do {
+      final int width = nextScalingStep(result.getWidth(), targetWidth);
+      final int height = nextScalingStep(result.getHeight(), targetHeight);
+      final BufferedImage scaled = new BufferedImage(width, height, image.getType());
+      final Graphics2D graphics = scaled.createGraphics();
+      try {
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+            RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        graphics.setRenderingHint(RenderingHints.KEY_RENDERING,
+            RenderingHints.VALUE_RENDER_QUALITY);
+        graphics.drawImage(result, 0, 0, width, height, null);
+      } finally {
+        graphics.dispose();
+      }
+      result = scaled;
+    } while (result.getWidth() != targetWidth || result.getHeight() != targetHeight);
+    return result;
+  }
+
+  private static int nextScalingStep(int current, int target) {
+    return current > target ? Math.max(target, current / 2) : target;
+  }
+
+  private static void writeThumbnail(BufferedImage image, ThumbnailWithSize thumbnail)
+      throws IOException, MediaExtractionException {
+    final String format = StringUtils.removeEnd(thumbnail.getImageMagickTypePrefix(), ":");
+    final Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(format);
+    if (!writers.hasNext()) {
+      throw new MediaExtractionException("Thumbnail format not supported: " + format);
+    }
+    final ImageWriter writer = writers.next();
+    try (OutputStream outputStream = Files.newOutputStream(thumbnail.getTempFileForThumbnail());
+        ImageOutputStream output = ImageIO.createImageOutputStream(outputStream)) {
+      final ImageWriteParam param = writer.getDefaultWriteParam();
+      final BufferedImage imageToWrite;
+      if (JPEG_FORMAT.equals(format)) {
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(JPEG_QUALITY);
+        imageToWrite = removeAlphaChannel(image);
+      } else {
+        imageToWrite = image;
+      }
+      writer.setOutput(output);
+      writer.write(null, new IIOImage(imageToWrite, null, null), param);
+    } finally {
+      writer.dispose();
+    }
+  }
+
+  private static BufferedImage removeAlphaChannel(BufferedImage image) {
+    // Like ImageMagick when writing JPEG: discard the alpha values, keep the color values.
+    if (!image.getColorModel().hasAlpha()) {
+      return image;
+    }
+    final BufferedImage result = new BufferedImage(image.getWidth(), image.getHeight(),
+        BufferedImage.TYPE_INT_RGB);
+    result.setRGB(0, 0, image.getWidth(), image.getHeight(),
+        image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth()), 0,
+        image.getWidth());
+    return result;
+  }
+
+  List<String> getDominantColors(BufferedImage image) {
+
+    // Remap the image to the palette, traversing the pixels along a Hilbert curve and diffusing
+    // the error of the last pixels (Riemersma dithering). Count the palette colors.
+    final int width = image.getWidth();
+    final int height = image.getHeight();
+    final int[] pixels = image.getRGB(0, 0, width, height, null, 0, width);
+    final int[] counts = new int[palette.length];
+    final NearestColorCache cache = new NearestColorCache();
+    final int[] errors = new int[ERROR_QUEUE_LENGTH * 3];
+    final double[] weightedErrors = new double[3];
+    int oldestError = 0;
+    int order = 1;
+    while (order < Math.max(width, height)) {
+      order *= 2;
+    }
+    final int[] point = new int[2];
+    final int[] original = new int[3];
+    final int[] color = new int[3];
+    for (long distance = 0; distance < (long) order * order; distance++) {
+      hilbertCurvePoint(order, distance, point);
+      if (point[0] >= width || point[1] >= height) {
+        continue;
+      }
+      final int rgb = pixels[point[1] * width + point[0]];
+      original[0] = (rgb >> 16) & 0xFF;
+      original[1] = (rgb >> 8) & 0xFF;
+      original[2] = rgb & 0xFF;
+      for (int component = 0; component < 3; component++) {
+        final long value = Math.round(original[component] + weightedErrors[component]);
+        color[component] = (int) Math.max(0, Math.min(255, value));
+      }
+      final int paletteIndex = cache.findNearestPaletteColor(color);
+      counts[paletteIndex]++;
+
+      // Update the errors: the oldest error is replaced by the error of this pixel, and the weights
+      // of the other errors shift by one position.
+      final int[] remapped = paletteComponents[paletteIndex];
+      for (int component = 0; component < 3; component++) {
+        final int error = original[component] - remapped[component];
+        final int errorIndex = 3 * oldestError + component;
+        weightedErrors[component] =
+            (weightedErrors[component] - OLDEST_ERROR_WEIGHT * errors[errorIndex])
+                / ERROR_WEIGHT_RATIO + error;
+        errors[errorIndex] = error;
+      }
+      oldestError = (oldestError + 1) % ERROR_QUEUE_LENGTH;
+    }
+
+    // Get the most frequent colors (as ImageMagick would sort them).
+    final Comparator<Integer> byCount = Comparator.comparingInt(index -> counts[index]);
+    return IntStream.range(0, palette.length).filter(index -> counts[index] > 0).boxed()
+        .sorted(byCount.thenComparingInt(index -> palette[index]).reversed())
+        .limit(MAX_DOMINANT_COLORS).map(index -> String.format("%06X", palette[index]))
+        .collect(Collectors.toList());
+  }
+
+  private int findNearestPaletteColor(int[] color) {
+    int result = 0;
+    int minDistance = Integer.MAX_VALUE;
+    for (int i = 0; i < paletteComponents.length && minDistance > 0; i++) {
+      final int[] candidate = paletteComponents[i];
+      final int red = color[0] - candidate[0];
+      final int green = color[1] - candidate[1];
+      final int blue = color[2] - candidate[2];
+      final int distance = red * red + green * green + blue * blue;
+      if (distance < minDistance) {
+        minDistance = distance;
+        result = i;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * A small cache for looking up the nearest palette color: neighboring pixels tend to have
+   * similar colors, and the lookup is relatively expensive.
+   */
+  private final class NearestColorCache {
+
+    private static final int CACHE_BITS = 15;
+
+    private final int[] keys = new int[1 << CACHE_BITS];
+    private final int[] values = new int[1 << CACHE_BITS];
+
+    NearestColorCache() {
+      Arrays.fill(keys, -1);
+    }
+
+    int findNearestPaletteColor(int[] color) {
+      final int key = (color[0] << 16) | (color[1] << 8) | color[2];
+      final int slot = (key * 0x9E3779B1) >>> (Integer.SIZE - CACHE_BITS);
+      if (keys[slot] != key) {
+        keys[slot] = key;
+        values[slot] = JavaThumbnailBackend.this.findNearestPaletteColor(color);
+      }
+      return values[slot];
+    }
+  }
+
+  private static int[] toComponents(int rgb) {
+    return new int[]{(rgb >> 16) & 0xFF, (rgb >> 8) & 0xFF, rgb & 0xFF};
+  }
+
+  private static void hilbertCurvePoint(int order, long distance, int[] point) {
+    int x = 0;
+    int y = 0;
+    long remaining = distance;
+    for (int size = 1; size < order; size *= 2) {
+      final int rx = (int) (1 & (remaining / 2));
+      final int ry = (int) (1 & (remaining ^ rx));
+      if (ry == 0) {
+        if (rx == 1) {
+          x = size - 1 - x;
+          y = size - 1 - y;
+        }
+        final int swap = x;
+        x = y;
+        y = swap;
+      }
+      x += size * rx;
+      y += size * ry;
+      remaining /= 4;
+    }
+    point[0] = x;
+    point[1] = y;
+  }
+
+  private static class ImageWithSize {
+
+    private final BufferedImage image;
+    private final int width;
+    private final int height;
+
+    ImageWithSize(BufferedImage image, int width, int height) {
+      this.image = image;
+      this.width = width;
+      this.height = height;
+    }
+
+    BufferedImage getImage() {
+      return image;
+    }
+
+    int getWidth() {
+      return width;
+    }
+
+    int getHeight() {
+      return height;
+    }
+  }
+}
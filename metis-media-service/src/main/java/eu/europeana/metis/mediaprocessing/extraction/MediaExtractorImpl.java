@@ -5,10 +5,12 @@ import static eu.europeana.metis.utils.SonarqubeNullcheckAvoidanceUtils.performT
 import eu.europeana.metis.mediaprocessing.MediaExtractor;
 import eu.europeana.metis.mediaprocessing.exception.MediaExtractionException;
 import eu.europeana.metis.mediaprocessing.exception.MediaProcessorException;
+import eu.europeana.metis.mediaprocessing.http.HostDownloadScheduler;
 import eu.europeana.metis.mediaprocessing.http.MimeTypeDetectHttpClient;
 import eu.europeana.metis.mediaprocessing.http.ResourceDownloadClient;
 import eu.europeana.metis.mediaprocessing.model.RdfResourceEntry;
 import eu.europeana.metis.mediaprocessing.model.Resource;
+import eu.europeana.metis.mediaprocessing.model.ResourceExtractionOutcome;
 import eu.europeana.metis.mediaprocessing.model.ResourceExtractionResult;
 import eu.europeana.metis.mediaprocessing.model.UrlType;
 import eu.europeana.metis.utils.MediaType;
@@ -17,10 +19,14 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.EnumSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.apache.commons.lang3.tuple.Pair;
 import org.apache.tika.Tika;
 import org.apache.tika.io.TikaInputStream;
 import org.apache.tika.metadata.Metadata;
@@ -87,12 +93,61 @@ public class MediaExtractorImpl implements MediaExtractor {
   public MediaExtractorImpl(int redirectCount, int thumbnailGenerateTimeout,
       int audioVideoProbeTimeout, int connectTimeout, int responseTimeout, int downloadTimeout)
       throws MediaProcessorException {
+    this(redirectCount, thumbnailGenerateTimeout, audioVideoProbeTimeout, connectTimeout,
+        responseTimeout, downloadTimeout, null);
+  }
+
+  /**
+   * Constructor for non-testing purposes.
+   *
+   * @param redirectCount The maximum number of times we will follow a redirect.
+   * @param thumbnailGenerateTimeout The maximum amount of time, in seconds, a thumbnail generation
+   * command is allowed to take before it is forcibly destroyed (i.e. cancelled).
+   * @param audioVideoProbeTimeout The maximum amount of time, in seconds, a audio/video probe
+   * command is allowed to take before it is forcibly destroyed (i.e. cancelled).
+   * @param connectTimeout The connection timeout in milliseconds for downloading resources.
+   * @param responseTimeout The response timeout in milliseconds for downloading resources.
+   * @param downloadTimeout The download timeout in milliseconds for downloading resources.
+   * @param downloadScheduler The scheduler from which to obtain permits for downloading resources.
+   * Can be null, in which case downloads are started without delay.
+   * @throws MediaProcessorException In case something went wrong while initializing the extractor.
+   */
+  public MediaExtractorImpl(int redirectCount, int thumbnailGenerateTimeout,
+      int audioVideoProbeTimeout, int connectTimeout, int responseTimeout, int downloadTimeout,
+      HostDownloadScheduler downloadScheduler) throws MediaProcessorException {
+    this(redirectCount, thumbnailGenerateTimeout, audioVideoProbeTimeout, connectTimeout,
+        responseTimeout, downloadTimeout, downloadScheduler, false);
+  }
+
+  /**
+   * Constructor for non-testing purposes.
+   *
+   * @param redirectCount The maximum number of times we will follow a redirect.
+   * @param thumbnailGenerateTimeout The maximum amount of time, in seconds, a thumbnail generation
+   * command is allowed to take before it is forcibly destroyed (i.e. cancelled).
+   * @param audioVideoProbeTimeout The maximum amount of time, in seconds, a audio/video probe
+   * command is allowed to take before it is forcibly destroyed (i.e. cancelled).
+   * @param connectTimeout The connection timeout in milliseconds for downloading resources.
+   * @param responseTimeout The response timeout in milliseconds for downloading resources.
+   * @param downloadTimeout The download timeout in milliseconds for downloading resources.
+   * @param downloadScheduler The scheduler from which to obtain permits for downloading resources.
+   * Can be null, in which case downloads are started without delay.
+   * @param javaThumbnailBackendEnabled Whether thumbnails for common image formats are to be
+   * generated in Java (instead of by ImageMagick).
+   * @throws MediaProcessorException In case something went wrong while initializing the extractor.
+   */
+  public MediaExtractorImpl(int redirectCount, int thumbnailGenerateTimeout,
+      int audioVideoProbeTimeout, int connectTimeout, int responseTimeout, int downloadTimeout,
+      HostDownloadScheduler downloadScheduler, boolean javaThumbnailBackendEnabled)
+      throws MediaProcessorException {
     final ThumbnailGenerator thumbnailGenerator = new ThumbnailGenerator(
-        new CommandExecutor(thumbnailGenerateTimeout));
+        new CommandExecutor(thumbnailGenerateTimeout),
+        javaThumbnailBackendEnabled ? new JavaThumbnailBackend() : null);
     this.resourceDownloadClient = new ResourceDownloadClient(redirectCount,
-        this::shouldDownloadForFullProcessing, connectTimeout, responseTimeout, downloadTimeout);
+        this::shouldDownloadForFullProcessing, connectTimeout, responseTimeout, downloadTimeout,
+        downloadScheduler);
     this.mimeTypeDetectHttpClient = new MimeTypeDetectHttpClient(connectTimeout, responseTimeout,
-        downloadTimeout);
+        downloadTimeout, downloadScheduler);
     this.tika = new Tika();
     this.imageProcessor = new ImageProcessor(thumbnailGenerator);
     this.audioVideoProcessor = new AudioVideoProcessor(new CommandExecutor(audioVideoProbeTimeout));
@@ -114,8 +169,131 @@ public class MediaExtractorImpl implements MediaExtractor {
     try (Resource resource = downloadBasedOnProcessingMode(resourceEntry, mode)) {
       return performProcessing(resource, mode, mainThumbnailAvailable);
     } catch (IOException | RuntimeException e) {
-      throw new MediaExtractionException(
-          String.format("Problem while processing %s", resourceEntry.getResourceUrl()), e);
+      throw createProcessingException(resourceEntry.getResourceUrl(), e);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * This implementation generates the thumbnails for the images among the resources in batches,
+   * saving the overhead of starting a process for each image. No more downloaded images are kept
+   * waiting for processing than fit in one batch.
+   * </p>
+   */
+  @Override
+  public List<ResourceExtractionOutcome> performMediaExtraction(
+      List<RdfResourceEntry> resourceEntries, boolean mainThumbnailAvailable) {
+    final ResourceExtractionOutcome[] outcomes =
+        new ResourceExtractionOutcome[resourceEntries.size()];
+    final List<Pair<Resource, String>> deferredImages = new ArrayList<>();
+    final List<Integer> deferredIndices = new ArrayList<>();
+    try {
+
+      // Process the resources: the images that need thumbnails are deferred.
+      for (int i = 0; i < resourceEntries.size(); i++) {
+        outcomes[i] = processOrDefer(resourceEntries.get(i), mainThumbnailAvailable,
+            deferredImages);
+        if (outcomes[i] == null) {
+          deferredIndices.add(i);
+        }
+        if (deferredImages.size() >= ThumbnailGenerator.MAX_BATCH_SIZE) {
+          processDeferredImages(deferredImages, deferredIndices, outcomes);
+        }
+      }
+
+      // Process the remaining images.
+      processDeferredImages(deferredImages, deferredIndices, outcomes);
+    } finally {
+      deferredImages.stream().map(Pair::getLeft).forEach(MediaExtractorImpl::closeSilently);
+    }
+
+    // Done.
+    return Arrays.asList(outcomes);
+  }
+
+  /**
+   * Processes the resource, unless it is an image that needs thumbnails: in that case the
+   * (downloaded) resource is added to the deferred images and null is returned.
+   */
+  private ResourceExtractionOutcome processOrDefer(RdfResourceEntry resourceEntry,
+      boolean mainThumbnailAvailable, List<Pair<Resource, String>> deferredImages) {
+
+    // Decide how to process it.
+    final ProcessingMode mode = getMode(resourceEntry);
+    if (mode == ProcessingMode.NONE) {
+      return new ResourceExtractionOutcome(null, null);
+    }
+
+    // Download resource.
+    final Resource resource;
+    try {
+      resource = downloadBasedOnProcessingMode(resourceEntry, mode);
+    } catch (IOException | RuntimeException e) {
+      return new ResourceExtractionOutcome(null,
+          createProcessingException(resourceEntry.getResourceUrl(), e));
+    }
+
+    // Defer it if it is an image, otherwise perform media extraction on it.
+    boolean deferred = false;
+    try {
+      final String detectedMimeType = prepareProcessing(resource, mode);
+      final MediaProcessor processor =
+          chooseMediaProcessor(MediaType.getMediaType(detectedMimeType));
+      if (mode == ProcessingMode.FULL && processor == imageProcessor) {
+        deferredImages.add(new ImmutablePair<>(resource, detectedMimeType));
+        deferred = true;
+        return null;
+      }
+      return new ResourceExtractionOutcome(
+          performProcessing(resource, mode, detectedMimeType, processor, mainThumbnailAvailable),
+          null);
+    } catch (MediaExtractionException e) {
+      return new ResourceExtractionOutcome(null, e);
+    } catch (RuntimeException e) {
+      return new ResourceExtractionOutcome(null,
+          createProcessingException(resourceEntry.getResourceUrl(), e));
+    } finally {
+      if (!deferred) {
+        closeSilently(resource);
+      }
+    }
+  }
+
+  private void processDeferredImages(List<Pair<Resource, String>> deferredImages,
+      List<Integer> deferredIndices, ResourceExtractionOutcome[] outcomes) {
+    if (deferredImages.isEmpty()) {
+      return;
+    }
+    try {
+      final List<ResourceExtractionOutcome> imageOutcomes =
+          imageProcessor.extractMetadata(List.copyOf(deferredImages));
+      for (int i = 0; i < deferredIndices.size(); i++) {
+        outcomes[deferredIndices.get(i)] = imageOutcomes.get(i);
+      }
+    } catch (RuntimeException e) {
+      for (int i = 0; i < deferredIndices.size(); i++) {
+        outcomes[deferredIndices.get(i)] = new ResourceExtractionOutcome(null,
+            createProcessingException(deferredImages.get(i).getLeft().getResourceUrl(), e));
+      }
+    } finally {
+      deferredImages.stream().map(Pair::getLeft).forEach(MediaExtractorImpl::closeSilently);
+      deferredImages.clear();
+      deferredIndices.clear();
+    }
+  }
+
+  private static MediaExtractionException createProcessingException(String resourceUrl,
+      Exception cause) {
+    return new MediaExtractionException(String.format("Problem while processing %s", resourceUrl),
+        cause);
+  }
+
+  private static void closeSilently(Resource resource) {
+    try {
+      resource.close();
+    } catch (IOException e) {
+      LOGGER.warn("Could not close resource: {}", resource.getResourceUrl(), e);
     }
   }
 
@@ -242,6 +420,17 @@ public class MediaExtractorImpl implements MediaExtractor {
   ResourceExtractionResult performProcessing(Resource resource, ProcessingMode mode,
       boolean mainThumbnailAvailable) throws MediaExtractionException {
 
+    // Prepare the resource and choose the right media processor.
+    final String detectedMimeType = prepareProcessing(resource, mode);
+    final MediaProcessor processor = chooseMediaProcessor(MediaType.getMediaType(detectedMimeType));
+
+    // Process the resource.
+    return performProcessing(resource, mode, detectedMimeType, processor, mainThumbnailAvailable);
+  }
+
+  private String prepareProcessing(Resource resource, ProcessingMode mode)
+      throws MediaExtractionException {
+
     // Sanity check - shouldn't be called for this mode.
     if (mode == ProcessingMode.NONE) {
       throw new IllegalStateException();
@@ -258,8 +447,13 @@ public class MediaExtractorImpl implements MediaExtractor {
       throw new MediaExtractionException("Content availability verification error.", e);
     }
 
-    // Choose the right media processor.
-    final MediaProcessor processor = chooseMediaProcessor(MediaType.getMediaType(detectedMimeType));
+    // Done
+    return detectedMimeType;
+  }
+
+  private static ResourceExtractionResult performProcessing(Resource resource, ProcessingMode mode,
+      String detectedMimeType, MediaProcessor processor, boolean mainThumbnailAvailable)
+      throws MediaExtractionException {
 
     // Process the resource depending on the mode.
     final ResourceExtractionResult result;
@@ -0,0 +1,40 @@
+package eu.europeana.metis.mediaprocessing.extraction;
+
+import eu.europeana.metis.mediaprocessing.exception.MediaExtractionException;
+import eu.europeana.metis.mediaprocessing.extraction.ThumbnailGenerator.ThumbnailWithSize;
+import java.io.File;
+import java.util.List;
+
+/**
+ * Implementations of this interface can generate thumbnails as an alternative to ImageMagick (see
+ * {@link ThumbnailGenerator}). An implementation may support only some types of content: the
+ * thumbnail generator will fall back to ImageMagick for other content, or when the implementation
+ * fails to process the content.
+ */
+interface ThumbnailBackend {
+
+  /**
+   * Determines whether this backend supports content of the given type.
+   *
+   * @param detectedMimeType The detected mime type of the content.
+   * @return Whether this backend can (in principle) process content of the given type.
+   */
+  boolean supports(String detectedMimeType);
+
+  /**
+   * Generates the thumbnails for the given content. This method writes the thumbnails to their
+   * temporary files (see {@link ThumbnailWithSize#getTempFileForThumbnail()}) in the format
+   * indicated by their type (see {@link ThumbnailWithSize#getImageMagickTypePrefix()}). Like
+   * ImageMagick's <code>-thumbnail</code> operation, the thumbnails have the width of the thumbnail
+   * size and the aspect ratio of the original, even if this means scaling the image up.
+   *
+   * @param thumbnails The thumbnails to generate. The dominant colors are determined based on the
+   * last thumbnail.
+   * @param removeAlpha Whether any alpha should be removed and replaced with a white background.
+   * @param content The resource content for which to generate thumbnails.
+   * @return The metadata of the image as gathered during processing.
+   * @throws MediaExtractionException In case the content could not be processed.
+   */
+  ImageMetadata generateThumbnails(List<ThumbnailWithSize> thumbnails, boolean removeAlpha,
+      File content) throws MediaExtractionException;
+}
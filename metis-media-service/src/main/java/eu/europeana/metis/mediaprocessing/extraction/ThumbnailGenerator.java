@@ -36,7 +36,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * This class performs thumbnail generation for images and PDF files using ImageMagick.
+ * This class performs thumbnail generation for images and PDF files using ImageMagick. Optionally,
+ * a {@link ThumbnailBackend} can be used instead for the content that it supports.
  */
 class ThumbnailGenerator {
 
@@ -52,6 +53,12 @@ class ThumbnailGenerator {
   private static final int COMMAND_RESULT_MAX_COLORS = 6;
   public static final String COLORMAP_PNG = "colormap.png";
 
+  /**
+   * The maximum number of images processed in one ImageMagick invocation. This limits the length
+   * of the command line and the impact of a failing batch (which is then processed image by image).
+   */
+  static final int MAX_BATCH_SIZE = 16;
+
   private static String globalMagickCommand;
   private static Path globalColormapFile;
 
@@ -59,6 +66,7 @@ class ThumbnailGenerator {
   private final String colormapFile;
 
   private final CommandExecutor commandExecutor;
+  private final ThumbnailBackend preferredBackend;
 
   /**
    * Constructor. This is a wrapper for {@link ThumbnailGenerator#ThumbnailGenerator(CommandExecutor,
@@ -70,7 +78,24 @@ class ThumbnailGenerator {
    * @throws MediaProcessorException In case the properties could not be initialized.
    */
   ThumbnailGenerator(CommandExecutor commandExecutor) throws MediaProcessorException {
-    this(commandExecutor, getGlobalImageMagickCommand(commandExecutor), initColorMap().toString());
+    this(commandExecutor, null);
+  }
+
+  /**
+   * Constructor. This is a wrapper for {@link ThumbnailGenerator#ThumbnailGenerator(CommandExecutor,
+   * String, String, ThumbnailBackend)} where the properties are detected. It is advisable to use
+   * this constructor for non-testing purposes.
+   *
+   * @param commandExecutor A command executor. The calling class is responsible for closing this
+   * object.
+   * @param preferredBackend The backend to use instead of ImageMagick for the content that it
+   * supports. Can be null, in which case ImageMagick is used for all content.
+   * @throws MediaProcessorException In case the properties could not be initialized.
+   */
+  ThumbnailGenerator(CommandExecutor commandExecutor, ThumbnailBackend preferredBackend)
+      throws MediaProcessorException {
+    this(commandExecutor, getGlobalImageMagickCommand(commandExecutor), initColorMap().toString(),
+        preferredBackend);
   }
 
   /**
@@ -82,9 +107,25 @@ class ThumbnailGenerator {
    * @param colorMapFile The location of the color map file.
    */
   ThumbnailGenerator(CommandExecutor commandExecutor, String magickCommand, String colorMapFile) {
+    this(commandExecutor, magickCommand, colorMapFile, null);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param commandExecutor A command executor.The calling class is responsible for closing this
+   * object
+   * @param magickCommand The magick command (how to trigger imageMagick).
+   * @param colorMapFile The location of the color map file.
+   * @param preferredBackend The backend to use instead of ImageMagick for the content that it
+   * supports. Can be null, in which case ImageMagick is used for all content.
+   */
+  ThumbnailGenerator(CommandExecutor commandExecutor, String magickCommand, String colorMapFile,
+      ThumbnailBackend preferredBackend) {
     this.commandExecutor = commandExecutor;
     this.magickCmd = magickCommand;
     this.colormapFile = colorMapFile;
+    this.preferredBackend = preferredBackend;
   }
 
   private static Path initColorMap() throws MediaProcessorException {
@@ -198,20 +239,7 @@ class ThumbnailGenerator {
       File content, boolean removeAlpha) throws MediaExtractionException {
 
     // Sanity checking
-    if (content == null) {
-      throw new MediaExtractionException("File content is null");
-    }
-    if (MediaType.getMediaType(detectedMimeType) != MediaType.IMAGE) {
-      throw new MediaExtractionException(
-          "Cannot perform thumbnail generation on mime type '" + detectedMimeType + "'.");
-    }
-
-    // TODO JV We should change this into a whitelist of supported formats.
-    // Exception for DjVu files
-    if (detectedMimeType.startsWith("image/vnd.djvu") || detectedMimeType.startsWith("image/x-djvu")
-        || detectedMimeType.startsWith("image/x.djvu")) {
-      throw new MediaExtractionException("Cannot generate thumbnails for DjVu file.");
-    }
+    checkInput(detectedMimeType, content);
 
     // Obtain the thumbnail files (they are still empty) - create temporary files for them.
     final List<ThumbnailWithSize> thumbnails = prepareThumbnailFiles(url, detectedMimeType);
@@ -219,7 +247,7 @@ class ThumbnailGenerator {
     // Load the thumbnails: delete the temporary files, and the thumbnails in case of exceptions.
     final ImageMetadata image;
     try {
-      image = generateThumbnailsInternal(thumbnails, removeAlpha, content);
+      image = generateThumbnailsInternal(thumbnails, removeAlpha, content, detectedMimeType);
     } catch (RuntimeException e) {
       closeAllThumbnailsSilently(thumbnails);
       throw new MediaExtractionException("Unexpected error during processing", e);
@@ -236,6 +264,147 @@ class ThumbnailGenerator {
     return new ImmutablePair<>(image, resultThumbnails);
   }
 
+  /**
+   * <p>
+   * This method generates thumbnails for a batch of images. It is functionally equivalent to
+   * calling {@link #generateThumbnails(String, String, File, boolean)} for each of the images, but
+   * it processes the images in as few ImageMagick invocations as possible: starting a process
+   * dominates the processing time for small images.
+   * </p>
+   * <p>
+   * Failures are isolated: if the combined invocation fails (in which case we can't know which of
+   * the images caused the problem), or if the result for an image can't be processed, the images
+   * concerned are processed individually.
+   * </p>
+   *
+   * @param inputs The images for which to generate thumbnails.
+   * @return The results, in the same order as the inputs. Each result contains either the result
+   * of generating the thumbnails for that image or the exception that occurred.
+   */
+  List<BatchResult> generateThumbnails(List<BatchInput> inputs) {
+    final List<BatchResult> results = new ArrayList<>(inputs.size());
+    for (int start = 0; start < inputs.size(); start += MAX_BATCH_SIZE) {
+      final int end = Math.min(inputs.size(), start + MAX_BATCH_SIZE);
+      results.addAll(generateThumbnailsForBatch(inputs.subList(start, end)));
+    }
+    return results;
+  }
+
+  private List<BatchResult> generateThumbnailsForBatch(List<BatchInput> inputs) {
+
+    // Check the input and prepare the thumbnail files. Invalid input is not processed further.
+    final BatchResult[] results = new BatchResult[inputs.size()];
+    final List<BatchItem> items = new ArrayList<>(inputs.size());
+    for (int i = 0; i < inputs.size(); i++) {
+      final BatchInput input = inputs.get(i);
+      if (supportedByPreferredBackend(input.getDetectedMimeType())) {
+        // No need to batch these: no process will be started for them.
+        results[i] = generateThumbnailsForSingleImage(input);
+        continue;
+      }
+      try {
+        checkInput(input.getDetectedMimeType(), input.getContent());
+        items.add(new BatchItem(i, input,
+            prepareThumbnailFiles(input.getUrl(), input.getDetectedMimeType())));
+      } catch (MediaExtractionException e) {
+        results[i] = new BatchResult(null, e);
+      }
+    }
+
+    // Process the items: delete the temporary files when done.
+    try {
+      final String response = executeBatchCommand(items);
+      for (BatchItem item : items) {
+        final Pair<ImageMetadata, List<Thumbnail>> result =
+            response == null ? null : processBatchResponse(response, item);
+        results[item.getIndex()] = result == null
+            ? generateThumbnailsForSingleImage(item.getInput()) : new BatchResult(result, null);
+      }
+    } finally {
+      items.stream().map(BatchItem::getThumbnails).flatMap(List::stream)
+          .forEach(ThumbnailWithSize::deleteTempFileSilently);
+    }
+
+    // Done.
+    return Arrays.asList(results);
+  }
+
+  private String executeBatchCommand(List<BatchItem> items) {
+
+    // A batch of one image is processed individually. We close the prepared thumbnails.
+    if (items.size() < 2) {
+      items.forEach(item -> closeAllThumbnailsSilently(item.getThumbnails()));
+      return null;
+    }
+
+    // Execute the command for the whole batch: it may take as long as all the images separately.
+    try {
+      return commandExecutor.execute(createBatchThumbnailGenerationCommand(items), items.size(),
+          false, message -> new MediaExtractionException(
+              "Could not analyze content and generate thumbnails for batch: " + message));
+    } catch (MediaExtractionException e) {
+      LOGGER.info("Batch of {} images failed, processing them individually. Reason: {}",
+          items.size(), e.getMessage());
+      items.forEach(item -> closeAllThumbnailsSilently(item.getThumbnails()));
+      return null;
+    }
+  }
+
+  private Pair<ImageMetadata, List<Thumbnail>> processBatchResponse(String response,
+      BatchItem item) {
+    try {
+      final String itemResponse = extractBatchItemResponse(response, item.getContentMarker());
+      final ImageMetadata image = parseCommandResponse(itemResponse, item.getContentMarker());
+      copyThumbnails(item.getThumbnails(), image, item.getInput().getContent());
+      final List<Thumbnail> resultThumbnails = item.getThumbnails().stream()
+          .map(ThumbnailWithSize::getThumbnail).collect(Collectors.toList());
+      return new ImmutablePair<>(image, resultThumbnails);
+    } catch (MediaExtractionException | RuntimeException e) {
+      LOGGER.info("Image {} failed in batch, processing it individually. Reason: {}",
+          item.getInput().getUrl(), e.getMessage());
+      closeAllThumbnailsSilently(item.getThumbnails());
+      return null;
+    }
+  }
+
+  private BatchResult generateThumbnailsForSingleImage(BatchInput input) {
+    try {
+      return new BatchResult(generateThumbnails(input.getUrl(), input.getDetectedMimeType(),
+          input.getContent(), input.isRemoveAlpha()), null);
+    } catch (MediaExtractionException e) {
+      return new BatchResult(null, e);
+    }
+  }
+
+  private static String extractBatchItemResponse(String response, String contentMarker)
+      throws MediaExtractionException {
+    final int start = response.indexOf(contentMarker);
+    if (start < 0) {
+      throw new MediaExtractionException(
+          "Could not find the result of the image in the ImageMagick response.");
+    }
+    final int end = response.lastIndexOf(contentMarker) + contentMarker.length();
+    return response.substring(start, end);
+  }
+
+  private static void checkInput(String detectedMimeType, File content)
+      throws MediaExtractionException {
+    if (content == null) {
+      throw new MediaExtractionException("File content is null");
+    }
+    if (MediaType.getMediaType(detectedMimeType) != MediaType.IMAGE) {
+      throw new MediaExtractionException(
+          "Cannot perform thumbnail generation on mime type '" + detectedMimeType + "'.");
+    }
+
+    // TODO JV We should change this into a whitelist of supported formats.
+    // Exception for DjVu files
+    if (detectedMimeType.startsWith("image/vnd.djvu") || detectedMimeType.startsWith("image/x-djvu")
+        || detectedMimeType.startsWith("image/x.djvu")) {
+      throw new MediaExtractionException("Cannot generate thumbnails for DjVu file.");
+    }
+  }
+
   private static void closeAllThumbnailsSilently(List<ThumbnailWithSize> thumbnails) {
     for (ThumbnailWithSize thumbnail : thumbnails) {
       thumbnail.getThumbnail().close();
@@ -246,9 +415,33 @@ class ThumbnailGenerator {
       boolean removeAlpha, File content, String contentMarker) {
 
     // Compile the command
+    final List<String> command = new ArrayList<>();
+    command.add(magickCmd);
+    addThumbnailGenerationOperations(command, thumbnails, removeAlpha, content, contentMarker);
+    command.add("histogram:info:");
+    return command;
+  }
+
+  List<String> createBatchThumbnailGenerationCommand(List<BatchItem> items) {
+
+    // Process each image in its own image sequence, so that the images don't affect each other.
+    // The histogram is written for each image, the remaining images are then discarded.
+    final List<String> command = new ArrayList<>(Arrays.asList(magickCmd, "-respect-parentheses"));
+    for (BatchItem item : items) {
+      command.add("(");
+      addThumbnailGenerationOperations(command, item.getThumbnails(),
+          item.getInput().isRemoveAlpha(), item.getInput().getContent(), item.getContentMarker());
+      command.addAll(Arrays.asList("-write", "histogram:info:", ")"));
+    }
+    command.add("null:");
+    return command;
+  }
+
+  private void addThumbnailGenerationOperations(List<String> command,
+      List<ThumbnailWithSize> thumbnails, boolean removeAlpha, File content, String contentMarker) {
     final String commandResultFormat = contentMarker + COMMAND_RESULT_FORMAT + contentMarker + "\n";
-    final List<String> command = new ArrayList<>(Arrays.asList(magickCmd, content.getPath() + "[0]",
-        "-format", commandResultFormat, "-write", "info:"));
+    command.addAll(Arrays.asList(content.getPath() + "[0]", "-format", commandResultFormat,
+        "-write", "info:"));
     if (removeAlpha) {
       command.addAll(Arrays.asList("-background", "white", "-alpha", "remove"));
     }
@@ -269,11 +462,38 @@ class ThumbnailGenerator {
     }
     final String colorResultFormat = "\n" + contentMarker + "\n%c\n" + contentMarker;
     command.addAll(Arrays.asList("-colorspace", "sRGB", "-dither", "Riemersma", "-remap",
-        colormapFile, "-format", colorResultFormat, "histogram:info:"));
-    return command;
+        colormapFile, "-format", colorResultFormat));
+  }
+
+  private boolean supportedByPreferredBackend(String detectedMimeType) {
+    return preferredBackend != null && preferredBackend.supports(detectedMimeType);
   }
 
   private ImageMetadata generateThumbnailsInternal(List<ThumbnailWithSize> thumbnails,
+      boolean removeAlpha, File content, String detectedMimeType) throws MediaExtractionException {
+
+    // Try the preferred backend first: if that fails, we fall back to ImageMagick.
+    ImageMetadata result = null;
+    if (supportedByPreferredBackend(detectedMimeType)) {
+      try {
+        result = preferredBackend.generateThumbnails(thumbnails, removeAlpha, content);
+      } catch (MediaExtractionException e) {
+        LOGGER.info("Falling back to ImageMagick for content of type {}. Reason: {}",
+            detectedMimeType, e.getMessage());
+      }
+    }
+    if (result == null) {
+      result = generateThumbnailFilesWithImageMagick(thumbnails, removeAlpha, content);
+    }
+
+    // Check the thumbnails.
+    copyThumbnails(thumbnails, result, content);
+
+    // Done.
+    return result;
+  }
+
+  private ImageMetadata generateThumbnailFilesWithImageMagick(List<ThumbnailWithSize> thumbnails,
       boolean removeAlpha, File content) throws MediaExtractionException {
 
     // Generate the thumbnails and read image properties.
@@ -283,9 +503,11 @@ class ThumbnailGenerator {
     final String response = commandExecutor.execute(command, false, message ->
         new MediaExtractionException(
             "Could not analyze content and generate thumbnails: " + message));
-    final ImageMetadata result = parseCommandResponse(response, contentMarker);
+    return parseCommandResponse(response, contentMarker);
+  }
 
-    // Check the thumbnails.
+  private void copyThumbnails(List<ThumbnailWithSize> thumbnails, ImageMetadata image,
+      File content) throws MediaExtractionException {
     for (ThumbnailWithSize thumbnail : thumbnails) {
       try {
 
@@ -296,20 +518,18 @@ class ThumbnailGenerator {
         }
 
         // Copy the thumbnail. In case of images: don't make a thumbnail larger than the original.
-        final boolean shouldUseOriginal = result.getWidth() < thumbnail.getImageSize();
+        // The generated file is no longer needed, so it can be moved instead of copied.
+        final boolean shouldUseOriginal = image.getWidth() < thumbnail.getImageSize();
         if (shouldUseOriginal) {
           copyFile(content, thumbnail);
         } else {
-          copyFile(thumbnail.getTempFileForThumbnail(), thumbnail);
+          moveFile(thumbnail.getTempFileForThumbnail(), thumbnail);
         }
 
       } catch (IOException e) {
         throw new MediaExtractionException("Could not access thumbnail file", e);
       }
     }
-
-    // Done.
-    return result;
   }
 
   long getFileSize(Path file) throws IOException {
@@ -326,6 +546,10 @@ class ThumbnailGenerator {
     copyFile(source.toPath(), destination);
   }
 
+  void moveFile(Path source, ThumbnailWithSize destination) throws IOException {
+    destination.getThumbnail().markAsWithContent(source);
+  }
+
   List<ThumbnailWithSize> prepareThumbnailFiles(String url, String detectedMimeType)
       throws MediaExtractionException {
 
@@ -428,6 +652,100 @@ class ThumbnailGenerator {
     }
   }
 
+  /**
+   * The input for generating thumbnails for one image as part of a batch. See {@link
+   * #generateThumbnails(String, String, File, boolean)} for the meaning of the properties.
+   */
+  static class BatchInput {
+
+    private final String url;
+    private final String detectedMimeType;
+    private final File content;
+    private final boolean removeAlpha;
+
+    BatchInput(String url, String detectedMimeType, File content, boolean removeAlpha) {
+      this.url = url;
+      this.detectedMimeType = detectedMimeType;
+      this.content = content;
+      this.removeAlpha = removeAlpha;
+    }
+
+    String getUrl() {
+      return url;
+    }
+
+    String getDetectedMimeType() {
+      return detectedMimeType;
+    }
+
+    File getContent() {
+      return content;
+    }
+
+    boolean isRemoveAlpha() {
+      return removeAlpha;
+    }
+  }
+
+  /**
+   * The result of generating thumbnails for one image as part of a batch.
+   */
+  static class BatchResult {
+
+    private final Pair<ImageMetadata, List<Thumbnail>> thumbnailsAndMetadata;
+    private final MediaExtractionException exception;
+
+    BatchResult(Pair<ImageMetadata, List<Thumbnail>> thumbnailsAndMetadata,
+        MediaExtractionException exception) {
+      this.thumbnailsAndMetadata = thumbnailsAndMetadata;
+      this.exception = exception;
+    }
+
+    /**
+     * @return The metadata of the image together with the thumbnails, like the result of {@link
+     * #generateThumbnails(String, String, File, boolean)}.
+     * @throws MediaExtractionException In case a problem occurred processing this image.
+     */
+    Pair<ImageMetadata, List<Thumbnail>> getThumbnailsAndMetadata()
+        throws MediaExtractionException {
+      if (exception != null) {
+        throw exception;
+      }
+      return thumbnailsAndMetadata;
+    }
+  }
+
+  static class BatchItem {
+
+    private final int index;
+    private final BatchInput input;
+    private final List<ThumbnailWithSize> thumbnails;
+    private final String contentMarker;
+
+    BatchItem(int index, BatchInput input, List<ThumbnailWithSize> thumbnails) {
+      this.index = index;
+      this.input = input;
+      this.thumbnails = thumbnails;
+      this.contentMarker = UUID.randomUUID().toString();
+    }
+
+    int getIndex() {
+      return index;
+    }
+
+    BatchInput getInput() {
+      return input;
+    }
+
+    List<ThumbnailWithSize> getThumbnails() {
+      return thumbnails;
+    }
+
+    String getContentMarker() {
+      return contentMarker;
+    }
+  }
+
   static class ThumbnailWithSize {
 
     private final ThumbnailImpl thumbnail;
@@ -466,7 +784,8 @@ class ThumbnailGenerator {
 
     void deleteTempFileSilently() {
       try {
-        Files.delete(getTempFileForThumbnail());
+        // The file may have been moved to the thumbnail already.
+        Files.deleteIfExists(getTempFileForThumbnail());
       } catch (IOException e) {
         LOGGER.warn("Could not close thumbnail: {}", getTempFileForThumbnail(), e);
       }
@@ -6,14 +6,14 @@ import java.io.ByteArrayInputStream;
 import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.time.Duration;
 import java.util.Optional;
-import java.util.Timer;
-import java.util.TimerTask;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import org.apache.hc.client5.http.classic.methods.HttpGet;
 import org.apache.hc.client5.http.config.RequestConfig;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
@@ -22,8 +22,11 @@ import org.apache.hc.client5.http.impl.classic.HttpClients;
 import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
 import org.apache.hc.client5.http.protocol.HttpClientContext;
 import org.apache.hc.client5.http.protocol.RedirectLocations;
+import org.apache.hc.core5.http.Header;
 import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.HttpHeaders;
 import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.net.URIAuthority;
 import org.apache.hc.core5.util.TimeValue;
 import org.apache.hc.core5.util.Timeout;
 import org.slf4j.Logger;
@@ -31,7 +34,11 @@ import org.slf4j.LoggerFactory;
 
 /**
  * This class represents an HTTP request client that can be used to resolve a resource link. This
- * client is thread-safe, but the connection settings are tuned for use by one thread only.
+ * client is thread-safe. Unless a {@link HostDownloadScheduler} is provided, the connection
+ * settings are tuned for use by one thread only. If a scheduler is provided, the client obtains a
+ * permit from the scheduler before every request, and allows as many connections per host as the
+ * scheduler does. The aborting of requests that exceed the time limit and the cleaning of idle connections is done
+ * by a scheduler that is shared by all clients (see {@link HttpClientScheduler}).
  *
  * @param <I> The type of the resource entry (the input object defining the request).
  * @param <R> The type of the resulting/downloaded object (the result of the request).
@@ -48,10 +55,10 @@ abstract class AbstractHttpClient<I, R> implements Closeable {
 
   private final PoolingHttpClientConnectionManager connectionManager;
   private final CloseableHttpClient client;
-  private final ScheduledExecutorService connectionCleaningSchedule = Executors
-      .newScheduledThreadPool(1);
+  private final ScheduledFuture<?> connectionCleaningTask;
 
   private final int requestTimeout;
+  private final HostDownloadScheduler downloadScheduler;
 
   /**
    * Constructor.
@@ -64,25 +71,49 @@ abstract class AbstractHttpClient<I, R> implements Closeable {
    */
   AbstractHttpClient(int maxRedirectCount, int connectTimeout, int responseTimeout,
       int requestTimeout) {
+    this(maxRedirectCount, connectTimeout, responseTimeout, requestTimeout, null);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param maxRedirectCount The maximum number of times we follow a redirect status (status 3xx).
+   * @param connectTimeout The connection timeout in milliseconds.
+   * @param responseTimeout The response timeout in milliseconds.
+   * @param requestTimeout The time after which the request will be aborted (if it hasn't finished
+   * by then). In milliseconds. This does not include the time spent waiting for a permit from the
+   * download scheduler, which is limited separately to the same amount of time.
+   * @param downloadScheduler The scheduler from which to obtain permits for the requests. Can be
+   * null, in which case requests are sent without delay.
+   */
+  AbstractHttpClient(int maxRedirectCount, int connectTimeout, int responseTimeout,
+      int requestTimeout, HostDownloadScheduler downloadScheduler) {
 
     // Set the request config settings
     final RequestConfig requestConfig = RequestConfig.custom().setMaxRedirects(maxRedirectCount)
             .setConnectTimeout(Timeout.ofMilliseconds(connectTimeout))
             .setResponseTimeout(Timeout.ofMilliseconds(responseTimeout)).build();
     this.requestTimeout = requestTimeout;
+    this.downloadScheduler = downloadScheduler;
 
-    // Create a connection manager tuned to one thread use.
+    // Create a connection manager tuned to one thread use, or to the limits of the scheduler.
     connectionManager = new PoolingHttpClientConnectionManager();
-    connectionManager.setDefaultMaxPerRoute(1);
+    if (downloadScheduler == null) {
+      connectionManager.setDefaultMaxPerRoute(1);
+    } else {
+      connectionManager.setMaxTotal(downloadScheduler.getMaxConcurrentRequests());
+      connectionManager.setDefaultMaxPerRoute(downloadScheduler.getMaxConcurrentRequestsPerHost());
+    }
 
     // Build the client.
     client = HttpClients.custom().setDefaultRequestConfig(requestConfig)
         .setConnectionManager(connectionManager).build();
 
-    // Start the cleaning thread.
-    connectionCleaningSchedule.scheduleWithFixedDelay(() -> cleanConnections(connectionManager),
-        CLEAN_TASK_CHECK_INTERVAL_IN_SECONDS, CLEAN_TASK_CHECK_INTERVAL_IN_SECONDS,
-        TimeUnit.SECONDS);
+    // Schedule the cleaning task.
+    connectionCleaningTask = HttpClientScheduler
+        .scheduleWithFixedDelay(() -> cleanConnections(connectionManager),
+            CLEAN_TASK_CHECK_INTERVAL_IN_SECONDS, CLEAN_TASK_CHECK_INTERVAL_IN_SECONDS,
+            TimeUnit.SECONDS);
   }
 
   private void cleanConnections(PoolingHttpClientConnectionManager connectionManager) {
@@ -110,19 +141,21 @@ abstract class AbstractHttpClient<I, R> implements Closeable {
     final HttpGet httpGet = new HttpGet(resourceUlr);
     final HttpClientContext context = HttpClientContext.create();
 
+    // Wait for our turn (if needed).
+    final HostDownloadScheduler.Permit permit = acquirePermit(httpGet);
+    int statusCode = 0;
+    Duration retryAfter = null;
+
     // Set up the abort trigger
-    final TimerTask abortTask = new TimerTask() {
-      @Override
-      public void run() {
-        LOGGER.info("Aborting request due to time limit: {}.", resourceUlr);
-        httpGet.abort();
-      }
-    };
-    final Timer timer = new Timer(true);
-    timer.schedule(abortTask, requestTimeout);
+    final ScheduledFuture<?> abortTask = HttpClientScheduler.schedule(() -> {
+      LOGGER.info("Aborting request due to time limit: {}.", resourceUlr);
+      httpGet.abort();
+    }, requestTimeout, TimeUnit.MILLISECONDS);
 
     // Execute the request.
     try (final CloseableHttpResponse responseObject = client.execute(httpGet, context)) {
+      statusCode = responseObject.getCode();
+      retryAfter = getRetryAfter(responseObject.getFirstHeader(HttpHeaders.RETRY_AFTER));
 
       // Do first analysis
       final HttpEntity responseEntity = performThrowingFunction(responseObject, response -> {
@@ -163,9 +196,39 @@ abstract class AbstractHttpClient<I, R> implements Closeable {
 
     } finally {
 
-      // Cancel abort trigger
-      timer.cancel();
-      abortTask.cancel();
+      // Cancel abort trigger and allow the next request to the host.
+      abortTask.cancel(false);
+      if (permit != null) {
+        permit.release(statusCode, retryAfter);
+      }
+    }
+  }
+
+  private HostDownloadScheduler.Permit acquirePermit(HttpGet httpGet) throws IOException {
+    if (downloadScheduler == null) {
+      return null;
+    }
+    final String host = Optional.ofNullable(httpGet.getAuthority())
+        .map(URIAuthority::getHostName).orElse(null);
+    try {
+      return downloadScheduler.acquire(host, Duration.ofMillis(requestTimeout));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting to send request to " + host);
+    } catch (TimeoutException e) {
+      throw new IOException(e.getMessage(), e);
+    }
+  }
+
+  private static Duration getRetryAfter(Header retryAfterHeader) {
+    // Only the delay in seconds is supported, not the HTTP date.
+    if (retryAfterHeader == null || retryAfterHeader.getValue() == null) {
+      return null;
+    }
+    try {
+      return Duration.ofSeconds(Long.parseLong(retryAfterHeader.getValue().trim()));
+    } catch (NumberFormatException e) {
+      return null;
     }
   }
 
@@ -203,7 +266,7 @@ abstract class AbstractHttpClient<I, R> implements Closeable {
 
   @Override
   public void close() throws IOException {
-    connectionCleaningSchedule.shutdown();
+    connectionCleaningTask.cancel(false);
     connectionManager.close();
     client.close();
   }
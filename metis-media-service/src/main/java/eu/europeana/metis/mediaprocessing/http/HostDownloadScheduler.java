@@ -0,0 +1,359 @@
+package eu.europeana.metis.mediaprocessing.http;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import org.apache.hc.core5.http.HttpStatus;
+
+/**
+ * <p>
+ * This class schedules downloads (or any other requests) so that remote hosts are treated
+ * politely and fairly. It can be shared between multiple HTTP clients (see {@link
+ * AbstractHttpClient}) and threads. Before sending a request, a client obtains a permit for the
+ * host (see {@link #acquire(String, Duration)}), which it releases when the request is done. A permit is
+ * granted if:
+ * </p>
+ * <ul>
+ * <li>the total number of concurrent requests is below the global maximum,</li>
+ * <li>the number of concurrent requests to the host is below the maximum per host (or below 1 if
+ * the host is backing off, see below), and</li>
+ * <li>the minimum delay between the starts of two requests to the host has passed.</li>
+ * </ul>
+ * <p>
+ * When multiple hosts are waiting for a permit, permits are granted to the hosts in round-robin
+ * order, so that a host with many pending requests cannot starve the other hosts. Requests to the
+ * same host are granted in the order in which they were made.
+ * </p>
+ * <p>
+ * If a host responds with status 429 (Too Many Requests) or 503 (Service Unavailable), the host
+ * backs off: no new requests are sent to this host during the backoff delay (or the delay
+ * requested by the host, if longer), and requests to this host are serialized. The backoff delay
+ * doubles for every such response (up to a maximum), and is halved for every other response.
+ * </p>
+ */
+public class HostDownloadScheduler {
+
+  /**
+   * The default initial backoff delay.
+   */
+  public static final Duration DEFAULT_INITIAL_BACKOFF = Duration.ofSeconds(1);
+
+  /**
+   * The default maximum backoff delay.
+   */
+  public static final Duration DEFAULT_MAX_BACKOFF = Duration.ofMinutes(1);
+
+  private static final int MIN_HOST_COUNT_FOR_CLEANUP = 64;
+
+  private final int maxConcurrentRequests;
+  private final int maxConcurrentRequestsPerHost;
+  private final long minDelayPerHostInNanos;
+  private final long initialBackoffInNanos;
+  private final long maxBackoffInNanos;
+  private final LongSupplier nanoTime;
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition stateChanged = lock.newCondition();
+  private final Map<String, HostState> hosts = new HashMap<>();
+  private final Queue<HostState> hostsWithWaitingRequests = new ArrayDeque<>();
+  private int activeRequests = 0;
+  private int hostCountForNextCleanup = MIN_HOST_COUNT_FOR_CLEANUP;
+
+  /**
+   * Constructor.
+   *
+   * @param maxConcurrentRequests The maximum number of concurrent requests (to all hosts
+   * combined). Must be positive.
+   * @param maxConcurrentRequestsPerHost The maximum number of concurrent requests to the same
+   * host. Must be positive.
+   * @param minDelayPerHost The minimum delay between the starts of two requests to the same host.
+   * Cannot be null or negative.
+   */
+  public HostDownloadScheduler(int maxConcurrentRequests, int maxConcurrentRequestsPerHost,
+      Duration minDelayPerHost) {
+    this(maxConcurrentRequests, maxConcurrentRequestsPerHost, minDelayPerHost,
+        DEFAULT_INITIAL_BACKOFF, DEFAULT_MAX_BACKOFF, System::nanoTime);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param maxConcurrentRequests The maximum number of concurrent requests (to all hosts
+   * combined). Must be positive.
+   * @param maxConcurrentRequestsPerHost The maximum number of concurrent requests to the same
+   * host. Must be positive.
+   * @param minDelayPerHost The minimum delay between the starts of two requests to the same host.
+   * Cannot be null or negative.
+   * @param initialBackoff The backoff delay after a host first responds with 429 or 503. Cannot be
+   * null or negative.
+   * @param maxBackoff The maximum backoff delay. Cannot be null or smaller than the initial
+   * backoff delay.
+   * @param nanoTime The source of the current time (in nanoseconds).
+   */
+  HostDownloadScheduler(int maxConcurrentRequests, int maxConcurrentRequestsPerHost,
+      Duration minDelayPerHost, Duration initialBackoff, Duration maxBackoff,
+      LongSupplier nanoTime) {
+    if (maxConcurrentRequests < 1 || maxConcurrentRequestsPerHost < 1) {
+      throw new IllegalArgumentException("The maximum number of requests must be positive.");
+    }
+    if (minDelayPerHost.isNegative() || initialBackoff.isNegative()
+        || maxBackoff.compareTo(initialBackoff) < 0) {
+      throw new IllegalArgumentException("Invalid delays.");
+    }
+    this.maxConcurrentRequests = maxConcurrentRequests;
+    this.maxConcurrentRequestsPerHost = maxConcurrentRequestsPerHost;
+    this.minDelayPerHostInNanos = minDelayPerHost.toNanos();
+    this.initialBackoffInNanos = initialBackoff.toNanos();
+    this.maxBackoffInNanos = maxBackoff.toNanos();
+    this.nanoTime = nanoTime;
+  }
+
+  /**
+   * @return The maximum number of concurrent requests (to all hosts combined).
+   */
+  public int getMaxConcurrentRequests() {
+    return maxConcurrentRequests;
+  }
+
+  /**
+   * @return The maximum number of concurrent requests to the same host.
+   */
+  public int getMaxConcurrentRequestsPerHost() {
+    return maxConcurrentRequestsPerHost;
+  }
+
+  /**
+   * Obtains a permit to send a request to the given host. This method blocks until the permit is
+   * granted or the timeout expires. The permit must be released (see {@link Permit#release(int,
+   * Duration)}) when the request is done.
+   *
+   * @param host The host to send the request to. Can be null (requests without host are treated
+   * as requests to the same host).
+   * @param timeout The maximum time to wait for the permit. Cannot be null.
+   * @return The permit.
+   * @throws InterruptedException In case the thread was interrupted while waiting.
+   * @throws TimeoutException In case the permit was not granted within the timeout.
+   */
+  public Permit acquire(String host, Duration timeout)
+      throws InterruptedException, TimeoutException {
+    final String hostKey = host == null ? "" : host.toLowerCase();
+    final Permit permit;
+    lock.lock();
+    try {
+      final long deadline = nanoTime.getAsLong() + timeout.toNanos();
+      removeIdleHostsIfNeeded();
+      final HostState hostState = hosts.computeIfAbsent(hostKey, HostState::new);
+      permit = new Permit(hostState);
+      if (hostState.waitingPermits.isEmpty()) {
+        hostsWithWaitingRequests.add(hostState);
+      }
+      hostState.waitingPermits.add(permit);
+      try {
+        while (!permit.granted) {
+          final long waitTime = grantPermits();
+          if (permit.granted) {
+            break;
+          }
+          final long remainingTime = deadline - nanoTime.getAsLong();
+          if (remainingTime <= 0) {
+            throw new TimeoutException("Timed out waiting to send request to " + host + ".");
+          }
+          stateChanged.awaitNanos(Math.min(waitTime, remainingTime));
+        }
+      } catch (InterruptedException | TimeoutException e) {
+        if (permit.granted) {
+          // We were granted the permit after all: release it so that others can use it.
+          permit.released = true;
+          releasePermit(permit, 0, null);
+        } else {
+          hostState.waitingPermits.remove(permit);
+          if (hostState.waitingPermits.isEmpty()) {
+            hostsWithWaitingRequests.remove(hostState);
+          }
+          removeIfIdle(hostState);
+        }
+        throw e;
+      }
+    } finally {
+      lock.unlock();
+    }
+    return permit;
+  }
+
+  /**
+   * Grants as many permits as possible, visiting the hosts in round-robin order. Must be called
+   * while holding the lock.
+   *
+   * @return The time (in nanoseconds) after which permits may become available due to the passing
+   * of time, or {@link Long#MAX_VALUE} if no permits can become available until a permit is
+   * released.
+   */
+  private long grantPermits() {
+    long waitTime = Long.MAX_VALUE;
+    boolean grantedAny = false;
+    boolean grantedInRound = true;
+    while (grantedInRound && activeRequests < maxConcurrentRequests) {
+      grantedInRound = false;
+      final long now = nanoTime.getAsLong();
+      final int hostCount = hostsWithWaitingRequests.size();
+      for (int i = 0; i < hostCount && activeRequests < maxConcurrentRequests; i++) {
+        final HostState hostState = hostsWithWaitingRequests.poll();
+        if (hostState.canStartRequest(now)) {
+          final Permit permit = hostState.waitingPermits.poll();
+          permit.granted = true;
+          hostState.activeRequests++;
+          hostState.nextStartTime = now + minDelayPerHostInNanos;
+          activeRequests++;
+          grantedInRound = true;
+          grantedAny = true;
+        } else if (hostState.activeRequests < hostState.getMaxConcurrentRequests()) {
+          waitTime = Math.min(waitTime, hostState.nextStartTime - now);
+        }
+        if (!hostState.waitingPermits.isEmpty()) {
+          hostsWithWaitingRequests.add(hostState);
+        }
+      }
+    }
+    if (grantedAny) {
+      stateChanged.signalAll();
+    }
+    return waitTime;
+  }
+
+  private void releasePermit(Permit permit, int statusCode, Duration retryAfter) {
+    final HostState hostState = permit.hostState;
+    hostState.activeRequests--;
+    activeRequests--;
+    final long now = nanoTime.getAsLong();
+    if (statusCode == HttpStatus.SC_TOO_MANY_REQUESTS
+        || statusCode == HttpStatus.SC_SERVICE_UNAVAILABLE) {
+      hostState.backoffInNanos = Math.min(maxBackoffInNanos,
+          Math.max(initialBackoffInNanos, hostState.backoffInNanos * 2));
+      final long requestedDelay = retryAfter == null ? 0
+          : Math.min(maxBackoffInNanos, retryAfter.toNanos());
+      hostState.nextStartTime = Math.max(hostState.nextStartTime,
+          now + Math.max(hostState.backoffInNanos, requestedDelay));
+    } else if (statusCode != 0) {
+      hostState.backoffInNanos = hostState.backoffInNanos / 2 < initialBackoffInNanos ? 0
+          : (hostState.backoffInNanos / 2);
+    }
+    removeIfIdle(hostState);
+    grantPermits();
+    stateChanged.signalAll();
+  }
+
+  /**
+   * Hosts are kept until they are idle: until there are no more active or waiting requests and
+   * any delays have passed. Note that this means that the backoff delay of a host is reset once
+   * the host is idle.
+   */
+  private boolean isIdle(HostState hostState, long now) {
+    return hostState.activeRequests == 0 && hostState.waitingPermits.isEmpty()
+        && now - hostState.nextStartTime >= 0;
+  }
+
+  private void removeIfIdle(HostState hostState) {
+    if (isIdle(hostState, nanoTime.getAsLong())) {
+      hosts.remove(hostState.host);
+    }
+  }
+
+  /**
+   * Hosts whose delay had not passed when their last request finished are not removed
+   * immediately. To prevent these from accumulating, all idle hosts are removed whenever the
+   * number of hosts has doubled since the last time.
+   */
+  private void removeIdleHostsIfNeeded() {
+    if (hosts.size() >= hostCountForNextCleanup) {
+      final long now = nanoTime.getAsLong();
+      hosts.values().removeIf(hostState -> isIdle(hostState, now));
+      hostCountForNextCleanup = Math.max(MIN_HOST_COUNT_FOR_CLEANUP, hosts.size() * 2);
+    }
+  }
+
+  /**
+   * @return The number of requests that are waiting for a permit.
+   */
+  int getWaitingRequestCount() {
+    lock.lock();
+    try {
+      return hostsWithWaitingRequests.stream().mapToInt(host -> host.waitingPermits.size()).sum();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * @return The number of hosts for which this scheduler currently holds state.
+   */
+  int getTrackedHostCount() {
+    lock.lock();
+    try {
+      return hosts.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * A permit to send a request to a host.
+   */
+  public final class Permit {
+
+    private final HostState hostState;
+    private boolean granted = false;
+    private boolean released = false;
+
+    private Permit(HostState hostState) {
+      this.hostState = hostState;
+    }
+
+    /**
+     * Releases the permit. Calling this method more than once has no effect.
+     *
+     * @param statusCode The status code of the response, or 0 if no response was received. This
+     * is used to decide whether the host needs to back off.
+     * @param retryAfter The delay after which the host asked to be contacted again (from the
+     * 'Retry-After' header), if any. Can be null.
+     */
+    public void release(int statusCode, Duration retryAfter) {
+      lock.lock();
+      try {
+        if (!released) {
+          released = true;
+          releasePermit(this, statusCode, retryAfter);
+        }
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  private final class HostState {
+
+    private final String host;
+    private final Queue<Permit> waitingPermits = new ArrayDeque<>();
+    private int activeRequests = 0;
+    private long nextStartTime = nanoTime.getAsLong();
+    private long backoffInNanos = 0;
+
+    HostState(String host) {
+      this.host = host;
+    }
+
+    int getMaxConcurrentRequests() {
+      return backoffInNanos > 0 ? 1 : maxConcurrentRequestsPerHost;
+    }
+
+    boolean canStartRequest(long now) {
+      return !waitingPermits.isEmpty() && activeRequests < getMaxConcurrentRequests()
+          && now - nextStartTime >= 0;
+    }
+  }
+}
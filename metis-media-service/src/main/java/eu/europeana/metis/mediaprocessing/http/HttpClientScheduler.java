@@ -0,0 +1,90 @@
+package eu.europeana.metis.mediaprocessing.http;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>
+ * This class provides a scheduler that is shared by all HTTP clients (see {@link
+ * AbstractHttpClient}) in the process. It is used to abort requests that exceed their time limit
+ * and to periodically clean the connection pools of the clients. The scheduler uses a fixed number
+ * of daemon threads (which are started when the scheduler is first used), so that the number of
+ * threads does not depend on the number of clients or the number of requests.
+ * </p>
+ * <p>
+ * Tasks are expected to be short: they should not block the scheduler threads. The returned
+ * handles can be used to cancel the tasks. Cancelled tasks are removed from the scheduler
+ * immediately, so that they do not hold on to any resources until their scheduled time.
+ * </p>
+ */
+final class HttpClientScheduler {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(HttpClientScheduler.class);
+
+  static final int THREAD_COUNT = 2;
+  private static final String THREAD_NAME_PREFIX = "http-client-scheduler-";
+
+  private HttpClientScheduler() {
+  }
+
+  /**
+   * Schedules a one-time task.
+   *
+   * @param task The task to execute.
+   * @param delay The delay after which to execute the task.
+   * @param unit The unit of the delay.
+   * @return The handle with which the task can be cancelled.
+   */
+  static ScheduledFuture<?> schedule(Runnable task, long delay, TimeUnit unit) {
+    return ExecutorHolder.EXECUTOR.schedule(() -> runTask(task), delay, unit);
+  }
+
+  /**
+   * Schedules a periodic task. The task will continue to be executed until it is cancelled.
+   *
+   * @param task The task to execute.
+   * @param initialDelay The delay after which to execute the task for the first time.
+   * @param delay The delay between the end of one execution and the start of the next.
+   * @param unit The unit of the delays.
+   * @return The handle with which the task can be cancelled.
+   */
+  static ScheduledFuture<?> scheduleWithFixedDelay(Runnable task, long initialDelay, long delay,
+      TimeUnit unit) {
+    return ExecutorHolder.EXECUTOR
+        .scheduleWithFixedDelay(() -> runTask(task), initialDelay, delay, unit);
+  }
+
+  private static void runTask(Runnable task) {
+    // Catch exceptions: periodic tasks would otherwise not be executed again.
+    try {
+      task.run();
+    } catch (RuntimeException e) {
+      LOGGER.warn("Scheduled task of HTTP client failed.", e);
+    }
+  }
+
+  /**
+   * Holder of the executor, so that the executor (and its threads) is only created when needed.
+   */
+  private static final class ExecutorHolder {
+
+    private static final ScheduledThreadPoolExecutor EXECUTOR = createExecutor();
+
+    private static ScheduledThreadPoolExecutor createExecutor() {
+      final AtomicInteger threadCounter = new AtomicInteger();
+      final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(THREAD_COUNT,
+          task -> {
+            final Thread thread = new Thread(task,
+                THREAD_NAME_PREFIX + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+          });
+      executor.setRemoveOnCancelPolicy(true);
+      return executor;
+    }
+  }
+}
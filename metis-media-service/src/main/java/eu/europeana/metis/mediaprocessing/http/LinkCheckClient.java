@@ -19,7 +19,18 @@ public class LinkCheckClient extends AbstractHttpClient<String, Void> {
    * @param maxRedirectCount The maximum number of times we follow a redirect status (status 3xx).
    */
   public LinkCheckClient(int maxRedirectCount) {
-    super(maxRedirectCount, CONNECT_TIMEOUT, RESPONSE_TIMEOUT, REQUEST_TIMEOUT);
+    this(maxRedirectCount, null);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param maxRedirectCount The maximum number of times we follow a redirect status (status 3xx).
+   * @param downloadScheduler The scheduler from which to obtain permits for the requests. Can be
+   * null, in which case requests are sent without delay.
+   */
+  public LinkCheckClient(int maxRedirectCount, HostDownloadScheduler downloadScheduler) {
+    super(maxRedirectCount, CONNECT_TIMEOUT, RESPONSE_TIMEOUT, REQUEST_TIMEOUT, downloadScheduler);
   }
 
   @Override
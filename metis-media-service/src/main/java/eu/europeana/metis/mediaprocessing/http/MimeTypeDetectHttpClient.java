@@ -30,7 +30,22 @@ public class MimeTypeDetectHttpClient extends AbstractHttpClient<URL, String> {
    * @param requestTimeout The time after which the request will be aborted (if it hasn't finished
    */
   public MimeTypeDetectHttpClient(int connectTimeout, int responseTimeout, int requestTimeout) {
-    super(0, connectTimeout, responseTimeout, requestTimeout);
+    this(connectTimeout, responseTimeout, requestTimeout, null);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param connectTimeout The connection timeout in milliseconds.
+   * @param responseTimeout The response timeout in milliseconds.
+   * @param requestTimeout The time after which the request will be aborted (if it hasn't finished
+   * by then). In milliseconds.
+   * @param downloadScheduler The scheduler from which to obtain permits for the requests. Can be
+   * null, in which case requests are sent without delay.
+   */
+  public MimeTypeDetectHttpClient(int connectTimeout, int responseTimeout, int requestTimeout,
+      HostDownloadScheduler downloadScheduler) {
+    super(0, connectTimeout, responseTimeout, requestTimeout, downloadScheduler);
   }
 
   @Override
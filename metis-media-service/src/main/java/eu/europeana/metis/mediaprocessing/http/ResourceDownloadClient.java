@@ -56,7 +56,28 @@ public class ResourceDownloadClient extends
    */
   public ResourceDownloadClient(int maxRedirectCount, Predicate<String> shouldDownloadMimetype,
       int connectTimeout, int responseTimeout, int downloadTimeout) {
-    super(maxRedirectCount, connectTimeout, responseTimeout, downloadTimeout);
+    this(maxRedirectCount, shouldDownloadMimetype, connectTimeout, responseTimeout,
+        downloadTimeout, null);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param maxRedirectCount The maximum number of times we follow a redirect status (status 3xx).
+   * @param shouldDownloadMimetype A predicate that, based on the mime type, can decide whether or
+   * not to proceed with the download. This will be used for a download with {@link
+   * DownloadMode#MIME_TYPE}.
+   * @param connectTimeout The connection timeout in milliseconds.
+   * @param responseTimeout The response timeout in milliseconds.
+   * @param downloadTimeout The time after which the download will be aborted (if it hasn't finished
+   * by then). In milliseconds.
+   * @param downloadScheduler The scheduler from which to obtain permits for the downloads. Can be
+   * null, in which case downloads are started without delay.
+   */
+  public ResourceDownloadClient(int maxRedirectCount, Predicate<String> shouldDownloadMimetype,
+      int connectTimeout, int responseTimeout, int downloadTimeout,
+      HostDownloadScheduler downloadScheduler) {
+    super(maxRedirectCount, connectTimeout, responseTimeout, downloadTimeout, downloadScheduler);
     this.shouldDownloadMimetype = shouldDownloadMimetype;
   }
 
@@ -2,6 +2,7 @@ package eu.europeana.metis.mediaprocessing.linkchecking;
 
 import eu.europeana.metis.mediaprocessing.LinkChecker;
 import eu.europeana.metis.mediaprocessing.exception.LinkCheckingException;
+import eu.europeana.metis.mediaprocessing.http.HostDownloadScheduler;
 import eu.europeana.metis.mediaprocessing.http.LinkCheckClient;
 import java.io.IOException;
 
@@ -25,7 +26,18 @@ public class LinkCheckerImpl implements LinkChecker {
    * @param maxRedirectCount The maximum number of times we follow a redirect status (status 3xx).
    */
   public LinkCheckerImpl(int maxRedirectCount) {
-    linkCheckClient = new LinkCheckClient(maxRedirectCount);
+    this(maxRedirectCount, null);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param maxRedirectCount The maximum number of times we follow a redirect status (status 3xx).
+   * @param downloadScheduler The scheduler from which to obtain permits for the requests. Can be
+   * null, in which case requests are sent without delay.
+   */
+  public LinkCheckerImpl(int maxRedirectCount, HostDownloadScheduler downloadScheduler) {
+    linkCheckClient = new LinkCheckClient(maxRedirectCount, downloadScheduler);
   }
 
   @Override
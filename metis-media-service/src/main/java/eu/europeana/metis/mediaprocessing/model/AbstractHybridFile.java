@@ -0,0 +1,162 @@
+package eu.europeana.metis.mediaprocessing.model;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>
+ * This class represents a file that's associated with a resource. Small content is kept in
+ * memory, larger content is kept in a temporary file, so that the memory used by an instance does
+ * not depend on the size of the content. Please see {@link ResourceRelatedFile} for more
+ * information.
+ * </p>
+ * <p>
+ * Any temporary file is removed when the content is replaced or removed, or when this file is
+ * closed. Callers should therefore always close instances of this class.
+ * </p>
+ */
+abstract class AbstractHybridFile implements ResourceRelatedFile {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(AbstractHybridFile.class);
+
+  private static final String TEMP_FILE_PREFIX = "resource_related_file_";
+
+  /**
+   * The maximum size of an array (some VMs reserve some header words in an array).
+   */
+  private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+  private final String resourceUrl;
+  private final int maxInMemorySize;
+
+  private byte[] content = new byte[0];
+  private Path contentPath;
+
+  /**
+   * Constructor.
+   *
+   * @param resourceUrl The URL of the resource with which this file is associated.
+   * @param maxInMemorySize The maximum size (in bytes) of content that is kept in memory. Larger
+   * content is kept in a temporary file. If this is zero, all content is kept in a file.
+   */
+  protected AbstractHybridFile(String resourceUrl, long maxInMemorySize) {
+    if (maxInMemorySize < 0) {
+      throw new IllegalArgumentException("The maximum in-memory size cannot be negative.");
+    }
+    this.resourceUrl = resourceUrl;
+    this.maxInMemorySize = (int) Math.min(maxInMemorySize, MAX_ARRAY_SIZE - 1);
+  }
+
+  @Override
+  public String getResourceUrl() {
+    return resourceUrl;
+  }
+
+  /**
+   * @return The temporary file in which the content is kept, or null if the content is kept in
+   * memory.
+   */
+  Path getContentPath() {
+    return contentPath;
+  }
+
+  @Override
+  public boolean hasContent() {
+    return contentPath != null || content.length > 0;
+  }
+
+  @Override
+  public InputStream getContentStream() throws IOException {
+    return contentPath == null ? new ByteArrayInputStream(content)
+        : Files.newInputStream(contentPath);
+  }
+
+  @Override
+  public Long getContentSize() throws IOException {
+    return contentPath == null ? content.length : Files.size(contentPath);
+  }
+
+  @Override
+  public void markAsNoContent() {
+    content = new byte[0];
+    if (contentPath != null) {
+      try {
+        Files.deleteIfExists(contentPath);
+      } catch (IOException e) {
+        LOGGER.warn("Could not delete temporary file: {}", contentPath, e);
+      } finally {
+        contentPath = null;
+      }
+    }
+  }
+
+  @Override
+  public void markAsWithContent(InputStream newContent) throws IOException {
+
+    // Remove the existing content.
+    markAsNoContent();
+
+    // Read the content up to the maximum size: if that is all, we keep the content in memory.
+    final byte[] start = newContent.readNBytes(maxInMemorySize + 1);
+    if (start.length <= maxInMemorySize) {
+      content = start;
+      return;
+    }
+
+    // Otherwise, we write the content to a temporary file.
+    final Path file = Files.createTempFile(TEMP_FILE_PREFIX, null);
+    try (OutputStream outputStream = Files.newOutputStream(file)) {
+      outputStream.write(start);
+      newContent.transferTo(outputStream);
+    } catch (IOException | RuntimeException e) {
+      Files.deleteIfExists(file);
+      throw e;
+    }
+    contentPath = file;
+  }
+
+  /**
+   * Sets the content of this file to the content of the given file, taking over the given file:
+   * larger content is moved into place instead of being copied. The given file no longer exists
+   * after this method returns successfully. It is meant for temporary files that the caller no
+   * longer needs, and should be on the same file system as the temporary files.
+   *
+   * @param newContent The file containing the new content.
+   * @throws IOException In case there was a problem reading or moving the file.
+   */
+  public void markAsWithContent(Path newContent) throws IOException {
+
+    // Remove the existing content.
+    markAsNoContent();
+
+    // If the content is small enough, we read it into memory.
+    if (Files.size(newContent) <= maxInMemorySize) {
+      final byte[] newContentBytes = Files.readAllBytes(newContent);
+      Files.delete(newContent);
+      content = newContentBytes;
+      return;
+    }
+
+    // Otherwise, we move the file to our own temporary file.
+    final Path file = Files.createTempFile(TEMP_FILE_PREFIX, null);
+    try {
+      Files.move(newContent, file, StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException | RuntimeException e) {
+      Files.deleteIfExists(file);
+      throw e;
+    }
+    contentPath = file;
+  }
+
+  @Override
+  public void close() {
+    this.markAsNoContent();
+  }
+}
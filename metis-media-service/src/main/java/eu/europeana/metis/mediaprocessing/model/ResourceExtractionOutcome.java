@@ -0,0 +1,40 @@
+package eu.europeana.metis.mediaprocessing.model;
+
+import eu.europeana.metis.mediaprocessing.exception.MediaExtractionException;
+
+/**
+ * This class contains the outcome of the media extraction for one resource when processing
+ * multiple resources in one go: either the result of the extraction or the exception that
+ * occurred.
+ */
+public class ResourceExtractionOutcome {
+
+  private final ResourceExtractionResult result;
+  private final MediaExtractionException exception;
+
+  /**
+   * Constructor.
+   *
+   * @param result The result of the extraction. Can be null if there was nothing to extract or if
+   * an exception occurred.
+   * @param exception The exception that occurred. Can be null if no exception occurred.
+   */
+  public ResourceExtractionOutcome(ResourceExtractionResult result,
+      MediaExtractionException exception) {
+    this.result = result;
+    this.exception = exception;
+  }
+
+  /**
+   * @return The result of the extraction, like the result of {@link
+   * eu.europeana.metis.mediaprocessing.MediaExtractor#performMediaExtraction(RdfResourceEntry,
+   * boolean)}. Note that this object can be null in case there is nothing to extract.
+   * @throws MediaExtractionException In case a problem occurred processing this resource.
+   */
+  public ResourceExtractionResult getResult() throws MediaExtractionException {
+    if (exception != null) {
+      throw exception;
+    }
+    return result;
+  }
+}
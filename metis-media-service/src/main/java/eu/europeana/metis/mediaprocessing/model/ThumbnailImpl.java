@@ -3,20 +3,41 @@ package eu.europeana.metis.mediaprocessing.model;
 /**
  * This class implements {@link Thumbnail}.
  */
-public class ThumbnailImpl extends AbstractInMemoryFile implements Thumbnail {
+public class ThumbnailImpl extends AbstractHybridFile implements Thumbnail {
+
+  /**
+   * The default maximum size (in bytes) of thumbnail content that is kept in memory. Larger
+   * thumbnails are kept in a temporary file until they are closed.
+   */
+  public static final long DEFAULT_MAX_IN_MEMORY_SIZE = 64L * 1024;
 
   private final String mimeType;
   private final String targetName;
 
   /**
-   * Constructor.
+   * Constructor. The content is kept in memory if it is not larger than {@link
+   * #DEFAULT_MAX_IN_MEMORY_SIZE}.
    *
    * @param resourceUrl The URL of the resource for which this thumbnail is generated.
    * @param mimeType The mime type of the thumbnail.
    * @param targetName The unique (target) name by which this thumbnail is known.
    */
   public ThumbnailImpl(String resourceUrl, String mimeType, String targetName) {
-    super(resourceUrl);
+    this(resourceUrl, mimeType, targetName, DEFAULT_MAX_IN_MEMORY_SIZE);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param resourceUrl The URL of the resource for which this thumbnail is generated.
+   * @param mimeType The mime type of the thumbnail.
+   * @param targetName The unique (target) name by which this thumbnail is known.
+   * @param maxInMemorySize The maximum size (in bytes) of content that is kept in memory. Larger
+   * content is kept in a temporary file.
+   */
+  public ThumbnailImpl(String resourceUrl, String mimeType, String targetName,
+      long maxInMemorySize) {
+    super(resourceUrl, maxInMemorySize);
     this.mimeType = mimeType;
     this.targetName = targetName;
   }
@@ -9,6 +9,7 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
@@ -135,6 +136,24 @@ class CommandExecutorTest {
     verify(process, times(1)).destroyForcibly();
   }
 
+  @Test
+  void testCommandWithTimeoutMultiplier() throws InterruptedException, MediaExtractionException {
+
+    // Set up a command that takes longer than the regular timeout.
+    doReturn(COMMAND_OUTPUT_STREAM.get()).when(process).getInputStream();
+    doReturn(EMPTY_STREAM.get()).when(process).getErrorStream();
+    doReturn(false).when(process).waitFor(eq((long) TIMEOUT), eq(TimeUnit.SECONDS));
+    doReturn(true).when(process).waitFor(eq(3L * TIMEOUT), eq(TimeUnit.SECONDS));
+
+    // Perform call
+    assertEquals(COMMAND_OUTPUT,
+        commandExecutor.execute(COMMAND_INPUT, 3, false, MediaExtractionException::new));
+
+    // Verify
+    verify(process, times(1)).waitFor(3L * TIMEOUT, TimeUnit.SECONDS);
+    verify(process, never()).destroyForcibly();
+  }
+
   @Test
   void testCommandWithInteruption() throws InterruptedException {
 
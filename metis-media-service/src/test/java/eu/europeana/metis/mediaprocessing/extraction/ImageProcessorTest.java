@@ -3,6 +3,7 @@ package eu.europeana.metis.mediaprocessing.extraction;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.doReturn;
@@ -12,9 +13,12 @@ import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.spy;
 
 import eu.europeana.metis.mediaprocessing.exception.MediaExtractionException;
+import eu.europeana.metis.mediaprocessing.extraction.ThumbnailGenerator.BatchInput;
+import eu.europeana.metis.mediaprocessing.extraction.ThumbnailGenerator.BatchResult;
 import eu.europeana.metis.mediaprocessing.model.ImageResourceMetadata;
 import eu.europeana.metis.mediaprocessing.model.RdfResourceEntry;
 import eu.europeana.metis.mediaprocessing.model.Resource;
+import eu.europeana.metis.mediaprocessing.model.ResourceExtractionOutcome;
 import eu.europeana.metis.mediaprocessing.model.ResourceExtractionResultImpl;
 import eu.europeana.metis.mediaprocessing.model.ResourceImpl;
 import eu.europeana.metis.mediaprocessing.model.Thumbnail;
@@ -32,6 +36,7 @@ import org.apache.commons.lang3.tuple.Pair;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 
 class ImageProcessorTest {
 
@@ -154,4 +159,52 @@ class ImageProcessorTest {
     // Check that all is well again.
     assertNotNull(imageProcessor.extractMetadata(resource, detectedMimeType, true));
   }
+
+  @Test
+  void testExtractBatch() throws MediaExtractionException, IOException {
+
+    // Define input: an image, an image without content and an image that fails processing.
+    final Resource resource1 = mock(Resource.class);
+    doReturn("url 1").when(resource1).getResourceUrl();
+    doReturn(true).when(resource1).hasContent();
+    doReturn(1234L).when(resource1).getContentSize();
+    doReturn(new File("content file 1")).when(resource1).getContentFile();
+    final Resource resource2 = mock(Resource.class);
+    doReturn(false).when(resource2).hasContent();
+    final Resource resource3 = mock(Resource.class);
+    doReturn("url 3").when(resource3).getResourceUrl();
+    doReturn(true).when(resource3).hasContent();
+    doReturn(new File("content file 3")).when(resource3).getContentFile();
+    final String detectedMimeType = "detected mime type";
+    final List<Pair<Resource, String>> input = Arrays.asList(
+        new ImmutablePair<>(resource1, detectedMimeType),
+        new ImmutablePair<>(resource2, detectedMimeType),
+        new ImmutablePair<>(resource3, detectedMimeType));
+
+    // Mock the thumbnail generator: only the images with content are sent, in one batch.
+    final ThumbnailImpl thumbnail = mock(ThumbnailImpl.class);
+    final ImageMetadata imageMetadata = new ImageMetadata(123, 321, "sRGB",
+        Collections.singletonList("123456"));
+    final MediaExtractionException exception = new MediaExtractionException("TEST");
+    final ArgumentCaptor<List<BatchInput>> captor = ArgumentCaptor.forClass(List.class);
+    doReturn(Arrays.asList(
+        new BatchResult(new ImmutablePair<>(imageMetadata, Collections.singletonList(thumbnail)),
+            null), new BatchResult(null, exception)))
+        .when(thumbnailGenerator).generateThumbnails(captor.capture());
+
+    // Call method and verify.
+    final List<ResourceExtractionOutcome> result = imageProcessor.extractMetadata(input);
+    assertEquals(Arrays.asList("url 1", "url 3"),
+        captor.getValue().stream().map(BatchInput::getUrl).collect(Collectors.toList()));
+    assertEquals(3, result.size());
+    final ImageResourceMetadata metadata = (ImageResourceMetadata)
+        ((ResourceExtractionResultImpl) result.get(0).getResult()).getOriginalMetadata();
+    assertEquals("url 1", metadata.getResourceUrl());
+    assertEquals(Long.valueOf(1234L), metadata.getContentSize());
+    assertEquals(Integer.valueOf(123), metadata.getWidth());
+    assertEquals(Collections.singletonList(thumbnail), result.get(0).getResult().getThumbnails());
+    assertThrows(MediaExtractionException.class, () -> result.get(1).getResult());
+    assertSame(exception, assertThrows(MediaExtractionException.class,
+        () -> result.get(2).getResult()));
+  }
 }
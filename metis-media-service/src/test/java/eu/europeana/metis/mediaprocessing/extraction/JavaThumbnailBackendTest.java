@@ -0,0 +1,217 @@
+package eu.europeana.metis.mediaprocessing.extraction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import eu.europeana.metis.mediaprocessing.exception.MediaExtractionException;
+import eu.europeana.metis.mediaprocessing.exception.MediaProcessorException;
+import eu.europeana.metis.mediaprocessing.extraction.ThumbnailGenerator.ThumbnailWithSize;
+import eu.europeana.metis.mediaprocessing.model.ThumbnailImpl;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import javax.imageio.ImageIO;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class JavaThumbnailBackendTest {
+
+  private static JavaThumbnailBackend backend;
+
+  @TempDir
+  Path tempDir;
+
+  @BeforeAll
+  static void createBackend() throws MediaProcessorException {
+    backend = new JavaThumbnailBackend();
+  }
+
+  static BufferedImage createTestImage(int width, int height) {
+    final BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    final Graphics2D graphics = image.createGraphics();
+    try {
+      for (int x = 0; x < width; x++) {
+        graphics.setColor(new Color(x * 255 / width, 128, 255 - x * 255 / width));
+        graphics.drawLine(x, 0, x, height);
+      }
+      graphics.setColor(Color.RED);
+      graphics.fillRect(width / 8, height / 8, width / 4, height / 4);
+      graphics.setColor(Color.YELLOW);
+      graphics.fillOval(width / 2, height / 2, width / 3, height / 3);
+    } finally {
+      graphics.dispose();
+    }
+    return image;
+  }
+
+  private File writeImage(BufferedImage image, String format) throws IOException {
+    final File file = Files.createTempFile(tempDir, "image", "." + format).toFile();
+    assertTrue(ImageIO.write(image, format, file));
+    return file;
+  }
+
+  private List<ThumbnailWithSize> createThumbnails(String imageMagickTypePrefix)
+      throws IOException {
+    return Arrays.asList(
+        new ThumbnailWithSize(mock(ThumbnailImpl.class), 200,
+            Files.createTempFile(tempDir, "thumbnail", null), imageMagickTypePrefix),
+        new ThumbnailWithSize(mock(ThumbnailImpl.class), 400,
+            Files.createTempFile(tempDir, "thumbnail", null), imageMagickTypePrefix));
+  }
+
+  private static BufferedImage readThumbnail(ThumbnailWithSize thumbnail) throws IOException {
+    final BufferedImage result = ImageIO.read(thumbnail.getTempFileForThumbnail().toFile());
+    assertEquals(thumbnail.getImageSize(), result.getWidth());
+    return result;
+  }
+
+  @Test
+  void testSupports() {
+    assertTrue(backend.supports("image/jpeg"));
+    assertTrue(backend.supports("image/png"));
+    assertTrue(backend.supports("image/gif"));
+    assertTrue(backend.supports("image/bmp"));
+    assertFalse(backend.supports("image/tiff"));
+    assertFalse(backend.supports("image/vnd.djvu"));
+    assertFalse(backend.supports("application/pdf"));
+  }
+
+  @Test
+  void testGenerateThumbnails() throws IOException, MediaExtractionException {
+    final Set<String> palette = IntStream.of(backend.getPalette())
+        .mapToObj(color -> String.format("%06X", color)).collect(Collectors.toSet());
+    for (String format : Arrays.asList("jpeg", "png", "gif", "bmp")) {
+      final File content = writeImage(createTestImage(800, 600), format);
+      final List<ThumbnailWithSize> thumbnails = createThumbnails("jpeg:");
+      final ImageMetadata metadata = backend.generateThumbnails(thumbnails, false, content);
+      assertEquals(800, metadata.getWidth());
+      assertEquals(600, metadata.getHeight());
+      assertEquals("sRGB", metadata.getColorSpace());
+      assertEquals(150, readThumbnail(thumbnails.get(0)).getHeight());
+      assertEquals(300, readThumbnail(thumbnails.get(1)).getHeight());
+      assertFalse(metadata.getDominantColors().isEmpty());
+      assertTrue(metadata.getDominantColors().size() <= 6);
+      assertTrue(palette.containsAll(metadata.getDominantColors()));
+    }
+  }
+
+  @Test
+  void testThumbnailsOfSmallImage() throws IOException, MediaExtractionException {
+    final File content = writeImage(createTestImage(100, 50), "png");
+    final List<ThumbnailWithSize> thumbnails = createThumbnails("png:");
+    final ImageMetadata metadata = backend.generateThumbnails(thumbnails, false, content);
+    assertEquals(100, metadata.getWidth());
+    assertEquals(50, metadata.getHeight());
+    assertEquals(100, readThumbnail(thumbnails.get(0)).getHeight());
+    assertEquals(200, readThumbnail(thumbnails.get(1)).getHeight());
+  }
+
+  @Test
+  void testThumbnailsOfLargeImage() throws IOException, MediaExtractionException {
+    final File content = writeImage(createTestImage(6000, 300), "png");
+    final List<ThumbnailWithSize> thumbnails = createThumbnails("jpeg:");
+    final ImageMetadata metadata = backend.generateThumbnails(thumbnails, false, content);
+    assertEquals(6000, metadata.getWidth());
+    assertEquals(300, metadata.getHeight());
+    assertEquals(10, readThumbnail(thumbnails.get(0)).getHeight());
+    assertEquals(20, readThumbnail(thumbnails.get(1)).getHeight());
+  }
+
+  @Test
+  void testComputeSubsampling() throws MediaExtractionException {
+
+    // Wide images are read at a few times the thumbnail width.
+    assertEquals(1, JavaThumbnailBackend.computeSubsampling(800, 600, 400));
+    assertEquals(3, JavaThumbnailBackend.computeSubsampling(6000, 300, 400));
+    assertEquals(25, JavaThumbnailBackend.computeSubsampling(40000, 30000, 400));
+
+    // Tall images are subsampled further to limit the number of pixels read.
+    final int subsampling = JavaThumbnailBackend.computeSubsampling(3000, 7500, 400);
+    assertEquals(3, subsampling);
+    assertTrue((3000 / subsampling) * (7500 / subsampling)
+        <= JavaThumbnailBackend.MAX_DECODED_PIXELS);
+
+    // Images with thumbnails that are too large are rejected.
+    assertThrows(MediaExtractionException.class,
+        () -> JavaThumbnailBackend.computeSubsampling(1000, 100_000, 400));
+  }
+
+  @Test
+  void testGrayImage() throws IOException, MediaExtractionException {
+    final BufferedImage image = new BufferedImage(500, 500, BufferedImage.TYPE_BYTE_GRAY);
+    final Graphics2D graphics = image.createGraphics();
+    graphics.setColor(new Color(100, 100, 100));
+    graphics.fillRect(0, 0, 500, 500);
+    graphics.dispose();
+    final File content = writeImage(image, "png");
+    final List<ThumbnailWithSize> thumbnails = createThumbnails("png:");
+    final ImageMetadata metadata = backend.generateThumbnails(thumbnails, false, content);
+    assertEquals("Gray", metadata.getColorSpace());
+
+    // The gray values should not change.
+    final int expectedGray = image.getRaster().getSample(0, 0, 0);
+    final BufferedImage thumbnail = readThumbnail(thumbnails.get(1));
+    assertEquals(new Color(expectedGray, expectedGray, expectedGray).getRGB(),
+        thumbnail.getRGB(200, 200));
+  }
+
+  @Test
+  void testRemoveAlpha() throws IOException, MediaExtractionException {
+    final BufferedImage image = new BufferedImage(500, 500, BufferedImage.TYPE_INT_ARGB);
+    final File content = writeImage(image, "png");
+
+    // Without removing the alpha, the thumbnail is transparent.
+    final List<ThumbnailWithSize> thumbnailsWithAlpha = createThumbnails("png:");
+    backend.generateThumbnails(thumbnailsWithAlpha, false, content);
+    assertEquals(0, readThumbnail(thumbnailsWithAlpha.get(0)).getRGB(100, 100) >>> 24);
+
+    // When removing the alpha, the thumbnail is white.
+    final List<ThumbnailWithSize> thumbnailsWithoutAlpha = createThumbnails("png:");
+    final ImageMetadata metadata = backend
+        .generateThumbnails(thumbnailsWithoutAlpha, true, content);
+    assertEquals(Color.WHITE.getRGB(), readThumbnail(thumbnailsWithoutAlpha.get(0))
+        .getRGB(100, 100));
+    assertEquals(Collections.singletonList("FFFFFF"), metadata.getDominantColors());
+  }
+
+  @Test
+  void testDominantColors() {
+    final int[] palette = backend.getPalette();
+    final BufferedImage image = new BufferedImage(400, 300, BufferedImage.TYPE_INT_RGB);
+    for (int y = 0; y < image.getHeight(); y++) {
+      for (int x = 0; x < image.getWidth(); x++) {
+        image.setRGB(x, y, palette[x < 100 ? 1 : 0]);
+      }
+    }
+    assertEquals(Arrays.asList(String.format("%06X", palette[0]),
+        String.format("%06X", palette[1])), backend.getDominantColors(image));
+  }
+
+  @Test
+  void testInvalidContent() throws IOException {
+    final File content = Files.createTempFile(tempDir, "content", null).toFile();
+    Files.write(content.toPath(), "This is no image.".getBytes(StandardCharsets.UTF_8));
+    final List<ThumbnailWithSize> thumbnails = createThumbnails("jpeg:");
+    assertThrows(MediaExtractionException.class,
+        () -> backend.generateThumbnails(thumbnails, false, content));
+    assertThrows(MediaExtractionException.class, () -> backend
+        .generateThumbnails(thumbnails, false, new File(tempDir.toFile(), "nonexistent")));
+    assertThrows(MediaExtractionException.class,
+        () -> backend.generateThumbnails(Collections.emptyList(), false, content));
+  }
+}
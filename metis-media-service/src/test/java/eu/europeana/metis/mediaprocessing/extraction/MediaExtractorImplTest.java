@@ -7,8 +7,11 @@ import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
@@ -25,6 +28,7 @@ import eu.europeana.metis.mediaprocessing.http.MimeTypeDetectHttpClient;
 import eu.europeana.metis.mediaprocessing.http.ResourceDownloadClient;
 import eu.europeana.metis.mediaprocessing.model.RdfResourceEntry;
 import eu.europeana.metis.mediaprocessing.model.Resource;
+import eu.europeana.metis.mediaprocessing.model.ResourceExtractionOutcome;
 import eu.europeana.metis.mediaprocessing.model.ResourceExtractionResultImpl;
 import eu.europeana.metis.mediaprocessing.model.UrlType;
 import eu.europeana.metis.utils.MediaType;
@@ -35,10 +39,13 @@ import java.net.URISyntaxException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.EnumSet;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
+import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.tika.Tika;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
@@ -287,6 +294,65 @@ class MediaExtractorImplTest {
     assertNull(mediaExtractor.performMediaExtraction(entry3, hasMainThumbnail ));
   }
 
+  @Test
+  void testPerformMediaExtractionForRecord() throws IOException, MediaExtractionException {
+
+    // Create two images, an audio resource, a resource not to process and a failing resource.
+    final boolean hasMainThumbnail = true;
+    final RdfResourceEntry imageEntry1 = new RdfResourceEntry("image 1", Collections.emptyList());
+    final RdfResourceEntry audioEntry = new RdfResourceEntry("audio", Collections.emptyList());
+    final RdfResourceEntry ignoredEntry = new RdfResourceEntry("ignored", Collections.emptyList());
+    final RdfResourceEntry failingEntry = new RdfResourceEntry("failing", Collections.emptyList());
+    final RdfResourceEntry imageEntry2 = new RdfResourceEntry("image 2", Collections.emptyList());
+    final Resource imageResource1 = mock(Resource.class);
+    final Resource audioResource = mock(Resource.class);
+    final Resource imageResource2 = mock(Resource.class);
+    doReturn(ProcessingMode.FULL).when(mediaExtractor).getMode(any());
+    doReturn(ProcessingMode.NONE).when(mediaExtractor).getMode(ignoredEntry);
+    doReturn(imageResource1).when(resourceDownloadClient).downloadBasedOnMimeType(imageEntry1);
+    doReturn(audioResource).when(resourceDownloadClient).downloadBasedOnMimeType(audioEntry);
+    doThrow(IOException.class).when(resourceDownloadClient).downloadBasedOnMimeType(failingEntry);
+    doReturn(imageResource2).when(resourceDownloadClient).downloadBasedOnMimeType(imageEntry2);
+    doReturn("image/jpeg").when(mediaExtractor).detectAndVerifyMimeType(imageResource1,
+        ProcessingMode.FULL);
+    doReturn("audio/mpeg").when(mediaExtractor).detectAndVerifyMimeType(audioResource,
+        ProcessingMode.FULL);
+    doReturn("image/png").when(mediaExtractor).detectAndVerifyMimeType(imageResource2,
+        ProcessingMode.FULL);
+    doNothing().when(mediaExtractor).verifyAndCorrectContentAvailability(any(), any(), any());
+
+    // Mock the processors.
+    final ResourceExtractionResultImpl audioResult = new ResourceExtractionResultImpl(null, null);
+    doReturn(audioResult).when(audioVideoProcessor)
+        .extractMetadata(audioResource, "audio/mpeg", hasMainThumbnail);
+    final ResourceExtractionOutcome imageOutcome1 = new ResourceExtractionOutcome(null, null);
+    final ResourceExtractionOutcome imageOutcome2 = new ResourceExtractionOutcome(null, null);
+    doReturn(Arrays.asList(imageOutcome1, imageOutcome2)).when(imageProcessor)
+        .extractMetadata(anyList());
+
+    // Make the call.
+    final List<ResourceExtractionOutcome> outcomes = mediaExtractor.performMediaExtraction(
+        Arrays.asList(imageEntry1, audioEntry, ignoredEntry, failingEntry, imageEntry2),
+        hasMainThumbnail);
+
+    // Verify that the images are processed together and that the results are in the right order.
+    verify(imageProcessor, times(1)).extractMetadata(Arrays.asList(
+        new ImmutablePair<>(imageResource1, "image/jpeg"),
+        new ImmutablePair<>(imageResource2, "image/png")));
+    verify(imageProcessor, never()).extractMetadata(any(), any(), anyBoolean());
+    assertEquals(5, outcomes.size());
+    assertSame(imageOutcome1, outcomes.get(0));
+    assertSame(audioResult, outcomes.get(1).getResult());
+    assertNull(outcomes.get(2).getResult());
+    assertThrows(MediaExtractionException.class, () -> outcomes.get(3).getResult());
+    assertSame(imageOutcome2, outcomes.get(4));
+
+    // Verify that all resources are closed.
+    verify(imageResource1).close();
+    verify(audioResource).close();
+    verify(imageResource2).close();
+  }
+
   @Test
   void testClose() throws IOException {
     mediaExtractor.close();
@@ -0,0 +1,120 @@
+package eu.europeana.metis.mediaprocessing.extraction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import eu.europeana.metis.mediaprocessing.exception.MediaExtractionException;
+import eu.europeana.metis.mediaprocessing.exception.MediaProcessorException;
+import eu.europeana.metis.mediaprocessing.model.Thumbnail;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import javax.imageio.ImageIO;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Compares the results of the {@link JavaThumbnailBackend} with those of ImageMagick. These tests
+ * are skipped if ImageMagick is not installed.
+ */
+class ThumbnailBackendDifferentialTest {
+
+  private static final double MAX_MEAN_PIXEL_DIFFERENCE = 12.0;
+
+  private static ThumbnailGenerator imageMagickGenerator;
+  private static ThumbnailGenerator javaGenerator;
+
+  @TempDir
+  Path tempDir;
+
+  @BeforeAll
+  static void createGenerators() throws MediaProcessorException {
+    final CommandExecutor commandExecutor = new CommandExecutor(30);
+    try {
+      imageMagickGenerator = new ThumbnailGenerator(commandExecutor);
+    } catch (MediaProcessorException e) {
+      imageMagickGenerator = null;
+    }
+    javaGenerator = imageMagickGenerator == null ? null
+        : new ThumbnailGenerator(commandExecutor, new JavaThumbnailBackend());
+  }
+
+  @Test
+  void testJavaBackendMatchesImageMagick() throws IOException, MediaExtractionException {
+    assumeTrue(imageMagickGenerator != null, "ImageMagick is not installed.");
+    testJavaBackendMatchesImageMagick("jpeg", "image/jpeg");
+    testJavaBackendMatchesImageMagick("png", "image/png");
+    testJavaBackendMatchesImageMagick("gif", "image/gif");
+    testJavaBackendMatchesImageMagick("bmp", "image/bmp");
+  }
+
+  private void testJavaBackendMatchesImageMagick(String format, String mimeType)
+      throws IOException, MediaExtractionException {
+
+    // Generate the thumbnails in both ways.
+    final File content = Files.createTempFile(tempDir, "image", "." + format).toFile();
+    assertTrue(ImageIO.write(JavaThumbnailBackendTest.createTestImage(900, 600), format, content));
+    final Pair<ImageMetadata, List<Thumbnail>> expected = imageMagickGenerator
+        .generateThumbnails("url", mimeType, content, false);
+    final Pair<ImageMetadata, List<Thumbnail>> actual = javaGenerator
+        .generateThumbnails("url", mimeType, content, false);
+
+    // Compare the metadata: the most dominant color should be one of ImageMagick's, and at least
+    // half of the dominant colors should be the same.
+    assertEquals(expected.getLeft().getWidth(), actual.getLeft().getWidth());
+    assertEquals(expected.getLeft().getHeight(), actual.getLeft().getHeight());
+    assertEquals(expected.getLeft().getColorSpace(), actual.getLeft().getColorSpace());
+    final List<String> expectedColors = expected.getLeft().getDominantColors();
+    final List<String> actualColors = actual.getLeft().getDominantColors();
+    assertTrue(expectedColors.contains(actualColors.get(0)));
+    final Set<String> commonColors = new HashSet<>(actualColors);
+    commonColors.retainAll(expectedColors);
+    assertTrue(commonColors.size() * 2 >= expectedColors.size(),
+        "Expected " + expectedColors + ", but was " + actualColors);
+
+    // Compare the thumbnails.
+    assertEquals(expected.getRight().size(), actual.getRight().size());
+    for (int i = 0; i < expected.getRight().size(); i++) {
+      try (Thumbnail expectedThumbnail = expected.getRight().get(i);
+          Thumbnail actualThumbnail = actual.getRight().get(i)) {
+        assertEquals(expectedThumbnail.getMimeType(), actualThumbnail.getMimeType());
+        assertEquals(expectedThumbnail.getTargetName(), actualThumbnail.getTargetName());
+        final BufferedImage expectedImage = readImage(expectedThumbnail);
+        final BufferedImage actualImage = readImage(actualThumbnail);
+        assertEquals(expectedImage.getWidth(), actualImage.getWidth());
+        assertEquals(expectedImage.getHeight(), actualImage.getHeight());
+        assertTrue(
+            getMeanPixelDifference(expectedImage, actualImage) < MAX_MEAN_PIXEL_DIFFERENCE);
+      }
+    }
+  }
+
+  private static BufferedImage readImage(Thumbnail thumbnail) throws IOException {
+    try (InputStream stream = thumbnail.getContentStream()) {
+      return ImageIO.read(stream);
+    }
+  }
+
+  private static double getMeanPixelDifference(BufferedImage image1, BufferedImage image2) {
+    long totalDifference = 0;
+    for (int y = 0; y < image1.getHeight(); y++) {
+      for (int x = 0; x < image1.getWidth(); x++) {
+        final int rgb1 = image1.getRGB(x, y);
+        final int rgb2 = image2.getRGB(x, y);
+        for (int shift = 0; shift < 24; shift += 8) {
+          totalDifference += Math.abs(((rgb1 >> shift) & 0xFF) - ((rgb2 >> shift) & 0xFF));
+        }
+      }
+    }
+    return (double) totalDifference / (3L * image1.getWidth() * image1.getHeight());
+  }
+}
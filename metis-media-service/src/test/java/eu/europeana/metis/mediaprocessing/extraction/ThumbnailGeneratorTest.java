@@ -2,16 +2,19 @@ package eu.europeana.metis.mediaprocessing.extraction;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.notNull;
 import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
@@ -24,6 +27,9 @@ import static org.mockito.Mockito.verify;
 
 import eu.europeana.metis.mediaprocessing.exception.MediaExtractionException;
 import eu.europeana.metis.mediaprocessing.exception.MediaProcessorException;
+import eu.europeana.metis.mediaprocessing.extraction.ThumbnailGenerator.BatchInput;
+import eu.europeana.metis.mediaprocessing.extraction.ThumbnailGenerator.BatchItem;
+import eu.europeana.metis.mediaprocessing.extraction.ThumbnailGenerator.BatchResult;
 import eu.europeana.metis.mediaprocessing.extraction.ThumbnailGenerator.ThumbnailWithSize;
 import eu.europeana.metis.mediaprocessing.model.Thumbnail;
 import eu.europeana.metis.mediaprocessing.model.ThumbnailImpl;
@@ -31,7 +37,9 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -42,6 +50,7 @@ import org.apache.commons.lang3.tuple.Pair;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.stubbing.Answer;
 
 class ThumbnailGeneratorTest {
 
@@ -157,7 +166,7 @@ class ThumbnailGeneratorTest {
     doReturn(commandResponse).when(commandExecutor).execute(eq(command), eq(false), any());
     doReturn(imageMetadata).when(thumbnailGenerator).parseCommandResponse(eq(commandResponse), any());
     doReturn(1024L).when(thumbnailGenerator).getFileSize(any());
-    doNothing().when(thumbnailGenerator).copyFile(any(Path.class), any());
+    doNothing().when(thumbnailGenerator).moveFile(any(), any());
     doNothing().when(thumbnailGenerator).copyFile(any(File.class), any());
 
     // Call the method and verify the result.
@@ -172,9 +181,10 @@ class ThumbnailGeneratorTest {
     verify(thumbnail2, times(1)).deleteTempFileSilently();
 
 
-    // Check that the generated thumbnail was used for thumbnail 1.
-    verify(thumbnailGenerator, times(1)).copyFile(any(Path.class), any());
-    verify(thumbnailGenerator, times(1)).copyFile(thumbnail1.getTempFileForThumbnail(), thumbnail1);
+    // Check that the generated thumbnail was used (and not copied) for thumbnail 1.
+    verify(thumbnailGenerator, times(1)).moveFile(any(), any());
+    verify(thumbnailGenerator, times(1)).moveFile(thumbnail1.getTempFileForThumbnail(), thumbnail1);
+    verify(thumbnailGenerator, never()).copyFile(any(Path.class), any());
 
     // Check that the content was used for thumbnail 2.
     verify(thumbnailGenerator, times(1)).copyFile(any(File.class), any());
@@ -215,6 +225,139 @@ class ThumbnailGeneratorTest {
     thumbnailGenerator.generateThumbnails(url, JPG_MIME_TYPE, content, false);
   }
 
+  private static String createImageMagickResponse(List<String> command) {
+    final String formatSuffix = "\n%w\n%h\n%[colorspace]\n";
+    return command.stream().filter(argument -> argument.contains(formatSuffix))
+        .map(argument -> argument.substring(0, argument.indexOf(formatSuffix)))
+        .map(marker -> marker + "\n200\n100\nsRGB\n" + marker + "\n\n" + marker
+            + "\n  10: (255,255,255) #FFFFFF white\n" + marker)
+        .collect(Collectors.joining());
+  }
+
+  @Test
+  void testBatchThumbnailGeneration() throws MediaExtractionException, IOException {
+
+    // Define the input: two images that can be processed and one with an unsupported type.
+    final File content1 = new File("content file 1");
+    final File content2 = new File("content file 2");
+    final List<BatchInput> input = Arrays.asList(
+        new BatchInput("url 1", JPG_MIME_TYPE, content1, false),
+        new BatchInput("url 2", "image/vnd.djvu", content2, false),
+        new BatchInput("url 3", PNG_MIME_TYPE, content2, true));
+
+    // Mock the command executor and the thumbnail generator.
+    final Answer<String> regularAnswer = invocation ->
+        createImageMagickResponse(invocation.getArgument(0));
+    doAnswer(regularAnswer).when(commandExecutor).execute(any(), eq(false), any());
+    doAnswer(regularAnswer).when(commandExecutor).execute(any(), anyInt(), eq(false), any());
+    doReturn(1024L).when(thumbnailGenerator).getFileSize(any());
+    doNothing().when(thumbnailGenerator).moveFile(any(), any());
+    doNothing().when(thumbnailGenerator).copyFile(any(File.class), any());
+
+    // The valid images should be processed in one invocation, with a timeout for two images.
+    final List<BatchResult> results = thumbnailGenerator.generateThumbnails(input);
+    verify(commandExecutor, times(1)).execute(any(), eq(2), eq(false), any());
+    verify(commandExecutor, never()).execute(any(), eq(false), any());
+    assertEquals(3, results.size());
+    final Pair<ImageMetadata, List<Thumbnail>> result1 = results.get(0)
+        .getThumbnailsAndMetadata();
+    assertEquals(200, result1.getLeft().getWidth());
+    assertEquals(100, result1.getLeft().getHeight());
+    assertEquals(Collections.singletonList("FFFFFF"), result1.getLeft().getDominantColors());
+    assertEquals(2, result1.getRight().size());
+    assertThrows(MediaExtractionException.class, () -> results.get(1).getThumbnailsAndMetadata());
+    final Pair<ImageMetadata, List<Thumbnail>> result3 = results.get(2)
+        .getThumbnailsAndMetadata();
+    assertEquals(2, result3.getRight().size());
+    assertEquals("image/png", result3.getRight().get(0).getMimeType());
+    closeThumbnails(results);
+
+    // If the batch fails, the images should be processed individually. Only the image that
+    // causes the failure should fail.
+    reset(commandExecutor);
+    final Answer<String> failingAnswer = invocation -> {
+      final List<String> command = invocation.getArgument(0);
+      if (command.contains(content1.getPath() + "[0]")) {
+        throw new MediaExtractionException("TEST", null);
+      }
+      return createImageMagickResponse(command);
+    };
+    doAnswer(failingAnswer).when(commandExecutor).execute(any(), eq(false), any());
+    doAnswer(failingAnswer).when(commandExecutor).execute(any(), anyInt(), eq(false), any());
+    final List<BatchResult> resultsAfterFailure = thumbnailGenerator.generateThumbnails(input);
+    verify(commandExecutor, times(1)).execute(any(), eq(2), eq(false), any());
+    verify(commandExecutor, times(2)).execute(any(), eq(false), any());
+    assertThrows(MediaExtractionException.class,
+        () -> resultsAfterFailure.get(0).getThumbnailsAndMetadata());
+    assertThrows(MediaExtractionException.class,
+        () -> resultsAfterFailure.get(1).getThumbnailsAndMetadata());
+    assertEquals(2, resultsAfterFailure.get(2).getThumbnailsAndMetadata().getRight().size());
+    closeThumbnails(resultsAfterFailure);
+
+    // If the result of the first image is missing, only that image should be processed again.
+    reset(commandExecutor);
+    final Answer<String> partialAnswer = invocation -> {
+      final List<String> command = invocation.getArgument(0);
+      final String response = createImageMagickResponse(command);
+      return command.contains("-respect-parentheses")
+          ? response.substring(response.length() / 2) : response;
+    };
+    doAnswer(partialAnswer).when(commandExecutor).execute(any(), eq(false), any());
+    doAnswer(partialAnswer).when(commandExecutor).execute(any(), anyInt(), eq(false), any());
+    final List<BatchResult> resultsAfterRetry = thumbnailGenerator.generateThumbnails(input);
+    verify(commandExecutor, times(1)).execute(any(), eq(2), eq(false), any());
+    verify(commandExecutor, times(1)).execute(any(), eq(false), any());
+    assertEquals(2, resultsAfterRetry.get(0).getThumbnailsAndMetadata().getRight().size());
+    assertEquals(2, resultsAfterRetry.get(2).getThumbnailsAndMetadata().getRight().size());
+    closeThumbnails(resultsAfterRetry);
+  }
+
+  private static void closeThumbnails(List<BatchResult> results) throws IOException {
+    for (BatchResult result : results) {
+      final List<Thumbnail> thumbnails;
+      try {
+        thumbnails = result.getThumbnailsAndMetadata().getRight();
+      } catch (MediaExtractionException e) {
+        continue;
+      }
+      for (Thumbnail thumbnail : thumbnails) {
+        thumbnail.close();
+      }
+    }
+  }
+
+  @Test
+  void testCreateBatchThumbnailGenerationCommand() {
+
+    // Define the input
+    final ThumbnailWithSize thumbnail1 = new ThumbnailWithSize(mock(ThumbnailImpl.class), 123,
+        Paths.get("File 1"), "prefix1");
+    final ThumbnailWithSize thumbnail2 = new ThumbnailWithSize(mock(ThumbnailImpl.class), 321,
+        Paths.get("File 2"), "prefix2");
+    final BatchItem item1 = new BatchItem(0,
+        new BatchInput("url 1", JPG_MIME_TYPE, new File("content file 1"), false),
+        Collections.singletonList(thumbnail1));
+    final BatchItem item2 = new BatchItem(1,
+        new BatchInput("url 2", PNG_MIME_TYPE, new File("content file 2"), true),
+        Collections.singletonList(thumbnail2));
+
+    // Make the call and verify: each image is processed in its own image sequence.
+    final List<String> command = thumbnailGenerator
+        .createBatchThumbnailGenerationCommand(Arrays.asList(item1, item2));
+    final List<String> expected = new ArrayList<>(Arrays.asList(IMAGE_MAGICK,
+        "-respect-parentheses", "("));
+    final List<String> singleCommand1 = thumbnailGenerator.createThumbnailGenerationCommand(
+        item1.getThumbnails(), false, item1.getInput().getContent(), item1.getContentMarker());
+    expected.addAll(singleCommand1.subList(1, singleCommand1.size() - 1));
+    expected.addAll(Arrays.asList("-write", "histogram:info:", ")", "("));
+    final List<String> singleCommand2 = thumbnailGenerator.createThumbnailGenerationCommand(
+        item2.getThumbnails(), true, item2.getInput().getContent(), item2.getContentMarker());
+    expected.addAll(singleCommand2.subList(1, singleCommand2.size() - 1));
+    expected.addAll(Arrays.asList("-write", "histogram:info:", ")", "null:"));
+    assertEquals(expected, command);
+    assertNotEquals(item1.getContentMarker(), item2.getContentMarker());
+  }
+
   private static String concat(List<String> input) {
     return String.join("\n", input);
   }
@@ -0,0 +1,280 @@
+package eu.europeana.metis.mediaprocessing.http;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.sun.net.httpserver.HttpServer;
+import eu.europeana.metis.mediaprocessing.http.HostDownloadScheduler.Permit;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class HostDownloadSchedulerTest {
+
+  private static final String HOST_A = "a.example.com";
+  private static final String HOST_B = "b.example.com";
+  private static final Duration TIMEOUT = Duration.ofHours(1);
+
+  private final AtomicLong clock = new AtomicLong(0);
+  private ExecutorService executor;
+
+  @BeforeEach
+  void setUp() {
+    executor = Executors.newCachedThreadPool();
+  }
+
+  @AfterEach
+  void tearDown() {
+    executor.shutdownNow();
+  }
+
+  private HostDownloadScheduler createScheduler(int maxConcurrentRequests,
+      int maxConcurrentRequestsPerHost, Duration minDelayPerHost) {
+    return new HostDownloadScheduler(maxConcurrentRequests, maxConcurrentRequestsPerHost,
+        minDelayPerHost, Duration.ofSeconds(1), Duration.ofSeconds(8), clock::get);
+  }
+
+  private static void awaitWaitingRequests(HostDownloadScheduler scheduler, int count)
+      throws InterruptedException {
+    final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (scheduler.getWaitingRequestCount() != count) {
+      if (System.nanoTime() > deadline) {
+        throw new IllegalStateException("Requests did not start waiting.");
+      }
+      Thread.sleep(5);
+    }
+  }
+
+  private static void assertBlocked(Future<?> future) {
+    assertThrows(TimeoutException.class, () -> future.get(100, TimeUnit.MILLISECONDS));
+  }
+
+  @Test
+  void testConcurrencyPerHost() throws Exception {
+    final HostDownloadScheduler scheduler = createScheduler(10, 2, Duration.ZERO);
+    final Permit permit1 = scheduler.acquire(HOST_A, TIMEOUT);
+    scheduler.acquire(HOST_A, TIMEOUT);
+
+    // A third request to the same host must wait, a request to another host need not.
+    final Future<Permit> blocked = executor.submit(() -> scheduler.acquire(HOST_A, TIMEOUT));
+    assertBlocked(blocked);
+    scheduler.acquire(HOST_B, TIMEOUT);
+    assertFalse(blocked.isDone());
+
+    // Releasing a permit for the host should allow the waiting request to proceed.
+    permit1.release(200, null);
+    blocked.get(5, TimeUnit.SECONDS);
+
+    // Releasing again should have no effect.
+    permit1.release(200, null);
+    assertBlocked(executor.submit(() -> scheduler.acquire(HOST_A, TIMEOUT)));
+  }
+
+  @Test
+  void testRoundRobinBetweenHosts() throws Exception {
+    final HostDownloadScheduler scheduler = createScheduler(1, 5, Duration.ZERO);
+    final Permit first = scheduler.acquire(HOST_A, TIMEOUT);
+
+    // Queue three requests for host A and then one for host B.
+    final List<String> grantOrder = Collections.synchronizedList(new ArrayList<>());
+    final List<Future<?>> requests = new ArrayList<>();
+    for (String host : Arrays.asList(HOST_A, HOST_A, HOST_A, HOST_B)) {
+      requests.add(executor.submit(() -> {
+        final Permit permit = scheduler.acquire(host, TIMEOUT);
+        grantOrder.add(host);
+        permit.release(200, null);
+        return null;
+      }));
+      awaitWaitingRequests(scheduler, requests.size());
+    }
+
+    // Host B should not have to wait for all requests of host A.
+    first.release(200, null);
+    for (Future<?> request : requests) {
+      request.get(5, TimeUnit.SECONDS);
+    }
+    assertEquals(Arrays.asList(HOST_A, HOST_B, HOST_A, HOST_A), grantOrder);
+  }
+
+  @Test
+  void testMinDelayPerHost() throws Exception {
+    final HostDownloadScheduler scheduler = createScheduler(10, 10, Duration.ofSeconds(2));
+    final Permit permitA = scheduler.acquire(HOST_A, TIMEOUT);
+    permitA.release(200, null);
+
+    // The next request to the same host must wait until the delay has passed.
+    final Future<Permit> blocked = executor.submit(() -> scheduler.acquire(HOST_A, TIMEOUT));
+    assertBlocked(blocked);
+    final Permit permitB = scheduler.acquire(HOST_B, TIMEOUT);
+    clock.addAndGet(TimeUnit.SECONDS.toNanos(2));
+    permitB.release(200, null);
+    blocked.get(5, TimeUnit.SECONDS);
+  }
+
+  @Test
+  void testBackoffAfterTooManyRequests() throws Exception {
+    final HostDownloadScheduler scheduler = createScheduler(10, 4, Duration.ZERO);
+    scheduler.acquire(HOST_A, TIMEOUT).release(429, null);
+
+    // The host should back off for the initial backoff delay.
+    final Future<Permit> blocked = executor.submit(() -> scheduler.acquire(HOST_A, TIMEOUT));
+    assertBlocked(blocked);
+    clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+    scheduler.acquire(HOST_B, TIMEOUT).release(200, null);
+    final Permit permit = blocked.get(5, TimeUnit.SECONDS);
+
+    // While backing off, requests to the host are serialized.
+    final Future<Permit> serialized = executor.submit(() -> scheduler.acquire(HOST_A, TIMEOUT));
+    assertBlocked(serialized);
+
+    // A second failure doubles the delay.
+    permit.release(503, null);
+    clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+    scheduler.acquire(HOST_B, TIMEOUT).release(200, null);
+    assertBlocked(serialized);
+    clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+    scheduler.acquire(HOST_B, TIMEOUT).release(200, null);
+    serialized.get(5, TimeUnit.SECONDS).release(200, null);
+  }
+
+  @Test
+  void testRetryAfterIsRespected() throws Exception {
+    final HostDownloadScheduler scheduler = createScheduler(10, 4, Duration.ZERO);
+    scheduler.acquire(HOST_A, TIMEOUT).release(429, Duration.ofSeconds(5));
+    final Future<Permit> blocked = executor.submit(() -> scheduler.acquire(HOST_A, TIMEOUT));
+    clock.addAndGet(TimeUnit.SECONDS.toNanos(4));
+    scheduler.acquire(HOST_B, TIMEOUT).release(200, null);
+    assertBlocked(blocked);
+    clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+    scheduler.acquire(HOST_B, TIMEOUT).release(200, null);
+    blocked.get(5, TimeUnit.SECONDS);
+  }
+
+  @Test
+  void testIdleHostsAreRemoved() throws InterruptedException, TimeoutException {
+    final HostDownloadScheduler scheduler = createScheduler(10, 4, Duration.ZERO);
+    for (int i = 0; i < 1000; i++) {
+      scheduler.acquire("host" + i + ".example.com", TIMEOUT).release(200, null);
+    }
+    assertEquals(0, scheduler.getTrackedHostCount());
+  }
+
+  @Test
+  void testClientsAgainstLocalServer() throws Exception {
+    final AtomicInteger concurrentRequests = new AtomicInteger();
+    final AtomicInteger maxConcurrentRequests = new AtomicInteger();
+    final AtomicInteger busyResponses = new AtomicInteger();
+    final HttpServer server = HttpServer
+        .create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    server.createContext("/resource", exchange -> {
+      maxConcurrentRequests.accumulateAndGet(concurrentRequests.incrementAndGet(), Math::max);
+      try {
+        Thread.sleep(20);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      concurrentRequests.decrementAndGet();
+      final byte[] content = "content".getBytes(StandardCharsets.UTF_8);
+      exchange.sendResponseHeaders(200, content.length);
+      try (OutputStream body = exchange.getResponseBody()) {
+        body.write(content);
+      }
+    });
+    server.createContext("/busy", exchange -> {
+      busyResponses.incrementAndGet();
+      exchange.sendResponseHeaders(429, -1);
+      exchange.close();
+    });
+    final ExecutorService serverExecutor = Executors.newCachedThreadPool();
+    server.setExecutor(serverExecutor);
+    server.start();
+    final String baseUrl = "http://" + server.getAddress().getHostString() + ":"
+        + server.getAddress().getPort();
+
+    // Use a real clock and a short backoff.
+    final HostDownloadScheduler scheduler = new HostDownloadScheduler(10, 2, Duration.ZERO,
+        Duration.ofMillis(300), Duration.ofSeconds(1), System::nanoTime);
+    try {
+
+      // Many concurrent downloads: the number of concurrent requests should be limited.
+      final List<Future<?>> downloads = new ArrayList<>();
+      for (int i = 0; i < 6; i++) {
+        downloads.add(executor.submit(() -> {
+          try (final LinkCheckClient client = new LinkCheckClient(0, scheduler)) {
+            for (int j = 0; j < 5; j++) {
+              client.download(baseUrl + "/resource");
+            }
+          }
+          return null;
+        }));
+      }
+      for (Future<?> download : downloads) {
+        download.get(30, TimeUnit.SECONDS);
+      }
+      assertTrue(maxConcurrentRequests.get() <= 2);
+
+      // After a 429 response, the next request to the host should be delayed.
+      try (final LinkCheckClient client = new LinkCheckClient(0, scheduler)) {
+        final long start = System.nanoTime();
+        assertThrows(IOException.class, () -> client.download(baseUrl + "/busy"));
+        client.download(baseUrl + "/resource");
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(250));
+        assertEquals(1, busyResponses.get());
+      }
+    } finally {
+      server.stop(0);
+      serverExecutor.shutdownNow();
+    }
+  }
+
+  @Test
+  void testTimeout() throws Exception {
+    final HostDownloadScheduler scheduler = createScheduler(2, 1, Duration.ZERO);
+    final Permit permit = scheduler.acquire(HOST_A, TIMEOUT);
+    final Future<Permit> blocked = executor
+        .submit(() -> scheduler.acquire(HOST_A, Duration.ofSeconds(1)));
+    awaitWaitingRequests(scheduler, 1);
+
+    // Let the time pass and wake up the waiting request: it should give up.
+    clock.addAndGet(Duration.ofSeconds(2).toNanos());
+    scheduler.acquire(HOST_B, TIMEOUT).release(200, null);
+    final ExecutionException exception = assertThrows(ExecutionException.class,
+        () -> blocked.get(5, TimeUnit.SECONDS));
+    assertTrue(exception.getCause() instanceof TimeoutException);
+    assertEquals(0, scheduler.getWaitingRequestCount());
+
+    // The host is still available to new requests.
+    permit.release(200, null);
+    scheduler.acquire(HOST_A, TIMEOUT).release(200, null);
+  }
+
+  @Test
+  void testInvalidSettings() {
+    assertThrows(IllegalArgumentException.class,
+        () -> new HostDownloadScheduler(0, 1, Duration.ZERO));
+    assertThrows(IllegalArgumentException.class,
+        () -> new HostDownloadScheduler(1, 0, Duration.ZERO));
+    assertThrows(IllegalArgumentException.class,
+        () -> new HostDownloadScheduler(1, 1, Duration.ofSeconds(-1)));
+  }
+}
@@ -0,0 +1,182 @@
+package eu.europeana.metis.mediaprocessing.http;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class HttpClientSchedulerTest {
+
+  private static final int CLIENT_COUNT = 8;
+  private static final int DOWNLOADS_PER_CLIENT = 50;
+
+  /**
+   * Some slack for threads that the JVM itself may start during the test (e.g. compiler threads).
+   */
+  private static final int MAX_NEW_THREADS = 10;
+
+  private static final byte[] CONTENT = "content".getBytes(StandardCharsets.UTF_8);
+
+  private static HttpServer server;
+  private static ThreadPoolExecutor serverExecutor;
+
+  @BeforeAll
+  static void startServer() throws IOException {
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    server.createContext("/fast", exchange -> {
+      exchange.sendResponseHeaders(200, CONTENT.length);
+      try (OutputStream body = exchange.getResponseBody()) {
+        body.write(CONTENT);
+      }
+    });
+    server.createContext("/slow", exchange -> {
+      try {
+        Thread.sleep(5_000);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      exchange.close();
+    });
+    serverExecutor = new ThreadPoolExecutor(CLIENT_COUNT + 2, CLIENT_COUNT + 2, 0,
+        TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
+    serverExecutor.prestartAllCoreThreads();
+    server.setExecutor(serverExecutor);
+    server.start();
+  }
+
+  @AfterAll
+  static void stopServer() {
+    server.stop(0);
+    serverExecutor.shutdownNow();
+  }
+
+  private static String getUrl(String path) {
+    return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort()
+        + path;
+  }
+
+  private static AbstractHttpClient<String, Integer> createClient(int requestTimeout) {
+    return new AbstractHttpClient<>(0, 1_000, 10_000, requestTimeout) {
+      @Override
+      protected String getResourceUrl(String resourceEntry) {
+        return resourceEntry;
+      }
+
+      @Override
+      protected Integer createResult(String resourceEntry, URI actualUri, String mimeType,
+          Long fileSize, ContentRetriever contentRetriever) throws IOException {
+        return contentRetriever.getContent().readAllBytes().length;
+      }
+    };
+  }
+
+  @Test
+  void testThreadCountStaysFlatUnderLoad() throws Exception {
+
+    // Create the clients and worker threads up front, and warm up the scheduler.
+    final List<AbstractHttpClient<String, Integer>> clients = new ArrayList<>();
+    for (int i = 0; i < CLIENT_COUNT; i++) {
+      clients.add(createClient(10_000));
+    }
+    assertEquals(CONTENT.length, (int) clients.get(0).download(getUrl("/fast")));
+    final ThreadPoolExecutor workers = new ThreadPoolExecutor(CLIENT_COUNT, CLIENT_COUNT, 0,
+        TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
+    workers.prestartAllCoreThreads();
+    final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+    final long startedThreadsBefore = threadBean.getTotalStartedThreadCount();
+
+    // Perform the downloads concurrently.
+    final AtomicInteger successes = new AtomicInteger();
+    final List<Future<?>> results = new ArrayList<>();
+    try {
+      for (AbstractHttpClient<String, Integer> client : clients) {
+        results.add(workers.submit(() -> {
+          for (int i = 0; i < DOWNLOADS_PER_CLIENT; i++) {
+            if (client.download(getUrl("/fast")) == CONTENT.length) {
+              successes.incrementAndGet();
+            }
+          }
+          return null;
+        }));
+      }
+      for (Future<?> result : results) {
+        result.get();
+      }
+    } finally {
+      workers.shutdownNow();
+      for (AbstractHttpClient<String, Integer> client : clients) {
+        client.close();
+      }
+    }
+
+    // Check that all downloads succeeded without creating a thread per download.
+    assertEquals(CLIENT_COUNT * DOWNLOADS_PER_CLIENT, successes.get());
+    final long newThreads = threadBean.getTotalStartedThreadCount() - startedThreadsBefore;
+    assertTrue(newThreads <= MAX_NEW_THREADS, "Threads started during downloads: " + newThreads);
+  }
+
+  @Test
+  void testRequestIsAbortedAfterTimeLimit() throws IOException {
+    try (final AbstractHttpClient<String, Integer> client = createClient(200)) {
+      final long start = System.nanoTime();
+      final IOException exception = assertThrows(IOException.class,
+          () -> client.download(getUrl("/slow")));
+      assertTrue(exception.getMessage().contains("time limit"));
+      assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(4));
+    }
+  }
+
+  @Test
+  void testCancelledTasksAreNotExecuted() throws InterruptedException, ExecutionException {
+    final AtomicInteger executions = new AtomicInteger();
+    final List<ScheduledFuture<?>> tasks = new ArrayList<>();
+    for (int i = 0; i < 10_000; i++) {
+      tasks.add(HttpClientScheduler.schedule(executions::incrementAndGet, 500,
+          TimeUnit.MILLISECONDS));
+    }
+    tasks.forEach(task -> task.cancel(false));
+
+    // A task scheduled later should be executed, and none of the cancelled ones.
+    final CountDownLatch latch = new CountDownLatch(1);
+    HttpClientScheduler.schedule(latch::countDown, 600, TimeUnit.MILLISECONDS).get();
+    assertTrue(latch.await(1, TimeUnit.SECONDS));
+    assertEquals(0, executions.get());
+    assertTrue(tasks.stream().allMatch(ScheduledFuture::isCancelled));
+  }
+
+  @Test
+  void testFailingPeriodicTaskKeepsRunning() throws InterruptedException {
+    final CountDownLatch latch = new CountDownLatch(3);
+    final ScheduledFuture<?> task = HttpClientScheduler.scheduleWithFixedDelay(() -> {
+      latch.countDown();
+      throw new IllegalStateException("Test failure.");
+    }, 0, 10, TimeUnit.MILLISECONDS);
+    try {
+      assertTrue(latch.await(5, TimeUnit.SECONDS));
+    } finally {
+      task.cancel(false);
+    }
+  }
+}
@@ -0,0 +1,138 @@
+package eu.europeana.metis.mediaprocessing.model;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+
+class ThumbnailImplTest {
+
+  private static byte[] createContent(int size) {
+    final byte[] result = new byte[size];
+    Arrays.fill(result, (byte) 7);
+    return result;
+  }
+
+  private static byte[] readContent(ThumbnailImpl thumbnail) throws IOException {
+    try (InputStream stream = thumbnail.getContentStream()) {
+      return stream.readAllBytes();
+    }
+  }
+
+  @Test
+  void testSmallContentIsKeptInMemory() throws IOException {
+    final byte[] content = createContent(100);
+    try (ThumbnailImpl thumbnail = new ThumbnailImpl("url", "image/jpeg", "target", 100)) {
+      assertFalse(thumbnail.hasContent());
+      thumbnail.markAsWithContent(new ByteArrayInputStream(content));
+      assertTrue(thumbnail.hasContent());
+      assertNull(thumbnail.getContentPath());
+      assertEquals(100L, thumbnail.getContentSize());
+      assertArrayEquals(content, readContent(thumbnail));
+      thumbnail.markAsNoContent();
+      assertFalse(thumbnail.hasContent());
+      assertEquals(0L, thumbnail.getContentSize());
+    }
+  }
+
+  @Test
+  void testLargeContentIsKeptInFile() throws IOException {
+    final byte[] content = createContent(101);
+    final Path contentPath;
+    try (ThumbnailImpl thumbnail = new ThumbnailImpl("url", "image/jpeg", "target", 100)) {
+      thumbnail.markAsWithContent(new ByteArrayInputStream(content));
+      assertTrue(thumbnail.hasContent());
+      contentPath = thumbnail.getContentPath();
+      assertNotNull(contentPath);
+      assertTrue(Files.exists(contentPath));
+      assertEquals(101L, thumbnail.getContentSize());
+      assertArrayEquals(content, readContent(thumbnail));
+    }
+    assertFalse(Files.exists(contentPath));
+  }
+
+  @Test
+  void testReplaceAndRemoveContent() throws IOException {
+    try (ThumbnailImpl thumbnail = new ThumbnailImpl("url", "image/jpeg", "target", 0)) {
+
+      // Replace file content with other file content
+      thumbnail.markAsWithContent(new ByteArrayInputStream(createContent(10)));
+      final Path firstPath = thumbnail.getContentPath();
+      assertNotNull(firstPath);
+      thumbnail.markAsWithContent(new ByteArrayInputStream(createContent(20)));
+      final Path secondPath = thumbnail.getContentPath();
+      assertNotNull(secondPath);
+      assertFalse(Files.exists(firstPath));
+      assertEquals(20L, thumbnail.getContentSize());
+
+      // Remove file content
+      thumbnail.markAsNoContent();
+      assertFalse(thumbnail.hasContent());
+      assertNull(thumbnail.getContentPath());
+      assertFalse(Files.exists(secondPath));
+
+      // Empty content is never kept in a file
+      thumbnail.markAsWithContent(new ByteArrayInputStream(new byte[0]));
+      assertFalse(thumbnail.hasContent());
+      assertNull(thumbnail.getContentPath());
+    }
+  }
+
+  @Test
+  void testTakeOverFile() throws IOException {
+    try (ThumbnailImpl thumbnail = new ThumbnailImpl("url", "image/jpeg", "target", 100)) {
+
+      // Small content is read into memory, and the file is removed.
+      final Path smallFile = Files.write(Files.createTempFile("test_", null), createContent(100));
+      thumbnail.markAsWithContent(smallFile);
+      assertFalse(Files.exists(smallFile));
+      assertNull(thumbnail.getContentPath());
+      assertArrayEquals(createContent(100), readContent(thumbnail));
+
+      // Large content is moved: the file is no longer in its original location.
+      final Path largeFile = Files.write(Files.createTempFile("test_", null), createContent(101));
+      thumbnail.markAsWithContent(largeFile);
+      assertFalse(Files.exists(largeFile));
+      final Path contentPath = thumbnail.getContentPath();
+      assertNotNull(contentPath);
+      assertArrayEquals(createContent(101), readContent(thumbnail));
+
+      // The content is removed as usual.
+      thumbnail.markAsNoContent();
+      assertFalse(Files.exists(contentPath));
+
+      // If the file doesn't exist, nothing changes.
+      assertThrows(IOException.class, () -> thumbnail.markAsWithContent(largeFile));
+      assertFalse(thumbnail.hasContent());
+    }
+  }
+
+  @Test
+  void testDefaultMaxInMemorySize() throws IOException {
+    try (ThumbnailImpl thumbnail = new ThumbnailImpl("url", "image/jpeg", "target")) {
+      thumbnail.markAsWithContent(new ByteArrayInputStream(
+          createContent((int) ThumbnailImpl.DEFAULT_MAX_IN_MEMORY_SIZE)));
+      assertNull(thumbnail.getContentPath());
+      thumbnail.markAsWithContent(new ByteArrayInputStream(
+          createContent((int) ThumbnailImpl.DEFAULT_MAX_IN_MEMORY_SIZE + 1)));
+      assertNotNull(thumbnail.getContentPath());
+    }
+  }
+
+  @Test
+  void testInvalidMaxInMemorySize() {
+    assertThrows(IllegalArgumentException.class,
+        () -> new ThumbnailImpl("url", "image/jpeg", "target", -1));
+  }
+}